@@ -0,0 +1,90 @@
+package com.qa.QACinema.Admission;
+
+import java.io.IOException;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Rejects write requests with 429 as soon as a client or the instance as a
+ * whole is over its rate, or too many writes are already running, instead
+ * of letting them queue for the database.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+	private final Set<String> paths;
+	private final RateLimiter clientLimiter;
+	private final RateLimiter globalLimiter;
+	private final ConcurrencyLimiter concurrencyLimiter;
+
+	public AdmissionFilter(Set<String> paths, RateLimiter clientLimiter, RateLimiter globalLimiter,
+			ConcurrencyLimiter concurrencyLimiter) {
+		this.paths = paths;
+		this.clientLimiter = clientLimiter;
+		this.globalLimiter = globalLimiter;
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"POST".equals(request.getMethod()) || !paths.contains(handlerPath(request));
+	}
+
+	/**
+	 * The path Spring MVC will map the request by: decoded and normalised by
+	 * the container with path parameters such as {@code ;jsessionid} removed,
+	 * and without the trailing slash or {@code .ext} suffix the default
+	 * suffix pattern matching ignores.
+	 */
+	static String handlerPath(HttpServletRequest request) {
+		String path = request.getServletPath();
+		if (request.getPathInfo() != null)
+			path += request.getPathInfo();
+		while (path.length() > 1 && path.endsWith("/"))
+			path = path.substring(0, path.length() - 1);
+		int slash = path.lastIndexOf('/');
+		int dot = path.lastIndexOf('.');
+		if (dot > slash + 1)
+			path = path.substring(0, dot);
+		return path;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		if (!admit(request.getRemoteAddr().hashCode())) {
+			response.setHeader("Retry-After", "1");
+			response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			concurrencyLimiter.release(System.nanoTime() - start);
+		}
+	}
+
+	// a request turned away by one limit gives back what the others granted it
+	private boolean admit(int client) {
+		if (!clientLimiter.tryAcquire(client))
+			return false;
+		if (!globalLimiter.tryAcquire(0)) {
+			clientLimiter.refund(client);
+			return false;
+		}
+		if (!concurrencyLimiter.tryAcquire()) {
+			globalLimiter.refund(0);
+			clientLimiter.refund(client);
+			return false;
+		}
+		return true;
+	}
+
+}
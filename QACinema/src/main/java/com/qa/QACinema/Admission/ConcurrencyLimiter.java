@@ -0,0 +1,83 @@
+package com.qa.QACinema.Admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many requests run at once, adjusting the cap from observed
+ * latency (AIMD). While requests finish close to the best latency seen
+ * recently the cap grows by about one per round; once they take more than
+ * {@code tolerance} times that, work is queueing somewhere downstream (the
+ * database, usually) and the cap is cut by a tenth.
+ *
+ * The cap is cut at most once per round trip: requests that were already
+ * running when it was last cut saw the old cap, so their latency says
+ * nothing about the new one, and a burst of them finishing slowly would
+ * otherwise cut it once each.
+ */
+public class ConcurrencyLimiter {
+
+	private static final double BACKOFF = 0.9;
+	private static final int BASELINE_WINDOW = 1000;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final int minLimit;
+	private final int maxLimit;
+	private final double tolerance;
+
+	private volatile double limit;
+
+	// guarded by this
+	private long baselineNanos = Long.MAX_VALUE;
+	private long windowMinNanos = Long.MAX_VALUE;
+	private int windowSamples;
+	private long lastBackoffNanos = Long.MIN_VALUE;
+
+	public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.tolerance = tolerance;
+	}
+
+	public boolean tryAcquire() {
+		if (inFlight.incrementAndGet() > (int) limit) {
+			inFlight.decrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	public void release(long latencyNanos) {
+		release(latencyNanos, System.nanoTime());
+	}
+
+	void release(long latencyNanos, long nowNanos) {
+		inFlight.decrementAndGet();
+		synchronized (this) {
+			// the baseline is the fastest request of the previous window, so it follows slow drifts
+			windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+			if (++windowSamples >= BASELINE_WINDOW || baselineNanos == Long.MAX_VALUE) {
+				baselineNanos = windowMinNanos;
+				windowMinNanos = Long.MAX_VALUE;
+				windowSamples = 0;
+			}
+			double current = limit;
+			if (latencyNanos <= baselineNanos * tolerance) {
+				limit = Math.min(maxLimit, current + 1 / current);
+			} else if (lastBackoffNanos == Long.MIN_VALUE || nowNanos - latencyNanos - lastBackoffNanos >= 0) {
+				// started after the last cut, so it ran under the current cap
+				limit = Math.max(minLimit, current * BACKOFF);
+				lastBackoffNanos = nowNanos;
+			}
+		}
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+}
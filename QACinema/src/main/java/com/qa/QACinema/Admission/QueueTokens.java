@@ -0,0 +1,100 @@
+package com.qa.QACinema.Admission;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Stateless, HMAC-signed waiting room tokens. A token carries its kind
+ * (queue ticket or admission pass), the instance that issued it, the ticket
+ * number and an expiry, so checking one needs no lookup.
+ *
+ * Ticket numbers only mean something against the counter of the instance
+ * that issued them, so tickets are only accepted there; clients must keep
+ * polling the same instance. Passes are accepted by every instance that
+ * shares the secret.
+ */
+public class QueueTokens {
+
+	public static final byte TICKET = 'T';
+	public static final byte PASS = 'P';
+
+	private static final int PAYLOAD = 25;
+	private static final int SIGNATURE = 16;
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final long instance = new SecureRandom().nextLong();
+	private final ThreadLocal<Mac> macs;
+
+	/**
+	 * @param secret shared by every instance that must accept the same tokens;
+	 *               blank for a random per-instance key
+	 */
+	public QueueTokens(String secret) {
+		byte[] key;
+		if (secret == null || secret.isEmpty()) {
+			key = new byte[32];
+			new SecureRandom().nextBytes(key);
+		} else {
+			key = secret.getBytes(StandardCharsets.UTF_8);
+		}
+		SecretKeySpec spec = new SecretKeySpec(key, "HmacSHA256");
+		this.macs = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance("HmacSHA256");
+				mac.init(spec);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	public String issue(byte kind, long ticket, long expiresAtMillis) {
+		byte[] payload = ByteBuffer.allocate(PAYLOAD).put(kind).putLong(instance).putLong(ticket)
+				.putLong(expiresAtMillis).array();
+		return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+	}
+
+	/**
+	 * @return the ticket number, or -1 if the token is malformed, forged,
+	 *         expired, of another kind, or a ticket from another instance
+	 */
+	public long verify(String token, byte kind) {
+		if (token == null)
+			return -1;
+		int dot = token.indexOf('.');
+		if (dot < 0)
+			return -1;
+		byte[] payload, signature;
+		try {
+			payload = DECODER.decode(token.substring(0, dot));
+			signature = DECODER.decode(token.substring(dot + 1));
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+		if (payload.length != PAYLOAD || !MessageDigest.isEqual(signature, sign(payload)))
+			return -1;
+		ByteBuffer buffer = ByteBuffer.wrap(payload);
+		if (buffer.get() != kind)
+			return -1;
+		if (buffer.getLong() != instance && kind == TICKET)
+			return -1;
+		long ticket = buffer.getLong();
+		return buffer.getLong() < System.currentTimeMillis() ? -1 : ticket;
+	}
+
+	private byte[] sign(byte[] payload) {
+		return Arrays.copyOf(macs.get().doFinal(payload), SIGNATURE);
+	}
+
+}
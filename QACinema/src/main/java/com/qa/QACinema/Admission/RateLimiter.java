@@ -0,0 +1,67 @@
+package com.qa.QACinema.Admission;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token buckets kept as lock-free striped cells. Each cell holds the
+ * theoretical arrival time of the next permit (the GCRA form of a token
+ * bucket), so taking a permit is one compare-and-set with no refill thread.
+ *
+ * Callers pick a stripe by hash. For per-client limits that is the client,
+ * so every client gets its own bucket except where hashes collide (which
+ * only ever makes a limit stricter). A global limit is a single stripe: one
+ * compare-and-set per request is cheap enough at any rate this guards.
+ */
+public class RateLimiter {
+
+	private final AtomicLongArray cells;
+	private final int mask;
+	private final int pad;
+	private final long intervalNanos;
+	private final long toleranceNanos;
+	private final long origin = System.nanoTime();
+
+	/**
+	 * @param permitsPerSecond sustained rate of each stripe
+	 * @param burst            permits a stripe may take at once after being idle
+	 * @param stripes          number of stripes, rounded up to a power of two
+	 */
+	public RateLimiter(double permitsPerSecond, int burst, int stripes) {
+		int size = 1;
+		while (size < stripes)
+			size <<= 1;
+		// few, hot stripes get a 64 byte cache line each; many per-client stripes stay dense
+		this.pad = size <= 1024 ? 8 : 1;
+		this.cells = new AtomicLongArray(size * pad);
+		this.mask = size - 1;
+		this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+		this.toleranceNanos = intervalNanos * Math.max(0, burst - 1);
+	}
+
+	public boolean tryAcquire(int hash) {
+		int index = (spread(hash) & mask) * pad;
+		long now = System.nanoTime() - origin;
+		for (;;) {
+			long arrival = cells.get(index);
+			long base = Math.max(arrival, now);
+			if (base - now > toleranceNanos)
+				return false;
+			if (cells.compareAndSet(index, arrival, base + intervalNanos))
+				return true;
+		}
+	}
+
+	/**
+	 * Gives back a permit taken by {@link #tryAcquire(int)} for a request that
+	 * was turned away by a later check. A stripe that has since gone idle
+	 * gains nothing from it, as an idle stripe is already at its full burst.
+	 */
+	public void refund(int hash) {
+		cells.addAndGet((spread(hash) & mask) * pad, -intervalNanos);
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.qa.QACinema.Admission;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qa.QACinema.Pojos.QueueStatus;
+
+/**
+ * A fair queue in front of the booking path. Joining takes the next ticket
+ * number from a counter, so the queue itself is lock-free FIFO order with
+ * no per-client state. A single ticker moves the admitted line forward at
+ * the configured rate, never past the last ticket issued, so unused
+ * capacity is not saved up for a burst.
+ *
+ * Clients hold a long poll or an event stream open while they wait. Those
+ * are parked here by ticket and only woken when their ticket is admitted,
+ * plus a periodic position update for the streams. Watchers are called on
+ * a separate pool, never on the ticker, so a slow client cannot hold up
+ * admission; a watcher still busy with one position update is skipped for
+ * the next.
+ */
+public class WaitingRoom {
+
+	private static final Logger log = LoggerFactory.getLogger(WaitingRoom.class);
+
+	private final QueueTokens tokens;
+	private final double admitPerTick;
+	private final double admitPerSecond;
+	private final long ticketTtlMillis;
+	private final long passTtlMillis;
+	private final int progressTicks;
+
+	private final AtomicLong issued = new AtomicLong();
+	private volatile long admitted;
+	private double carry;
+	private int ticks;
+
+	private final ConcurrentSkipListMap<Long, Queue<Watch>> watchers = new ConcurrentSkipListMap<>();
+	private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "waiting-room");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final ExecutorService notifier;
+
+	public WaitingRoom(QueueTokens tokens, double admitPerSecond, long tickMillis, long progressMillis,
+			long ticketTtlMillis, long passTtlMillis) {
+		this(tokens, admitPerSecond, tickMillis, progressMillis, ticketTtlMillis, passTtlMillis, true);
+	}
+
+	// tests drive tick() themselves
+	WaitingRoom(QueueTokens tokens, double admitPerSecond, long tickMillis, long progressMillis,
+			long ticketTtlMillis, long passTtlMillis, boolean scheduled) {
+		this.tokens = tokens;
+		this.admitPerSecond = admitPerSecond;
+		this.admitPerTick = admitPerSecond * tickMillis / 1000.0;
+		this.progressTicks = (int) Math.max(1, progressMillis / tickMillis);
+		this.ticketTtlMillis = ticketTtlMillis;
+		this.passTtlMillis = passTtlMillis;
+		AtomicInteger count = new AtomicInteger();
+		this.notifier = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+			Thread thread = new Thread(r, "waiting-room-notify-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (scheduled)
+			ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public QueueStatus join() {
+		long ticket = issued.incrementAndGet();
+		return status(ticket, tokens.issue(QueueTokens.TICKET, ticket, System.currentTimeMillis() + ticketTtlMillis));
+	}
+
+	/**
+	 * @return where the ticket stands, with a pass once it is admitted, or
+	 *         null if the ticket token is not valid
+	 */
+	public QueueStatus status(String ticketToken) {
+		long ticket = tokens.verify(ticketToken, QueueTokens.TICKET);
+		return ticket < 0 ? null : status(ticket, ticketToken);
+	}
+
+	public boolean isAdmitted(String passToken) {
+		return tokens.verify(passToken, QueueTokens.PASS) >= 0;
+	}
+
+	/**
+	 * Calls the watcher with the ticket's status once it is admitted and,
+	 * while it waits, every progress interval. The watcher returns false
+	 * when it no longer wants updates.
+	 */
+	public void watch(String ticketToken, Predicate<QueueStatus> watcher) {
+		long ticket = tokens.verify(ticketToken, QueueTokens.TICKET);
+		if (ticket < 0)
+			return;
+		Queue<Watch> queue = watchers.computeIfAbsent(ticket, t -> new ConcurrentLinkedQueue<>());
+		queue.add(new Watch(watcher));
+		// the ticker may have passed this ticket while we registered; watchers tolerate a second call
+		if (ticket <= admitted) {
+			watchers.remove(ticket, queue);
+			for (Watch parked : queue)
+				parked.watcher.test(status(ticket, null));
+		}
+	}
+
+	public void close() {
+		ticker.shutdownNow();
+		notifier.shutdownNow();
+	}
+
+	private QueueStatus status(long ticket, String ticketToken) {
+		long ahead = ticket - admitted;
+		if (ahead <= 0)
+			return new QueueStatus(true, 0, 0, ticketToken,
+					tokens.issue(QueueTokens.PASS, ticket, System.currentTimeMillis() + passTtlMillis));
+		return new QueueStatus(false, ahead, (long) Math.ceil(ahead / admitPerSecond), ticketToken, null);
+	}
+
+	void tick() {
+		try {
+			carry += admitPerTick;
+			long step = (long) carry;
+			carry -= step;
+			long line = admitted + step;
+			long last = issued.get();
+			if (line >= last) {
+				// nobody left to admit: capacity of an idle queue is not banked
+				line = Math.max(admitted, last);
+				carry = 0;
+			}
+			admitted = line;
+			notifyAdmitted(line);
+			if (++ticks % progressTicks == 0)
+				for (Map.Entry<Long, Queue<Watch>> entry : watchers.entrySet())
+					for (Watch watch : entry.getValue())
+						if (watch.busy.compareAndSet(false, true))
+							notifier.execute(() -> progress(entry.getKey(), entry.getValue(), watch));
+		} catch (RuntimeException e) {
+			log.warn("Waiting room tick failed", e);
+		}
+	}
+
+	private void notifyAdmitted(long line) {
+		ConcurrentNavigableMap<Long, Queue<Watch>> due = watchers.headMap(line, true);
+		Map.Entry<Long, Queue<Watch>> entry;
+		while ((entry = due.pollFirstEntry()) != null) {
+			long ticket = entry.getKey();
+			for (Watch watch : entry.getValue())
+				notifier.execute(() -> watch.watcher.test(status(ticket, null)));
+		}
+	}
+
+	private void progress(long ticket, Queue<Watch> queue, Watch watch) {
+		try {
+			if (!watch.watcher.test(status(ticket, null)))
+				queue.remove(watch);
+		} finally {
+			watch.busy.set(false);
+		}
+	}
+
+	private static final class Watch {
+
+		final Predicate<QueueStatus> watcher;
+		// set while a position update is queued or running, so a slow client builds no backlog
+		final AtomicBoolean busy = new AtomicBoolean();
+
+		Watch(Predicate<QueueStatus> watcher) {
+			this.watcher = watcher;
+		}
+
+	}
+
+}
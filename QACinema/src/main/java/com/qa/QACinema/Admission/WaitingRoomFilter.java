@@ -0,0 +1,54 @@
+package com.qa.QACinema.Admission;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Turns away requests to the queued paths that do not carry a valid
+ * waiting room pass in the {@value #PASS_HEADER} header, pointing them at
+ * the queue instead.
+ */
+public class WaitingRoomFilter extends OncePerRequestFilter {
+
+	public static final String PASS_HEADER = "X-Queue-Pass";
+
+	private final WaitingRoom waitingRoom;
+	private final String[] pathPrefixes;
+
+	public WaitingRoomFilter(WaitingRoom waitingRoom, String[] pathPrefixes) {
+		this.waitingRoom = waitingRoom;
+		this.pathPrefixes = pathPrefixes;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		// the container-normalised path, so encoded or ;jsessionid spellings cannot slip past
+		String path = request.getServletPath();
+		if (request.getPathInfo() != null)
+			path += request.getPathInfo();
+		for (String prefix : pathPrefixes)
+			if (path.startsWith(prefix))
+				return false;
+		return true;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		if (!waitingRoom.isAdmitted(request.getHeader(PASS_HEADER))) {
+			response.setHeader("Location", request.getContextPath() + "/queue");
+			response.setHeader("Retry-After", "1");
+			response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Join the queue at /queue");
+			return;
+		}
+		chain.doFilter(request, response);
+	}
+
+}
@@ -0,0 +1,226 @@
+package com.qa.QACinema.Analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qa.QACinema.Pojos.OccupancyView;
+import com.qa.QACinema.Pojos.SalesWindow;
+import com.qa.QACinema.Storage.ScreenRecord;
+import com.qa.QACinema.Storage.SeatMap;
+import com.qa.QACinema.Storage.ShowingRecord;
+
+/**
+ * Occupancy and sales per showing and screen, aggregated in memory from the
+ * booking events of the showings this instance serves. Totals are
+ * {@link LongAdder}s, so concurrent bookings do not contend on them, and
+ * recent activity is kept in {@link TumblingWindows}. Reading the dashboard
+ * touches no database; hourly and daily windows are written to the
+ * {@link RollupTable} in the background.
+ *
+ * A showing's capacity and the seats already booked are read once, on its
+ * first event here. Which screen a showing belongs to comes from the screen
+ * list, which is read in the background at startup and after every layout
+ * change; until it is, showings keep the screen they had.
+ */
+public class BookingAnalytics {
+
+	private static final Logger log = LoggerFactory.getLogger(BookingAnalytics.class);
+
+	private static final Resolution[] FLUSHED = { Resolution.HOUR, Resolution.DAY };
+
+	private final Function<String, SeatMap> seats;
+	private final Supplier<List<ScreenRecord>> screens;
+	private final RollupTable rollups;
+	private final ConcurrentMap<String, ShowingStats> showings = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "booking-analytics");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// showing id to {screen id, screen name}, replaced whole by refreshScreens
+	private volatile Map<String, String[]> screenOf = Collections.emptyMap();
+	private volatile boolean screensStale = true;
+
+	private static final class ShowingStats {
+
+		final int capacity;
+		final AtomicInteger occupied;
+		final LongAdder booked = new LongAdder();
+		final LongAdder released = new LongAdder();
+		final TumblingWindows windows = new TumblingWindows();
+
+		ShowingStats(int capacity, int occupied) {
+			this.capacity = capacity;
+			this.occupied = new AtomicInteger(occupied);
+		}
+	}
+
+	public BookingAnalytics(Function<String, SeatMap> seats, Supplier<List<ScreenRecord>> screens,
+			RollupTable rollups, long flushMillis) {
+		this.seats = seats;
+		this.screens = screens;
+		this.rollups = rollups;
+		scheduler.execute(this::refreshScreens);
+		scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public void booked(String showingId) {
+		record(showingId, 1);
+	}
+
+	public void released(String showingId) {
+		record(showingId, -1);
+	}
+
+	public void screensChanged() {
+		screensStale = true;
+		try {
+			scheduler.execute(this::refreshScreens);
+		} catch (RejectedExecutionException e) {
+			// closed; the final flush reads the screens itself
+		}
+	}
+
+	/** Showings with activity here, busiest first. */
+	public List<OccupancyView> getShowings() {
+		long now = System.currentTimeMillis();
+		Map<String, String[]> screenMap = screenOf;
+		List<OccupancyView> views = new ArrayList<>(showings.size());
+		showings.forEach((id, stats) -> {
+			String[] screen = screenMap.getOrDefault(id, new String[2]);
+			views.add(new OccupancyView(screen[0], screen[1], id, stats.capacity, stats.occupied.get(),
+					stats.booked.sum(), stats.released.sum(), stats.windows.bookedInLast(Resolution.MINUTE, 60, now)));
+		});
+		views.sort(Comparator.comparingLong(OccupancyView::getBookedLastHour).reversed());
+		return views;
+	}
+
+	/** The showings with activity here, added up by screen, busiest first. */
+	public List<OccupancyView> getScreens() {
+		Map<String, OccupancyView> byScreen = new HashMap<>();
+		for (OccupancyView showing : getShowings())
+			byScreen.merge(String.valueOf(showing.getScreenId()),
+					new OccupancyView(showing.getScreenId(), showing.getScreenName(), null, showing.getCapacity(),
+							showing.getOccupied(), showing.getBooked(), showing.getReleased(),
+							showing.getBookedLastHour()),
+					OccupancyView::plus);
+		List<OccupancyView> views = new ArrayList<>(byScreen.values());
+		views.sort(Comparator.comparingLong(OccupancyView::getBookedLastHour).reversed());
+		return views;
+	}
+
+	/**
+	 * @return the kept windows of the showing, oldest first, or null if it
+	 *         has had no activity here
+	 */
+	public List<SalesWindow> getSales(String showingId, Resolution resolution) {
+		ShowingStats stats = showings.get(showingId);
+		if (stats == null)
+			return null;
+		List<SalesWindow> sales = new ArrayList<>(resolution.getSlots());
+		for (TumblingWindows.Window window : stats.windows.series(resolution, System.currentTimeMillis()))
+			sales.add(new SalesWindow(window.start, window.booked, window.released));
+		return sales;
+	}
+
+	public void close() {
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	private void record(String showingId, int delta) {
+		long now = System.currentTimeMillis();
+		ShowingStats stats = showings.get(showingId);
+		boolean counted = false;
+		if (stats == null) {
+			SeatMap current = seats.apply(showingId);
+			if (current == null)
+				return;
+			// read after the change, so the seat count already includes it
+			ShowingStats created = new ShowingStats(current.getSeatCount(), current.getBooked().length);
+			stats = showings.putIfAbsent(showingId, created);
+			if (stats == null) {
+				stats = created;
+				counted = true;
+			}
+		}
+		if (!counted)
+			stats.occupied.addAndGet(delta);
+		(delta > 0 ? stats.booked : stats.released).increment();
+		stats.windows.record(now, delta > 0 ? 1 : 0, delta < 0 ? 1 : 0);
+	}
+
+	// runs on the scheduler; a change made while it reads queues another run
+	private void refreshScreens() {
+		if (!screensStale)
+			return;
+		screensStale = false;
+		try {
+			Map<String, String[]> map = new HashMap<>();
+			for (ScreenRecord screen : screens.get())
+				if (screen.getTime() != null)
+					for (ShowingRecord showing : screen.getTime())
+						map.put(showing.getId(), new String[] { screen.getId(), screen.getScreenName() });
+			screenOf = map;
+		} catch (RuntimeException e) {
+			// the next flush tries again
+			screensStale = true;
+			log.warn("Could not read screens for booking analytics", e);
+		}
+	}
+
+	private void flush() {
+		List<RollupTable.Row> rows = new ArrayList<>();
+		Map<String, List<TumblingWindows.Window>> taken = new HashMap<>();
+		refreshScreens();
+		if (screensStale)
+			return;
+		Map<String, String[]> screenMap = screenOf;
+		showings.forEach((id, stats) -> {
+			String[] screen = screenMap.getOrDefault(id, new String[2]);
+			for (Resolution resolution : FLUSHED) {
+				List<TumblingWindows.Window> changed = stats.windows.takeDirty(resolution);
+				taken.put(id + '/' + resolution, changed);
+				for (TumblingWindows.Window window : changed)
+					rows.add(new RollupTable.Row(id, screen[0], resolution, window.start, window.booked,
+							window.released));
+			}
+		});
+		try {
+			rollups.write(rows);
+		} catch (RuntimeException e) {
+			log.warn("Could not write booking rollups, will retry", e);
+			showings.forEach((id, stats) -> {
+				for (Resolution resolution : FLUSHED) {
+					List<TumblingWindows.Window> changed = taken.get(id + '/' + resolution);
+					if (changed != null)
+						stats.windows.restoreDirty(resolution, changed);
+				}
+			});
+		}
+	}
+
+}
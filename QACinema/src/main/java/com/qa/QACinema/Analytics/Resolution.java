@@ -0,0 +1,36 @@
+package com.qa.QACinema.Analytics;
+
+/**
+ * Tumbling window sizes, with how many recent windows of each are kept in
+ * memory.
+ */
+public enum Resolution {
+
+	MINUTE('m', 60_000L, 60),
+	HOUR('h', 3_600_000L, 48),
+	DAY('d', 86_400_000L, 31);
+
+	private final char code;
+	private final long widthMillis;
+	private final int slots;
+
+	Resolution(char code, long widthMillis, int slots) {
+		this.code = code;
+		this.widthMillis = widthMillis;
+		this.slots = slots;
+	}
+
+	/** How the resolution is stored in the rollup table. */
+	public char getCode() {
+		return code;
+	}
+
+	public long getWidthMillis() {
+		return widthMillis;
+	}
+
+	public int getSlots() {
+		return slots;
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.qa.QACinema.Analytics;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hourly and daily booking counts per showing in the shared database, for
+ * reports that reach further back than the in-memory windows. Each instance
+ * writes the absolute count of a window under its own origin, so writing a
+ * window again just replaces it, and instances never overwrite each other;
+ * a report sums over origins.
+ */
+public class RollupTable {
+
+	private final JdbcTemplate jdbc;
+	private final String origin = UUID.randomUUID().toString();
+
+	/** One window of one showing, ready to write. */
+	public static final class Row {
+
+		final String showingId;
+		final String screenId;
+		final Resolution resolution;
+		final long start;
+		final long booked;
+		final long released;
+
+		Row(String showingId, String screenId, Resolution resolution, long start, long booked, long released) {
+			this.showingId = showingId;
+			this.screenId = screenId;
+			this.resolution = resolution;
+			this.start = start;
+			this.booked = booked;
+			this.released = released;
+		}
+	}
+
+	public RollupTable(JdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+		jdbc.execute("create table if not exists booking_rollup (origin varchar(64) not null,"
+				+ " showing_id varchar(64) not null, screen_id varchar(64), resolution char(1) not null,"
+				+ " window_start timestamp not null, booked bigint not null, released bigint not null,"
+				+ " primary key (origin, showing_id, resolution, window_start))");
+	}
+
+	void write(List<Row> rows) {
+		if (rows.isEmpty())
+			return;
+		List<Object[]> updates = new ArrayList<>(rows.size());
+		for (Row row : rows)
+			updates.add(new Object[] { row.booked, row.released, row.screenId, origin, row.showingId,
+					String.valueOf(row.resolution.getCode()), new Timestamp(row.start) });
+		int[] updated = jdbc.batchUpdate("update booking_rollup set booked = ?, released = ?, screen_id = ?"
+				+ " where origin = ? and showing_id = ? and resolution = ? and window_start = ?", updates);
+		List<Object[]> inserts = new ArrayList<>();
+		for (int i = 0; i < rows.size(); i++)
+			if (updated[i] == 0) {
+				Row row = rows.get(i);
+				inserts.add(new Object[] { origin, row.showingId, row.screenId,
+						String.valueOf(row.resolution.getCode()), new Timestamp(row.start), row.booked,
+						row.released });
+			}
+		if (!inserts.isEmpty())
+			jdbc.batchUpdate("insert into booking_rollup (origin, showing_id, screen_id, resolution, window_start,"
+					+ " booked, released) values (?, ?, ?, ?, ?, ?, ?)", inserts);
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.qa.QACinema.Analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Booking and release counts of one showing in tumbling windows at every
+ * {@link Resolution}. Each resolution is a ring of slots in primitive
+ * arrays; a slot is reset when a new window reaches it, so only the most
+ * recent windows are kept. Windows changed since the last flush are marked
+ * dirty.
+ */
+final class TumblingWindows {
+
+	private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+	// all indexed by [resolution][slot], guarded by this
+	private final long[][] windows = new long[RESOLUTIONS.length][];
+	private final long[][] booked = new long[RESOLUTIONS.length][];
+	private final long[][] released = new long[RESOLUTIONS.length][];
+	private final boolean[][] dirty = new boolean[RESOLUTIONS.length][];
+
+	/** One window: when it starts, and its counts. */
+	static final class Window {
+
+		final long start;
+		final long booked;
+		final long released;
+
+		Window(long start, long booked, long released) {
+			this.start = start;
+			this.booked = booked;
+			this.released = released;
+		}
+	}
+
+	TumblingWindows() {
+		for (Resolution resolution : RESOLUTIONS) {
+			int r = resolution.ordinal();
+			windows[r] = new long[resolution.getSlots()];
+			booked[r] = new long[resolution.getSlots()];
+			released[r] = new long[resolution.getSlots()];
+			dirty[r] = new boolean[resolution.getSlots()];
+		}
+	}
+
+	synchronized void record(long now, int bookedDelta, int releasedDelta) {
+		for (Resolution resolution : RESOLUTIONS) {
+			int r = resolution.ordinal();
+			long window = now / resolution.getWidthMillis();
+			int slot = (int) (window % resolution.getSlots());
+			if (windows[r][slot] != window) {
+				windows[r][slot] = window;
+				booked[r][slot] = 0;
+				released[r][slot] = 0;
+			}
+			booked[r][slot] += bookedDelta;
+			released[r][slot] += releasedDelta;
+			dirty[r][slot] = true;
+		}
+	}
+
+	/** Bookings in the given number of most recent windows, the current one included. */
+	synchronized long bookedInLast(Resolution resolution, int count, long now) {
+		int r = resolution.ordinal();
+		long current = now / resolution.getWidthMillis();
+		long total = 0;
+		for (int slot = 0; slot < resolution.getSlots(); slot++)
+			if (windows[r][slot] > current - count && windows[r][slot] <= current)
+				total += booked[r][slot];
+		return total;
+	}
+
+	/** Every kept window up to now, oldest first, including empty ones. */
+	synchronized List<Window> series(Resolution resolution, long now) {
+		int r = resolution.ordinal();
+		long current = now / resolution.getWidthMillis();
+		List<Window> series = new ArrayList<>(resolution.getSlots());
+		for (long window = current - resolution.getSlots() + 1; window <= current; window++) {
+			int slot = (int) (window % resolution.getSlots());
+			boolean live = windows[r][slot] == window;
+			series.add(new Window(window * resolution.getWidthMillis(), live ? booked[r][slot] : 0,
+					live ? released[r][slot] : 0));
+		}
+		return series;
+	}
+
+	/** Takes the windows changed since the last call. */
+	synchronized List<Window> takeDirty(Resolution resolution) {
+		int r = resolution.ordinal();
+		List<Window> changed = new ArrayList<>();
+		for (int slot = 0; slot < resolution.getSlots(); slot++)
+			if (dirty[r][slot]) {
+				dirty[r][slot] = false;
+				changed.add(new Window(windows[r][slot] * resolution.getWidthMillis(), booked[r][slot],
+						released[r][slot]));
+			}
+		return changed;
+	}
+
+	/** Marks windows taken by {@link #takeDirty} as changed again, if they are still kept. */
+	synchronized void restoreDirty(Resolution resolution, List<Window> changed) {
+		int r = resolution.ordinal();
+		for (Window window : changed) {
+			long index = window.start / resolution.getWidthMillis();
+			int slot = (int) (index % resolution.getSlots());
+			if (windows[r][slot] == index)
+				dirty[r][slot] = true;
+		}
+	}
+
+}
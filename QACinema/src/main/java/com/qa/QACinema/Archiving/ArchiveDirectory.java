@@ -0,0 +1,100 @@
+package com.qa.QACinema.Archiving;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.QACinema.Entities.MonthBucket;
+import com.qa.QACinema.Pojos.MessageView;
+
+/**
+ * Gzipped, newline-delimited JSON archive parts, one file per batch of rows
+ * moved out of a table. A part is named after its table, month and id
+ * range, e.g. {@code general_message-2024-03-1001-6000.ndjson.gz}, and only
+ * appears under that name once it is completely written.
+ */
+public class ArchiveDirectory {
+
+	private static final String SUFFIX = ".ndjson.gz";
+	private static final Pattern RANGE = Pattern.compile("-(\\d+)-(\\d+)" + Pattern.quote(SUFFIX));
+
+	private final Path directory;
+	private final ObjectMapper objectMapper;
+
+	public ArchiveDirectory(Path directory, ObjectMapper objectMapper) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * @return the {first, last} id range of every part already written for
+	 *         the table's bucket
+	 */
+	public List<long[]> parts(String table, int bucket) throws IOException {
+		String prefix = prefix(table, bucket);
+		List<long[]> ranges = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + SUFFIX)) {
+			for (Path file : files) {
+				Matcher matcher = RANGE.matcher(file.getFileName().toString().substring(prefix.length()));
+				if (matcher.matches())
+					ranges.add(new long[] { Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)) });
+			}
+		}
+		return ranges;
+	}
+
+	/** Writes rows, in id order, as one part. */
+	public void write(String table, int bucket, List<? extends MessageView> rows) throws IOException {
+		String name = name(table, bucket, rows.get(0).getId(), rows.get(rows.size() - 1).getId());
+		Path temp = Files.createTempFile(directory, name, ".tmp");
+		try {
+			try (FileOutputStream file = new FileOutputStream(temp.toFile());
+					GZIPOutputStream out = new GZIPOutputStream(file, 64 * 1024)) {
+				for (MessageView row : rows) {
+					out.write(objectMapper.writeValueAsBytes(row));
+					out.write('\n');
+				}
+				out.finish();
+				// the rows are deleted from the table once the part is in place
+				file.getFD().sync();
+			}
+			Files.move(temp, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/** @return the ids of the rows in a part, as returned by {@link #parts} */
+	public List<Long> ids(String table, int bucket, long[] part) throws IOException {
+		List<Long> ids = new ArrayList<>();
+		Path file = directory.resolve(name(table, bucket, part[0], part[1]));
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+			for (String line; (line = in.readLine()) != null;)
+				ids.add(objectMapper.readTree(line).get("id").asLong());
+		}
+		return ids;
+	}
+
+	private static String name(String table, int bucket, long firstId, long lastId) {
+		return prefix(table, bucket) + "-" + firstId + "-" + lastId + SUFFIX;
+	}
+
+	private static String prefix(String table, int bucket) {
+		return table + "-" + MonthBucket.label(bucket);
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.qa.QACinema.Caching;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A JSON body serialised and gzipped once for one version of a resource.
+ */
+public class EncodedResponse {
+
+	private final long version;
+	private final byte[] json;
+	private final byte[] gzipped;
+	private final String etag;
+
+	EncodedResponse(long version, byte[] json, byte[] gzipped) {
+		this.version = version;
+		this.json = json;
+		this.gzipped = gzipped;
+		// from the content, not the version counter, which starts again on every instance and restart
+		this.etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public ResponseEntity<byte[]> toResponse(String acceptEncoding, String ifNoneMatch) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag(etag);
+		headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (matches(ifNoneMatch))
+			return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+		headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+		// already-encoded bodies are left alone by the container's own compression
+		if (gzipped != null && acceptsGzip(acceptEncoding)) {
+			headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+			return new ResponseEntity<>(gzipped, headers, HttpStatus.OK);
+		}
+		return new ResponseEntity<>(json, headers, HttpStatus.OK);
+	}
+
+	private boolean matches(String ifNoneMatch) {
+		if (ifNoneMatch == null)
+			return false;
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/"))
+				candidate = candidate.substring(2);
+			if (candidate.equals("*") || candidate.equals(etag))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Whether gzip is acceptable, honouring q-values: {@code gzip;q=0} refuses
+	 * it, and a positive {@code *} allows it unless gzip is listed.
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null)
+			return false;
+		Double gzip = null;
+		Double any = null;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim().toLowerCase();
+			double q = 1;
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+					try {
+						q = Double.parseDouble(parameter.substring(2).trim());
+					} catch (NumberFormatException e) {
+						q = 0;
+					}
+				}
+			}
+			if (name.equals("gzip") || name.equals("x-gzip"))
+				gzip = gzip == null ? q : Math.max(gzip, q);
+			else if (name.equals("*"))
+				any = q;
+		}
+		if (gzip != null)
+			return gzip > 0;
+		return any != null && any > 0;
+	}
+
+}
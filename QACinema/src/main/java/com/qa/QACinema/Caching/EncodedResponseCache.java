@@ -0,0 +1,84 @@
+package com.qa.QACinema.Caching;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Ready-to-send bodies for read-mostly listings. Each resource has a version
+ * that writers bump with {@link #invalidate(String)}; until then every read
+ * is served from the same serialised and compressed bytes.
+ */
+@Component
+public class EncodedResponseCache {
+
+	public static final String SCREENS = "screens";
+	public static final String INTRODUCTION = "introduction";
+	public static final String NEW_MOVIES = "newmovies";
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${server.compression.min-response-size:2048}")
+	private int compressionThreshold;
+
+	private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, EncodedResponse> responses = new ConcurrentHashMap<>();
+
+	public EncodedResponse get(String resource, Supplier<?> loader) {
+		long version = version(resource).get();
+		EncodedResponse cached = responses.get(resource);
+		if (cached != null && cached.getVersion() == version)
+			return cached;
+		// a write while we load bumps the version, so this entry is simply never served
+		EncodedResponse encoded = encode(version, loader.get());
+		responses.merge(resource, encoded, (old, fresh) -> fresh.getVersion() >= old.getVersion() ? fresh : old);
+		return encoded;
+	}
+
+	public void invalidate(String resource) {
+		version(resource).incrementAndGet();
+	}
+
+	private AtomicLong version(String resource) {
+		return versions.computeIfAbsent(resource, r -> new AtomicLong());
+	}
+
+	private EncodedResponse encode(long version, Object body) {
+		try {
+			byte[] json = objectMapper.writeValueAsBytes(body);
+			return new EncodedResponse(version, json, json.length >= compressionThreshold ? gzip(json) : null);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialise " + body, e);
+		}
+	}
+
+	// compressed once per version, so spend the CPU on the best ratio
+	private static byte[] gzip(byte[] data) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes) {
+			{
+				def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		}) {
+			out.write(data);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+}
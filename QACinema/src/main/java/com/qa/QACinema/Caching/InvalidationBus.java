@@ -0,0 +1,15 @@
+package com.qa.QACinema.Caching;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts the names of changed cached resources to the other instances
+ * of the application. A bus never delivers an instance its own messages.
+ */
+public interface InvalidationBus {
+
+	void publish(String resource);
+
+	void subscribe(Consumer<String> listener);
+
+}
@@ -0,0 +1,145 @@
+package com.qa.QACinema.Caching;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Invalidation bus over a change-sequence table in the shared database.
+ * Every row is one resource change, and its sequence number is the message
+ * version.
+ *
+ * Publishing is batched. Names published within one batch interval are
+ * coalesced and written in a single JDBC batch. Every instance polls for
+ * rows past the highest sequence it has seen. It hands each changed
+ * resource to its listeners once per poll and skips its own rows.
+ *
+ * The poll re-reads a window of recent sequence numbers. A row from a
+ * transaction that committed late, behind a higher sequence, is therefore
+ * still picked up. The set of sequences already delivered keeps those
+ * rows from being delivered twice.
+ */
+public class JdbcInvalidationBus implements InvalidationBus {
+
+	private static final Logger log = LoggerFactory.getLogger(JdbcInvalidationBus.class);
+
+	private static final long LOOKBACK = 1000;
+
+	private final JdbcTemplate jdbc;
+	private final String origin = UUID.randomUUID().toString();
+	private final long retentionMillis;
+	private final Set<String> pending = ConcurrentHashMap.newKeySet();
+	private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "cache-invalidation");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// only touched by the scheduler thread, after the constructor
+	private final NavigableSet<Long> seen = new TreeSet<>();
+	private long highest;
+
+	public JdbcInvalidationBus(JdbcTemplate jdbc, long batchMillis, long pollMillis, long retentionMillis) {
+		this.jdbc = jdbc;
+		this.retentionMillis = retentionMillis;
+		jdbc.execute("create table if not exists cache_invalidation (seq bigint auto_increment primary key,"
+				+ " origin varchar(64) not null, resource varchar(255) not null, created timestamp not null)");
+		// start from the current tail: history only describes caches this instance never filled
+		poll(false);
+		scheduler.scheduleWithFixedDelay(this::flush, batchMillis, batchMillis, TimeUnit.MILLISECONDS);
+		scheduler.scheduleWithFixedDelay(() -> poll(true), pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+		scheduler.scheduleWithFixedDelay(this::purge, retentionMillis, retentionMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void publish(String resource) {
+		pending.add(resource);
+	}
+
+	@Override
+	public void subscribe(Consumer<String> listener) {
+		listeners.add(listener);
+	}
+
+	public void close() {
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	private void flush() {
+		List<String> batch = new ArrayList<>();
+		for (Iterator<String> it = pending.iterator(); it.hasNext();) {
+			batch.add(it.next());
+			it.remove();
+		}
+		if (batch.isEmpty())
+			return;
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		try {
+			jdbc.batchUpdate("insert into cache_invalidation (origin, resource, created) values (?, ?, ?)", batch,
+					batch.size(), (ps, resource) -> {
+						ps.setString(1, origin);
+						ps.setString(2, resource);
+						ps.setTimestamp(3, now);
+					});
+		} catch (RuntimeException e) {
+			pending.addAll(batch);
+			log.warn("Could not publish cache invalidations, will retry", e);
+		}
+	}
+
+	private void poll(boolean deliver) {
+		Set<String> changed = new LinkedHashSet<>();
+		try {
+			jdbc.query("select seq, origin, resource from cache_invalidation where seq > ? order by seq", rs -> {
+				long seq = rs.getLong(1);
+				if (!seen.add(seq))
+					return;
+				highest = Math.max(highest, seq);
+				if (!origin.equals(rs.getString(2)))
+					changed.add(rs.getString(3));
+			}, Math.max(0, highest - LOOKBACK));
+		} catch (RuntimeException e) {
+			log.warn("Could not poll cache invalidations", e);
+			return;
+		}
+		seen.headSet(highest - LOOKBACK, true).clear();
+		if (!deliver)
+			return;
+		for (String resource : changed)
+			for (Consumer<String> listener : listeners)
+				listener.accept(resource);
+	}
+
+	private void purge() {
+		try {
+			jdbc.update("delete from cache_invalidation where created < ?",
+					new Timestamp(System.currentTimeMillis() - retentionMillis));
+		} catch (RuntimeException e) {
+			log.warn("Could not purge cache invalidations", e);
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.qa.QACinema.Caching;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation bus between instances running in the same JVM, joined by
+ * channel name. A lone instance simply never hears anything, and two
+ * application contexts on one channel behave like two nodes.
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+
+	private static final Map<String, List<LocalInvalidationBus>> CHANNELS = new ConcurrentHashMap<>();
+
+	private final List<LocalInvalidationBus> members;
+	private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+	public LocalInvalidationBus(String channel) {
+		this.members = CHANNELS.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>());
+		members.add(this);
+	}
+
+	@Override
+	public void publish(String resource) {
+		for (LocalInvalidationBus member : members)
+			if (member != this)
+				member.deliver(resource);
+	}
+
+	@Override
+	public void subscribe(Consumer<String> listener) {
+		listeners.add(listener);
+	}
+
+	public void close() {
+		members.remove(this);
+	}
+
+	private void deliver(String resource) {
+		for (Consumer<String> listener : listeners)
+			listener.accept(resource);
+	}
+
+}
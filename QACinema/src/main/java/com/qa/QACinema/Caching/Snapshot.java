@@ -0,0 +1,61 @@
+package com.qa.QACinema.Caching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * An immutable copy of a small, read-mostly collection. Reads of a current
+ * snapshot take no lock; once it is marked stale the next reader (or the
+ * writer, via {@link #refresh()}) reloads it, one loader at a time.
+ */
+public final class Snapshot<T> {
+
+	private final Supplier<List<T>> loader;
+	private final AtomicLong version = new AtomicLong();
+	private volatile Loaded<T> current;
+
+	Snapshot(Supplier<List<T>> loader) {
+		this.loader = loader;
+	}
+
+	public List<T> get() {
+		Loaded<T> loaded = current;
+		if (loaded != null && loaded.version == version.get())
+			return loaded.items;
+		synchronized (this) {
+			long wanted = version.get();
+			loaded = current;
+			if (loaded != null && loaded.version == wanted)
+				return loaded.items;
+			// a write during the load bumps the version again, so stale items are never kept
+			loaded = new Loaded<>(wanted, Collections.unmodifiableList(new ArrayList<>(loader.get())));
+			current = loaded;
+			return loaded.items;
+		}
+	}
+
+	void markStale() {
+		version.incrementAndGet();
+	}
+
+	void refresh() {
+		markStale();
+		get();
+	}
+
+	private static final class Loaded<T> {
+
+		final long version;
+		final List<T> items;
+
+		Loaded(long version, List<T> items) {
+			this.version = version;
+			this.items = items;
+		}
+
+	}
+
+}
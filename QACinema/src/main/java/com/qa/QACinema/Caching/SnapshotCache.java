@@ -0,0 +1,59 @@
+package com.qa.QACinema.Caching;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Second tier under {@link EncodedResponseCache}: in-process snapshots of
+ * the homepage collections. A local write reloads its snapshot straight
+ * away and tells the other instances over the {@link InvalidationBus},
+ * which then reload on their next read; either way the encoded response
+ * for the resource is dropped as well. Resources without a snapshot, such
+ * as the screen listing, only have their encoded response invalidated.
+ */
+@Component
+public class SnapshotCache {
+
+	@Autowired
+	private EncodedResponseCache responseCache;
+
+	@Autowired
+	private InvalidationBus bus;
+
+	private final ConcurrentMap<String, Snapshot<?>> snapshots = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void listen() {
+		bus.subscribe(this::remoteChange);
+	}
+
+	public <T> Snapshot<T> register(String resource, Supplier<List<T>> loader) {
+		Snapshot<T> snapshot = new Snapshot<>(loader);
+		if (snapshots.putIfAbsent(resource, snapshot) != null)
+			throw new IllegalStateException("Snapshot already registered for " + resource);
+		return snapshot;
+	}
+
+	public void refresh(String resource) {
+		Snapshot<?> snapshot = snapshots.get(resource);
+		if (snapshot != null)
+			snapshot.refresh();
+		responseCache.invalidate(resource);
+		bus.publish(resource);
+	}
+
+	private void remoteChange(String resource) {
+		Snapshot<?> snapshot = snapshots.get(resource);
+		if (snapshot != null)
+			snapshot.markStale();
+		responseCache.invalidate(resource);
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.qa.QACinema.Configuration;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.qa.QACinema.Admission.AdmissionFilter;
+import com.qa.QACinema.Admission.ConcurrencyLimiter;
+import com.qa.QACinema.Admission.QueueTokens;
+import com.qa.QACinema.Admission.RateLimiter;
+import com.qa.QACinema.Admission.WaitingRoom;
+import com.qa.QACinema.Admission.WaitingRoomFilter;
+
+/**
+ * Rate and concurrency limits for the write endpoints, and the waiting room
+ * in front of the booking path. Both filters run ahead of Spring Security
+ * so a rejected request costs no authentication work.
+ */
+@Configuration
+public class AdmissionConfig {
+
+	@Value("${qacinema.admission.paths:/generalmessages,/newmovies,/introduction,/register,/Screen}")
+	private String[] paths;
+
+	@Value("${qacinema.admission.client.rate:5}")
+	private double clientRate;
+
+	@Value("${qacinema.admission.client.burst:20}")
+	private int clientBurst;
+
+	@Value("${qacinema.admission.client.stripes:65536}")
+	private int clientStripes;
+
+	@Value("${qacinema.admission.global.rate:500}")
+	private double globalRate;
+
+	@Value("${qacinema.admission.global.burst:1000}")
+	private int globalBurst;
+
+	@Value("${qacinema.admission.concurrency.initial:20}")
+	private int initialConcurrency;
+
+	@Value("${qacinema.admission.concurrency.min:4}")
+	private int minConcurrency;
+
+	@Value("${qacinema.admission.concurrency.max:200}")
+	private int maxConcurrency;
+
+	@Value("${qacinema.admission.concurrency.latency-tolerance:2.0}")
+	private double latencyTolerance;
+
+	@Value("${qacinema.waitingroom.enabled:false}")
+	private boolean waitingRoomEnabled;
+
+	@Value("${qacinema.waitingroom.paths:/showings/}")
+	private String[] waitingRoomPaths;
+
+	@Value("${qacinema.waitingroom.admit-per-second:50}")
+	private double admitPerSecond;
+
+	@Value("${qacinema.waitingroom.secret:}")
+	private String waitingRoomSecret;
+
+	@Value("${qacinema.waitingroom.tick-millis:100}")
+	private long tickMillis;
+
+	@Value("${qacinema.waitingroom.progress-millis:5000}")
+	private long progressMillis;
+
+	@Value("${qacinema.waitingroom.ticket-ttl-seconds:7200}")
+	private long ticketTtlSeconds;
+
+	@Value("${qacinema.waitingroom.pass-ttl-seconds:900}")
+	private long passTtlSeconds;
+
+	@Bean
+	public ConcurrencyLimiter writeConcurrencyLimiter() {
+		return new ConcurrencyLimiter(initialConcurrency, minConcurrency, maxConcurrency, latencyTolerance);
+	}
+
+	@Bean
+	public FilterRegistrationBean admissionFilter(ConcurrencyLimiter writeConcurrencyLimiter) {
+		RateLimiter clientLimiter = new RateLimiter(clientRate, clientBurst, clientStripes);
+		// one bucket, so any thread may use the whole instance rate
+		RateLimiter globalLimiter = new RateLimiter(globalRate, globalBurst, 1);
+		FilterRegistrationBean registration = new FilterRegistrationBean(new AdmissionFilter(
+				new HashSet<>(Arrays.asList(paths)), clientLimiter, globalLimiter, writeConcurrencyLimiter));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+
+	@Bean(destroyMethod = "close")
+	public WaitingRoom waitingRoom() {
+		return new WaitingRoom(new QueueTokens(waitingRoomSecret), admitPerSecond, tickMillis, progressMillis,
+				ticketTtlSeconds * 1000, passTtlSeconds * 1000);
+	}
+
+	@Bean
+	public FilterRegistrationBean waitingRoomFilter(WaitingRoom waitingRoom) {
+		FilterRegistrationBean registration = new FilterRegistrationBean(
+				new WaitingRoomFilter(waitingRoom, waitingRoomPaths));
+		registration.setEnabled(waitingRoomEnabled);
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+		return registration;
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.qa.QACinema.Configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.qa.QACinema.Analytics.BookingAnalytics;
+import com.qa.QACinema.Analytics.RollupTable;
+import com.qa.QACinema.Storage.ScreenStore;
+
+/**
+ * In-memory booking analytics, with hourly and daily rollups written to the
+ * database every {@code qacinema.analytics.flush-seconds}.
+ */
+@Configuration
+public class AnalyticsConfig {
+
+	@Value("${qacinema.analytics.flush-seconds:60}")
+	private long flushSeconds;
+
+	@Bean(destroyMethod = "close")
+	public BookingAnalytics bookingAnalytics(ScreenStore screenStore, JdbcTemplate jdbcTemplate) {
+		return new BookingAnalytics(screenStore::findSeats, screenStore::findAllScreens,
+				new RollupTable(jdbcTemplate), flushSeconds * 1000);
+	}
+
+}
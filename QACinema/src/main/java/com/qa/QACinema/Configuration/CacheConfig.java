@@ -0,0 +1,46 @@
+package com.qa.QACinema.Configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.qa.QACinema.Caching.InvalidationBus;
+import com.qa.QACinema.Caching.JdbcInvalidationBus;
+import com.qa.QACinema.Caching.LocalInvalidationBus;
+
+/**
+ * The bus that keeps cached content coherent between instances, picked by
+ * {@code qacinema.cache.bus}: {@code local} (default) joins instances in one
+ * JVM on {@code qacinema.cache.bus.channel}; {@code jdbc} goes through a
+ * change-sequence table in the shared database.
+ */
+@Configuration
+public class CacheConfig {
+
+	@Value("${qacinema.cache.bus.channel:qacinema}")
+	private String channel;
+
+	@Value("${qacinema.cache.bus.batch-millis:50}")
+	private long batchMillis;
+
+	@Value("${qacinema.cache.bus.poll-millis:250}")
+	private long pollMillis;
+
+	@Value("${qacinema.cache.bus.retention-seconds:600}")
+	private long retentionSeconds;
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "qacinema.cache.bus", havingValue = "local", matchIfMissing = true)
+	public InvalidationBus localInvalidationBus() {
+		return new LocalInvalidationBus(channel);
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "qacinema.cache.bus", havingValue = "jdbc")
+	public InvalidationBus jdbcInvalidationBus(JdbcTemplate jdbcTemplate) {
+		return new JdbcInvalidationBus(jdbcTemplate, batchMillis, pollMillis, retentionSeconds * 1000);
+	}
+
+}
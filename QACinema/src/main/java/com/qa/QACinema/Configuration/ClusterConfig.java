@@ -0,0 +1,68 @@
+package com.qa.QACinema.Configuration;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.QACinema.Sharding.ClusterClient;
+import com.qa.QACinema.Sharding.ClusterMembership;
+import com.qa.QACinema.Sharding.ClusterSignature;
+import com.qa.QACinema.Storage.ScreenStore;
+
+/**
+ * Seat inventory sharding. With {@code qacinema.cluster.nodes} empty (the
+ * default) this instance owns every showing. Otherwise each node lists the
+ * base URLs of all nodes, names its own in {@code qacinema.cluster.self}
+ * (startup fails if it is missing from the list), and they all share
+ * {@code qacinema.cluster.secret}.
+ */
+@Configuration
+public class ClusterConfig {
+
+	@Value("${qacinema.cluster.self:}")
+	private String self;
+
+	@Value("${qacinema.cluster.nodes:}")
+	private String[] nodes;
+
+	@Value("${qacinema.cluster.secret:}")
+	private String secret;
+
+	@Value("${qacinema.cluster.virtual-nodes:128}")
+	private int virtualNodes;
+
+	@Value("${qacinema.cluster.heartbeat-millis:1000}")
+	private long heartbeatMillis;
+
+	@Value("${qacinema.cluster.connect-timeout-millis:500}")
+	private int connectTimeoutMillis;
+
+	@Value("${qacinema.cluster.read-timeout-millis:5000}")
+	private int readTimeoutMillis;
+
+	@Bean
+	public ClusterSignature clusterSignature() {
+		boolean clustered = false;
+		for (String node : nodes)
+			clustered |= !node.trim().isEmpty();
+		if (clustered && secret.isEmpty())
+			throw new IllegalStateException("qacinema.cluster.secret must be set when qacinema.cluster.nodes is");
+		// with no peers nothing is ever signed, but the internal endpoints must still reject callers
+		return new ClusterSignature(secret.isEmpty() ? UUID.randomUUID().toString() : secret);
+	}
+
+	@Bean
+	public ClusterClient clusterClient(ClusterSignature clusterSignature, ObjectMapper objectMapper) {
+		return new ClusterClient(clusterSignature, objectMapper, connectTimeoutMillis, readTimeoutMillis);
+	}
+
+	// showings cannot change hands when their seats live only on the owner
+	@Bean(destroyMethod = "close")
+	public ClusterMembership clusterMembership(ClusterClient clusterClient, ScreenStore screenStore) {
+		return new ClusterMembership(self, nodes, virtualNodes, heartbeatMillis, clusterClient, !screenStore.isShared());
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.qa.QACinema.Configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * The {@code prod} startup profile. Besides the settings in
+ * application-prod.properties it defers creation of every bean not listed
+ * in {@code qacinema.startup.eager-beans} to its first use.
+ */
+@Configuration
+@Profile("prod")
+public class FastStartupConfig {
+
+	@Bean
+	public static LazyInitBeanFactoryPostProcessor lazyInitBeanFactoryPostProcessor(Environment environment) {
+		return new LazyInitBeanFactoryPostProcessor(
+				environment.getProperty("qacinema.startup.eager-beans", String[].class, new String[0]));
+	}
+
+}
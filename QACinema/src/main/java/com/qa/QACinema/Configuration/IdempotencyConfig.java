@@ -0,0 +1,61 @@
+package com.qa.QACinema.Configuration;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.qa.QACinema.Idempotency.IdempotencyFilter;
+import com.qa.QACinema.Idempotency.JdbcIdempotencyStore;
+import com.qa.QACinema.Idempotency.StripedIdempotencyStore;
+
+/**
+ * Idempotency-Key handling for retried writes. It runs after admission
+ * control, so a replay still counts against the client's rate, and ahead
+ * of Spring Security, since keys are already scoped to the credentials.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+	@Value("${qacinema.idempotency.paths:/generalmessages,/newmovies,/introduction,/register,/Screen}")
+	private String[] paths;
+
+	@Value("${qacinema.idempotency.durable-paths:/showings/}")
+	private String[] durablePaths;
+
+	@Value("${qacinema.idempotency.max-keys:100000}")
+	private int maxKeys;
+
+	@Value("${qacinema.idempotency.stripes:64}")
+	private int stripes;
+
+	@Value("${qacinema.idempotency.ttl-seconds:86400}")
+	private long ttlSeconds;
+
+	@Value("${qacinema.idempotency.lease-seconds:60}")
+	private long leaseSeconds;
+
+	@Value("${qacinema.idempotency.max-body-bytes:65536}")
+	private int maxBodyBytes;
+
+	@Bean(destroyMethod = "close")
+	public JdbcIdempotencyStore durableIdempotencyStore(JdbcTemplate jdbcTemplate) {
+		return new JdbcIdempotencyStore(jdbcTemplate, ttlSeconds * 1000, leaseSeconds * 1000);
+	}
+
+	@Bean
+	public FilterRegistrationBean idempotencyFilter(JdbcIdempotencyStore durableIdempotencyStore) {
+		FilterRegistrationBean registration = new FilterRegistrationBean(new IdempotencyFilter(
+				new HashSet<>(Arrays.asList(paths)), durablePaths,
+				new StripedIdempotencyStore(maxKeys, ttlSeconds * 1000, stripes), durableIdempotencyStore,
+				maxBodyBytes));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 30);
+		return registration;
+	}
+
+}
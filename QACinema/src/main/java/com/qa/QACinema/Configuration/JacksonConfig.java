@@ -0,0 +1,22 @@
+package com.qa.QACinema.Configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+
+/**
+ * Registers Afterburner with the Boot-managed ObjectMapper so the view
+ * classes in Pojos are written through generated accessors rather than
+ * reflection.
+ */
+@Configuration
+public class JacksonConfig {
+
+	@Bean
+	public Module afterburnerModule() {
+		return new AfterburnerModule();
+	}
+
+}
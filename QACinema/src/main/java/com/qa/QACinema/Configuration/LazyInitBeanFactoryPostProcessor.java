@@ -0,0 +1,35 @@
+package com.qa.QACinema.Configuration;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+/**
+ * Marks every application bean lazy except the named hot ones, so startup
+ * only builds what the first requests need. Infrastructure beans and beans
+ * the container has to create up front (post-processors, filters,
+ * runners) are unaffected.
+ */
+public class LazyInitBeanFactoryPostProcessor implements BeanFactoryPostProcessor {
+
+	private final Set<String> eagerBeans;
+
+	public LazyInitBeanFactoryPostProcessor(String... eagerBeans) {
+		this.eagerBeans = new HashSet<>(Arrays.asList(eagerBeans));
+	}
+
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+		for (String name : beanFactory.getBeanDefinitionNames()) {
+			BeanDefinition definition = beanFactory.getBeanDefinition(name);
+			if (definition.getRole() == BeanDefinition.ROLE_APPLICATION && !eagerBeans.contains(name))
+				definition.setLazyInit(true);
+		}
+	}
+
+}
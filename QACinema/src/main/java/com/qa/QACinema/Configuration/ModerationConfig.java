@@ -0,0 +1,44 @@
+package com.qa.QACinema.Configuration;
+
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.qa.QACinema.Moderation.ModerationPipeline;
+import com.qa.QACinema.Moderation.TermList;
+
+/**
+ * Background moderation of forum posts against a banned-term file that can
+ * be edited while the application runs.
+ */
+@Configuration
+public class ModerationConfig {
+
+	@Value("${qacinema.moderation.terms-file:moderation-terms.txt}")
+	private String termsFile;
+
+	@Value("${qacinema.moderation.reload-millis:5000}")
+	private long reloadMillis;
+
+	@Value("${qacinema.moderation.queue-capacity:10000}")
+	private int queueCapacity;
+
+	@Value("${qacinema.moderation.workers:2}")
+	private int workers;
+
+	@Value("${qacinema.moderation.batch:100}")
+	private int batchSize;
+
+	@Bean(destroyMethod = "close")
+	public TermList bannedTerms() {
+		return new TermList(Paths.get(termsFile), reloadMillis);
+	}
+
+	@Bean(destroyMethod = "close")
+	public ModerationPipeline moderationPipeline(TermList bannedTerms) {
+		return new ModerationPipeline(bannedTerms::matcher, queueCapacity, workers, batchSize);
+	}
+
+}
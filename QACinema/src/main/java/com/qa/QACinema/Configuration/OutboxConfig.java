@@ -0,0 +1,55 @@
+package com.qa.QACinema.Configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import com.qa.QACinema.Outbox.MailMessageSender;
+import com.qa.QACinema.Outbox.Outbox;
+import com.qa.QACinema.Outbox.OutboxDispatcher;
+
+/**
+ * The notification outbox and the dispatcher that mails it out through
+ * {@code spring.mail.*}.
+ */
+@Configuration
+public class OutboxConfig {
+
+	@Value("${qacinema.outbox.from:noreply@qacinema.local}")
+	private String from;
+
+	@Value("${qacinema.outbox.batch:100}")
+	private int batchSize;
+
+	@Value("${qacinema.outbox.parallelism:4}")
+	private int parallelism;
+
+	@Value("${qacinema.outbox.max-attempts:8}")
+	private int maxAttempts;
+
+	@Value("${qacinema.outbox.backoff-millis:1000}")
+	private long backoffMillis;
+
+	@Value("${qacinema.outbox.max-backoff-millis:600000}")
+	private long maxBackoffMillis;
+
+	@Value("${qacinema.outbox.lease-millis:60000}")
+	private long leaseMillis;
+
+	@Value("${qacinema.outbox.poll-millis:1000}")
+	private long pollMillis;
+
+	@Bean
+	public Outbox outbox(JdbcTemplate jdbcTemplate) {
+		return new Outbox(jdbcTemplate);
+	}
+
+	@Bean(destroyMethod = "close")
+	public OutboxDispatcher outboxDispatcher(Outbox outbox, JavaMailSender mailSender) {
+		return new OutboxDispatcher(outbox, new MailMessageSender(mailSender, from), batchSize, parallelism,
+				maxAttempts, backoffMillis, maxBackoffMillis, leaseMillis, pollMillis);
+	}
+
+}
@@ -1,22 +1,71 @@
 package com.qa.QACinema.Configuration;
 
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.sql.DataSource;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceBuilder;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
+import com.qa.QACinema.Routing.ReplicaMonitor;
+import com.qa.QACinema.Routing.ReplicaRoutingDataSource;
 
+/**
+ * The primary datasource comes from {@code spring.datasource}. When
+ * {@code qacinema.datasource.replica.url} is set as well, read-only
+ * transactions are routed to that replica while it is reachable and, if
+ * {@code qacinema.datasource.replica.max-lag-ms} is positive, no further
+ * behind than that.
+ */
 @Configuration
 public class PersistenceConfig {
 	@Bean
 	@ConfigurationProperties(prefix="spring.datasource")
-	@Primary
-	public DataSource datasource() {
+	public DataSource primaryDataSource() {
+		return DataSourceBuilder.create().build();
+	}
+
+	@Bean
+	@ConfigurationProperties(prefix="qacinema.datasource.replica")
+	@ConditionalOnProperty(name = "qacinema.datasource.replica.url")
+	public DataSource replicaDataSource() {
 		return DataSourceBuilder.create().build();
 	}
 
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "qacinema.datasource.replica.url")
+	public ReplicaMonitor replicaMonitor(@Qualifier("primaryDataSource") DataSource primary,
+			@Qualifier("replicaDataSource") DataSource replica,
+			@Value("${qacinema.datasource.replica.max-lag-ms:2000}") long maxLagMillis,
+			@Value("${qacinema.datasource.replica.check-interval-ms:500}") long intervalMillis) {
+		return new ReplicaMonitor(primary, replica, maxLagMillis, intervalMillis);
+	}
+
+	@Bean
+	@Primary
+	public DataSource datasource(@Qualifier("primaryDataSource") DataSource primary,
+			@Qualifier("replicaDataSource") ObjectProvider<DataSource> replica, ObjectProvider<ReplicaMonitor> monitor) {
+		DataSource replicaDataSource = replica.getIfAvailable();
+		if (replicaDataSource == null)
+			return primary;
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(monitor.getObject());
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(ReplicaRoutingDataSource.Route.PRIMARY, primary);
+		targets.put(ReplicaRoutingDataSource.Route.REPLICA, replicaDataSource);
+		routing.setTargetDataSources(targets);
+		routing.setDefaultTargetDataSource(primary);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
 }
@@ -5,6 +5,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 
+import com.qa.QACinema.Service.RoleCatalogue;
+
 @Configuration
 @EnableResourceServer
 public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
@@ -13,8 +15,12 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
 	public void configure(HttpSecurity http) throws Exception {
 		// TODO Auto-generated method stub
 		http.authorizeRequests().antMatchers("/","/register","/login").permitAll()
+		.antMatchers("/cluster/**").permitAll()
 		.antMatchers("/private/**").authenticated()
-		.antMatchers("/Screen").authenticated();
+		.antMatchers("/Screen").authenticated()
+		.antMatchers("/users/**", "/users").hasAuthority(RoleCatalogue.ADMIN)
+		.antMatchers("/analytics/**", "/analytics").authenticated()
+		.antMatchers("/showings/**").authenticated();
 		
 	}
 	
@@ -0,0 +1,59 @@
+package com.qa.QACinema.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.qa.QACinema.Repositories.ScreenRepository;
+import com.qa.QACinema.Repositories.SeatBookingRepository;
+import com.qa.QACinema.Storage.InMemoryScreenStore;
+import com.qa.QACinema.Storage.JournalStoreLog;
+import com.qa.QACinema.Storage.JpaScreenStore;
+import com.qa.QACinema.Storage.MemoryStoreLog;
+import com.qa.QACinema.Storage.MongoScreenStore;
+import com.qa.QACinema.Storage.ScreenStore;
+import com.qa.QACinema.Storage.StoreLog;
+
+/**
+ * Picks the screen storage engine from {@code qacinema.storage.engine}:
+ * {@code jpa} (default), {@code mongo} or {@code memory}. The memory engine
+ * journals to {@code qacinema.storage.journal.dir} when it is set, and only
+ * keeps its log on the heap otherwise.
+ */
+@Configuration
+public class StorageConfig {
+
+	@Bean
+	@ConditionalOnProperty(name = "qacinema.storage.engine", havingValue = "jpa", matchIfMissing = true)
+	public ScreenStore jpaScreenStore(ScreenRepository screenRepo, SeatBookingRepository bookingRepo) {
+		return new JpaScreenStore(screenRepo, bookingRepo);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "qacinema.storage.engine", havingValue = "mongo")
+	public ScreenStore mongoScreenStore(MongoTemplate mongoTemplate) {
+		return new MongoScreenStore(mongoTemplate);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "qacinema.storage.engine", havingValue = "memory")
+	public ScreenStore inMemoryScreenStore(StoreLog storeLog,
+			@Value("${qacinema.storage.memory.snapshot-interval:10000}") int snapshotInterval) {
+		return new InMemoryScreenStore(storeLog, snapshotInterval);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "qacinema.storage.engine", havingValue = "memory")
+	public StoreLog storeLog(@Value("${qacinema.storage.journal.dir:}") String directory,
+			@Value("${qacinema.storage.journal.segment-size:67108864}") int segmentSize) throws IOException {
+		if (directory.isEmpty())
+			return new MemoryStoreLog();
+		return new JournalStoreLog(Paths.get(directory), segmentSize);
+	}
+
+}
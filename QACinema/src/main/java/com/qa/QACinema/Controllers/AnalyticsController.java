@@ -0,0 +1,37 @@
+package com.qa.QACinema.Controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.qa.QACinema.Analytics.BookingAnalytics;
+import com.qa.QACinema.Analytics.Resolution;
+import com.qa.QACinema.Pojos.AnalyticsDashboard;
+import com.qa.QACinema.Pojos.SalesWindow;
+
+@RestController
+public class AnalyticsController {
+
+	@Autowired
+	private BookingAnalytics analytics;
+
+	@GetMapping("/analytics")
+	public AnalyticsDashboard getDashboard() {
+		return new AnalyticsDashboard(analytics.getScreens(), analytics.getShowings());
+	}
+
+	@GetMapping("/analytics/showings/{showingId}/sales")
+	public ResponseEntity<List<SalesWindow>> getSales(@PathVariable String showingId,
+			@RequestParam(value = "resolution", defaultValue = "MINUTE") Resolution resolution) {
+		List<SalesWindow> sales = analytics.getSales(showingId, resolution);
+		if (sales == null)
+			return ResponseEntity.notFound().build();
+		return ResponseEntity.ok(sales);
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.qa.QACinema.Controllers;
+
+import java.security.Principal;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.qa.QACinema.Service.ScreenService;
+import com.qa.QACinema.Storage.SeatBlock;
+import com.qa.QACinema.Storage.SeatMap;
+
+@RestController
+public class BookingController {
+
+	@Autowired
+	private ScreenService screenService;
+
+	@GetMapping("/showings/{showingId}/seats")
+	public ResponseEntity<SeatMap> getSeats(@PathVariable String showingId) {
+		SeatMap seats = screenService.getSeats(showingId);
+		if (seats == null)
+			return ResponseEntity.notFound().build();
+		return ResponseEntity.ok(seats);
+	}
+
+	@GetMapping("/showings/{showingId}/seats/best")
+	public ResponseEntity<SeatBlock> getBestSeats(@PathVariable String showingId, @RequestParam("count") int count) {
+		if (count <= 0)
+			return ResponseEntity.badRequest().build();
+		Optional<SeatBlock> block = screenService.findBestSeats(showingId, count);
+		if (block == null)
+			return ResponseEntity.notFound().build();
+		if (!block.isPresent())
+			return ResponseEntity.noContent().build();
+		return ResponseEntity.ok(block.get());
+	}
+
+	@PutMapping("/showings/{showingId}/seats/{seat}")
+	public ResponseEntity<Void> bookSeat(@PathVariable String showingId, @PathVariable int seat, Principal principal) {
+		if (!screenService.bookSeat(showingId, seat, principal == null ? null : principal.getName()))
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		return ResponseEntity.noContent().build();
+	}
+
+	@DeleteMapping("/showings/{showingId}/seats/{seat}")
+	public ResponseEntity<Void> releaseSeat(@PathVariable String showingId, @PathVariable int seat) {
+		if (!screenService.releaseSeat(showingId, seat))
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		return ResponseEntity.noContent().build();
+	}
+
+}
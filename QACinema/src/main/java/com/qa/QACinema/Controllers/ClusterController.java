@@ -0,0 +1,93 @@
+package com.qa.QACinema.Controllers;
+
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.qa.QACinema.Service.ScreenService;
+import com.qa.QACinema.Sharding.ClusterSignature;
+import com.qa.QACinema.Storage.SeatBlock;
+import com.qa.QACinema.Storage.SeatMap;
+
+/**
+ * Seat operations forwarded by other nodes to the owner of a showing. They
+ * are always served locally and must carry a valid cluster signature in
+ * place of user authentication, which the forwarding node has already
+ * done.
+ */
+@RestController
+public class ClusterController {
+
+	@Autowired
+	private ScreenService screenService;
+
+	@Autowired
+	private ClusterSignature signature;
+
+	@GetMapping("/cluster/ping")
+	public String ping() {
+		return "pong";
+	}
+
+	@GetMapping("/cluster/showings/{showingId}/seats")
+	public ResponseEntity<SeatMap> getSeats(@PathVariable String showingId, HttpServletRequest request) {
+		if (!signed(request))
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		SeatMap seats = screenService.getLocalSeats(showingId);
+		if (seats == null)
+			return ResponseEntity.notFound().build();
+		return ResponseEntity.ok(seats);
+	}
+
+	@GetMapping("/cluster/showings/{showingId}/seats/best")
+	public ResponseEntity<SeatBlock> getBestSeats(@PathVariable String showingId, @RequestParam("count") int count,
+			HttpServletRequest request) {
+		if (!signed(request))
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		Optional<SeatBlock> block = screenService.findLocalBestSeats(showingId, count);
+		if (block == null)
+			return ResponseEntity.notFound().build();
+		if (!block.isPresent())
+			return ResponseEntity.noContent().build();
+		return ResponseEntity.ok(block.get());
+	}
+
+	@PutMapping("/cluster/showings/{showingId}/seats/{seat}")
+	public ResponseEntity<Void> bookSeat(@PathVariable String showingId, @PathVariable int seat,
+			@RequestParam(value = "customer", required = false) String customer, HttpServletRequest request) {
+		if (!signed(request))
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		if (!screenService.bookLocalSeat(showingId, seat, customer))
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		return ResponseEntity.noContent().build();
+	}
+
+	@DeleteMapping("/cluster/showings/{showingId}/seats/{seat}")
+	public ResponseEntity<Void> releaseSeat(@PathVariable String showingId, @PathVariable int seat,
+			HttpServletRequest request) {
+		if (!signed(request))
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		if (!screenService.releaseLocalSeat(showingId, seat))
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		return ResponseEntity.noContent().build();
+	}
+
+	private boolean signed(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		if (request.getQueryString() != null)
+			path += "?" + request.getQueryString();
+		return signature.verify(request.getMethod(), path,
+				request.getHeader(ClusterSignature.TIMESTAMP_HEADER), request.getHeader(ClusterSignature.SIGNATURE_HEADER));
+	}
+
+}
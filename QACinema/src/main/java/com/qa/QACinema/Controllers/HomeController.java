@@ -8,6 +8,8 @@ import java.util.List;
 import java.time.LocalTime;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,22 +18,29 @@ import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.qa.QACinema.CustomUserDetails;
+import com.qa.QACinema.Caching.EncodedResponseCache;
 import com.qa.QACinema.Entities.GeneralMessage;
 import com.qa.QACinema.Entities.IntroductionMessage;
 import com.qa.QACinema.Entities.MovieMessage;
 import com.qa.QACinema.Entities.Screen;
 import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Pojos.GeneralMessageView;
+import com.qa.QACinema.Pojos.SearchResult;
 import com.qa.QACinema.Repositories.GeneralMessageRepository;
 import com.qa.QACinema.Repositories.MovieMessageRepository;
 import com.qa.QACinema.Repositories.ScreenRepository;
 import com.qa.QACinema.Service.GeneralMessageService;
 import com.qa.QACinema.Service.IntroductionMessageService;
+import com.qa.QACinema.Service.MessageSearchService;
 import com.qa.QACinema.Service.MovieMessageService;
 import com.qa.QACinema.Service.ScreenService;
 import com.qa.QACinema.Service.UserService;
+import com.qa.QACinema.Storage.ScreenRecord;
 
 
 @RestController
@@ -64,6 +73,12 @@ public class HomeController {
 	@Autowired
 	private UserService userService;
 	
+	@Autowired
+	private MessageSearchService searchService;
+	
+	@Autowired
+	private EncodedResponseCache responseCache;
+	
 	
 	
 	
@@ -79,7 +94,7 @@ public class HomeController {
 	}
 	
 	@PostMapping("/Screen")
-	public String addAccount(@RequestBody Screen screen) {
+	public String addAccount(@RequestBody ScreenRecord screen) {
 		
 		
 		
@@ -106,12 +121,15 @@ public class HomeController {
 	}
 	
 	@GetMapping("/Screen")
-	public List<Screen> getAllScreens() {
-		return screenService.getAllScreens();
+	public ResponseEntity<byte[]> getAllScreens(
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		return responseCache.get(EncodedResponseCache.SCREENS, screenService::getAllScreens)
+				.toResponse(acceptEncoding, ifNoneMatch);
 	}
 	
 	@GetMapping(value="/generalmessages")
-    public List<GeneralMessage> getGeneralMessages(){
+    public List<GeneralMessageView> getGeneralMessages(){
         return gmService.getAllGeneralMessages();
     }
 	
@@ -123,8 +141,11 @@ public class HomeController {
 	}
 	
 	@GetMapping(value="/newmovies")
-    public List<MovieMessage> getMovieMessages(){
-        return moviemsgService.getAllMovieMessages();
+    public ResponseEntity<byte[]> getMovieMessages(
+    		@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+    		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return responseCache.get(EncodedResponseCache.NEW_MOVIES, moviemsgService::getAllMovieMessages)
+        		.toResponse(acceptEncoding, ifNoneMatch);
     }
 	
 	@PostMapping("/newmovies")
@@ -134,9 +155,18 @@ public class HomeController {
 		moviemsgService.insert(movie);
 	}
 	
+	@GetMapping(value="/search")
+    public List<SearchResult> search(@RequestParam("q") String query,
+    		@RequestParam(value = "limit", defaultValue = "20") int limit){
+        return searchService.search(query, limit);
+    }
+	
 	@GetMapping(value="/introduction")
-    public List<IntroductionMessage> getIntroductionMessages(){
-        return introService.getAllIntroductionMessages();
+    public ResponseEntity<byte[]> getIntroductionMessages(
+    		@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+    		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return responseCache.get(EncodedResponseCache.INTRODUCTION, introService::getAllIntroductionMessages)
+        		.toResponse(acceptEncoding, ifNoneMatch);
     }
 	
 	@PostMapping("/introduction")
@@ -1,16 +1,27 @@
 package com.qa.QACinema.Controllers;
 
-import java.util.Arrays;
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
 import com.qa.QACinema.Pojos.UserRegistration;
+import com.qa.QACinema.Pojos.UserView;
+import com.qa.QACinema.Service.RoleCatalogue;
 import com.qa.QACinema.Service.UserService;
 
 
@@ -21,23 +32,49 @@ public class UserController {
 	@Autowired
     private UserService userService;
 
+	@Autowired
+	private RoleCatalogue roleCatalogue;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
 
 
     @PostMapping(value = "/register")
     public String register(@RequestBody UserRegistration userRegistration){
         if(!userRegistration.getPassword().equals(userRegistration.getPasswordConfirmation()))
             return "Error the two passwords do not match";
-        else if(userService.getUser(userRegistration.getUsername()) != null)
+        else if(!userService.register(new com.qa.QACinema.Entities.User(userRegistration.getUsername(), userRegistration.getPassword(), roleCatalogue.defaultMask())))
             return "Error this username already exists";
         
-        userService.save(new com.qa.QACinema.Entities.User(userRegistration.getUsername(), userRegistration.getPassword(), Arrays.asList(new com.qa.QACinema.Entities.Role("USER"), new com.qa.QACinema.Entities.Role("ACTUATOR"))));
         return "User created";
         
     }
     
     @GetMapping(value = "/users")
-    public List<com.qa.QACinema.Entities.User> users(){
-        return userService.getAllUsers();
+    public Page<UserView> users(@PageableDefault(size = 50, sort = "username") Pageable pageable){
+        return userService.getUsers(pageable);
+    }
+    
+    @GetMapping(value = "/users/export")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(UserView.class);
+        try {
+            userService.exportUsers(user -> {
+                try {
+                    out.write(writer.writeValueAsBytes(user));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
     }
     
     
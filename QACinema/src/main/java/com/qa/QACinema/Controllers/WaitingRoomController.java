@@ -0,0 +1,94 @@
+package com.qa.QACinema.Controllers;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.qa.QACinema.Admission.WaitingRoom;
+import com.qa.QACinema.Pojos.QueueStatus;
+
+@RestController
+public class WaitingRoomController {
+
+	@Autowired
+	private WaitingRoom waitingRoom;
+
+	@Value("${qacinema.waitingroom.hold-millis:30000}")
+	private long holdMillis;
+
+	@PostMapping("/queue")
+	public QueueStatus join() {
+		return waitingRoom.join();
+	}
+
+	/**
+	 * Long poll: answers as soon as the ticket is admitted, or with its
+	 * current position once the hold time is up.
+	 */
+	@GetMapping("/queue")
+	public DeferredResult<ResponseEntity<QueueStatus>> await(@RequestParam("ticket") String ticket) {
+		DeferredResult<ResponseEntity<QueueStatus>> result = new DeferredResult<>(holdMillis);
+		QueueStatus status = waitingRoom.status(ticket);
+		if (status == null) {
+			result.setResult(ResponseEntity.badRequest().build());
+		} else if (status.isAdmitted()) {
+			result.setResult(ResponseEntity.ok(status));
+		} else {
+			result.onTimeout(() -> result.setResult(ResponseEntity.ok(waitingRoom.status(ticket))));
+			waitingRoom.watch(ticket, update -> {
+				if (update.isAdmitted()) {
+					update.setTicket(ticket);
+					result.setResult(ResponseEntity.ok(update));
+				}
+				return !result.isSetOrExpired();
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Event stream of "position" updates, ending with one "admitted" event
+	 * that carries the pass.
+	 */
+	@GetMapping("/queue/events")
+	public ResponseEntity<SseEmitter> events(@RequestParam("ticket") String ticket) throws IOException {
+		QueueStatus status = waitingRoom.status(ticket);
+		if (status == null)
+			return ResponseEntity.badRequest().build();
+		SseEmitter emitter = new SseEmitter(holdMillis * 10);
+		emitter.send(SseEmitter.event().name(status.isAdmitted() ? "admitted" : "position").data(status));
+		if (status.isAdmitted()) {
+			emitter.complete();
+			return ResponseEntity.ok(emitter);
+		}
+		AtomicBoolean open = new AtomicBoolean(true);
+		emitter.onCompletion(() -> open.set(false));
+		emitter.onTimeout(() -> open.set(false));
+		waitingRoom.watch(ticket, update -> {
+			if (!open.get())
+				return false;
+			update.setTicket(ticket);
+			try {
+				emitter.send(SseEmitter.event().name(update.isAdmitted() ? "admitted" : "position").data(update));
+				if (update.isAdmitted()) {
+					emitter.complete();
+					return false;
+				}
+				return true;
+			} catch (IOException | IllegalStateException e) {
+				return false;
+			}
+		});
+		return ResponseEntity.ok(emitter);
+	}
+
+}
@@ -1,15 +1,12 @@
 package com.qa.QACinema;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import com.qa.QACinema.Entities.Role;
 import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Service.RoleCatalogue;
 
 public class CustomUserDetails implements UserDetails {
 	
@@ -22,15 +19,10 @@ public class CustomUserDetails implements UserDetails {
 	private String password;
 	private Collection<? extends GrantedAuthority> authorities;
 
-	public CustomUserDetails(User findByUsername) {
+	public CustomUserDetails(User findByUsername, RoleCatalogue roles) {
 		this.username= findByUsername.getUsername();
 		this.password = findByUsername.getPassword();
-		
-		List<GrantedAuthority> auths = new ArrayList<>();
-		for(Role role : findByUsername.getRoles())
-			auths.add(new SimpleGrantedAuthority(role.getName().toUpperCase()));
-
-		this.authorities = auths;
+		this.authorities = roles.authorities(findByUsername.getAuthorities());
 		// TODO Auto-generated constructor stub
 		
 	}
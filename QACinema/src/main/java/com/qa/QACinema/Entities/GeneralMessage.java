@@ -8,24 +8,42 @@ import java.sql.Date;
 import java.time.LocalTime;
 
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
 @Entity
+@Table(indexes = @Index(name = "idx_general_message_bucket_created", columnList = "bucket, creation_date"))
 public class GeneralMessage {
 	
 	@Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     public Long id;
 	
-	@Temporal(TemporalType.TIME)
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "creation_date")
 	private java.util.Date creationDate;
+	
+	// MonthBucket of creationDate, set on insert
+	private Integer bucket;
+	
+	// set when moderation hides the post
+	@Temporal(TemporalType.TIMESTAMP)
+	private java.util.Date flaggedAt;
+	
+	// set once moderation has scanned the post; posts without it are scanned at startup
+	@Temporal(TemporalType.TIMESTAMP)
+	private java.util.Date moderatedAt;
+	
 	private String text;
 	
     
@@ -43,6 +61,13 @@ public class GeneralMessage {
 		
 	}
 
+	@PrePersist
+	void assignBucket() {
+		if (creationDate == null)
+			creationDate = new java.util.Date();
+		bucket = MonthBucket.of(creationDate);
+	}
+
 	public java.util.Date getCreationDate() {
 		return creationDate;
 	}
@@ -60,6 +85,10 @@ public class GeneralMessage {
 	}
 	
 
+	public java.util.Date getFlaggedAt() {
+		return flaggedAt;
+	}
+
 	public String getText() {
 		return text;
 	}
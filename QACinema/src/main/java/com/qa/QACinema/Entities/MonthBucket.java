@@ -0,0 +1,43 @@
+package com.qa.QACinema.Entities;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * Month buckets for time-partitioned tables, as yyyymm in UTC. Rows carry
+ * the bucket of their creation date, so listings and retention can prune
+ * whole months through an index on the bucket.
+ */
+public final class MonthBucket {
+
+	private MonthBucket() {
+	}
+
+	public static int of(Date date) {
+		return of(YearMonth.from(Instant.ofEpochMilli(date.getTime()).atZone(ZoneOffset.UTC)));
+	}
+
+	public static int current() {
+		return of(YearMonth.now(ZoneOffset.UTC));
+	}
+
+	public static int monthsBefore(int bucket, int months) {
+		return of(toYearMonth(bucket).minusMonths(months));
+	}
+
+	/** @return the bucket as yyyy-mm */
+	public static String label(int bucket) {
+		return toYearMonth(bucket).toString();
+	}
+
+	private static int of(YearMonth month) {
+		return month.getYear() * 100 + month.getMonthValue();
+	}
+
+	private static YearMonth toYearMonth(int bucket) {
+		return YearMonth.of(bucket / 100, bucket % 100);
+	}
+
+}
@@ -4,23 +4,33 @@ import java.sql.Date;
 import java.time.LocalTime;
 
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
 @Entity
+@Table(indexes = @Index(name = "idx_movie_message_bucket_created", columnList = "bucket, creation_date"))
 public class MovieMessage {
 	
 	@Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     public Long id;
 	
-	@Temporal(TemporalType.TIME)
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "creation_date")
 	private java.util.Date creationDate;
+	
+	// MonthBucket of creationDate, set on insert
+	private Integer bucket;
+	
 	private String text;
 	
 	
@@ -37,6 +47,13 @@ public class MovieMessage {
 		
 	}
 
+	@PrePersist
+	void assignBucket() {
+		if (creationDate == null)
+			creationDate = new java.util.Date();
+		bucket = MonthBucket.of(creationDate);
+	}
+
 	public Long getId() {
 		return id;
 	}
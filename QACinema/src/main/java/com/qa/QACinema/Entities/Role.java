@@ -3,26 +3,41 @@ package com.qa.QACinema.Entities;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
+/**
+ * One row per role in the shared catalogue. Users hold a bitmask of role
+ * bits rather than rows of their own.
+ */
 @Entity
+@Table(name = "role_catalogue", uniqueConstraints = {
+		@UniqueConstraint(name = "uk_role_name", columnNames = "name"),
+		@UniqueConstraint(name = "uk_role_bit", columnNames = "bit") })
 public class Role {
 	
 	@Id
 	@GeneratedValue
 	private Long id;
 	String name;
+	private int bit;
 	
 	public Role() {
 		
 	}
 	
 	
-	public Role(String name) {
+	public Role(String name, int bit) {
 		
 		this.name = name;
+		this.bit = bit;
 		
 	}
 
+	public Long getId() {
+		return id;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -30,6 +45,14 @@ public class Role {
 	public void setName(String name) {
 		this.name = name;
 	}
+
+	public int getBit() {
+		return bit;
+	}
+
+	public void setBit(int bit) {
+		this.bit = bit;
+	}
 	
 	
 	
@@ -31,6 +31,9 @@ public class Screen {
     private List<Time> time;
     private boolean screenBooked;
     
+    // seats per row, comma separated
+    private String seatRows;
+    
 
     @ManyToOne
     private User creator;
@@ -78,6 +81,14 @@ public class Screen {
 		this.screenBooked = screenBooked;
 	}
 
+	public String getSeatRows() {
+		return seatRows;
+	}
+
+	public void setSeatRows(String seatRows) {
+		this.seatRows = seatRows;
+	}
+
 	public User getCreator() {
 		return creator;
 	}
@@ -0,0 +1,42 @@
+package com.qa.QACinema.Entities;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "timeId", "seat" }))
+public class SeatBooking {
+
+	@Id
+	@GeneratedValue
+	private Long id;
+
+	private Long timeId;
+
+	private int seat;
+
+	SeatBooking() {
+
+	}
+
+	public SeatBooking(Long timeId, int seat) {
+		this.timeId = timeId;
+		this.seat = seat;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getTimeId() {
+		return timeId;
+	}
+
+	public int getSeat() {
+		return seat;
+	}
+
+}
@@ -1,16 +1,14 @@
 package com.qa.QACinema.Entities;
 
 
-import java.util.List;
-
-import javax.persistence.CascadeType;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
-import javax.persistence.OneToMany;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 @Entity
+@Table(indexes = @Index(name = "uk_user_username", columnList = "username", unique = true))
 public class User {
 	
 	@Id
@@ -20,15 +18,15 @@ public class User {
 	private String username;
 	private String password;
 	
-	@OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
-	private List<Role>roles;
+	// bitmask over the shared Role catalogue, see RoleCatalogue
+	private Long authorities;
 	
 	User(){}
 	
-	public User (String username, String password, List<Role> roles) {
+	public User (String username, String password, long authorities) {
 		this.username =username;
 		this.password = password;
-		this.roles = roles;
+		this.authorities = authorities;
 	}
 
 	public Long getId() {
@@ -55,12 +53,12 @@ public class User {
 		this.password = password;
 	}
 
-	public List<Role> getRoles() {
-		return roles;
+	public long getAuthorities() {
+		return authorities == null ? 0 : authorities;
 	}
 
-	public void setRoles(List<Role> roles) {
-		this.roles = roles;
+	public void setAuthorities(long authorities) {
+		this.authorities = authorities;
 	}
 	
 }
\ No newline at end of file
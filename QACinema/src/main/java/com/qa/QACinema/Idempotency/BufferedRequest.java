@@ -0,0 +1,73 @@
+package com.qa.QACinema.Idempotency;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * A request whose body has already been read, so it can be fingerprinted
+ * before the handler reads it.
+ */
+class BufferedRequest extends HttpServletRequestWrapper {
+
+	private final byte[] body;
+
+	BufferedRequest(HttpServletRequest request, byte[] body) {
+		super(request);
+		this.body = body;
+	}
+
+	@Override
+	public ServletInputStream getInputStream() {
+		ByteArrayInputStream in = new ByteArrayInputStream(body);
+		return new ServletInputStream() {
+
+			@Override
+			public int read() {
+				return in.read();
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				return in.read(b, off, len);
+			}
+
+			@Override
+			public boolean isFinished() {
+				return in.available() == 0;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			// the whole body is already here, so it is all available at once
+			@Override
+			public void setReadListener(ReadListener listener) {
+				try {
+					if (!isFinished())
+						listener.onDataAvailable();
+					if (isFinished())
+						listener.onAllDataRead();
+				} catch (IOException | RuntimeException e) {
+					listener.onError(e);
+				}
+			}
+		};
+	}
+
+	@Override
+	public BufferedReader getReader() throws UnsupportedEncodingException {
+		String encoding = getCharacterEncoding();
+		return new BufferedReader(new InputStreamReader(getInputStream(), encoding == null ? "UTF-8" : encoding));
+	}
+
+}
@@ -0,0 +1,178 @@
+package com.qa.QACinema.Idempotency;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Answers retried writes from the response to the first attempt. A client
+ * that sends the same {@value #KEY_HEADER} again gets the stored response,
+ * marked with {@value #REPLAYED_HEADER}, and the handler does not run.
+ *
+ * Keys are scoped to the method, path and credentials of the request, and
+ * pinned to a fingerprint of its query and body: reusing a key for a
+ * different request is refused with 422, and retrying while the first
+ * attempt is still running gets 409. Server errors, and rejections that say
+ * nothing about the write itself, are not stored, so the client may retry.
+ *
+ * POSTs to the listed paths use the in-memory store. Writes under the
+ * durable prefixes, such as seat bookings, use the durable store, so a retry
+ * after a restart or on another instance is still answered the same way.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String KEY_HEADER = "Idempotency-Key";
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final Set<String> postPaths;
+	private final String[] durablePrefixes;
+	private final IdempotencyStore memoryStore;
+	private final IdempotencyStore durableStore;
+	private final int maxBodyBytes;
+
+	public IdempotencyFilter(Set<String> postPaths, String[] durablePrefixes, IdempotencyStore memoryStore,
+			IdempotencyStore durableStore, int maxBodyBytes) {
+		this.postPaths = postPaths;
+		this.durablePrefixes = durablePrefixes;
+		this.memoryStore = memoryStore;
+		this.durableStore = durableStore;
+		this.maxBodyBytes = maxBodyBytes;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return request.getHeader(KEY_HEADER) == null || storeFor(request) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String key = request.getHeader(KEY_HEADER);
+		if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH
+					+ " characters");
+			return;
+		}
+		byte[] body = readBody(request);
+		if (body == null) {
+			response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value());
+			return;
+		}
+
+		IdempotencyStore store = storeFor(request);
+		String path = path(request);
+		String scopedKey = digest(request.getMethod(), path, request.getHeader("Authorization"), key);
+		String fingerprint = digest(request.getQueryString(), new String(body, StandardCharsets.ISO_8859_1));
+
+		StoredResponse stored = store.begin(scopedKey, fingerprint);
+		if (stored == IdempotencyStore.IN_FLIGHT) {
+			response.setHeader("Retry-After", "1");
+			response.sendError(HttpStatus.CONFLICT.value(), "A request with this " + KEY_HEADER + " is in progress");
+			return;
+		}
+		if (stored == IdempotencyStore.MISMATCH) {
+			response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+					KEY_HEADER + " was already used for a different request");
+			return;
+		}
+		if (stored != IdempotencyStore.STARTED) {
+			replay(stored, response);
+			return;
+		}
+
+		ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+		boolean completed = false;
+		try {
+			chain.doFilter(new BufferedRequest(request, body), captured);
+			if (isFinal(captured.getStatus())) {
+				store.complete(scopedKey, new StoredResponse(captured.getStatus(), captured.getContentType(),
+						captured.getContentAsByteArray()));
+				completed = true;
+			}
+		} finally {
+			if (!completed)
+				store.abandon(scopedKey);
+			captured.copyBodyToResponse();
+		}
+	}
+
+	private IdempotencyStore storeFor(HttpServletRequest request) {
+		String method = request.getMethod();
+		String path = path(request);
+		if ("POST".equals(method) && postPaths.contains(path))
+			return memoryStore;
+		if ("POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method))
+			for (String prefix : durablePrefixes)
+				if (path.startsWith(prefix))
+					return durableStore;
+		return null;
+	}
+
+	private static String path(HttpServletRequest request) {
+		return request.getRequestURI().substring(request.getContextPath().length());
+	}
+
+	// the outcome of the write, as opposed to a reason it was never attempted
+	private static boolean isFinal(int status) {
+		return status < 500 && status != HttpStatus.UNAUTHORIZED.value() && status != HttpStatus.FORBIDDEN.value()
+				&& status != HttpStatus.TOO_MANY_REQUESTS.value();
+	}
+
+	private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+		response.setStatus(stored.getStatus());
+		response.setHeader(REPLAYED_HEADER, "true");
+		if (stored.getContentType() != null)
+			response.setContentType(stored.getContentType());
+		response.setContentLength(stored.getBody().length);
+		response.getOutputStream().write(stored.getBody());
+	}
+
+	// null if the body is larger than we are prepared to hold
+	private byte[] readBody(HttpServletRequest request) throws IOException {
+		if (request.getContentLengthLong() > maxBodyBytes)
+			return null;
+		byte[] buffer = new byte[Math.max(0, (int) Math.min(request.getContentLengthLong(), maxBodyBytes)) + 1];
+		int length = 0;
+		InputStream in = request.getInputStream();
+		for (int n; (n = in.read(buffer, length, buffer.length - length)) != -1;) {
+			length += n;
+			if (length == buffer.length) {
+				if (length > maxBodyBytes)
+					return null;
+				buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, maxBodyBytes + 1));
+			}
+		}
+		return Arrays.copyOf(buffer, length);
+	}
+
+	private static String digest(String... parts) {
+		try {
+			MessageDigest sha = MessageDigest.getInstance("SHA-256");
+			for (String part : parts) {
+				if (part != null)
+					sha.update(part.getBytes(StandardCharsets.UTF_8));
+				sha.update((byte) 0);
+			}
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(sha.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
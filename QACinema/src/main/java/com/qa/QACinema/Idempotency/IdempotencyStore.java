@@ -0,0 +1,29 @@
+package com.qa.QACinema.Idempotency;
+
+/**
+ * Recent idempotency keys, each with a fingerprint of the request that
+ * first used it and, once the handler has finished, its response.
+ */
+public interface IdempotencyStore {
+
+	/** Result of {@link #begin} when the caller now owns the key and must run the handler. */
+	StoredResponse STARTED = new StoredResponse(0, null, null);
+	/** Result of {@link #begin} when the first request with the key is still running. */
+	StoredResponse IN_FLIGHT = new StoredResponse(0, null, null);
+	/** Result of {@link #begin} when the key was first used for a different request. */
+	StoredResponse MISMATCH = new StoredResponse(0, null, null);
+
+	/**
+	 * Claims the key for a request, unless it is already known.
+	 *
+	 * @return {@link #STARTED}, {@link #IN_FLIGHT}, {@link #MISMATCH} or the
+	 *         stored response to replay
+	 */
+	StoredResponse begin(String key, String fingerprint);
+
+	void complete(String key, StoredResponse response);
+
+	/** Forgets a claimed key so that a retry runs the handler again. */
+	void abandon(String key);
+
+}
@@ -0,0 +1,113 @@
+package com.qa.QACinema.Idempotency;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Idempotency keys in the shared database, for writes whose retries must be
+ * recognised after a restart or by another instance. The primary key on the
+ * scoped key makes claiming it atomic across instances.
+ *
+ * A claim whose request never finished, because its instance died, is
+ * taken over once it is older than the lease. Rows past their time to live
+ * are purged in the background.
+ */
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+	private static final Logger log = LoggerFactory.getLogger(JdbcIdempotencyStore.class);
+
+	private static final int RUNNING = 0;
+
+	private final JdbcTemplate jdbc;
+	private final long ttlMillis;
+	private final long leaseMillis;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "idempotency-purge");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public JdbcIdempotencyStore(JdbcTemplate jdbc, long ttlMillis, long leaseMillis) {
+		this.jdbc = jdbc;
+		this.ttlMillis = ttlMillis;
+		this.leaseMillis = leaseMillis;
+		jdbc.execute("create table if not exists idempotency_key (scoped_key varchar(64) primary key,"
+				+ " fingerprint varchar(64) not null, status int not null, content_type varchar(255),"
+				+ " body blob, created timestamp not null)");
+		long purgeMillis = Math.max(1000, ttlMillis / 10);
+		scheduler.scheduleWithFixedDelay(this::purge, purgeMillis, purgeMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public StoredResponse begin(String key, String fingerprint) {
+		long now = System.currentTimeMillis();
+		try {
+			jdbc.update("insert into idempotency_key (scoped_key, fingerprint, status, created) values (?, ?, ?, ?)",
+					key, fingerprint, RUNNING, new Timestamp(now));
+			return STARTED;
+		} catch (DuplicateKeyException e) {
+			// someone has it: look at what they left
+		}
+		List<Object[]> rows = jdbc.query(
+				"select fingerprint, status, content_type, body, created from idempotency_key where scoped_key = ?",
+				(rs, i) -> new Object[] { rs.getString(1), rs.getInt(2), rs.getString(3), rs.getBytes(4),
+						rs.getTimestamp(5).getTime() },
+				key);
+		if (rows.isEmpty())
+			return begin(key, fingerprint);
+		Object[] row = rows.get(0);
+		long created = (Long) row[4];
+		int status = (Integer) row[1];
+		boolean expired = now - created >= ttlMillis;
+		boolean stalled = status == RUNNING && now - created >= leaseMillis;
+		if (expired || stalled) {
+			int taken = jdbc.update("update idempotency_key set fingerprint = ?, status = ?, content_type = null,"
+					+ " body = null, created = ? where scoped_key = ? and created = ?", fingerprint, RUNNING,
+					new Timestamp(now), key, new Timestamp(created));
+			return taken == 1 ? STARTED : begin(key, fingerprint);
+		}
+		if (!fingerprint.equals(row[0]))
+			return MISMATCH;
+		if (status == RUNNING)
+			return IN_FLIGHT;
+		return new StoredResponse(status, (String) row[2], row[3] == null ? new byte[0] : (byte[]) row[3]);
+	}
+
+	@Override
+	public void complete(String key, StoredResponse response) {
+		jdbc.update("update idempotency_key set status = ?, content_type = ?, body = ? where scoped_key = ?",
+				response.getStatus(), response.getContentType(), response.getBody(), key);
+	}
+
+	@Override
+	public void abandon(String key) {
+		try {
+			jdbc.update("delete from idempotency_key where scoped_key = ? and status = ?", key, RUNNING);
+		} catch (RuntimeException e) {
+			// the lease will free it
+			log.warn("Could not release idempotency key", e);
+		}
+	}
+
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private void purge() {
+		try {
+			jdbc.update("delete from idempotency_key where created < ?",
+					new Timestamp(System.currentTimeMillis() - ttlMillis));
+		} catch (RuntimeException e) {
+			log.warn("Could not purge idempotency keys", e);
+		}
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.qa.QACinema.Idempotency;
+
+/**
+ * What a handler answered to the first request with a given key.
+ */
+public class StoredResponse {
+
+	private final int status;
+	private final String contentType;
+	private final byte[] body;
+
+	public StoredResponse(int status, String contentType, byte[] body) {
+		this.status = status;
+		this.contentType = contentType;
+		this.body = body;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+}
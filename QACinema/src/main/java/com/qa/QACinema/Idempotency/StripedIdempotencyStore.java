@@ -0,0 +1,100 @@
+package com.qa.QACinema.Idempotency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory store split into independently locked stripes. Each stripe
+ * keeps its keys in insertion order, so expired entries and entries over
+ * the stripe's share of the size bound are always at its head.
+ */
+public class StripedIdempotencyStore implements IdempotencyStore {
+
+	private final Stripe[] stripes;
+	private final int mask;
+	private final int maxPerStripe;
+	private final long ttlNanos;
+
+	public StripedIdempotencyStore(int maxEntries, long ttlMillis, int stripes) {
+		int size = 1;
+		while (size < stripes)
+			size <<= 1;
+		this.stripes = new Stripe[size];
+		for (int i = 0; i < size; i++)
+			this.stripes[i] = new Stripe();
+		this.mask = size - 1;
+		this.maxPerStripe = Math.max(1, maxEntries / size);
+		this.ttlNanos = ttlMillis * 1_000_000L;
+	}
+
+	@Override
+	public StoredResponse begin(String key, String fingerprint) {
+		Stripe stripe = stripe(key);
+		long now = System.nanoTime();
+		synchronized (stripe) {
+			evict(stripe, now);
+			Entry entry = stripe.entries.get(key);
+			if (entry == null) {
+				stripe.entries.put(key, new Entry(fingerprint, now));
+				return STARTED;
+			}
+			if (!entry.fingerprint.equals(fingerprint))
+				return MISMATCH;
+			return entry.response == null ? IN_FLIGHT : entry.response;
+		}
+	}
+
+	@Override
+	public void complete(String key, StoredResponse response) {
+		Stripe stripe = stripe(key);
+		synchronized (stripe) {
+			Entry entry = stripe.entries.get(key);
+			if (entry != null)
+				entry.response = response;
+		}
+	}
+
+	@Override
+	public void abandon(String key) {
+		Stripe stripe = stripe(key);
+		synchronized (stripe) {
+			stripe.entries.remove(key);
+		}
+	}
+
+	private void evict(Stripe stripe, long now) {
+		Iterator<Entry> it = stripe.entries.values().iterator();
+		int size = stripe.entries.size();
+		while (it.hasNext()) {
+			Entry oldest = it.next();
+			if (size < maxPerStripe && now - oldest.created < ttlNanos)
+				break;
+			it.remove();
+			size--;
+		}
+	}
+
+	private Stripe stripe(String key) {
+		int hash = key.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & mask];
+	}
+
+	private static final class Stripe {
+		final Map<String, Entry> entries = new LinkedHashMap<>();
+	}
+
+	private static final class Entry {
+
+		final String fingerprint;
+		final long created;
+		StoredResponse response;
+
+		Entry(String fingerprint, long created) {
+			this.fingerprint = fingerprint;
+			this.created = created;
+		}
+
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.qa.QACinema.Moderation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over a fixed set of terms, matched case-insensitively
+ * and on whole words: a term only counts where it is not part of a longer
+ * word. Building compiles the trie into a complete transition table over the
+ * characters that occur in the terms, so a scan takes one table lookup per
+ * character of the text however many terms there are. Instances are
+ * immutable and may be shared between threads.
+ */
+public final class AhoCorasick {
+
+	private final char[] classOf = new char[Character.MAX_VALUE + 1];
+	private final int width;
+	private final int[] next;
+	// the term ending at each state, if any
+	private final String[] terms;
+	private final int[] termLengths;
+	// nearest state down the failure chain that ends a term, 0 if none
+	private final int[] outputs;
+	private final int size;
+
+	public AhoCorasick(Collection<String> terms) {
+		List<Map<Character, Integer>> children = new ArrayList<>();
+		List<String> ending = new ArrayList<>();
+		children.add(new HashMap<>());
+		ending.add(null);
+		int classes = 0;
+		int distinct = 0;
+		for (String raw : terms) {
+			String term = normalize(raw.trim());
+			if (term.isEmpty())
+				continue;
+			int state = 0;
+			for (int i = 0; i < term.length(); i++) {
+				char c = term.charAt(i);
+				if (classOf[c] == 0)
+					classOf[c] = (char) ++classes;
+				Integer child = children.get(state).get(c);
+				if (child == null) {
+					child = children.size();
+					children.get(state).put(c, child);
+					children.add(new HashMap<>());
+					ending.add(null);
+				}
+				state = child;
+			}
+			if (ending.set(state, term) == null)
+				distinct++;
+		}
+
+		int states = children.size();
+		this.size = distinct;
+		this.width = classes + 1;
+		this.next = new int[states * width];
+		this.terms = ending.toArray(new String[states]);
+		this.termLengths = new int[states];
+		this.outputs = new int[states];
+		int[] fail = new int[states];
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for (Map.Entry<Character, Integer> edge : children.get(0).entrySet()) {
+			next[classOf[edge.getKey()]] = edge.getValue();
+			queue.add(edge.getValue());
+		}
+		// breadth first, so every state's failure target is complete before it is needed
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			if (this.terms[state] != null)
+				termLengths[state] = this.terms[state].length();
+			int failState = fail[state];
+			outputs[state] = this.terms[failState] != null ? failState : outputs[failState];
+			System.arraycopy(next, failState * width, next, state * width, width);
+			for (Map.Entry<Character, Integer> edge : children.get(state).entrySet()) {
+				int child = edge.getValue();
+				int cls = classOf[edge.getKey()];
+				fail[child] = next[failState * width + cls];
+				next[state * width + cls] = child;
+				queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * @return the first term found in the text, or null if there is none
+	 */
+	public String find(CharSequence text) {
+		int state = 0;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			state = next[state * width + classOf[Character.toLowerCase(text.charAt(i))]];
+			for (int s = terms[state] != null ? state : outputs[state]; s != 0; s = outputs[s])
+				if (isWord(text, i - termLengths[s] + 1, i + 1))
+					return terms[s];
+		}
+		return null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private static boolean isWord(CharSequence text, int start, int end) {
+		return (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))
+				&& (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)));
+	}
+
+	private static String normalize(String term) {
+		StringBuilder lower = new StringBuilder(term.length());
+		for (int i = 0; i < term.length(); i++)
+			lower.append(Character.toLowerCase(term.charAt(i)));
+		return lower.toString();
+	}
+
+}
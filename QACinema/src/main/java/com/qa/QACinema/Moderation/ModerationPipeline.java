@@ -0,0 +1,142 @@
+package com.qa.QACinema.Moderation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scans posts for banned terms off the request thread. Posts wait in a
+ * bounded queue; each worker takes whatever has built up, up to a batch,
+ * scans it against the current matcher and reports the ids of the posts
+ * that matched to the listeners in one call. When the queue is full the
+ * submitting thread scans the post itself, which is cheap next to the
+ * write that preceded it, so no post goes unscanned.
+ *
+ * The queue does not survive a restart. Scanned listeners hear about every
+ * post once the matches in its batch have been acted on, so the application
+ * can record what was scanned and resubmit the rest when it starts.
+ */
+public class ModerationPipeline {
+
+	private static final Logger log = LoggerFactory.getLogger(ModerationPipeline.class);
+
+	private final Supplier<AhoCorasick> matcher;
+	private final BlockingQueue<Post> queue;
+	private final int batchSize;
+	private final ExecutorService workers;
+	private final List<Consumer<List<Long>>> listeners = new CopyOnWriteArrayList<>();
+	private final List<Consumer<List<Long>>> scannedListeners = new CopyOnWriteArrayList<>();
+
+	private static final class Post {
+
+		final long id;
+		final String text;
+
+		Post(long id, String text) {
+			this.id = id;
+			this.text = text;
+		}
+	}
+
+	public ModerationPipeline(Supplier<AhoCorasick> matcher, int capacity, int workerCount, int batchSize) {
+		this.matcher = matcher;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		AtomicInteger count = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+			Thread thread = new Thread(r, "moderation-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < workerCount; i++)
+			workers.execute(this::work);
+	}
+
+	/** Receives the ids of posts that matched a banned term. */
+	public void addListener(Consumer<List<Long>> listener) {
+		listeners.add(listener);
+	}
+
+	/** Receives the ids of every post scanned, after the matches among them have been reported. */
+	public void addScannedListener(Consumer<List<Long>> listener) {
+		scannedListeners.add(listener);
+	}
+
+	public void submit(long id, String text) {
+		Post post = new Post(id, text);
+		if (!queue.offer(post))
+			scan(Collections.singletonList(post));
+	}
+
+	/** Stops the workers and scans whatever is still queued. */
+	public void close() {
+		workers.shutdownNow();
+		try {
+			workers.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		List<Post> rest = new ArrayList<>();
+		queue.drainTo(rest);
+		scan(rest);
+	}
+
+	private void work() {
+		List<Post> batch = new ArrayList<>(batchSize);
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch, batchSize - 1);
+			scan(batch);
+			batch.clear();
+		}
+	}
+
+	private void scan(List<Post> posts) {
+		AhoCorasick current = matcher.get();
+		List<Long> flagged = new ArrayList<>();
+		for (Post post : posts) {
+			String term = post.text == null ? null : current.find(post.text);
+			if (term != null) {
+				flagged.add(post.id);
+				log.info("Post {} matched banned term \"{}\"", post.id, term);
+			}
+		}
+		if (!flagged.isEmpty())
+			for (Consumer<List<Long>> listener : listeners)
+				try {
+					listener.accept(flagged);
+				} catch (RuntimeException e) {
+					// not reported as scanned, so they are scanned again on the next start
+					log.warn("Could not act on flagged posts " + flagged, e);
+					return;
+				}
+		if (posts.isEmpty() || scannedListeners.isEmpty())
+			return;
+		List<Long> ids = new ArrayList<>(posts.size());
+		for (Post post : posts)
+			ids.add(post.id);
+		for (Consumer<List<Long>> listener : scannedListeners)
+			try {
+				listener.accept(ids);
+			} catch (RuntimeException e) {
+				log.warn("Could not record scanned posts " + ids, e);
+			}
+	}
+
+}
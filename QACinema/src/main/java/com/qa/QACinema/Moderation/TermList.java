@@ -0,0 +1,70 @@
+package com.qa.QACinema.Moderation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The banned-term list, one term or phrase per line with {@code #}
+ * comments. The file is watched for changes and each version is compiled
+ * into a new matcher, which replaces the old one for the next scan. A
+ * missing file means no terms.
+ */
+public class TermList {
+
+	private static final Logger log = LoggerFactory.getLogger(TermList.class);
+
+	private final Path file;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "moderation-terms");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile AhoCorasick matcher = new AhoCorasick(Collections.emptyList());
+	// only touched by reload, which runs on the scheduler after the constructor
+	private long loadedVersion = -1;
+
+	public TermList(Path file, long pollMillis) {
+		this.file = file;
+		reload();
+		scheduler.scheduleWithFixedDelay(this::reload, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public AhoCorasick matcher() {
+		return matcher;
+	}
+
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private void reload() {
+		try {
+			long version = Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() ^ Files.size(file) : 0;
+			if (version == loadedVersion)
+				return;
+			List<String> terms = version == 0 ? Collections.emptyList()
+					: Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+							.map(line -> line.replaceFirst("#.*", "").trim())
+							.filter(line -> !line.isEmpty())
+							.collect(Collectors.toList());
+			matcher = new AhoCorasick(terms);
+			loadedVersion = version;
+			log.info("Loaded {} banned terms from {}", matcher.size(), file);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Could not load banned terms from " + file + ", keeping the previous list", e);
+		}
+	}
+
+}
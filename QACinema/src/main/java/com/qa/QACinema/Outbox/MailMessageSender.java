@@ -0,0 +1,63 @@
+package com.qa.QACinema.Outbox;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+/**
+ * Sends a batch as plain-text mail over one SMTP connection.
+ */
+public class MailMessageSender implements MessageSender {
+
+	private final JavaMailSender mailSender;
+	private final String from;
+
+	public MailMessageSender(JavaMailSender mailSender, String from) {
+		this.mailSender = mailSender;
+		this.from = from;
+	}
+
+	@Override
+	public Map<Long, String> send(List<OutboxMessage> messages) {
+		Map<Long, String> failures = new HashMap<>();
+		Map<MimeMessage, Long> ids = new IdentityHashMap<>();
+		for (OutboxMessage message : messages)
+			try {
+				MimeMessage mime = mailSender.createMimeMessage();
+				MimeMessageHelper helper = new MimeMessageHelper(mime, "UTF-8");
+				helper.setFrom(from);
+				helper.setTo(message.getRecipient());
+				helper.setSubject(message.getSubject());
+				helper.setText(message.getBody());
+				ids.put(mime, message.getId());
+			} catch (MessagingException e) {
+				failures.put(message.getId(), e.toString());
+			}
+		if (ids.isEmpty())
+			return failures;
+		try {
+			mailSender.send(ids.keySet().toArray(new MimeMessage[ids.size()]));
+		} catch (MailSendException e) {
+			if (e.getFailedMessages().isEmpty())
+				ids.values().forEach(id -> failures.put(id, e.toString()));
+			e.getFailedMessages().forEach((mime, cause) -> {
+				Long id = ids.get(mime);
+				if (id != null)
+					failures.put(id, cause.toString());
+			});
+		} catch (MailException e) {
+			ids.values().forEach(id -> failures.put(id, e.toString()));
+		}
+		return failures;
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.qa.QACinema.Outbox;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers a batch of outbox messages.
+ */
+public interface MessageSender {
+
+	/**
+	 * @return why each message that could not be sent failed, by message id;
+	 *         empty if all were sent
+	 */
+	Map<Long, String> send(List<OutboxMessage> messages);
+
+}
@@ -0,0 +1,108 @@
+package com.qa.QACinema.Outbox;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Notifications to send, in a table of the shared database. A message is
+ * written in the same transaction as the change it reports, so it exists
+ * exactly when the change was committed; a dispatcher sends it later.
+ *
+ * A message is claimed for sending by pushing its next attempt time past a
+ * lease, on the condition that nobody moved it first. If the claimant dies
+ * the message simply falls due again when the lease runs out.
+ */
+public class Outbox {
+
+	private static final String PENDING = "PENDING";
+	private static final String SENT = "SENT";
+	private static final String FAILED = "FAILED";
+
+	private final JdbcTemplate jdbc;
+
+	public Outbox(JdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+		jdbc.execute("create table if not exists outbox (id bigint auto_increment primary key,"
+				+ " recipient varchar(255) not null, subject varchar(255) not null, body varchar(4000) not null,"
+				+ " status varchar(8) not null, attempts int not null, next_attempt timestamp not null,"
+				+ " created timestamp not null, sent timestamp null, last_error varchar(1000))");
+		try {
+			jdbc.execute("create index idx_outbox_due on outbox (status, next_attempt)");
+		} catch (DataAccessException e) {
+			// already there; not every database can say "if not exists" for an index
+		}
+	}
+
+	/**
+	 * Adds a message. Must be called inside the transaction that makes the
+	 * change the message is about.
+	 */
+	public void enqueue(String recipient, String subject, String body) {
+		if (!TransactionSynchronizationManager.isActualTransactionActive())
+			throw new IllegalStateException("Outbox messages must be written in the transaction they report on");
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		jdbc.update("insert into outbox (recipient, subject, body, status, attempts, next_attempt, created)"
+				+ " values (?, ?, ?, ?, 0, ?, ?)", recipient, subject, body, PENDING, now, now);
+	}
+
+	/**
+	 * Claims up to {@code limit} due messages, oldest first, until the lease
+	 * runs out.
+	 */
+	public List<OutboxMessage> claim(int limit, long leaseMillis) {
+		long now = System.currentTimeMillis();
+		List<Object[]> due = jdbc.query("select id, recipient, subject, body, attempts, next_attempt from outbox"
+				+ " where status = ? and next_attempt <= ? order by id limit ?",
+				(rs, i) -> new Object[] { new OutboxMessage(rs.getLong(1), rs.getString(2), rs.getString(3),
+						rs.getString(4), rs.getInt(5)), rs.getTimestamp(6) },
+				PENDING, new Timestamp(now), limit);
+		if (due.isEmpty())
+			return new ArrayList<>();
+		Timestamp leased = new Timestamp(now + leaseMillis);
+		List<Object[]> claims = new ArrayList<>(due.size());
+		for (Object[] row : due)
+			claims.add(new Object[] { leased, ((OutboxMessage) row[0]).getId(), row[1] });
+		int[] claimed = jdbc.batchUpdate("update outbox set next_attempt = ? where id = ? and next_attempt = ?",
+				claims);
+		List<OutboxMessage> messages = new ArrayList<>(due.size());
+		for (int i = 0; i < due.size(); i++)
+			if (claimed[i] != 0)
+				messages.add((OutboxMessage) due.get(i)[0]);
+		return messages;
+	}
+
+	public void markSent(Collection<Long> ids) {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		List<Object[]> updates = new ArrayList<>(ids.size());
+		for (Long id : ids)
+			updates.add(new Object[] { SENT, now, id });
+		if (!updates.isEmpty())
+			jdbc.batchUpdate("update outbox set status = ?, sent = ? where id = ?", updates);
+	}
+
+	public void retryLater(long id, int attempts, long nextAttemptMillis, String error) {
+		jdbc.update("update outbox set attempts = ?, next_attempt = ?, last_error = ? where id = ?", attempts,
+				new Timestamp(nextAttemptMillis), truncate(error), id);
+	}
+
+	/** Gives up on a message; it stays in the table for inspection. */
+	public void markFailed(long id, int attempts, String error) {
+		jdbc.update("update outbox set status = ?, attempts = ?, last_error = ? where id = ?", FAILED, attempts,
+				truncate(error), id);
+	}
+
+	public void purgeSent(long olderThanMillis) {
+		jdbc.update("delete from outbox where status = ? and sent < ?", SENT, new Timestamp(olderThanMillis));
+	}
+
+	private static String truncate(String error) {
+		return error == null || error.length() <= 1000 ? error : error.substring(0, 1000);
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.qa.QACinema.Outbox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drains the {@link Outbox} in the background. Each round claims a batch of
+ * due messages, splits it between up to {@code parallelism} concurrent
+ * sends, and records the outcome with one update per message. Rounds follow
+ * each other straight away while batches come back full.
+ *
+ * A failed message is retried after an exponential backoff with jitter,
+ * and given up on after {@code maxAttempts}. A message is sent at least
+ * once: if this instance dies after sending but before recording it, the
+ * message is sent again once its lease runs out.
+ */
+public class OutboxDispatcher {
+
+	private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+	private static final long SENT_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+	private final Outbox outbox;
+	private final MessageSender sender;
+	private final int batchSize;
+	private final int parallelism;
+	private final int maxAttempts;
+	private final long backoffMillis;
+	private final long maxBackoffMillis;
+	private final long leaseMillis;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "outbox-dispatcher");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final ExecutorService senders;
+
+	public OutboxDispatcher(Outbox outbox, MessageSender sender, int batchSize, int parallelism, int maxAttempts,
+			long backoffMillis, long maxBackoffMillis, long leaseMillis, long pollMillis) {
+		this.outbox = outbox;
+		this.sender = sender;
+		this.batchSize = batchSize;
+		this.parallelism = parallelism;
+		this.maxAttempts = maxAttempts;
+		this.backoffMillis = backoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+		this.leaseMillis = leaseMillis;
+		AtomicInteger count = new AtomicInteger();
+		this.senders = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread thread = new Thread(r, "outbox-sender-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::drain, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+		scheduler.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+	}
+
+	public void close() {
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		senders.shutdownNow();
+	}
+
+	/** Sends everything that is due; returns how many messages were sent. */
+	int drain() {
+		int sent = 0;
+		try {
+			List<OutboxMessage> batch;
+			do {
+				batch = outbox.claim(batchSize, leaseMillis);
+				sent += dispatch(batch);
+			} while (batch.size() == batchSize && !scheduler.isShutdown());
+		} catch (RuntimeException e) {
+			log.warn("Could not drain the outbox, will retry", e);
+		}
+		return sent;
+	}
+
+	private int dispatch(List<OutboxMessage> batch) {
+		if (batch.isEmpty())
+			return 0;
+		int chunks = Math.min(parallelism, batch.size());
+		List<List<OutboxMessage>> parts = new ArrayList<>(chunks);
+		for (int i = 0; i < chunks; i++)
+			parts.add(batch.subList(i * batch.size() / chunks, (i + 1) * batch.size() / chunks));
+		List<Future<Map<Long, String>>> results = new ArrayList<>(chunks);
+		for (List<OutboxMessage> part : parts)
+			results.add(senders.submit(() -> sender.send(part)));
+
+		Map<Long, String> failures = new HashMap<>();
+		for (int i = 0; i < chunks; i++)
+			try {
+				failures.putAll(results.get(i).get());
+			} catch (ExecutionException e) {
+				for (OutboxMessage message : parts.get(i))
+					failures.put(message.getId(), e.getCause().toString());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				// unrecorded sends are retried when the lease runs out
+				return 0;
+			}
+
+		List<Long> sent = new ArrayList<>(batch.size());
+		long now = System.currentTimeMillis();
+		for (OutboxMessage message : batch) {
+			String error = failures.get(message.getId());
+			if (error == null) {
+				sent.add(message.getId());
+				continue;
+			}
+			int attempts = message.getAttempts() + 1;
+			if (attempts >= maxAttempts) {
+				log.warn("Giving up on outbox message {} after {} attempts: {}", message.getId(), attempts, error);
+				outbox.markFailed(message.getId(), attempts, error);
+			} else {
+				outbox.retryLater(message.getId(), attempts, now + backoff(attempts), error);
+			}
+		}
+		outbox.markSent(sent);
+		return sent.size();
+	}
+
+	// half the exponentially growing ceiling, plus a random share of the other half
+	private long backoff(int attempts) {
+		long ceiling = backoffMillis << Math.min(attempts - 1, 30);
+		if (ceiling <= 0 || ceiling > maxBackoffMillis)
+			ceiling = maxBackoffMillis;
+		return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+	}
+
+	private void purge() {
+		try {
+			outbox.purgeSent(System.currentTimeMillis() - SENT_RETENTION_MILLIS);
+		} catch (RuntimeException e) {
+			log.warn("Could not purge sent outbox messages", e);
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.qa.QACinema.Outbox;
+
+/**
+ * A notification waiting in the outbox.
+ */
+public class OutboxMessage {
+
+	private final long id;
+	private final String recipient;
+	private final String subject;
+	private final String body;
+	private final int attempts;
+
+	public OutboxMessage(long id, String recipient, String subject, String body, int attempts) {
+		this.id = id;
+		this.recipient = recipient;
+		this.subject = subject;
+		this.body = body;
+		this.attempts = attempts;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getRecipient() {
+		return recipient;
+	}
+
+	public String getSubject() {
+		return subject;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	/** Failed sends so far. */
+	public int getAttempts() {
+		return attempts;
+	}
+
+}
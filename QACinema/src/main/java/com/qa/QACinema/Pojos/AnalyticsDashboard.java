@@ -0,0 +1,23 @@
+package com.qa.QACinema.Pojos;
+
+import java.util.List;
+
+public final class AnalyticsDashboard {
+
+	private final List<OccupancyView> screens;
+	private final List<OccupancyView> showings;
+
+	public AnalyticsDashboard(List<OccupancyView> screens, List<OccupancyView> showings) {
+		this.screens = screens;
+		this.showings = showings;
+	}
+
+	public List<OccupancyView> getScreens() {
+		return screens;
+	}
+
+	public List<OccupancyView> getShowings() {
+		return showings;
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.qa.QACinema.Pojos;
+
+import java.util.Date;
+
+public final class IntroductionMessageView implements MessageView {
+	
+	private final Long id;
+	private final Date creationDate;
+	private final String text;
+	
+	public IntroductionMessageView(Long id, String text, Date creationDate) {
+		this.id = id;
+		this.text = text;
+		this.creationDate = creationDate;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Date getCreationDate() {
+		return creationDate;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.qa.QACinema.Pojos;
+
+import java.util.Date;
+
+/**
+ * What every kind of forum post looks like to readers and to the archive.
+ */
+public interface MessageView {
+
+	Long getId();
+
+	Date getCreationDate();
+
+	String getText();
+
+}
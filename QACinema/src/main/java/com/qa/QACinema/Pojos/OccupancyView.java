@@ -0,0 +1,72 @@
+package com.qa.QACinema.Pojos;
+
+/**
+ * Occupancy and sales of a showing, or of a screen when showingId is null.
+ */
+public final class OccupancyView {
+
+	private final String screenId;
+	private final String screenName;
+	private final String showingId;
+	private final int capacity;
+	private final int occupied;
+	private final long booked;
+	private final long released;
+	private final long bookedLastHour;
+
+	public OccupancyView(String screenId, String screenName, String showingId, int capacity, int occupied,
+			long booked, long released, long bookedLastHour) {
+		this.screenId = screenId;
+		this.screenName = screenName;
+		this.showingId = showingId;
+		this.capacity = capacity;
+		this.occupied = occupied;
+		this.booked = booked;
+		this.released = released;
+		this.bookedLastHour = bookedLastHour;
+	}
+
+	/** Both added up, under this one's screen and showing. */
+	public OccupancyView plus(OccupancyView other) {
+		return new OccupancyView(screenId, screenName, showingId, capacity + other.capacity,
+				occupied + other.occupied, booked + other.booked, released + other.released,
+				bookedLastHour + other.bookedLastHour);
+	}
+
+	public String getScreenId() {
+		return screenId;
+	}
+
+	public String getScreenName() {
+		return screenName;
+	}
+
+	public String getShowingId() {
+		return showingId;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getOccupied() {
+		return occupied;
+	}
+
+	public double getOccupancy() {
+		return capacity == 0 ? 0 : (double) occupied / capacity;
+	}
+
+	public long getBooked() {
+		return booked;
+	}
+
+	public long getReleased() {
+		return released;
+	}
+
+	public long getBookedLastHour() {
+		return bookedLastHour;
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.qa.QACinema.Pojos;
+
+public class QueueStatus {
+	
+	private boolean admitted;
+	private long position;
+	private long estimatedWaitSeconds;
+	private String ticket;
+	private String pass;
+	
+	public QueueStatus() {
+		
+	}
+	
+	public QueueStatus(boolean admitted, long position, long estimatedWaitSeconds, String ticket, String pass) {
+		this.admitted = admitted;
+		this.position = position;
+		this.estimatedWaitSeconds = estimatedWaitSeconds;
+		this.ticket = ticket;
+		this.pass = pass;
+	}
+
+	public boolean isAdmitted() {
+		return admitted;
+	}
+	public void setAdmitted(boolean admitted) {
+		this.admitted = admitted;
+	}
+	public long getPosition() {
+		return position;
+	}
+	public void setPosition(long position) {
+		this.position = position;
+	}
+	public long getEstimatedWaitSeconds() {
+		return estimatedWaitSeconds;
+	}
+	public void setEstimatedWaitSeconds(long estimatedWaitSeconds) {
+		this.estimatedWaitSeconds = estimatedWaitSeconds;
+	}
+	public String getTicket() {
+		return ticket;
+	}
+	public void setTicket(String ticket) {
+		this.ticket = ticket;
+	}
+	public String getPass() {
+		return pass;
+	}
+	public void setPass(String pass) {
+		this.pass = pass;
+	}
+	
+}
@@ -0,0 +1,29 @@
+package com.qa.QACinema.Pojos;
+
+import java.util.Date;
+
+public final class SalesWindow {
+
+	private final Date start;
+	private final long booked;
+	private final long released;
+
+	public SalesWindow(long start, long booked, long released) {
+		this.start = new Date(start);
+		this.booked = booked;
+		this.released = released;
+	}
+
+	public Date getStart() {
+		return start;
+	}
+
+	public long getBooked() {
+		return booked;
+	}
+
+	public long getReleased() {
+		return released;
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.qa.QACinema.Pojos;
+
+public class SearchResult {
+	
+	private String type;
+	private Long id;
+	private String text;
+	private float score;
+	
+	public SearchResult() {
+		
+	}
+	
+	public SearchResult(String type, Long id, String text, float score) {
+		this.type = type;
+		this.id = id;
+		this.text = text;
+		this.score = score;
+	}
+
+	public String getType() {
+		return type;
+	}
+	public void setType(String type) {
+		this.type = type;
+	}
+	public Long getId() {
+		return id;
+	}
+	public void setId(Long id) {
+		this.id = id;
+	}
+	public String getText() {
+		return text;
+	}
+	public void setText(String text) {
+		this.text = text;
+	}
+	public float getScore() {
+		return score;
+	}
+	public void setScore(float score) {
+		this.score = score;
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.qa.QACinema.Pojos;
+
+public final class UserView {
+	
+	private final Long id;
+	private final String username;
+	
+	public UserView(Long id, String username) {
+		this.id = id;
+		this.username = username;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+}
@@ -1,18 +1,19 @@
 package com.qa.QACinema;
 
-import java.util.Arrays;
-
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
-import com.qa.QACinema.Entities.Role;
 import com.qa.QACinema.Entities.User;
 import com.qa.QACinema.Repositories.UserRepository;
+import com.qa.QACinema.Service.RoleCatalogue;
 
 
 @SpringBootApplication
@@ -22,22 +23,33 @@ public class QACinemaApp
 		SpringApplication.run(QACinemaApp.class, args);
 	}
 	
-	@Autowired
-	public void authenticationManager(AuthenticationManagerBuilder builder, final UserRepository repo) throws Exception  {
-		if (repo.count() == 0)
-			repo.save(new User("user", "password", Arrays.asList(new Role ("USER"), new Role ("ACTUATOR"))));
+	@Value("${qacinema.seed.enabled:true}")
+	private boolean seedEnabled;
 	
+	@Autowired
+	public void authenticationManager(AuthenticationManagerBuilder builder, final UserRepository repo, final RoleCatalogue roles) throws Exception  {
 		builder.userDetailsService(new UserDetailsService() {
 			public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 				// TODO Auto-generated method stub
-				return new CustomUserDetails( repo.findByUsername(username));
+				return new CustomUserDetails( repo.findByUsername(username), roles);
 			}
 		});
 			
 			}
 		
-	private UserDetailsService userDetailsService(final UserRepository repository) {
-		return username -> new CustomUserDetails(repository.findByUsername(username));
+	// runs once the app is serving, so the count and insert stay off the startup path
+	@EventListener(ApplicationReadyEvent.class)
+	public void seedDefaultUser(ApplicationReadyEvent event) {
+		UserRepository repo = event.getApplicationContext().getBean(UserRepository.class);
+		if (seedEnabled && repo.count() == 0) {
+			RoleCatalogue roles = event.getApplicationContext().getBean(RoleCatalogue.class);
+			// the development account also administers users
+			repo.save(new User("user", "password", roles.defaultMask() | roles.mask(RoleCatalogue.ADMIN)));
+		}
+	}
+	
+	private UserDetailsService userDetailsService(final UserRepository repository, final RoleCatalogue roles) {
+		return username -> new CustomUserDetails(repository.findByUsername(username), roles);
 	}
 	
 	
@@ -0,0 +1,28 @@
+package com.qa.QACinema.Repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+
+import com.qa.QACinema.Pojos.MessageView;
+
+/**
+ * Queries shared by the message tables, which are bucketed by month of
+ * creation (see MonthBucket). Each repository supplies the JPQL.
+ */
+public interface BucketedMessageRepository<V extends MessageView> {
+
+	/** Newest first, from the given bucket on. */
+	List<V> findViewsSince(int bucket);
+
+	List<Integer> findBucketsBefore(int bucket);
+
+	/** One bucket in id order, for archiving. */
+	List<V> findViewsInBucket(int bucket, Pageable pageable);
+
+	int deleteInBucket(int bucket, long firstId, long lastId);
+
+	/** Puts rows from before bucketing into the given bucket. */
+	int assignMissingBuckets(int bucket);
+
+}
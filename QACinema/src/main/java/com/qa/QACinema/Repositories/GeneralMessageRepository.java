@@ -1,12 +1,53 @@
 package com.qa.QACinema.Repositories;
 
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 
 import com.qa.QACinema.Entities.GeneralMessage;
+import com.qa.QACinema.Pojos.GeneralMessageView;
 
-public interface GeneralMessageRepository extends JpaRepository<GeneralMessage, Long> {
+public interface GeneralMessageRepository extends JpaRepository<GeneralMessage, Long>,
+		BucketedMessageRepository<GeneralMessageView> {
 	
+	@Query("select new com.qa.QACinema.Pojos.GeneralMessageView(m.id, m.text, m.creationDate) from GeneralMessage m"
+			+ " where m.bucket >= ?1 and m.flaggedAt is null order by m.creationDate desc")
+	List<GeneralMessageView> findViewsSince(int bucket);
+
+	@Query("select distinct m.bucket from GeneralMessage m where m.bucket < ?1 order by m.bucket")
+	List<Integer> findBucketsBefore(int bucket);
+
+	@Query("select new com.qa.QACinema.Pojos.GeneralMessageView(m.id, m.text, m.creationDate) from GeneralMessage m"
+			+ " where m.bucket = ?1 order by m.id")
+	List<GeneralMessageView> findViewsInBucket(int bucket, Pageable pageable);
+
+	@Transactional
+	@Modifying
+	@Query("delete from GeneralMessage m where m.bucket = ?1 and m.id between ?2 and ?3")
+	int deleteInBucket(int bucket, long firstId, long lastId);
+
+	@Transactional
+	@Modifying
+	@Query("update GeneralMessage m set m.bucket = ?1 where m.bucket is null")
+	int assignMissingBuckets(int bucket);
+
+	@Transactional
+	@Modifying
+	@Query("update GeneralMessage m set m.flaggedAt = ?2 where m.id in ?1")
+	int hide(List<Long> ids, Date flaggedAt);
+
+	@Query("select new com.qa.QACinema.Pojos.GeneralMessageView(m.id, m.text, m.creationDate) from GeneralMessage m"
+			+ " where m.moderatedAt is null and m.id > ?1 order by m.id")
+	List<GeneralMessageView> findUnmoderatedAfter(long id, Pageable pageable);
+
+	@Transactional
+	@Modifying
+	@Query("update GeneralMessage m set m.moderatedAt = ?2 where m.id in ?1")
+	int markModerated(List<Long> ids, Date moderatedAt);
 }
@@ -1,9 +1,37 @@
 package com.qa.QACinema.Repositories;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.qa.QACinema.Entities.IntroductionMessage;
+import com.qa.QACinema.Pojos.IntroductionMessageView;
+
+public interface IntroductionMessageRepository extends JpaRepository<IntroductionMessage, Long>,
+		BucketedMessageRepository<IntroductionMessageView> {
+
+	@Query("select new com.qa.QACinema.Pojos.IntroductionMessageView(m.id, m.text, m.creationDate) from IntroductionMessage m"
+			+ " where m.bucket >= ?1 order by m.creationDate desc")
+	List<IntroductionMessageView> findViewsSince(int bucket);
+
+	@Query("select distinct m.bucket from IntroductionMessage m where m.bucket < ?1 order by m.bucket")
+	List<Integer> findBucketsBefore(int bucket);
+
+	@Query("select new com.qa.QACinema.Pojos.IntroductionMessageView(m.id, m.text, m.creationDate) from IntroductionMessage m"
+			+ " where m.bucket = ?1 order by m.id")
+	List<IntroductionMessageView> findViewsInBucket(int bucket, Pageable pageable);
 
-public interface IntroductionMessageRepository extends JpaRepository<IntroductionMessage, Long> {
+	@Transactional
+	@Modifying
+	@Query("delete from IntroductionMessage m where m.bucket = ?1 and m.id between ?2 and ?3")
+	int deleteInBucket(int bucket, long firstId, long lastId);
 
+	@Transactional
+	@Modifying
+	@Query("update IntroductionMessage m set m.bucket = ?1 where m.bucket is null")
+	int assignMissingBuckets(int bucket);
 }
@@ -2,12 +2,38 @@ package com.qa.QACinema.Repositories;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 
 import com.qa.QACinema.Entities.MovieMessage;
+import com.qa.QACinema.Pojos.MovieMessageView;
 
-public interface MovieMessageRepository extends JpaRepository<MovieMessage,Long> {
+public interface MovieMessageRepository extends JpaRepository<MovieMessage,Long>,
+		BucketedMessageRepository<MovieMessageView> {
 	
+	@Query("select new com.qa.QACinema.Pojos.MovieMessageView(m.id, m.text, m.creationDate) from MovieMessage m"
+			+ " where m.bucket >= ?1 order by m.creationDate desc")
+	List<MovieMessageView> findViewsSince(int bucket);
+
+	@Query("select distinct m.bucket from MovieMessage m where m.bucket < ?1 order by m.bucket")
+	List<Integer> findBucketsBefore(int bucket);
+
+	@Query("select new com.qa.QACinema.Pojos.MovieMessageView(m.id, m.text, m.creationDate) from MovieMessage m"
+			+ " where m.bucket = ?1 order by m.id")
+	List<MovieMessageView> findViewsInBucket(int bucket, Pageable pageable);
+
+	@Transactional
+	@Modifying
+	@Query("delete from MovieMessage m where m.bucket = ?1 and m.id between ?2 and ?3")
+	int deleteInBucket(int bucket, long firstId, long lastId);
+
+	@Transactional
+	@Modifying
+	@Query("update MovieMessage m set m.bucket = ?1 where m.bucket is null")
+	int assignMissingBuckets(int bucket);
 }
 
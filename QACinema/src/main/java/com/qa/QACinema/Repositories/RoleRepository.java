@@ -0,0 +1,11 @@
+package com.qa.QACinema.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.qa.QACinema.Entities.Role;
+
+@Repository
+public interface RoleRepository extends JpaRepository<Role, Long> {
+
+}
@@ -1,13 +1,23 @@
 package com.qa.QACinema.Repositories;
 
+import java.util.List;
+
 import org.bson.types.ObjectId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import com.qa.QACinema.Entities.Screen;
+import com.qa.QACinema.Storage.ScreenRow;
 
 @Repository
 public interface ScreenRepository extends JpaRepository<Screen, Long> {
     
+	@Query("select s from Screen s join s.time t where t.id = ?1")
+	Screen findByShowing(Long timeId);
+
+	@Query("select new com.qa.QACinema.Storage.ScreenRow(s.id, s.screenName, s.screenBooked, s.seatRows, t.id, t.screenTime)"
+			+ " from Screen s left join s.time t order by s.id")
+	List<ScreenRow> findAllRows();
 }
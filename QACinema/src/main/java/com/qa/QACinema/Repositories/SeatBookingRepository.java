@@ -0,0 +1,20 @@
+package com.qa.QACinema.Repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.qa.QACinema.Entities.SeatBooking;
+
+@Repository
+public interface SeatBookingRepository extends JpaRepository<SeatBooking, Long> {
+
+	List<SeatBooking> findByTimeId(Long timeId);
+
+	Long deleteByTimeIdAndSeat(Long timeId, int seat);
+
+	Long deleteByTimeIdIn(List<Long> timeIds);
+
+	Long deleteByTimeIdInAndSeatGreaterThanEqual(List<Long> timeIds, int seat);
+}
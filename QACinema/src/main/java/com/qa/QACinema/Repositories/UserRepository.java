@@ -1,12 +1,40 @@
 package com.qa.QACinema.Repositories;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Pojos.UserView;
 
 @Repository
 public interface UserRepository extends JpaRepository<User,Long> {
     User findByUsername(String username);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.authorities = ?1 where u.authorities is null")
+    int assignMissingAuthorities(long mask);
+
+    @Query(value = "select new com.qa.QACinema.Pojos.UserView(u.id, u.username) from User u",
+            countQuery = "select count(u) from User u")
+    Page<UserView> findAllViews(Pageable pageable);
+
+    @Query("select new com.qa.QACinema.Pojos.UserView(u.id, u.username) from User u where u.id > ?1 order by u.id")
+    List<UserView> findViewsAfter(Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.qa.QACinema.Pojos.UserView(u.id, u.username) from User u order by u.id")
+    Stream<UserView> streamAllViews();
 }
 
@@ -0,0 +1,86 @@
+package com.qa.QACinema.Routing;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tracks how far the replica has caught up with the primary. The primary
+ * gets a heartbeat row stamped with its clock every interval, and the
+ * replica's copy of that row says up to when it has replayed.
+ *
+ * With a non-positive maximum lag no heartbeat is written. The replica is
+ * then only probed for reachability, which is what two unreplicated local
+ * databases need.
+ */
+public class ReplicaMonitor {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicaMonitor.class);
+
+	private final JdbcTemplate primary;
+	private final JdbcTemplate replica;
+	private final long maxLagMillis;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "replica-monitor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile boolean reachable;
+	private volatile long replicatedUpTo;
+
+	public ReplicaMonitor(DataSource primary, DataSource replica, long maxLagMillis, long intervalMillis) {
+		this.primary = new JdbcTemplate(primary);
+		this.replica = new JdbcTemplate(replica);
+		this.maxLagMillis = maxLagMillis;
+		if (maxLagMillis > 0)
+			this.primary.execute("create table if not exists replica_heartbeat (id int primary key, beat bigint not null)");
+		check();
+		scheduler.scheduleWithFixedDelay(this::check, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Whether a read may go to the replica, given the time of this
+	 * instance's latest write on the primary.
+	 */
+	public boolean isUsable(long lastWriteMillis) {
+		if (!reachable)
+			return false;
+		if (maxLagMillis <= 0)
+			return true;
+		long upTo = replicatedUpTo;
+		return upTo >= lastWriteMillis && System.currentTimeMillis() - upTo <= maxLagMillis;
+	}
+
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	void check() {
+		try {
+			if (maxLagMillis > 0) {
+				long now = System.currentTimeMillis();
+				if (primary.update("update replica_heartbeat set beat = ? where id = 1", now) == 0)
+					primary.update("insert into replica_heartbeat (id, beat) values (1, ?)", now);
+				Long beat = replica.queryForObject("select max(beat) from replica_heartbeat", Long.class);
+				replicatedUpTo = beat == null ? 0 : beat;
+			} else {
+				replica.queryForObject("select 1", Integer.class);
+			}
+			if (!reachable)
+				log.info("Replica available for read-only transactions");
+			reachable = true;
+		} catch (RuntimeException e) {
+			if (reachable)
+				log.warn("Replica unavailable, reading from the primary", e);
+			reachable = false;
+		}
+	}
+
+}
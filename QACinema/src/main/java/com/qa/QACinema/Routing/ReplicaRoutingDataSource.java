@@ -0,0 +1,46 @@
+package com.qa.QACinema.Routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions to the replica and all
+ * others to the primary. A read stays on the primary until the replica has
+ * replayed past this instance's latest write, so callers always read their
+ * own writes. Must sit behind a LazyConnectionDataSourceProxy, so that the
+ * connection is only taken once the transaction's read-only flag is
+ * visible here.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	public enum Route {
+		PRIMARY, REPLICA
+	}
+
+	private final ReplicaMonitor monitor;
+	private volatile long lastWriteMillis;
+
+	public ReplicaRoutingDataSource(ReplicaMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+			return monitor.isUsable(lastWriteMillis) ? Route.REPLICA : Route.PRIMARY;
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			lastWriteMillis = System.currentTimeMillis();
+			// a heartbeat may replicate ahead of a long transaction, so count the write from its end
+			if (TransactionSynchronizationManager.isSynchronizationActive())
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+					@Override
+					public void afterCompletion(int status) {
+						lastWriteMillis = System.currentTimeMillis();
+					}
+				});
+		}
+		return Route.PRIMARY;
+	}
+
+}
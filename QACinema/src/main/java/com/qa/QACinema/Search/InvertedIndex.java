@@ -0,0 +1,229 @@
+package com.qa.QACinema.Search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process full-text index ranked with BM25. Documents are identified by
+ * a caller-chosen key; adding a key again replaces the earlier document.
+ * Removed documents only leave a tombstone until they outnumber the live
+ * ones, when the slots and postings are compacted.
+ */
+public class InvertedIndex {
+
+	private static final float K1 = 1.2f;
+	private static final float B = 0.75f;
+	private static final int MIN_COMPACT_DOCS = 64;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// all guarded by lock
+	private final Map<String, Postings> terms = new HashMap<>();
+	private final Map<Long, Integer> docsByKey = new HashMap<>();
+	private final BitSet deleted = new BitSet();
+	private long[] keys = new long[64];
+	private int[] lengths = new int[64];
+	private int docCount;
+	private int liveDocs;
+	private long totalLength;
+
+	public static class Hit {
+
+		private final long key;
+		private final float score;
+
+		Hit(long key, float score) {
+			this.key = key;
+			this.score = score;
+		}
+
+		public long getKey() {
+			return key;
+		}
+
+		public float getScore() {
+			return score;
+		}
+	}
+
+	public void add(long key, String text) {
+		Map<String, Integer> frequencies = Tokenizer.termFrequencies(text);
+		lock.writeLock().lock();
+		try {
+			addTokenized(key, frequencies);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds many documents at once, tokenising them in parallel.
+	 */
+	public void addAll(List<Long> keys, List<String> texts) {
+		List<Map<String, Integer>> tokenized = texts.parallelStream()
+				.map(Tokenizer::termFrequencies)
+				.collect(Collectors.toList());
+		lock.writeLock().lock();
+		try {
+			for (int i = 0; i < tokenized.size(); i++)
+				addTokenized(keys.get(i), tokenized.get(i));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(long key) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(key);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			terms.clear();
+			docsByKey.clear();
+			deleted.clear();
+			docCount = 0;
+			liveDocs = 0;
+			totalLength = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the best matching documents, best first
+	 */
+	public List<Hit> search(String query, int limit) {
+		if (limit <= 0)
+			return Collections.emptyList();
+		lock.readLock().lock();
+		try {
+			if (liveDocs == 0)
+				return Collections.emptyList();
+			float averageLength = (float) totalLength / liveDocs;
+			Map<Integer, Float> scores = new HashMap<>();
+			for (String term : Tokenizer.termFrequencies(query).keySet()) {
+				Postings postings = terms.get(term);
+				if (postings == null)
+					continue;
+				// tombstoned postings must not count towards the document frequency
+				int[] docs = new int[postings.count()];
+				float[] norms = new float[postings.count()];
+				int matched = 0;
+				Postings.Cursor cursor = postings.cursor();
+				while (cursor.next()) {
+					int doc = cursor.doc();
+					if (deleted.get(doc))
+						continue;
+					float tf = cursor.frequency();
+					docs[matched] = doc;
+					norms[matched++] = tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[doc] / averageLength));
+				}
+				float idf = (float) Math.log(1 + (liveDocs - matched + 0.5) / (matched + 0.5));
+				for (int i = 0; i < matched; i++)
+					scores.merge(docs[i], idf * norms[i], Float::sum);
+			}
+
+			PriorityQueue<Map.Entry<Integer, Float>> best = new PriorityQueue<>(limit + 1,
+					(a, b) -> Float.compare(a.getValue(), b.getValue()));
+			for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+				best.add(entry);
+				if (best.size() > limit)
+					best.poll();
+			}
+			List<Hit> hits = new ArrayList<>(best.size());
+			while (!best.isEmpty()) {
+				Map.Entry<Integer, Float> entry = best.poll();
+				hits.add(new Hit(keys[entry.getKey()], entry.getValue()));
+			}
+			Collections.reverse(hits);
+			return hits;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void addTokenized(long key, Map<String, Integer> frequencies) {
+		removeLocked(key);
+		int doc = docCount++;
+		if (doc == keys.length) {
+			keys = Arrays.copyOf(keys, doc * 2);
+			lengths = Arrays.copyOf(lengths, doc * 2);
+		}
+		int length = 0;
+		for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+			terms.computeIfAbsent(entry.getKey(), t -> new Postings()).add(doc, entry.getValue());
+			length += entry.getValue();
+		}
+		keys[doc] = key;
+		lengths[doc] = length;
+		docsByKey.put(key, doc);
+		liveDocs++;
+		totalLength += length;
+	}
+
+	private void removeLocked(long key) {
+		Integer doc = docsByKey.remove(key);
+		if (doc == null)
+			return;
+		deleted.set(doc);
+		liveDocs--;
+		totalLength -= lengths[doc];
+		if (docCount >= MIN_COMPACT_DOCS && docCount - liveDocs > liveDocs)
+			compact();
+	}
+
+	/**
+	 * Renumbers the live documents densely and rewrites every postings list
+	 * without the tombstoned entries. The renumbering keeps document order,
+	 * so each list stays sorted.
+	 */
+	private void compact() {
+		int[] remap = new int[docCount];
+		int live = 0;
+		for (int doc = 0; doc < docCount; doc++) {
+			if (deleted.get(doc)) {
+				remap[doc] = -1;
+			} else {
+				remap[doc] = live;
+				keys[live] = keys[doc];
+				lengths[live] = lengths[doc];
+				live++;
+			}
+		}
+		for (Iterator<Map.Entry<String, Postings>> it = terms.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Postings> entry = it.next();
+			Postings compacted = new Postings();
+			Postings.Cursor cursor = entry.getValue().cursor();
+			while (cursor.next())
+				if (remap[cursor.doc()] >= 0)
+					compacted.add(remap[cursor.doc()], cursor.frequency());
+			if (compacted.count() == 0)
+				it.remove();
+			else
+				entry.setValue(compacted);
+		}
+		for (Map.Entry<Long, Integer> doc : docsByKey.entrySet())
+			doc.setValue(remap[doc.getValue()]);
+		int capacity = Math.max(64, Integer.highestOneBit(Math.max(live, 1)) * 2);
+		keys = Arrays.copyOf(keys, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+		deleted.clear();
+		docCount = live;
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.qa.QACinema.Search;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing one term, in increasing document order, stored as
+ * varint (document gap, term frequency) pairs. Most pairs take two bytes.
+ */
+final class Postings {
+
+	private byte[] data = new byte[8];
+	private int size;
+	private int count;
+	private int lastDoc = -1;
+
+	void add(int doc, int frequency) {
+		if (size + 10 > data.length)
+			data = Arrays.copyOf(data, data.length * 2);
+		writeVarint(doc - lastDoc);
+		writeVarint(frequency);
+		lastDoc = doc;
+		count++;
+	}
+
+	int count() {
+		return count;
+	}
+
+	Cursor cursor() {
+		return new Cursor();
+	}
+
+	private void writeVarint(int value) {
+		while ((value & ~0x7F) != 0) {
+			data[size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data[size++] = (byte) value;
+	}
+
+	final class Cursor {
+
+		private int position;
+		private int doc = -1;
+		private int frequency;
+
+		boolean next() {
+			if (position >= size)
+				return false;
+			doc += readVarint();
+			frequency = readVarint();
+			return true;
+		}
+
+		int doc() {
+			return doc;
+		}
+
+		int frequency() {
+			return frequency;
+		}
+
+		private int readVarint() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+	}
+
+}
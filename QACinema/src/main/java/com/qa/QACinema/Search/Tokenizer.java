@@ -0,0 +1,35 @@
+package com.qa.QACinema.Search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits text into lower-case runs of letters and digits.
+ */
+public final class Tokenizer {
+
+	private Tokenizer() {
+
+	}
+
+	/**
+	 * @return each distinct term of the text with how often it occurs
+	 */
+	public static Map<String, Integer> termFrequencies(String text) {
+		Map<String, Integer> terms = new HashMap<>();
+		if (text == null)
+			return terms;
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (inWord && start < 0) {
+				start = i;
+			} else if (!inWord && start >= 0) {
+				terms.merge(text.substring(start, i).toLowerCase(), 1, Integer::sum);
+				start = -1;
+			}
+		}
+		return terms;
+	}
+
+}
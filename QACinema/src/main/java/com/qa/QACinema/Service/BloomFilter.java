@@ -0,0 +1,78 @@
+package com.qa.QACinema.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over strings. {@link #mightContain} never returns
+ * false for a string that was {@link #put}, and returns true for one that
+ * was not with roughly the configured probability while the filter holds
+ * no more than its expected number of entries.
+ */
+class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bits;
+	private final int hashes;
+	private final int capacity;
+	private final AtomicInteger size = new AtomicInteger();
+
+	BloomFilter(int expected, double falsePositiveRate) {
+		this.capacity = Math.max(expected, 1);
+		long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		this.words = new AtomicLongArray((int) Math.max(1, (m + 63) >>> 6));
+		this.bits = (long) words.length() << 6;
+		this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+	}
+
+	void put(String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			for (;;) {
+				long current = words.get(word);
+				if ((current & mask) != 0 || words.compareAndSet(word, current, current | mask))
+					break;
+			}
+		}
+		size.incrementAndGet();
+	}
+
+	boolean mightContain(String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	boolean isSaturated() {
+		return size.get() > capacity;
+	}
+
+	int size() {
+		return size.get();
+	}
+
+	private static long hash(String value) {
+		long h = 0x9E3779B97F4A7C15L;
+		for (int i = 0; i < value.length(); i++)
+			h = (h ^ value.charAt(i)) * 0x100000001B3L;
+		// murmur3 finaliser so both halves are usable as independent hashes
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB93FE53A8853L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+}
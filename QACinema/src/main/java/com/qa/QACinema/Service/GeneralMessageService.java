@@ -1,27 +1,94 @@
 package com.qa.QACinema.Service;
 
+import java.util.Date;
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.qa.QACinema.Entities.GeneralMessage;
 import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Moderation.ModerationPipeline;
+import com.qa.QACinema.Pojos.GeneralMessageView;
 import com.qa.QACinema.Repositories.GeneralMessageRepository;
 
 
 @Service
 public class GeneralMessageService {
 
+	    private static final Logger log = LoggerFactory.getLogger(GeneralMessageService.class);
+
+	    private static final int RESCAN_PAGE = 500;
+
 	    @Autowired
 	    private GeneralMessageRepository gmRepository;
 
-	    public List<GeneralMessage> getAllGeneralMessages(){
-	        return gmRepository.findAll();
+	    @Autowired
+	    private MessageSearchService searchService;
+
+	    @Autowired
+	    private MessageRetention retention;
+
+	    @Autowired
+	    private ModerationPipeline moderation;
+
+	    // posts stay up until moderation flags them
+	    @PostConstruct
+	    public void watchModeration() {
+	        moderation.addListener(this::hide);
+	        moderation.addScannedListener(ids -> gmRepository.markModerated(ids, new Date()));
+	    }
+
+	    // posts still queued when the last run stopped were never scanned
+	    @EventListener(ApplicationReadyEvent.class)
+	    public void rescanInBackground() {
+	        Thread thread = new Thread(() -> {
+	            try {
+	                rescanUnmoderated();
+	            } catch (RuntimeException e) {
+	                log.error("Could not resubmit unmoderated posts", e);
+	            }
+	        }, "moderation-rescan");
+	        thread.setDaemon(true);
+	        thread.start();
+	    }
+
+	    void rescanUnmoderated() {
+	        int submitted = 0;
+	        long after = 0;
+	        List<GeneralMessageView> page;
+	        while (!(page = gmRepository.findUnmoderatedAfter(after, new PageRequest(0, RESCAN_PAGE))).isEmpty()) {
+	            for (GeneralMessageView post : page)
+	                moderation.submit(post.getId(), post.getText());
+	            submitted += page.size();
+	            after = page.get(page.size() - 1).getId();
+	        }
+	        if (submitted > 0)
+	            log.info("Resubmitted {} unmoderated posts", submitted);
+	    }
+
+	    @Transactional(readOnly = true)
+	    public List<GeneralMessageView> getAllGeneralMessages(){
+	        return gmRepository.findViewsSince(retention.oldestLiveBucket());
 	    }
 
 	    public void insert(GeneralMessage gm) {
-	        gmRepository.save(gm);
+	        GeneralMessage saved = gmRepository.save(gm);
+	        searchService.index(saved);
+	        moderation.submit(saved.getId(), saved.getText());
+	    }
+
+	    private void hide(List<Long> gmIds) {
+	        gmRepository.hide(gmIds, new Date());
+	        gmIds.forEach(searchService::removeGeneralMessage);
 	    }
 
 	    
@@ -31,6 +98,7 @@ public class GeneralMessageService {
 	        if(thePost == null)
 	            return false;
 	        gmRepository.delete(gmId);
+	        searchService.removeGeneralMessage(gmId);
 	        return true;
 	    }
 
@@ -2,12 +2,18 @@ package com.qa.QACinema.Service;
 
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.qa.QACinema.Caching.EncodedResponseCache;
+import com.qa.QACinema.Caching.Snapshot;
+import com.qa.QACinema.Caching.SnapshotCache;
 import com.qa.QACinema.Entities.GeneralMessage;
 import com.qa.QACinema.Entities.IntroductionMessage;
 import com.qa.QACinema.Entities.MovieMessage;
+import com.qa.QACinema.Pojos.IntroductionMessageView;
 import com.qa.QACinema.Repositories.IntroductionMessageRepository;
 import com.qa.QACinema.Repositories.MovieMessageRepository;
 
@@ -17,12 +23,25 @@ public class IntroductionMessageService {
 	 @Autowired
 	 private IntroductionMessageRepository introRepository;
 	 
-	 public List<IntroductionMessage> getAllIntroductionMessages(){
-	        return introRepository.findAll();
+	 @Autowired
+	 private SnapshotCache snapshotCache;
+	 
+	 private Snapshot<IntroductionMessageView> introductions;
+	 
+	 // every month, since retention leaves introductions alone
+	 @PostConstruct
+	 public void registerSnapshot() {
+		 introductions = snapshotCache.register(EncodedResponseCache.INTRODUCTION, 
+				 () -> introRepository.findViewsSince(0));
+	 }
+	 
+	 public List<IntroductionMessageView> getAllIntroductionMessages(){
+	        return introductions.get();
 	    }
 	 
 	 public void insert(IntroductionMessage intro) {
 	        introRepository.save(intro);
+	        snapshotCache.refresh(EncodedResponseCache.INTRODUCTION);
 	    }
 	 
 	 public boolean deleteIntroductionMessage(Long introId){
@@ -30,6 +49,7 @@ public class IntroductionMessageService {
 	        if(thePost == null)
 	            return false;
 	        introRepository.delete(introId);
+	        snapshotCache.refresh(EncodedResponseCache.INTRODUCTION);
 	        return true;
 	    }
 	 
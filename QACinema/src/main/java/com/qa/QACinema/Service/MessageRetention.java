@@ -0,0 +1,169 @@
+package com.qa.QACinema.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.QACinema.Archiving.ArchiveDirectory;
+import com.qa.QACinema.Caching.EncodedResponseCache;
+import com.qa.QACinema.Caching.SnapshotCache;
+import com.qa.QACinema.Entities.MonthBucket;
+import com.qa.QACinema.Pojos.MessageView;
+import com.qa.QACinema.Repositories.BucketedMessageRepository;
+import com.qa.QACinema.Repositories.GeneralMessageRepository;
+import com.qa.QACinema.Repositories.IntroductionMessageRepository;
+import com.qa.QACinema.Repositories.MovieMessageRepository;
+
+/**
+ * Keeps the forum and news tables to the last
+ * {@code qacinema.messages.retention-months} months. Older months are moved
+ * out in the background, a batch at a time, into compressed archive parts;
+ * listings only read the months still kept. With no retention set, nothing
+ * is archived and listings read every month. Introductions are homepage
+ * content rather than posts, and are never archived however old they are.
+ *
+ * A batch is deleted only once its part is on disk. If a run stops between
+ * the two, the next run finds the part and deletes its rows first.
+ */
+@Service
+public class MessageRetention {
+
+	private static final Logger log = LoggerFactory.getLogger(MessageRetention.class);
+
+	@Value("${qacinema.messages.retention-months:0}")
+	private int retentionMonths;
+
+	@Value("${qacinema.messages.archive-dir:archive}")
+	private String archiveDir;
+
+	@Value("${qacinema.messages.archive-batch:5000}")
+	private int batchSize;
+
+	@Value("${qacinema.messages.archive-interval-minutes:60}")
+	private long intervalMinutes;
+
+	@Autowired
+	private GeneralMessageRepository gmRepository;
+
+	@Autowired
+	private MovieMessageRepository movieRepository;
+
+	@Autowired
+	private IntroductionMessageRepository introRepository;
+
+	@Autowired
+	private SnapshotCache snapshotCache;
+
+	@Autowired
+	private MessageSearchService searchService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private List<Table> tables;
+	private ArchiveDirectory archive;
+	private ScheduledExecutorService scheduler;
+
+	private static final class Table {
+
+		final String name;
+		final BucketedMessageRepository<?> repository;
+		final Consumer<Long> onArchived;
+		final String snapshot;
+
+		Table(String name, BucketedMessageRepository<?> repository, Consumer<Long> onArchived, String snapshot) {
+			this.name = name;
+			this.repository = repository;
+			this.onArchived = onArchived;
+			this.snapshot = snapshot;
+		}
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		tables = Arrays.asList(
+				new Table("general_message", gmRepository, id -> searchService.removeGeneralMessage(id), null),
+				new Table("movie_message", movieRepository, id -> searchService.removeMovieMessage(id),
+						EncodedResponseCache.NEW_MOVIES));
+		// posts from before bucketing have lost their date; they count as this month's
+		for (Table table : tables)
+			table.repository.assignMissingBuckets(MonthBucket.current());
+		introRepository.assignMissingBuckets(MonthBucket.current());
+		if (retentionMonths <= 0)
+			return;
+		archive = new ArchiveDirectory(Paths.get(archiveDir), objectMapper);
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "message-retention");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::archiveOldMessages, 1, intervalMinutes * 60, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (scheduler != null)
+			scheduler.shutdownNow();
+	}
+
+	/** @return the first month that listings need to read */
+	public int oldestLiveBucket() {
+		return retentionMonths <= 0 ? 0 : MonthBucket.monthsBefore(MonthBucket.current(), retentionMonths);
+	}
+
+	void archiveOldMessages() {
+		int cutoff = oldestLiveBucket();
+		for (Table table : tables) {
+			try {
+				int moved = 0;
+				for (int bucket : table.repository.findBucketsBefore(cutoff))
+					moved += archiveBucket(table, bucket);
+				if (moved > 0) {
+					log.info("Archived {} rows from {}", moved, table.name);
+					if (table.snapshot != null)
+						snapshotCache.refresh(table.snapshot);
+				}
+			} catch (IOException | RuntimeException e) {
+				log.warn("Could not archive " + table.name + ", will retry", e);
+			}
+		}
+	}
+
+	private int archiveBucket(Table table, int bucket) throws IOException {
+		int moved = 0;
+		// rows still here from a part on disk were archived by a run that stopped before deleting them
+		for (long[] part : archive.parts(table.name, bucket)) {
+			int deleted = table.repository.deleteInBucket(bucket, part[0], part[1]);
+			if (deleted > 0)
+				for (long id : archive.ids(table.name, bucket, part))
+					table.onArchived.accept(id);
+			moved += deleted;
+		}
+		List<? extends MessageView> rows;
+		while (!(rows = table.repository.findViewsInBucket(bucket, new PageRequest(0, batchSize))).isEmpty()) {
+			archive.write(table.name, bucket, rows);
+			table.repository.deleteInBucket(bucket, rows.get(0).getId(), rows.get(rows.size() - 1).getId());
+			for (MessageView row : rows)
+				table.onArchived.accept(row.getId());
+			moved += rows.size();
+		}
+		return moved;
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.qa.QACinema.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.qa.QACinema.Entities.GeneralMessage;
+import com.qa.QACinema.Entities.MovieMessage;
+import com.qa.QACinema.Pojos.SearchResult;
+import com.qa.QACinema.Repositories.GeneralMessageRepository;
+import com.qa.QACinema.Repositories.MovieMessageRepository;
+import com.qa.QACinema.Search.InvertedIndex;
+
+/**
+ * Full-text search over forum posts and movie news. The index is built from
+ * the tables on a background thread once the application is ready, so it
+ * neither delays startup nor runs on a request thread, and is kept current
+ * by the message services; only the top hits are read back from the
+ * database, by primary key. Until the build completes, searches see only
+ * what has been indexed so far.
+ */
+@Service
+public class MessageSearchService {
+
+	private static final Logger log = LoggerFactory.getLogger(MessageSearchService.class);
+
+	public static final String GENERAL = "general";
+	public static final String MOVIE = "movie";
+
+	private static final int MAX_RESULTS = 100;
+
+	@Autowired
+	private GeneralMessageRepository gmRepository;
+
+	@Autowired
+	private MovieMessageRepository movieRepository;
+
+	private final InvertedIndex index = new InvertedIndex();
+
+	// changes made while a build reads the tables, replayed over its result; null when none is running
+	private List<Runnable> duringBuild;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildInBackground() {
+		Thread thread = new Thread(() -> {
+			try {
+				rebuild();
+			} catch (RuntimeException e) {
+				log.error("Could not build the search index", e);
+			}
+		}, "search-index");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void rebuild() {
+		synchronized (this) {
+			duringBuild = new ArrayList<>();
+		}
+		List<Long> keys = new ArrayList<>();
+		List<String> texts = new ArrayList<>();
+		for (GeneralMessage gm : gmRepository.findAll()) {
+			if (gm.getFlaggedAt() != null)
+				continue;
+			keys.add(generalKey(gm.getId()));
+			texts.add(gm.getText());
+		}
+		for (MovieMessage movie : movieRepository.findAll()) {
+			keys.add(movieKey(movie.getId()));
+			texts.add(movie.getText());
+		}
+		synchronized (this) {
+			index.clear();
+			index.addAll(keys, texts);
+			duringBuild.forEach(Runnable::run);
+			duringBuild = null;
+		}
+	}
+
+	public void index(GeneralMessage gm) {
+		apply(() -> index.add(generalKey(gm.getId()), gm.getText()));
+	}
+
+	public void index(MovieMessage movie) {
+		apply(() -> index.add(movieKey(movie.getId()), movie.getText()));
+	}
+
+	public void removeGeneralMessage(Long id) {
+		apply(() -> index.remove(generalKey(id)));
+	}
+
+	public void removeMovieMessage(Long id) {
+		apply(() -> index.remove(movieKey(id)));
+	}
+
+	private synchronized void apply(Runnable change) {
+		change.run();
+		if (duringBuild != null)
+			duringBuild.add(change);
+	}
+
+	public List<SearchResult> search(String query, int limit) {
+		List<InvertedIndex.Hit> hits = index.search(query, Math.min(limit, MAX_RESULTS));
+		List<Long> generalIds = new ArrayList<>();
+		List<Long> movieIds = new ArrayList<>();
+		for (InvertedIndex.Hit hit : hits)
+			((hit.getKey() & 1) == 0 ? generalIds : movieIds).add(hit.getKey() >>> 1);
+
+		Map<Long, String> generalTexts = new HashMap<>();
+		if (!generalIds.isEmpty())
+			for (GeneralMessage gm : gmRepository.findAll(generalIds))
+				generalTexts.put(gm.getId(), gm.getText());
+		Map<Long, String> movieTexts = new HashMap<>();
+		if (!movieIds.isEmpty())
+			for (MovieMessage movie : movieRepository.findAll(movieIds))
+				movieTexts.put(movie.getId(), movie.getText());
+
+		List<SearchResult> results = new ArrayList<>(hits.size());
+		for (InvertedIndex.Hit hit : hits) {
+			long id = hit.getKey() >>> 1;
+			boolean general = (hit.getKey() & 1) == 0;
+			String text = general ? generalTexts.get(id) : movieTexts.get(id);
+			if (text != null)
+				results.add(new SearchResult(general ? GENERAL : MOVIE, id, text, hit.getScore()));
+		}
+		return results;
+	}
+
+	private static long generalKey(Long id) {
+		return id << 1;
+	}
+
+	private static long movieKey(Long id) {
+		return id << 1 | 1;
+	}
+
+}
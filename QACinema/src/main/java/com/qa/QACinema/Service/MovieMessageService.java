@@ -3,11 +3,17 @@ package com.qa.QACinema.Service;
 
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.qa.QACinema.Caching.EncodedResponseCache;
+import com.qa.QACinema.Caching.Snapshot;
+import com.qa.QACinema.Caching.SnapshotCache;
 import com.qa.QACinema.Entities.MovieMessage;
 import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Pojos.MovieMessageView;
 import com.qa.QACinema.Repositories.MovieMessageRepository;
 
 
@@ -17,12 +23,30 @@ public class MovieMessageService {
 	 @Autowired
 	 private MovieMessageRepository movieRepository;
 	 
-	 public List<MovieMessage> getAllMovieMessages(){
-	        return movieRepository.findAll();
+	 @Autowired
+	 private MessageSearchService searchService;
+	 
+	 @Autowired
+	 private SnapshotCache snapshotCache;
+	 
+	 @Autowired
+	 private MessageRetention retention;
+	 
+	 private Snapshot<MovieMessageView> newMovies;
+	 
+	 @PostConstruct
+	 public void registerSnapshot() {
+		 newMovies = snapshotCache.register(EncodedResponseCache.NEW_MOVIES,
+				 () -> movieRepository.findViewsSince(retention.oldestLiveBucket()));
+	 }
+	 
+	 public List<MovieMessageView> getAllMovieMessages(){
+	        return newMovies.get();
 	    }
 	 
 	 public void insert(MovieMessage movie) {
-	        movieRepository.save(movie);
+	        searchService.index(movieRepository.save(movie));
+	        snapshotCache.refresh(EncodedResponseCache.NEW_MOVIES);
 	    }
 	 
 	 public boolean deleteMovieMessage(Long moviemessageID){
@@ -30,6 +54,8 @@ public class MovieMessageService {
 	        if(thePost == null)
 	            return false;
 	        movieRepository.delete(moviemessageID);
+	        searchService.removeMovieMessage(moviemessageID);
+	        snapshotCache.refresh(EncodedResponseCache.NEW_MOVIES);
 	        return true;
 	    }
 	 
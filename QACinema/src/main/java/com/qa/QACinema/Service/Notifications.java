@@ -0,0 +1,35 @@
+package com.qa.QACinema.Service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.qa.QACinema.Outbox.Outbox;
+
+/**
+ * The mails we send customers. Each is put in the outbox by the transaction
+ * that makes the change it reports, and sent later. Accounts are only
+ * mailed when their username is an address.
+ */
+@Service
+public class Notifications {
+
+	@Autowired
+	private Outbox outbox;
+
+	public void welcome(String username) {
+		if (isAddress(username))
+			outbox.enqueue(username, "Welcome to QA Cinema",
+					"Hi " + username + ",\n\nYour QA Cinema account is ready. See you at the movies!\n");
+	}
+
+	public void bookingConfirmed(String username, String showingId, int seat) {
+		if (isAddress(username))
+			outbox.enqueue(username, "Your booking is confirmed",
+					"Hi " + username + ",\n\nSeat " + seat + " is booked for showing " + showingId + ".\n");
+	}
+
+	private static boolean isAddress(String username) {
+		return username != null && username.indexOf('@') > 0;
+	}
+
+}
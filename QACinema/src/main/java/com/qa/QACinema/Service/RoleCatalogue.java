@@ -0,0 +1,111 @@
+package com.qa.QACinema.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import com.qa.QACinema.Entities.Role;
+import com.qa.QACinema.Repositories.RoleRepository;
+import com.qa.QACinema.Repositories.UserRepository;
+
+/**
+ * The shared role dictionary. Each role owns one bit of
+ * {@link com.qa.QACinema.Entities.User#getAuthorities()}; a mask decodes to
+ * a cached, immutable list of interned authorities, so building a principal
+ * allocates nothing per role.
+ */
+@Service
+public class RoleCatalogue {
+
+	public static final String USER = "USER";
+	public static final String ACTUATOR = "ACTUATOR";
+	// not in the default mask; granted by hand to the accounts that administer users
+	public static final String ADMIN = "ADMIN";
+
+	private static final int MAX_ROLES = 63;
+
+	// a built-in role's bit is its index here, the same on every node
+	private static final String[] BUILT_IN = { USER, ACTUATOR, ADMIN };
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private final Map<String, Integer> bits = new HashMap<>();
+	private final GrantedAuthority[] authorities = new GrantedAuthority[MAX_ROLES];
+	private final Map<Long, List<GrantedAuthority>> decoded = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void load() {
+		for (Role role : roleRepository.findAll())
+			register(role);
+		for (int bit = 0; bit < BUILT_IN.length; bit++)
+			if (!bits.containsKey(BUILT_IN[bit]))
+				insert(BUILT_IN[bit], bit);
+		// accounts from before the catalogue always had exactly the default roles;
+		// every node computes the same mask, so nodes starting together agree
+		userRepository.assignMissingAuthorities(defaultMask());
+	}
+
+	public long defaultMask() {
+		return mask(USER, ACTUATOR);
+	}
+
+	public long mask(String... names) {
+		long mask = 0;
+		for (String name : names) {
+			Integer bit = bits.get(name.toUpperCase());
+			if (bit == null)
+				throw new IllegalArgumentException("Unknown role " + name);
+			mask |= 1L << bit;
+		}
+		return mask;
+	}
+
+	public List<GrantedAuthority> authorities(long mask) {
+		List<GrantedAuthority> list = decoded.get(mask);
+		return list != null ? list : decoded.computeIfAbsent(mask, this::decode);
+	}
+
+	private List<GrantedAuthority> decode(long mask) {
+		List<GrantedAuthority> list = new ArrayList<>(Long.bitCount(mask));
+		for (long rest = mask; rest != 0; rest &= rest - 1) {
+			GrantedAuthority authority = authorities[Long.numberOfTrailingZeros(rest)];
+			if (authority != null)
+				list.add(authority);
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	private void register(Role role) {
+		String name = role.getName().toUpperCase();
+		bits.put(name, role.getBit());
+		authorities[role.getBit()] = new SimpleGrantedAuthority(name);
+	}
+
+	private void insert(String name, int bit) {
+		try {
+			register(roleRepository.save(new Role(name, bit)));
+		} catch (DataIntegrityViolationException e) {
+			// another node starting at the same time inserted it first
+			for (Role role : roleRepository.findAll())
+				register(role);
+			if (!bits.containsKey(name))
+				throw new IllegalStateException("Role bit " + bit + " for " + name + " is held by another role", e);
+		}
+	}
+
+}
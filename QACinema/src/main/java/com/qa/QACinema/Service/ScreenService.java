@@ -1,41 +1,219 @@
 package com.qa.QACinema.Service;
 
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import javax.persistence.EntityManager;
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.qa.QACinema.Entities.Screen;
-import com.qa.QACinema.Repositories.ScreenRepository;
+import com.qa.QACinema.Analytics.BookingAnalytics;
+import com.qa.QACinema.Caching.EncodedResponseCache;
+import com.qa.QACinema.Caching.InvalidationBus;
+import com.qa.QACinema.Caching.SnapshotCache;
+import com.qa.QACinema.Sharding.ClusterClient;
+import com.qa.QACinema.Sharding.ClusterMembership;
+import com.qa.QACinema.Sharding.OwnerUnavailableException;
+import com.qa.QACinema.Storage.FreeRunIndex;
+import com.qa.QACinema.Storage.ScreenRecord;
+import com.qa.QACinema.Storage.ScreenStore;
+import com.qa.QACinema.Storage.SeatBlock;
+import com.qa.QACinema.Storage.SeatMap;
 
 
 @Service
 public class ScreenService {
 	
 	@Autowired
-	private ScreenRepository screenRepo; 
+	private ScreenStore screenStore; 
+	
+	@Autowired
+	private SnapshotCache snapshotCache;
+	
+	@Autowired
+	private ClusterMembership cluster;
+	
+	@Autowired
+	private ClusterClient clusterClient;
+	
+	@Autowired
+	private InvalidationBus bus;
+	
+	@Autowired
+	private BookingAnalytics analytics;
+	
+	@Autowired
+	private Notifications notifications;
+	
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	// built on the first best-seat search of a showing, then kept in step with bookings
+	private final ConcurrentMap<String, FreeRunIndex> freeRuns = new ConcurrentHashMap<>();
+	
+	// only the owner of a showing may keep its index, and layout changes anywhere drop them all
+	@PostConstruct
+	public void watchCluster() {
+		cluster.addListener(() -> freeRuns.keySet().removeIf(id -> cluster.remoteOwner(id) != null));
+		bus.subscribe(resource -> {
+			if (EncodedResponseCache.SCREENS.equals(resource)) {
+				freeRuns.clear();
+				analytics.screensChanged();
+			}
+		});
+	}
 	
 	
 	 
-	 public List<Screen> getAllScreens(){
+	 @Transactional(readOnly = true)
+	 public List<ScreenRecord> getAllScreens(){
 		 
-		return screenRepo.findAll();
+		return screenStore.findAllScreens();
 	 }
 	 
-	 public void addScreen (Screen screen) {
-		 screenRepo.save(screen);
+	 public ScreenRecord addScreen (ScreenRecord screen) {
+		 ScreenRecord saved = screenStore.saveScreen(screen);
+		 freeRuns.clear();
+		 analytics.screensChanged();
+		 snapshotCache.refresh(EncodedResponseCache.SCREENS);
+		 return saved;
 	 }
 	  
-	 public void updateAccount(Long id, Screen screen) {
-		 
-		 }
+	 public ScreenRecord updateAccount(String id, ScreenRecord screen) {
+		 if (screenStore.findScreen(id) == null)
+			 return null;
+		 screen.setId(id);
+		 return addScreen(screen);
+	 }
 	  
-	 public void deleteAccount(Long id) {
-		 screenRepo.delete(id);
+	 public boolean deleteAccount(String id) {
+		 if (!screenStore.deleteScreen(id))
+			 return false;
+		 freeRuns.clear();
+		 analytics.screensChanged();
+		 snapshotCache.refresh(EncodedResponseCache.SCREENS);
+		 return true;
+	 }
+	 
+	 /*
+	  * Seat operations go to the node that owns the showing. If it cannot be
+	  * reached they are served here, which the shared stores keep correct;
+	  * a node-local store answers 503 instead, as only the owner has the seats.
+	  */
+	 
+	 public SeatMap getSeats(String showingId) {
+		 String owner = cluster.remoteOwner(showingId);
+		 if (owner != null)
+			 try {
+				 return clusterClient.getSeats(owner, showingId);
+			 } catch (IOException e) {
+				 unreachable(owner, e);
+			 }
+		 return getLocalSeats(showingId);
+	 }
+	 
+	 public SeatMap getLocalSeats(String showingId) {
+		 return screenStore.findSeats(showingId);
+	 }
+	 
+	 /**
+	  * @return the best block of adjacent free seats, empty if no row has
+	  *         room, or null if there is no such showing
+	  */
+	 public Optional<SeatBlock> findBestSeats(String showingId, int count) {
+		 String owner = cluster.remoteOwner(showingId);
+		 if (owner != null)
+			 try {
+				 return clusterClient.findBestSeats(owner, showingId, count);
+			 } catch (IOException e) {
+				 unreachable(owner, e);
+			 }
+		 return findLocalBestSeats(showingId, count);
+	 }
+	 
+	 public Optional<SeatBlock> findLocalBestSeats(String showingId, int count) {
+		 FreeRunIndex index = getFreeRuns(showingId);
+		 return index == null ? null : Optional.ofNullable(index.findBest(count));
+	 }
+	 
+	 /**
+	  * @param customer who to send the confirmation to, or null
+	  */
+	 public boolean bookSeat(String showingId, int seat, String customer) {
+		 String owner = cluster.remoteOwner(showingId);
+		 if (owner != null)
+			 try {
+				 return clusterClient.bookSeat(owner, showingId, seat, customer);
+			 } catch (IOException e) {
+				 unreachable(owner, e);
+			 }
+		 return bookLocalSeat(showingId, seat, customer);
+	 }
+	 
+	 public boolean releaseSeat(String showingId, int seat) {
+		 String owner = cluster.remoteOwner(showingId);
+		 if (owner != null)
+			 try {
+				 return clusterClient.releaseSeat(owner, showingId, seat);
+			 } catch (IOException e) {
+				 unreachable(owner, e);
+			 }
+		 return releaseLocalSeat(showingId, seat);
+	 }
+	 
+	 private void unreachable(String owner, IOException e) {
+		 cluster.reportFailure(owner);
+		 if (!screenStore.isShared())
+			 throw new OwnerUnavailableException(owner, e);
+	 }
+	 
+	 private FreeRunIndex getFreeRuns(String showingId) {
+		 FreeRunIndex index = freeRuns.get(showingId);
+		 if (index != null)
+			 return index;
+		 // seats are read inside the mapping: an update meanwhile either lands before the read or waits for the index
+		 return freeRuns.computeIfAbsent(showingId, id -> {
+			 SeatMap seats = screenStore.findSeats(id);
+			 return seats == null ? null : new FreeRunIndex(seats);
+		 });
+	 }
+	 
+	 // win or lose, the seat ends up booked, so the index learns about bookings made elsewhere too
+	 public boolean bookLocalSeat(String showingId, int seat, String customer) {
+		 boolean booked = transactionTemplate.execute(status -> {
+			 if (!screenStore.bookSeat(showingId, seat)) {
+				 status.setRollbackOnly();
+				 return false;
+			 }
+			 notifications.bookingConfirmed(customer, showingId, seat);
+			 return true;
+		 });
+		 freeRuns.computeIfPresent(showingId, (id, index) -> {
+			 index.book(seat);
+			 return index;
+		 });
+		 if (booked)
+			 analytics.booked(showingId);
+		 return booked;
+	 }
+	 
+	 public boolean releaseLocalSeat(String showingId, int seat) {
+		 boolean released = screenStore.releaseSeat(showingId, seat);
+		 freeRuns.computeIfPresent(showingId, (id, index) -> {
+			 index.release(seat);
+			 return index;
+		 });
+		 if (released)
+			 analytics.released(showingId);
+		 return released;
 	 }
 			 
 
-}
\ No newline at end of file
+}
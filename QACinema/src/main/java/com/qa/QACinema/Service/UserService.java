@@ -1,14 +1,31 @@
 package com.qa.QACinema.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Pojos.UserView;
 import com.qa.QACinema.Repositories.UserRepository;
 
 ;
@@ -16,24 +33,127 @@ import com.qa.QACinema.Repositories.UserRepository;
 @Service
 public class UserService {
 
+    static final int MAX_PAGE_SIZE = 200;
+    private static final List<String> SORTABLE = Arrays.asList("id", "username");
+    private static final int REBUILD_BATCH = 5000;
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private Notifications notifications;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${qacinema.users.bloom.expected:100000}")
+    private int expectedUsers;
+
+    @Value("${qacinema.users.bloom.fpp:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter takenUsernames;
+
     @Bean
     public PasswordEncoder passwordEncoder(){
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Loads every existing username into a fresh filter sized for at least
+     * twice the current user count. Names saved while this runs may be
+     * missed; that only costs them the fast path, since the unique index on
+     * username still rejects the duplicate.
+     */
+    @PostConstruct
+    public void rebuildUsernameFilter() {
+        BloomFilter filter = new BloomFilter((int) Math.max(expectedUsers, userRepository.count() * 2), falsePositiveRate);
+        long lastId = 0;
+        List<UserView> batch;
+        do {
+            batch = userRepository.findViewsAfter(lastId, new PageRequest(0, REBUILD_BATCH));
+            for (UserView user : batch) {
+                filter.put(user.getUsername());
+                lastId = user.getId();
+            }
+        } while (batch.size() == REBUILD_BATCH);
+        takenUsernames = filter;
+        log.info("Username filter rebuilt with {} names", filter.size());
+    }
+
     public void save(User user){
         user.setPassword(passwordEncoder().encode(user.getPassword()));
         userRepository.save(user);
+        usernameTaken(user.getUsername());
+    }
+
+    /**
+     * Saves a new user unless the name is taken, answering from the filter
+     * when it can and leaving the final say to the unique index. The welcome
+     * mail is queued in the same transaction as the user.
+     *
+     * @return false if the username already exists
+     */
+    public boolean register(User user) {
+        if (isTaken(user.getUsername()))
+            return false;
+        try {
+            transactionTemplate.execute(status -> {
+                save(user);
+                notifications.welcome(user.getUsername());
+                return null;
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            usernameTaken(user.getUsername());
+            return false;
+        }
+    }
+
+    public boolean isTaken(String username) {
+        BloomFilter filter = takenUsernames;
+        if (filter != null && !filter.mightContain(username))
+            return false;
+        return userRepository.findByUsername(username) != null;
+    }
+
+    private void usernameTaken(String username) {
+        BloomFilter filter = takenUsernames;
+        if (filter == null)
+            return;
+        filter.put(username);
+        if (filter.isSaturated())
+            synchronized (this) {
+                if (takenUsernames == filter)
+                    rebuildUsernameFilter();
+            }
     }
 
     public User getUser(String username){
         return userRepository.findByUsername(username);
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public Page<UserView> getUsers(Pageable pageable) {
+        int size = Math.min(Math.max(pageable.getPageSize(), 1), MAX_PAGE_SIZE);
+        List<Sort.Order> orders = new ArrayList<>();
+        if (pageable.getSort() != null)
+            for (Sort.Order order : pageable.getSort())
+                if (SORTABLE.contains(order.getProperty()))
+                    orders.add(order);
+        Sort sort = orders.isEmpty() ? new Sort("username") : new Sort(orders);
+        return userRepository.findAllViews(new PageRequest(pageable.getPageNumber(), size, sort));
+    }
+
+    /**
+     * Hands every user to the sink one row at a time from a forward-only
+     * cursor, so a full dump never holds the table in memory.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<UserView> sink) {
+        try (Stream<UserView> users = userRepository.streamAllViews()) {
+            users.forEach(sink);
+        }
     }
 }
@@ -0,0 +1,143 @@
+package com.qa.QACinema.Sharding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.BitSet;
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.QACinema.Storage.SeatBlock;
+import com.qa.QACinema.Storage.SeatMap;
+
+/**
+ * Calls the internal seat endpoints of the node that owns a showing.
+ * Any transport failure surfaces as an IOException so the caller can
+ * report the node and fall back.
+ */
+public class ClusterClient {
+
+	private final ClusterSignature signature;
+	private final ObjectMapper objectMapper;
+	private final int connectTimeoutMillis;
+	private final int readTimeoutMillis;
+
+	public ClusterClient(ClusterSignature signature, ObjectMapper objectMapper, int connectTimeoutMillis,
+			int readTimeoutMillis) {
+		this.signature = signature;
+		this.objectMapper = objectMapper;
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	public boolean ping(String node) {
+		try {
+			HttpURLConnection connection = open(node, "GET", "/cluster/ping");
+			int status = connection.getResponseCode();
+			drain(connection);
+			return status == HttpURLConnection.HTTP_OK;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return the owner's seats for the showing, or null if it has no such showing
+	 */
+	public SeatMap getSeats(String node, String showingId) throws IOException {
+		JsonNode json = get(node, "/cluster/showings/" + showingId + "/seats");
+		if (json == null)
+			return null;
+		int[] rows = objectMapper.treeToValue(json.get("rows"), int[].class);
+		BitSet booked = new BitSet();
+		for (JsonNode seat : json.get("booked"))
+			booked.set(seat.asInt());
+		return new SeatMap(rows, booked);
+	}
+
+	/**
+	 * @return null if the owner has no such showing, empty if no row has room
+	 */
+	public Optional<SeatBlock> findBestSeats(String node, String showingId, int count) throws IOException {
+		HttpURLConnection connection = open(node, "GET", "/cluster/showings/" + showingId + "/seats/best?count=" + count);
+		int status = connection.getResponseCode();
+		if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+			drain(connection);
+			return null;
+		}
+		if (status == HttpURLConnection.HTTP_NO_CONTENT)
+			return Optional.empty();
+		JsonNode json = read(connection, status);
+		int[] seats = objectMapper.treeToValue(json.get("seats"), int[].class);
+		return Optional.of(new SeatBlock(json.get("row").asInt(), seats[0], seats.length));
+	}
+
+	/**
+	 * @param customer who the owner should send the confirmation to, or null
+	 */
+	public boolean bookSeat(String node, String showingId, int seat, String customer) throws IOException {
+		String path = "/cluster/showings/" + showingId + "/seats/" + seat;
+		if (customer != null)
+			path += "?customer=" + URLEncoder.encode(customer, "UTF-8");
+		return changeSeat(node, "PUT", path);
+	}
+
+	public boolean releaseSeat(String node, String showingId, int seat) throws IOException {
+		return changeSeat(node, "DELETE", "/cluster/showings/" + showingId + "/seats/" + seat);
+	}
+
+	private boolean changeSeat(String node, String method, String pathAndQuery) throws IOException {
+		HttpURLConnection connection = open(node, method, pathAndQuery);
+		int status = connection.getResponseCode();
+		drain(connection);
+		if (status >= 500)
+			throw new IOException(node + " answered " + status);
+		return status == HttpURLConnection.HTTP_NO_CONTENT;
+	}
+
+	private JsonNode get(String node, String path) throws IOException {
+		HttpURLConnection connection = open(node, "GET", path);
+		int status = connection.getResponseCode();
+		if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+			drain(connection);
+			return null;
+		}
+		return read(connection, status);
+	}
+
+	private JsonNode read(HttpURLConnection connection, int status) throws IOException {
+		if (status != HttpURLConnection.HTTP_OK) {
+			drain(connection);
+			throw new IOException(connection.getURL() + " answered " + status);
+		}
+		try (InputStream in = connection.getInputStream()) {
+			return objectMapper.readTree(in);
+		}
+	}
+
+	private HttpURLConnection open(String node, String method, String pathAndQuery) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(node + pathAndQuery).openConnection();
+		connection.setRequestMethod(method);
+		connection.setConnectTimeout(connectTimeoutMillis);
+		connection.setReadTimeout(readTimeoutMillis);
+		long now = System.currentTimeMillis();
+		connection.setRequestProperty(ClusterSignature.TIMESTAMP_HEADER, Long.toString(now));
+		connection.setRequestProperty(ClusterSignature.SIGNATURE_HEADER, signature.sign(method, pathAndQuery, now));
+		return connection;
+	}
+
+	// reading the body to the end lets the JDK keep the connection alive for the next call
+	private static void drain(HttpURLConnection connection) {
+		try (InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			if (in != null)
+				while (in.read() >= 0)
+					;
+		} catch (IOException e) {
+			// the connection is simply not reused
+		}
+	}
+
+}
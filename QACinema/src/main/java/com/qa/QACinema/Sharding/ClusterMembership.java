@@ -0,0 +1,129 @@
+package com.qa.QACinema.Sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Which configured nodes are alive, and the hash ring over them that
+ * decides which node owns each showing. Every node starts by assuming all
+ * its peers are up, so nodes started together agree at once. A peer that
+ * misses enough heartbeats or forwarded calls leaves the ring, and rejoins
+ * on its next successful heartbeat; listeners hear about every change.
+ *
+ * A fixed membership never changes: used when seats live only on their
+ * owner, where handing a showing to another node would lose its bookings.
+ */
+public class ClusterMembership {
+
+	private static final Logger log = LoggerFactory.getLogger(ClusterMembership.class);
+
+	private static final int FAILURES_TO_LEAVE = 3;
+
+	private final String self;
+	private final List<String> peers = new ArrayList<>();
+	private final int virtualNodes;
+	private final ClusterClient client;
+	private final boolean fixed;
+	private final Set<String> live = ConcurrentHashMap.newKeySet();
+	private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "cluster-heartbeat");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile HashRing ring;
+
+	/**
+	 * @param self  this node's entry in {@code nodes}; ignored when no nodes
+	 *              are configured
+	 * @param nodes base URLs of every node, this one included
+	 * @param fixed whether peers stay in the ring even when unreachable
+	 */
+	public ClusterMembership(String self, String[] nodes, int virtualNodes, long heartbeatMillis, ClusterClient client,
+			boolean fixed) {
+		this.self = normalise(self);
+		this.virtualNodes = virtualNodes;
+		this.client = client;
+		this.fixed = fixed;
+		boolean listed = false;
+		for (String node : nodes) {
+			String peer = normalise(node);
+			if (peer.equals(this.self)) {
+				listed = true;
+			} else if (!peer.isEmpty()) {
+				peers.add(peer);
+				live.add(peer);
+			}
+		}
+		// a node missing from its own list would own a slice of the ring nobody else routes to it
+		if (!peers.isEmpty() && !listed)
+			throw new IllegalStateException("Cluster node '" + self + "' is not one of " + peers);
+		rebuild();
+		if (!peers.isEmpty() && !fixed)
+			heartbeat.scheduleWithFixedDelay(this::beat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return the node that owns the key, or null if it is this one
+	 */
+	public String remoteOwner(String key) {
+		String owner = ring.owner(key);
+		return owner == null || owner.equals(self) ? null : owner;
+	}
+
+	public void reportFailure(String node) {
+		if (fixed)
+			return;
+		if (failures.merge(node, 1, Integer::sum) >= FAILURES_TO_LEAVE && live.remove(node)) {
+			log.warn("{} left the cluster", node);
+			rebuild();
+		}
+	}
+
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	public void close() {
+		heartbeat.shutdownNow();
+	}
+
+	private void beat() {
+		for (String peer : peers) {
+			if (!client.ping(peer)) {
+				reportFailure(peer);
+				continue;
+			}
+			failures.remove(peer);
+			if (live.add(peer)) {
+				log.info("{} joined the cluster", peer);
+				rebuild();
+			}
+		}
+	}
+
+	private synchronized void rebuild() {
+		List<String> nodes = new ArrayList<>(live);
+		nodes.add(self);
+		ring = new HashRing(nodes, virtualNodes);
+		for (Runnable listener : listeners)
+			listener.run();
+	}
+
+	private static String normalise(String node) {
+		String trimmed = node.trim();
+		return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+	}
+
+}
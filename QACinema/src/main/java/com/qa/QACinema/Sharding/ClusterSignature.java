@@ -0,0 +1,57 @@
+package com.qa.QACinema.Sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HMAC over method, path with query string, and timestamp that lets one node call another's
+ * internal endpoints on behalf of a user it has already authenticated.
+ */
+public class ClusterSignature {
+
+	public static final String SIGNATURE_HEADER = "X-Cluster-Signature";
+	public static final String TIMESTAMP_HEADER = "X-Cluster-Timestamp";
+
+	private static final long MAX_SKEW_MILLIS = 30000;
+
+	private final ThreadLocal<Mac> macs;
+
+	public ClusterSignature(String secret) {
+		SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+		this.macs = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance("HmacSHA256");
+				mac.init(key);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	public String sign(String method, String path, long timestamp) {
+		byte[] digest = macs.get().doFinal((method + " " + path + " " + timestamp).getBytes(StandardCharsets.UTF_8));
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+	}
+
+	public boolean verify(String method, String path, String timestamp, String signature) {
+		if (timestamp == null || signature == null)
+			return false;
+		long time;
+		try {
+			time = Long.parseLong(timestamp);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		if (Math.abs(System.currentTimeMillis() - time) > MAX_SKEW_MILLIS)
+			return false;
+		return MessageDigest.isEqual(sign(method, path, time).getBytes(StandardCharsets.UTF_8),
+				signature.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
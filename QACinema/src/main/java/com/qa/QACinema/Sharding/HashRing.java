@@ -0,0 +1,55 @@
+package com.qa.QACinema.Sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable consistent-hash ring. Each node is placed at many virtual
+ * points, and a key belongs to the first point at or after its own hash.
+ * When a node joins or leaves, only the keys next to its points move.
+ */
+public final class HashRing {
+
+	private final long[] points;
+	private final String[] owners;
+
+	public HashRing(Collection<String> nodes, int virtualNodes) {
+		TreeMap<Long, String> ring = new TreeMap<>();
+		for (String node : nodes)
+			for (int i = 0; i < virtualNodes; i++)
+				ring.put(hash(node + "#" + i), node);
+		this.points = new long[ring.size()];
+		this.owners = new String[ring.size()];
+		int i = 0;
+		for (Map.Entry<Long, String> point : ring.entrySet()) {
+			points[i] = point.getKey();
+			owners[i++] = point.getValue();
+		}
+	}
+
+	public String owner(String key) {
+		if (points.length == 0)
+			return null;
+		int i = Arrays.binarySearch(points, hash(key));
+		if (i < 0)
+			i = -i - 1;
+		return owners[i == points.length ? 0 : i];
+	}
+
+	static long hash(String key) {
+		long h = 0xCBF29CE484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8))
+			h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+		// FNV alone clusters similar ids; the murmur3 finaliser spreads them round the ring
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB93FE53A8853L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.qa.QACinema.Sharding;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The owner of a showing could not be reached, and the storage engine
+ * keeps seats on the owning node only, so no other node can stand in.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OwnerUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public OwnerUnavailableException(String owner, Throwable cause) {
+		super("Owner " + owner + " of the showing is unavailable", cause);
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.qa.QACinema;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Logs how long after JVM launch the application became ready and served
+ * its first request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupReport extends OncePerRequestFilter implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+	private volatile boolean served;
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		log.info("Ready {} ms after JVM start", sinceJvmStart());
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			if (!served) {
+				synchronized (this) {
+					if (!served) {
+						served = true;
+						log.info("First request ({} {}) served {} ms after JVM start", request.getMethod(),
+								request.getRequestURI(), sinceJvmStart());
+					}
+				}
+			}
+		}
+	}
+
+	private static long sinceJvmStart() {
+		return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+	}
+
+}
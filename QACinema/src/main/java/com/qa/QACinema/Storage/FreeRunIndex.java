@@ -0,0 +1,143 @@
+package com.qa.QACinema.Storage;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The free seats of one showing as maximal runs per row, kept up to date
+ * seat by seat, for finding the best block of adjacent seats.
+ *
+ * A block is scored by the squared distance of its middle from the middle
+ * of the auditorium, measured in row widths across and row counts
+ * front to back. In each row with a long enough run, the best start is
+ * just the row centre clamped into that run. A search therefore visits
+ * each run once, and rows whose longest run is too short are skipped
+ * outright.
+ */
+public class FreeRunIndex {
+
+	private final int[] rowStart;
+	private final int[] rowWidth;
+	private final int maxWidth;
+	// per row: run start -> run end (exclusive), in seat columns
+	private final TreeMap<Integer, Integer>[] runs;
+	private final int[] longestRun;
+
+	@SuppressWarnings("unchecked")
+	public FreeRunIndex(SeatMap seats) {
+		int[] rows = seats.getRows();
+		this.rowStart = new int[rows.length];
+		this.rowWidth = rows;
+		this.runs = new TreeMap[rows.length];
+		this.longestRun = new int[rows.length];
+		int seat = 0, widest = 0;
+		for (int r = 0; r < rows.length; r++) {
+			rowStart[r] = seat;
+			widest = Math.max(widest, rows[r]);
+			runs[r] = new TreeMap<>();
+			int start = -1;
+			for (int c = 0; c <= rows[r]; c++) {
+				boolean free = c < rows[r] && !seats.isBooked(seat + c);
+				if (free && start < 0)
+					start = c;
+				else if (!free && start >= 0) {
+					runs[r].put(start, c);
+					start = -1;
+				}
+			}
+			longestRun[r] = longest(runs[r]);
+			seat += rows[r];
+		}
+		this.maxWidth = Math.max(widest, 1);
+	}
+
+	public synchronized void book(int seat) {
+		int r = rowOf(seat);
+		if (r < 0)
+			return;
+		int c = seat - rowStart[r];
+		Map.Entry<Integer, Integer> run = runs[r].floorEntry(c);
+		if (run == null || run.getValue() <= c)
+			return;
+		runs[r].remove(run.getKey());
+		if (run.getKey() < c)
+			runs[r].put(run.getKey(), c);
+		if (c + 1 < run.getValue())
+			runs[r].put(c + 1, run.getValue());
+		if (run.getValue() - run.getKey() == longestRun[r])
+			longestRun[r] = longest(runs[r]);
+	}
+
+	public synchronized void release(int seat) {
+		int r = rowOf(seat);
+		if (r < 0)
+			return;
+		int c = seat - rowStart[r];
+		Map.Entry<Integer, Integer> before = runs[r].floorEntry(c);
+		if (before != null && before.getValue() > c)
+			return;
+		int start = c, end = c + 1;
+		if (before != null && before.getValue() == c) {
+			start = before.getKey();
+			runs[r].remove(start);
+		}
+		Integer after = runs[r].remove(c + 1);
+		if (after != null)
+			end = after;
+		runs[r].put(start, end);
+		longestRun[r] = Math.max(longestRun[r], end - start);
+	}
+
+	/**
+	 * @return the best block of {@code count} adjacent free seats, or null
+	 *         if no row has that many together
+	 */
+	public synchronized SeatBlock findBest(int count) {
+		if (count <= 0)
+			return null;
+		double middleRow = (rowWidth.length - 1) / 2.0;
+		double bestScore = Double.MAX_VALUE;
+		int bestRow = -1, bestStart = -1;
+		for (int r = 0; r < rowWidth.length; r++) {
+			if (longestRun[r] < count)
+				continue;
+			double dy = (r - middleRow) / rowWidth.length;
+			double dyy = dy * dy;
+			if (dyy >= bestScore)
+				continue;
+			// column where the block would be centred in its row
+			double ideal = (rowWidth[r] - count) / 2.0;
+			for (Map.Entry<Integer, Integer> run : runs[r].entrySet()) {
+				int from = run.getKey(), to = run.getValue() - count;
+				if (to < from)
+					continue;
+				int start = (int) Math.max(from, Math.min(to, Math.round(ideal)));
+				double dx = (start - ideal) / maxWidth;
+				double score = dx * dx + dyy;
+				if (score < bestScore) {
+					bestScore = score;
+					bestRow = r;
+					bestStart = start;
+				}
+			}
+		}
+		return bestRow < 0 ? null : new SeatBlock(bestRow, rowStart[bestRow] + bestStart, count);
+	}
+
+	private int rowOf(int seat) {
+		if (seat < 0)
+			return -1;
+		for (int r = 0; r < rowStart.length; r++)
+			if (seat < rowStart[r] + rowWidth[r])
+				return r;
+		return -1;
+	}
+
+	private static int longest(TreeMap<Integer, Integer> row) {
+		int longest = 0;
+		for (Map.Entry<Integer, Integer> run : row.entrySet())
+			longest = Math.max(longest, run.getValue() - run.getKey());
+		return longest;
+	}
+
+}
@@ -0,0 +1,317 @@
+package com.qa.QACinema.Storage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Screens and seat states held entirely on the heap. Every change is
+ * appended to a {@link StoreLog} and is durable before it is acknowledged,
+ * and every {@code snapshotInterval} changes the whole state is written as a
+ * snapshot so the log can be truncated. The state is rebuilt from the log
+ * when the store is created.
+ *
+ * Seat reads are lock free. Changes to one showing are serialised on that
+ * showing, so the log order matches the order the changes were applied in;
+ * different showings do not contend with each other.
+ */
+public class InMemoryScreenStore implements ScreenStore {
+
+	private static final Comparator<String> ID_ORDER = Comparator.comparingInt(String::length)
+			.thenComparing(Comparator.naturalOrder());
+
+	private final StoreLog log;
+	private final int snapshotInterval;
+
+	private final ConcurrentMap<String, ScreenRecord> screens = new ConcurrentSkipListMap<>(ID_ORDER);
+	private final ConcurrentMap<String, Showing> showings = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong(1);
+	private final AtomicLong sinceSnapshot = new AtomicLong();
+
+	// changes hold the read side; a snapshot holds the write side so it sees no half-applied change
+	private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+	public InMemoryScreenStore(StoreLog log, int snapshotInterval) {
+		this.log = log;
+		this.snapshotInterval = snapshotInterval;
+		StoreSnapshot snapshot = log.loadSnapshot();
+		if (snapshot != null)
+			restore(snapshot);
+		log.replay(this::apply);
+	}
+
+	@Override
+	public List<ScreenRecord> findAllScreens() {
+		List<ScreenRecord> copies = new ArrayList<>(screens.size());
+		for (ScreenRecord screen : screens.values())
+			copies.add(screen.copy());
+		return copies;
+	}
+
+	@Override
+	public ScreenRecord findScreen(String screenId) {
+		ScreenRecord screen = screenId == null ? null : screens.get(screenId);
+		return screen == null ? null : screen.copy();
+	}
+
+	@Override
+	public ScreenRecord saveScreen(ScreenRecord record) {
+		ScreenRecord screen = record.copy();
+		long ticket;
+		snapshotLock.readLock().lock();
+		try {
+			synchronized (screens) {
+				ScreenRecord previous = screen.getId() == null ? null : screens.get(screen.getId());
+				if (previous == null)
+					screen.setId(String.valueOf(nextId.getAndIncrement()));
+				Set<String> owned = new HashSet<>();
+				if (previous != null)
+					for (ShowingRecord showing : previous.getTime())
+						owned.add(showing.getId());
+				for (ShowingRecord showing : screen.getTime())
+					if (!owned.contains(showing.getId()))
+						showing.setId(String.valueOf(nextId.getAndIncrement()));
+				// append first so an event the log rejects leaves the heap unchanged
+				ticket = log.append(StoreEvent.screenSaved(screen.copy()));
+				applyScreenSaved(screen.copy());
+			}
+		} finally {
+			snapshotLock.readLock().unlock();
+		}
+		log.awaitDurable(ticket);
+		changed();
+		return screen;
+	}
+
+	@Override
+	public boolean deleteScreen(String screenId) {
+		long ticket;
+		snapshotLock.readLock().lock();
+		try {
+			synchronized (screens) {
+				if (screenId == null || !screens.containsKey(screenId))
+					return false;
+				ticket = log.append(StoreEvent.screenDeleted(screenId));
+				applyScreenDeleted(screenId);
+			}
+		} finally {
+			snapshotLock.readLock().unlock();
+		}
+		log.awaitDurable(ticket);
+		changed();
+		return true;
+	}
+
+	@Override
+	public SeatMap findSeats(String showingId) {
+		Showing showing = showingId == null ? null : showings.get(showingId);
+		if (showing == null)
+			return null;
+		ScreenRecord screen = screens.get(showing.screenId);
+		return new SeatMap(screen == null ? new int[0] : screen.getRows(), showing.toBitSet());
+	}
+
+	@Override
+	public boolean bookSeat(String showingId, int seat) {
+		return changeSeat(showingId, seat, true);
+	}
+
+	@Override
+	public boolean releaseSeat(String showingId, int seat) {
+		return changeSeat(showingId, seat, false);
+	}
+
+	@Override
+	public boolean isShared() {
+		return false;
+	}
+
+	/**
+	 * Writes the current state to the log as a snapshot. Called every
+	 * {@code snapshotInterval} changes; can also be called directly.
+	 */
+	public void snapshot() {
+		snapshotLock.writeLock().lock();
+		try {
+			sinceSnapshot.set(0);
+			List<ScreenRecord> copies = findAllScreens();
+			Map<String, long[]> seatStates = new HashMap<>();
+			for (Map.Entry<String, Showing> entry : showings.entrySet())
+				seatStates.put(entry.getKey(), entry.getValue().toWords());
+			log.snapshot(new StoreSnapshot(nextId.get(), copies, seatStates));
+		} finally {
+			snapshotLock.writeLock().unlock();
+		}
+	}
+
+	private boolean changeSeat(String showingId, int seat, boolean booked) {
+		if (showingId == null)
+			return false;
+		long ticket;
+		snapshotLock.readLock().lock();
+		try {
+			for (;;) {
+				Showing showing = showings.get(showingId);
+				if (showing == null || seat < 0 || seat >= showing.seatCount)
+					return false;
+				synchronized (showing) {
+					// replaced by a screen edit since we looked it up
+					if (showing.retired)
+						continue;
+					if (showing.isBooked(seat) == booked)
+						return false;
+					// append first so a change the log rejects is never seen
+					ticket = log.append(booked ? StoreEvent.seatBooked(showingId, seat)
+							: StoreEvent.seatReleased(showingId, seat));
+					showing.set(seat, booked);
+					break;
+				}
+			}
+		} finally {
+			snapshotLock.readLock().unlock();
+		}
+		// wait outside the locks so one fsync covers every change made meanwhile
+		log.awaitDurable(ticket);
+		changed();
+		return true;
+	}
+
+	private void changed() {
+		if (snapshotInterval > 0 && sinceSnapshot.incrementAndGet() == snapshotInterval)
+			snapshot();
+	}
+
+	void apply(StoreEvent event) {
+		switch (event.getType()) {
+		case SCREEN_SAVED:
+			applyScreenSaved(event.getScreen().copy());
+			break;
+		case SCREEN_DELETED:
+			applyScreenDeleted(event.getId());
+			break;
+		case SEAT_BOOKED:
+		case SEAT_RELEASED:
+			Showing showing = showings.get(event.getId());
+			if (showing != null && event.getSeat() < showing.seatCount)
+				showing.set(event.getSeat(), event.getType() == StoreEvent.Type.SEAT_BOOKED);
+			break;
+		}
+	}
+
+	private void restore(StoreSnapshot snapshot) {
+		nextId.set(snapshot.getNextId());
+		for (ScreenRecord screen : snapshot.getScreens())
+			applyScreenSaved(screen.copy());
+		for (Map.Entry<String, long[]> entry : snapshot.getSeatStates().entrySet()) {
+			Showing showing = showings.get(entry.getKey());
+			if (showing != null)
+				showing.load(entry.getValue());
+		}
+	}
+
+	private void applyScreenSaved(ScreenRecord screen) {
+		ScreenRecord previous = screens.put(screen.getId(), screen);
+		bumpNextId(screen.getId());
+		int seatCount = screen.seatCount();
+		Set<String> kept = new HashSet<>();
+		for (ShowingRecord record : screen.getTime()) {
+			kept.add(record.getId());
+			bumpNextId(record.getId());
+			Showing existing = showings.get(record.getId());
+			if (existing == null || existing.seatCount != seatCount)
+				showings.put(record.getId(), new Showing(screen.getId(), seatCount, existing));
+		}
+		if (previous != null)
+			for (ShowingRecord record : previous.getTime())
+				if (!kept.contains(record.getId()))
+					retire(showings.remove(record.getId()));
+	}
+
+	private boolean applyScreenDeleted(String screenId) {
+		ScreenRecord previous = screens.remove(screenId);
+		if (previous == null)
+			return false;
+		for (ShowingRecord record : previous.getTime())
+			retire(showings.remove(record.getId()));
+		return true;
+	}
+
+	private void bumpNextId(String id) {
+		try {
+			long value = Long.parseLong(id);
+			nextId.accumulateAndGet(value + 1, Math::max);
+		} catch (NumberFormatException e) {
+			// ids from elsewhere never collide with ours
+		}
+	}
+
+	private static void retire(Showing showing) {
+		if (showing != null)
+			synchronized (showing) {
+				showing.retired = true;
+			}
+	}
+
+	private static final class Showing {
+
+		final String screenId;
+		final int seatCount;
+		final AtomicLongArray words;
+		boolean retired;
+
+		Showing(String screenId, int seatCount, Showing previous) {
+			this.screenId = screenId;
+			this.seatCount = seatCount;
+			this.words = new AtomicLongArray((seatCount + 63) >>> 6);
+			if (previous != null)
+				synchronized (previous) {
+					previous.retired = true;
+					BitSet booked = previous.toBitSet();
+					for (int seat = booked.nextSetBit(0); seat >= 0 && seat < seatCount; seat = booked.nextSetBit(seat + 1))
+						set(seat, true);
+				}
+		}
+
+		boolean isBooked(int seat) {
+			return (words.get(seat >>> 6) & 1L << (seat & 63)) != 0;
+		}
+
+		boolean set(int seat, boolean booked) {
+			int index = seat >>> 6;
+			long mask = 1L << (seat & 63);
+			long word = words.get(index);
+			if (((word & mask) != 0) == booked)
+				return false;
+			words.set(index, booked ? word | mask : word & ~mask);
+			return true;
+		}
+
+		void load(long[] states) {
+			for (int i = 0; i < states.length && i < words.length(); i++)
+				words.set(i, states[i]);
+		}
+
+		long[] toWords() {
+			long[] copy = new long[words.length()];
+			for (int i = 0; i < copy.length; i++)
+				copy[i] = words.get(i);
+			return copy;
+		}
+
+		BitSet toBitSet() {
+			return BitSet.valueOf(toWords());
+		}
+	}
+
+}
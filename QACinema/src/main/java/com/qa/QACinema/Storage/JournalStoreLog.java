@@ -0,0 +1,508 @@
+package com.qa.QACinema.Storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Durable {@link StoreLog} in a directory of memory-mapped segment files.
+ *
+ * Each record is {@code [length][crc32][event]}; a segment ends at the first
+ * zero length or bad checksum. On recovery the log is cut back to the first
+ * torn record in any segment, dropping the segments after it, so appends
+ * never land behind a hole. Appends only copy into the mapped segment. A single flusher
+ * thread forces every segment written since its last pass and then releases
+ * all appenders waiting on those writes, so concurrent bookings share one
+ * fsync (group commit).
+ *
+ * Snapshots are written by a background thread to
+ * {@code snapshot-<sequence>.bin}, after which older snapshots and segments
+ * holding only earlier events are deleted.
+ */
+public class JournalStoreLog implements StoreLog, Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(JournalStoreLog.class);
+
+	private static final String SEGMENT_PREFIX = "journal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".bin";
+	private static final int SNAPSHOT_MAGIC = 0x51414353;
+	private static final int RECORD_HEADER = 8;
+
+	private final Path directory;
+	private final int segmentSize;
+
+	// guarded by this
+	private final List<Segment> segments = new ArrayList<>();
+	private final Set<Segment> unforced = new LinkedHashSet<>();
+	private Segment current;
+	private long nextSequence;
+	private boolean closed;
+
+	// appenders wait on this rather than on the journal so appends only wake the flusher
+	private final Object durableLock = new Object();
+	private volatile long durableSequence;
+	private volatile RuntimeException failure;
+
+	private final StoreSnapshot loadedSnapshot;
+	private final long snapshotSequence;
+
+	private final Thread flusher;
+	private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "journal-snapshot");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public JournalStoreLog(Path directory, int segmentSize) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(directory);
+
+		long[] sequence = new long[1];
+		this.loadedSnapshot = readLatestSnapshot(sequence);
+		this.snapshotSequence = sequence[0];
+		openSegments();
+
+		this.flusher = new Thread(this::flushLoop, "journal-flusher");
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+	@Override
+	public long append(StoreEvent event) {
+		byte[] payload = encode(event);
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		// a record that cannot fit an empty segment would otherwise be left half written after a roll
+		if (RECORD_HEADER + payload.length + 4 > segmentSize)
+			throw new IllegalArgumentException(
+					"event of " + payload.length + " bytes does not fit a " + segmentSize + " byte journal segment");
+		synchronized (this) {
+			checkUsable();
+			// keep room for a zero length after the record so readers see where it ends
+			if (current.buffer.remaining() < RECORD_HEADER + payload.length + 4)
+				roll();
+			current.buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+			unforced.add(current);
+			nextSequence++;
+			notifyAll();
+			return nextSequence;
+		}
+	}
+
+	@Override
+	public void awaitDurable(long ticket) {
+		if (durableSequence >= ticket)
+			return;
+		boolean interrupted = false;
+		synchronized (durableLock) {
+			while (durableSequence < ticket) {
+				if (failure != null)
+					throw failure;
+				if (!flusher.isAlive())
+					throw new IllegalStateException("journal closed");
+				try {
+					durableLock.wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	@Override
+	public void snapshot(StoreSnapshot snapshot) {
+		long sequence;
+		synchronized (this) {
+			checkUsable();
+			sequence = nextSequence;
+		}
+		snapshotWriter.execute(() -> {
+			try {
+				writeSnapshot(sequence, snapshot);
+				compact(sequence);
+			} catch (IOException e) {
+				log.warn("Could not write journal snapshot at {}", sequence, e);
+			}
+		});
+	}
+
+	@Override
+	public StoreSnapshot loadSnapshot() {
+		return loadedSnapshot;
+	}
+
+	@Override
+	public void replay(Consumer<StoreEvent> consumer) {
+		List<Segment> toRead;
+		List<Long> ends = new ArrayList<>();
+		synchronized (this) {
+			toRead = new ArrayList<>(segments);
+			for (int i = 1; i < toRead.size(); i++)
+				ends.add(toRead.get(i).firstSequence);
+			ends.add(nextSequence);
+		}
+		// segments decode independently; the collected list keeps log order
+		List<Decoded> decoded = IntStream.range(0, toRead.size()).parallel()
+				.mapToObj(i -> readSegment(toRead.get(i), ends.get(i)))
+				.collect(Collectors.toList());
+
+		int partitions = Runtime.getRuntime().availableProcessors();
+		List<List<StoreEvent>> batch = newPartitions(partitions);
+		for (int i = 0; i < decoded.size(); i++) {
+			for (StoreEvent event : decoded.get(i).events) {
+				if (event.getType() == StoreEvent.Type.SEAT_BOOKED || event.getType() == StoreEvent.Type.SEAT_RELEASED) {
+					batch.get(Math.floorMod(event.getId().hashCode(), partitions)).add(event);
+				} else {
+					applyParallel(batch, consumer);
+					batch = newPartitions(partitions);
+					consumer.accept(event);
+				}
+			}
+			// a hole means the crash hit before a flush completed, so nothing after it was acknowledged
+			if (!decoded.get(i).complete) {
+				if (i < decoded.size() - 1)
+					log.warn("Journal segment {} is incomplete, ignoring the {} segments after it",
+							toRead.get(i).path, decoded.size() - 1 - i);
+				break;
+			}
+		}
+		applyParallel(batch, consumer);
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+			notifyAll();
+		}
+		try {
+			flusher.join();
+			snapshotWriter.shutdown();
+			snapshotWriter.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			for (Segment segment : segments)
+				segment.channel.close();
+		}
+	}
+
+	private void flushLoop() {
+		for (;;) {
+			long target;
+			List<Segment> toForce;
+			synchronized (this) {
+				while (durableSequence == nextSequence && !closed) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						closed = true;
+					}
+				}
+				if (durableSequence == nextSequence)
+					return;
+				target = nextSequence;
+				toForce = new ArrayList<>(unforced);
+				unforced.clear();
+			}
+			try {
+				for (Segment segment : toForce)
+					segment.buffer.force();
+			} catch (RuntimeException e) {
+				synchronized (durableLock) {
+					failure = new IllegalStateException("journal flush failed", e);
+					durableLock.notifyAll();
+				}
+				return;
+			}
+			synchronized (durableLock) {
+				durableSequence = target;
+				durableLock.notifyAll();
+			}
+		}
+	}
+
+	private void checkUsable() {
+		if (failure != null)
+			throw failure;
+		if (closed)
+			throw new IllegalStateException("journal closed");
+	}
+
+	private void openSegments() throws IOException {
+		List<Path> paths = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+		for (Path path : paths)
+			segments.add(new Segment(path, sequenceOf(path, SEGMENT_PREFIX, SEGMENT_SUFFIX), segmentSize));
+		// the log ends at the first torn record, wherever it is; appending after a hole would hide every later write
+		int end = 0;
+		int last = segments.size() - 1;
+		for (int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+			end = scanEnd(segment.buffer);
+			nextSequence = segment.firstSequence + countRecords(segment.buffer, end);
+			if (i < segments.size() - 1 && nextSequence != segments.get(i + 1).firstSequence) {
+				log.warn("Journal segment {} is torn at byte {}, dropping the {} segments after it", segment.path, end,
+						segments.size() - 1 - i);
+				last = i;
+				break;
+			}
+		}
+		while (segments.size() > last + 1)
+			delete(segments.remove(segments.size() - 1));
+
+		if (segments.isEmpty() || nextSequence < snapshotSequence) {
+			// whatever survived is covered by the snapshot, and a segment short of it would read as a hole
+			while (!segments.isEmpty())
+				delete(segments.remove(segments.size() - 1));
+			nextSequence = snapshotSequence;
+			current = newSegment(snapshotSequence);
+		} else {
+			current = segments.get(segments.size() - 1);
+			// wipe whatever followed a torn write so it can never be read back
+			ByteBuffer rest = current.buffer.duplicate();
+			rest.position(end);
+			while (rest.hasRemaining())
+				rest.put((byte) 0);
+			current.buffer.position(end);
+			current.buffer.force();
+		}
+		durableSequence = nextSequence;
+	}
+
+	private void roll() {
+		try {
+			current = newSegment(nextSequence);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Segment newSegment(long firstSequence) throws IOException {
+		Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+		Segment segment = new Segment(path, firstSequence, segmentSize);
+		segments.add(segment);
+		return segment;
+	}
+
+	private Decoded readSegment(Segment segment, long end) {
+		Decoded decoded = new Decoded();
+		ByteBuffer buffer = segment.buffer.duplicate();
+		buffer.position(0);
+		CRC32 crc = new CRC32();
+		long sequence = segment.firstSequence;
+		while (sequence < end) {
+			if (buffer.remaining() < RECORD_HEADER)
+				return decoded;
+			int length = buffer.getInt();
+			int expected = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining())
+				return decoded;
+			byte[] payload = new byte[length];
+			buffer.get(payload);
+			crc.reset();
+			crc.update(payload);
+			if ((int) crc.getValue() != expected)
+				return decoded;
+			if (sequence++ < snapshotSequence)
+				continue;
+			try {
+				decoded.events.add(StoreCodec.readEvent(new DataInputStream(new ByteArrayInputStream(payload))));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		decoded.complete = true;
+		return decoded;
+	}
+
+	private static int scanEnd(ByteBuffer mapped) {
+		ByteBuffer buffer = mapped.duplicate();
+		buffer.position(0);
+		CRC32 crc = new CRC32();
+		while (buffer.remaining() >= RECORD_HEADER) {
+			int start = buffer.position();
+			int length = buffer.getInt();
+			int expected = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining())
+				return start;
+			byte[] payload = new byte[length];
+			buffer.get(payload);
+			crc.reset();
+			crc.update(payload);
+			if ((int) crc.getValue() != expected)
+				return start;
+		}
+		return buffer.position();
+	}
+
+	private static long countRecords(ByteBuffer mapped, int end) {
+		ByteBuffer buffer = mapped.duplicate();
+		buffer.position(0);
+		long count = 0;
+		while (buffer.position() < end) {
+			int length = buffer.getInt();
+			buffer.position(buffer.position() + 4 + length);
+			count++;
+		}
+		return count;
+	}
+
+	private static void applyParallel(List<List<StoreEvent>> partitions, Consumer<StoreEvent> consumer) {
+		partitions.parallelStream().forEach(events -> events.forEach(consumer));
+	}
+
+	private static List<List<StoreEvent>> newPartitions(int count) {
+		List<List<StoreEvent>> partitions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			partitions.add(new ArrayList<>());
+		return partitions;
+	}
+
+	private void writeSnapshot(long sequence, StoreSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		StoreCodec.writeSnapshot(new DataOutputStream(bytes), snapshot);
+		byte[] payload = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		ByteBuffer header = ByteBuffer.allocate(20);
+		header.putInt(SNAPSHOT_MAGIC).putLong(sequence).putInt((int) crc.getValue()).putInt(payload.length);
+		header.flip();
+
+		Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+		Path temp = directory.resolve(target.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.write(new ByteBuffer[] { header, ByteBuffer.wrap(payload) });
+			channel.force(true);
+		}
+		Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private StoreSnapshot readLatestSnapshot(long[] sequence) throws IOException {
+		List<Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+		Collections.reverse(snapshots);
+		for (Path path : snapshots) {
+			try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+				if (in.readInt() != SNAPSHOT_MAGIC)
+					continue;
+				long snapshotAt = in.readLong();
+				int expected = in.readInt();
+				byte[] payload = new byte[in.readInt()];
+				in.readFully(payload);
+				CRC32 crc = new CRC32();
+				crc.update(payload);
+				if ((int) crc.getValue() != expected)
+					continue;
+				sequence[0] = snapshotAt;
+				return StoreCodec.readSnapshot(new DataInputStream(new ByteArrayInputStream(payload)));
+			} catch (IOException e) {
+				log.warn("Skipping unreadable journal snapshot {}", path, e);
+			}
+		}
+		return null;
+	}
+
+	private void compact(long sequence) throws IOException {
+		for (Path path : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX))
+			if (sequenceOf(path, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < sequence)
+				Files.deleteIfExists(path);
+		List<Segment> obsolete = new ArrayList<>();
+		synchronized (this) {
+			// a segment can go once the next one starts at or before the snapshot
+			while (segments.size() > 1 && segments.get(1).firstSequence <= sequence && segments.get(0) != current
+					&& !unforced.contains(segments.get(0)))
+				obsolete.add(segments.remove(0));
+		}
+		for (Segment segment : obsolete)
+			delete(segment);
+	}
+
+	private static void delete(Segment segment) throws IOException {
+		segment.channel.close();
+		Files.deleteIfExists(segment.path);
+	}
+
+	private List<Path> list(String prefix, String suffix) throws IOException {
+		List<Path> paths = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+			for (Path path : stream)
+				paths.add(path);
+		}
+		// names are zero padded, so lexical order is sequence order
+		Collections.sort(paths);
+		return paths;
+	}
+
+	private static long sequenceOf(Path path, String prefix, String suffix) {
+		String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+	}
+
+	private static byte[] encode(StoreEvent event) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try {
+			StoreCodec.writeEvent(new DataOutputStream(bytes), event);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static final class Decoded {
+		final List<StoreEvent> events = new ArrayList<>();
+		boolean complete;
+	}
+
+	private static final class Segment {
+
+		final Path path;
+		final long firstSequence;
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+
+		Segment(Path path, long firstSequence, int size) throws IOException {
+			this.path = path;
+			this.firstSequence = firstSequence;
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.qa.QACinema.Storage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.qa.QACinema.Entities.Screen;
+import com.qa.QACinema.Entities.SeatBooking;
+import com.qa.QACinema.Entities.Time;
+import com.qa.QACinema.Repositories.ScreenRepository;
+import com.qa.QACinema.Repositories.SeatBookingRepository;
+
+/**
+ * Screens, showings and seat bookings in the relational database. A booked
+ * seat is a {@link SeatBooking} row; the unique (timeId, seat) constraint
+ * makes the database reject a second booking of the same seat.
+ */
+public class JpaScreenStore implements ScreenStore {
+
+	private final ScreenRepository screenRepo;
+	private final SeatBookingRepository bookingRepo;
+
+	public JpaScreenStore(ScreenRepository screenRepo, SeatBookingRepository bookingRepo) {
+		this.screenRepo = screenRepo;
+		this.bookingRepo = bookingRepo;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<ScreenRecord> findAllScreens() {
+		Map<Long, ScreenRecord> screens = new LinkedHashMap<>();
+		for (ScreenRow row : screenRepo.findAllRows()) {
+			ScreenRecord screen = screens.get(row.screenId);
+			if (screen == null) {
+				screen = new ScreenRecord(String.valueOf(row.screenId), row.screenName, row.screenBooked,
+						parseRows(row.seatRows), null);
+				screens.put(row.screenId, screen);
+			}
+			if (row.timeId != null)
+				screen.getTime().add(new ShowingRecord(String.valueOf(row.timeId), row.screenTime));
+		}
+		return new ArrayList<>(screens.values());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public ScreenRecord findScreen(String screenId) {
+		Long id = parseId(screenId);
+		Screen screen = id == null ? null : screenRepo.findOne(id);
+		return screen == null ? null : toRecord(screen);
+	}
+
+	@Override
+	@Transactional
+	public ScreenRecord saveScreen(ScreenRecord record) {
+		Long id = parseId(record.getId());
+		Screen screen = id == null ? null : screenRepo.findOne(id);
+
+		Map<Long, Time> existing = new HashMap<>();
+		if (screen != null && screen.getTime() != null)
+			for (Time time : screen.getTime())
+				existing.put(time.getId(), time);
+
+		List<Time> times = new ArrayList<>();
+		List<Long> kept = new ArrayList<>();
+		for (ShowingRecord showing : record.getTime()) {
+			Time time = existing.remove(parseId(showing.getId()));
+			if (time == null) {
+				time = new Time(showing.getScreenTime());
+			} else {
+				time.setScreenTime(showing.getScreenTime());
+				kept.add(time.getId());
+			}
+			times.add(time);
+		}
+		if (!existing.isEmpty())
+			bookingRepo.deleteByTimeIdIn(new ArrayList<>(existing.keySet()));
+		// a smaller layout takes the bookings past its last seat with it
+		if (!kept.isEmpty())
+			bookingRepo.deleteByTimeIdInAndSeatGreaterThanEqual(kept, record.seatCount());
+
+		if (screen == null) {
+			screen = new Screen(record.getScreenName(), record.isScreenBooked(), times);
+		} else {
+			screen.setScreenName(record.getScreenName());
+			screen.setScreenBooked(record.isScreenBooked());
+			screen.setTime(times);
+		}
+		screen.setSeatRows(formatRows(record.getRows()));
+		return toRecord(screenRepo.save(screen));
+	}
+
+	@Override
+	@Transactional
+	public boolean deleteScreen(String screenId) {
+		Long id = parseId(screenId);
+		Screen screen = id == null ? null : screenRepo.findOne(id);
+		if (screen == null)
+			return false;
+		List<Long> timeIds = new ArrayList<>();
+		if (screen.getTime() != null)
+			for (Time time : screen.getTime())
+				timeIds.add(time.getId());
+		if (!timeIds.isEmpty())
+			bookingRepo.deleteByTimeIdIn(timeIds);
+		screenRepo.delete(screen);
+		return true;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public SeatMap findSeats(String showingId) {
+		Long timeId = parseId(showingId);
+		Screen screen = timeId == null ? null : screenRepo.findByShowing(timeId);
+		if (screen == null)
+			return null;
+		BitSet booked = new BitSet();
+		for (SeatBooking booking : bookingRepo.findByTimeId(timeId))
+			booked.set(booking.getSeat());
+		return new SeatMap(parseRows(screen.getSeatRows()), booked);
+	}
+
+	// not transactional: a duplicate must only fail the insert, not roll back a caller
+	@Override
+	public boolean bookSeat(String showingId, int seat) {
+		Long timeId = parseId(showingId);
+		if (timeId == null || !seatExists(timeId, seat))
+			return false;
+		try {
+			bookingRepo.saveAndFlush(new SeatBooking(timeId, seat));
+			return true;
+		} catch (DataIntegrityViolationException e) {
+			return false;
+		}
+	}
+
+	@Override
+	@Transactional
+	public boolean releaseSeat(String showingId, int seat) {
+		Long timeId = parseId(showingId);
+		return timeId != null && bookingRepo.deleteByTimeIdAndSeat(timeId, seat) > 0;
+	}
+
+	@Override
+	public boolean isShared() {
+		return true;
+	}
+
+	private boolean seatExists(Long timeId, int seat) {
+		Screen screen = screenRepo.findByShowing(timeId);
+		if (screen == null || seat < 0)
+			return false;
+		int count = 0;
+		for (int row : parseRows(screen.getSeatRows()))
+			count += row;
+		return seat < count;
+	}
+
+	private static ScreenRecord toRecord(Screen screen) {
+		List<ShowingRecord> showings = new ArrayList<>();
+		if (screen.getTime() != null)
+			for (Time time : screen.getTime())
+				showings.add(new ShowingRecord(String.valueOf(time.getId()), time.getScreenTime()));
+		return new ScreenRecord(String.valueOf(screen.getId()), screen.getScreenName(), screen.isScreenBooked(),
+				parseRows(screen.getSeatRows()), showings);
+	}
+
+	private static Long parseId(String id) {
+		if (id == null)
+			return null;
+		try {
+			return Long.valueOf(id);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	static String formatRows(int[] rows) {
+		StringBuilder sb = new StringBuilder();
+		for (int row : rows) {
+			if (sb.length() > 0)
+				sb.append(',');
+			sb.append(row);
+		}
+		return sb.toString();
+	}
+
+	static int[] parseRows(String rows) {
+		if (rows == null || rows.isEmpty())
+			return new int[0];
+		String[] parts = rows.split(",");
+		int[] parsed = new int[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			parsed[i] = Integer.parseInt(parts[i].trim());
+		return parsed;
+	}
+
+}
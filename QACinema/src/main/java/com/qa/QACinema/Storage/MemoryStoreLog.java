@@ -0,0 +1,44 @@
+package com.qa.QACinema.Storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Log kept on the heap. Nothing survives a restart; used when the store is
+ * run as a cache or benchmarked on its own.
+ */
+public class MemoryStoreLog implements StoreLog {
+
+	private final List<StoreEvent> events = new ArrayList<>();
+	private StoreSnapshot snapshot;
+
+	@Override
+	public synchronized long append(StoreEvent event) {
+		events.add(event);
+		return events.size();
+	}
+
+	@Override
+	public void awaitDurable(long ticket) {
+		// nothing is ever durable
+	}
+
+	@Override
+	public synchronized void snapshot(StoreSnapshot snapshot) {
+		this.snapshot = snapshot;
+		events.clear();
+	}
+
+	@Override
+	public synchronized StoreSnapshot loadSnapshot() {
+		return snapshot;
+	}
+
+	@Override
+	public synchronized void replay(Consumer<StoreEvent> consumer) {
+		for (StoreEvent event : events)
+			consumer.accept(event);
+	}
+
+}
@@ -0,0 +1,297 @@
+package com.qa.QACinema.Storage;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mongodb.BasicDBObject;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Screens in the backend module's {@code screen} collection, so both
+ * services read and book the same seats. Each document there is one showing
+ * with the backend's fields: {@code screenName}, {@code seatBooked}, the
+ * run-length encoded row {@code layout}, and seat states packed 64 to an
+ * int64 word in {@code seatStates}. Booking a seat is a single {@code $bit}
+ * update on one word guarded by {@code $bitsAllClear}, exactly as the
+ * backend does it.
+ *
+ * The showings of one screen share a {@code screenId}; a document without
+ * one, as the backend writes them, is a screen with a single showing whose
+ * id is the screen's id. A screen with no showings is kept as a placeholder
+ * document holding only the screen's fields.
+ *
+ * Saving a screen never writes seat states it has read back: showings whose
+ * seat count is unchanged only get their other fields set, and a resized
+ * showing is rewritten only if its seat states still hold what was read.
+ */
+public class MongoScreenStore implements ScreenStore {
+
+	static final String COLLECTION = "screen";
+
+	private final MongoTemplate mongoTemplate;
+
+	public MongoScreenStore(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+		mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index().on("screenId", Sort.Direction.ASC));
+	}
+
+	@Override
+	public List<ScreenRecord> findAllScreens() {
+		return group(mongoTemplate.find(new Query().with(new Sort(Sort.Direction.ASC, "_id")), ShowingDocument.class,
+				COLLECTION));
+	}
+
+	@Override
+	public ScreenRecord findScreen(String screenId) {
+		List<ScreenRecord> screens = ObjectId.isValid(screenId) ? group(showingsOf(screenId)) : null;
+		return screens == null || screens.isEmpty() ? null : screens.get(0);
+	}
+
+	@Override
+	public ScreenRecord saveScreen(ScreenRecord record) {
+		List<ShowingDocument> existing = ObjectId.isValid(record.getId()) ? showingsOf(record.getId())
+				: new ArrayList<>();
+		String screenId = existing.isEmpty() ? new ObjectId().toHexString() : record.getId();
+		Map<String, ShowingDocument> owned = new LinkedHashMap<>();
+		ShowingDocument placeholder = null;
+		for (ShowingDocument doc : existing)
+			if (doc.placeholder)
+				placeholder = doc;
+			else
+				owned.put(doc.id.toHexString(), doc);
+
+		Binary layout = encodeRows(record.getRows());
+		int seatCount = record.seatCount();
+		List<ShowingRecord> showings = new ArrayList<>();
+		for (ShowingRecord showing : record.getTime()) {
+			ShowingDocument doc = showing.getId() == null ? null : owned.remove(showing.getId());
+			BasicDBObject fields = screenFields(screenId, record, layout).append("screenTime", showing.getScreenTime());
+			if (doc == null)
+				doc = insert(fields, seatCount);
+			else
+				update(doc, fields, seatCount);
+			showings.add(new ShowingRecord(doc.id.toHexString(), showing.getScreenTime()));
+		}
+
+		List<ObjectId> removed = new ArrayList<>();
+		for (ShowingDocument doc : owned.values())
+			removed.add(doc.id);
+		if (!showings.isEmpty()) {
+			if (placeholder != null)
+				removed.add(placeholder.id);
+		} else {
+			Update screen = set(screenFields(screenId, record, layout).append("seatCount", seatCount));
+			mongoTemplate.upsert(new Query(Criteria.where("screenId").is(screenId).and("placeholder").is(true)), screen,
+					COLLECTION);
+		}
+		if (!removed.isEmpty())
+			mongoTemplate.remove(new Query(Criteria.where("_id").in(removed)), COLLECTION);
+
+		return new ScreenRecord(screenId, record.getScreenName(), record.isScreenBooked(), record.getRows(), showings);
+	}
+
+	@Override
+	public boolean deleteScreen(String screenId) {
+		if (!ObjectId.isValid(screenId))
+			return false;
+		return mongoTemplate.remove(new Query(ofScreen(screenId)), COLLECTION).getN() > 0;
+	}
+
+	@Override
+	public SeatMap findSeats(String showingId) {
+		if (!ObjectId.isValid(showingId))
+			return null;
+		ShowingDocument showing = mongoTemplate.findById(new ObjectId(showingId), ShowingDocument.class, COLLECTION);
+		if (showing == null || showing.placeholder)
+			return null;
+		return new SeatMap(decodeRows(showing.layout),
+				showing.seatStates == null ? new BitSet() : BitSet.valueOf(showing.seatStates));
+	}
+
+	@Override
+	public boolean bookSeat(String showingId, int seat) {
+		if (seat < 0 || !ObjectId.isValid(showingId))
+			return false;
+		String word = "seatStates." + (seat >>> 6);
+		long mask = 1L << (seat & 63);
+		Query query = new Query(Criteria.where("_id").is(new ObjectId(showingId)).and("seatCount").gt(seat).and(word)
+				.is(new BasicDBObject("$bitsAllClear", mask)));
+		return mongoTemplate.updateFirst(query, new Update().bitwise(word).or(mask), COLLECTION).getN() == 1;
+	}
+
+	@Override
+	public boolean releaseSeat(String showingId, int seat) {
+		if (seat < 0 || !ObjectId.isValid(showingId))
+			return false;
+		String word = "seatStates." + (seat >>> 6);
+		long mask = 1L << (seat & 63);
+		Query query = new Query(Criteria.where("_id").is(new ObjectId(showingId)).and("seatCount").gt(seat).and(word)
+				.is(new BasicDBObject("$bitsAllSet", mask)));
+		return mongoTemplate.updateFirst(query, new Update().bitwise(word).and(~mask), COLLECTION).getN() == 1;
+	}
+
+	@Override
+	public boolean isShared() {
+		return true;
+	}
+
+	private List<ShowingDocument> showingsOf(String screenId) {
+		return mongoTemplate.find(new Query(ofScreen(screenId)).with(new Sort(Sort.Direction.ASC, "_id")),
+				ShowingDocument.class, COLLECTION);
+	}
+
+	private static Criteria ofScreen(String screenId) {
+		return new Criteria().orOperator(Criteria.where("screenId").is(screenId),
+				Criteria.where("_id").is(new ObjectId(screenId)).and("screenId").exists(false));
+	}
+
+	private static BasicDBObject screenFields(String screenId, ScreenRecord record, Binary layout) {
+		return new BasicDBObject("screenId", screenId).append("screenName", record.getScreenName())
+				.append("seatBooked", record.isScreenBooked()).append("layout", layout);
+	}
+
+	private ShowingDocument insert(BasicDBObject fields, int seatCount) {
+		ShowingDocument doc = new ShowingDocument();
+		doc.id = new ObjectId();
+		BasicDBObject object = new BasicDBObject("_id", doc.id);
+		object.putAll(fields.toMap());
+		object.append("seatStates", words(new long[(seatCount + 63) >>> 6])).append("seatCount", seatCount);
+		mongoTemplate.insert(object, COLLECTION);
+		return doc;
+	}
+
+	// a booking may land at any time, so seat states are only replaced if they still hold what was read
+	private void update(ShowingDocument doc, BasicDBObject fields, int seatCount) {
+		for (;;) {
+			if (doc.seatCount == seatCount && doc.seatStates != null) {
+				mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(doc.id)), set(fields), COLLECTION);
+				return;
+			}
+			BitSet booked = doc.seatStates == null ? new BitSet() : BitSet.valueOf(doc.seatStates);
+			booked.clear(seatCount, Math.max(seatCount, booked.length()));
+			long[] resized = Arrays.copyOf(booked.toLongArray(), (seatCount + 63) >>> 6);
+			Query unchanged = new Query(Criteria.where("_id").is(doc.id).and("seatCount").is(doc.seatCount)
+					.and("seatStates").is(doc.seatStates == null ? null : words(doc.seatStates)));
+			Update update = set(fields).set("seatStates", words(resized)).set("seatCount", seatCount);
+			if (mongoTemplate.updateFirst(unchanged, update, COLLECTION).getN() == 1)
+				return;
+			doc = mongoTemplate.findById(doc.id, ShowingDocument.class, COLLECTION);
+			if (doc == null)
+				return;
+		}
+	}
+
+	private static Update set(BasicDBObject fields) {
+		Update update = new Update();
+		for (String key : fields.keySet())
+			update.set(key, fields.get(key));
+		return update;
+	}
+
+	private static List<Long> words(long[] states) {
+		List<Long> words = new ArrayList<>(states.length);
+		for (long word : states)
+			words.add(word);
+		return words;
+	}
+
+	private static List<ScreenRecord> group(List<ShowingDocument> docs) {
+		Map<String, ScreenRecord> screens = new LinkedHashMap<>();
+		for (ShowingDocument doc : docs) {
+			String screenId = doc.screenId == null ? doc.id.toHexString() : doc.screenId;
+			ScreenRecord screen = screens.get(screenId);
+			if (screen == null) {
+				screen = new ScreenRecord(screenId, doc.screenName, doc.seatBooked, decodeRows(doc.layout), null);
+				screens.put(screenId, screen);
+			}
+			if (!doc.placeholder)
+				screen.getTime().add(new ShowingRecord(doc.id.toHexString(),
+						doc.screenTime == null && doc.showing != null ? doc.showing.toInstant().toString()
+								: doc.screenTime));
+		}
+		return new ArrayList<>(screens.values());
+	}
+
+	// (repeat, seatsPerRow) varint pairs, as the backend's SeatLayoutCodec writes them
+	static Binary encodeRows(int[] rows) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int i = 0;
+		while (i < rows.length) {
+			int run = 1;
+			while (i + run < rows.length && rows[i + run] == rows[i])
+				run++;
+			writeVarint(out, run);
+			writeVarint(out, rows[i]);
+			i += run;
+		}
+		return new Binary(out.toByteArray());
+	}
+
+	static int[] decodeRows(Binary encoded) {
+		if (encoded == null)
+			return new int[0];
+		byte[] data = encoded.getData();
+		int[] pos = { 0 };
+		int[] rows = new int[16];
+		int count = 0;
+		while (pos[0] < data.length) {
+			int run = readVarint(data, pos);
+			int length = readVarint(data, pos);
+			if (count + run > rows.length)
+				rows = Arrays.copyOf(rows, Math.max(rows.length * 2, count + run));
+			Arrays.fill(rows, count, count + run, length);
+			count += run;
+		}
+		return Arrays.copyOf(rows, count);
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(byte[] data, int[] pos) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = data[pos[0]++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	static class ShowingDocument {
+		@Id
+		ObjectId id;
+		String screenId;
+		String screenName;
+		boolean seatBooked;
+		Binary layout;
+		long[] seatStates;
+		int seatCount;
+		String screenTime;
+		// set by the backend, which has no screenTime
+		Date showing;
+		boolean placeholder;
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.qa.QACinema.Storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScreenRecord {
+
+	private String id;
+	private String screenName;
+	private boolean screenBooked;
+	private int[] rows = new int[0];
+	private List<ShowingRecord> time = new ArrayList<>();
+
+	public ScreenRecord() {
+
+	}
+
+	public ScreenRecord(String id, String screenName, boolean screenBooked, int[] rows, List<ShowingRecord> time) {
+		this.id = id;
+		this.screenName = screenName;
+		this.screenBooked = screenBooked;
+		setRows(rows);
+		setTime(time);
+	}
+
+	public ScreenRecord copy() {
+		List<ShowingRecord> showings = new ArrayList<>(time.size());
+		for (ShowingRecord showing : time)
+			showings.add(new ShowingRecord(showing.getId(), showing.getScreenTime()));
+		return new ScreenRecord(id, screenName, screenBooked, rows, showings);
+	}
+
+	public int seatCount() {
+		int count = 0;
+		for (int row : rows)
+			count += row;
+		return count;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getScreenName() {
+		return screenName;
+	}
+
+	public void setScreenName(String screenName) {
+		this.screenName = screenName;
+	}
+
+	public boolean isScreenBooked() {
+		return screenBooked;
+	}
+
+	public void setScreenBooked(boolean screenBooked) {
+		this.screenBooked = screenBooked;
+	}
+
+	public int[] getRows() {
+		return rows;
+	}
+
+	public void setRows(int[] rows) {
+		this.rows = rows == null ? new int[0] : rows.clone();
+	}
+
+	public List<ShowingRecord> getTime() {
+		return time;
+	}
+
+	public void setTime(List<ShowingRecord> time) {
+		this.time = time == null ? new ArrayList<>() : new ArrayList<>(time);
+	}
+
+}
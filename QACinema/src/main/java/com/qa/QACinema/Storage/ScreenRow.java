@@ -0,0 +1,26 @@
+package com.qa.QACinema.Storage;
+
+/**
+ * One (screen, showing) pair as selected by a JPQL constructor expression,
+ * so listing screens never hydrates Screen, Time or their creators.
+ */
+public final class ScreenRow {
+
+	final Long screenId;
+	final String screenName;
+	final boolean screenBooked;
+	final String seatRows;
+	final Long timeId;
+	final String screenTime;
+
+	public ScreenRow(Long screenId, String screenName, boolean screenBooked, String seatRows, Long timeId,
+			String screenTime) {
+		this.screenId = screenId;
+		this.screenName = screenName;
+		this.screenBooked = screenBooked;
+		this.seatRows = seatRows;
+		this.timeId = timeId;
+		this.screenTime = screenTime;
+	}
+
+}
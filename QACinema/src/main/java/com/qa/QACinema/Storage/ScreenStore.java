@@ -0,0 +1,49 @@
+package com.qa.QACinema.Storage;
+
+import java.util.List;
+
+/**
+ * Storage engine for screens, their showings and the seats booked in each
+ * showing. Ids are opaque strings so the same callers work against every
+ * engine; see {@link com.qa.QACinema.Configuration.StorageConfig} for how
+ * one is picked.
+ */
+public interface ScreenStore {
+
+	List<ScreenRecord> findAllScreens();
+
+	ScreenRecord findScreen(String screenId);
+
+	/**
+	 * Inserts the screen, or replaces it if it has an id, and returns it with
+	 * ids assigned to the screen and to any new showings.
+	 */
+	ScreenRecord saveScreen(ScreenRecord screen);
+
+	boolean deleteScreen(String screenId);
+
+	/**
+	 * @return the seat layout and booked seats of the showing, or null if
+	 *         there is no such showing
+	 */
+	SeatMap findSeats(String showingId);
+
+	/**
+	 * Books the seat if it exists and is still free.
+	 *
+	 * @return false if the showing or seat does not exist or the seat is taken
+	 */
+	boolean bookSeat(String showingId, int seat);
+
+	/**
+	 * @return false if the showing or seat does not exist or the seat is free
+	 */
+	boolean releaseSeat(String showingId, int seat);
+
+	/**
+	 * @return whether every instance reads and writes the same data, so any
+	 *         of them may serve a showing in place of its owner
+	 */
+	boolean isShared();
+
+}
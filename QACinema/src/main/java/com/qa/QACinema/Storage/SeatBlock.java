@@ -0,0 +1,26 @@
+package com.qa.QACinema.Storage;
+
+/**
+ * A run of adjacent seats in one row, as seat numbers of the showing.
+ */
+public class SeatBlock {
+
+	private final int row;
+	private final int[] seats;
+
+	public SeatBlock(int row, int firstSeat, int count) {
+		this.row = row;
+		this.seats = new int[count];
+		for (int i = 0; i < count; i++)
+			seats[i] = firstSeat + i;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	public int[] getSeats() {
+		return seats.clone();
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.qa.QACinema.Storage;
+
+import java.util.BitSet;
+
+/**
+ * Seats of one showing: how many seats each row has, and which are booked.
+ * Seats are numbered row by row from 0.
+ */
+public class SeatMap {
+
+	private final int[] rows;
+	private final BitSet booked;
+
+	public SeatMap(int[] rows, BitSet booked) {
+		this.rows = rows.clone();
+		this.booked = booked;
+	}
+
+	public int[] getRows() {
+		return rows.clone();
+	}
+
+	public int[] getBooked() {
+		return booked.stream().toArray();
+	}
+
+	public int getSeatCount() {
+		int count = 0;
+		for (int row : rows)
+			count += row;
+		return count;
+	}
+
+	public boolean isBooked(int seat) {
+		return booked.get(seat);
+	}
+
+}
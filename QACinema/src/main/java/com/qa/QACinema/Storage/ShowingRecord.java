@@ -0,0 +1,33 @@
+package com.qa.QACinema.Storage;
+
+public class ShowingRecord {
+
+	private String id;
+	private String screenTime;
+
+	public ShowingRecord() {
+
+	}
+
+	public ShowingRecord(String id, String screenTime) {
+		this.id = id;
+		this.screenTime = screenTime;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getScreenTime() {
+		return screenTime;
+	}
+
+	public void setScreenTime(String screenTime) {
+		this.screenTime = screenTime;
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.qa.QACinema.Storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of {@link StoreEvent}s and {@link StoreSnapshot}s as written
+ * by {@link JournalStoreLog}.
+ */
+final class StoreCodec {
+
+	private StoreCodec() {
+
+	}
+
+	static void writeEvent(DataOutput out, StoreEvent event) throws IOException {
+		out.writeByte(event.getType().ordinal());
+		switch (event.getType()) {
+		case SCREEN_SAVED:
+			writeScreen(out, event.getScreen());
+			break;
+		case SCREEN_DELETED:
+			out.writeUTF(event.getId());
+			break;
+		case SEAT_BOOKED:
+		case SEAT_RELEASED:
+			out.writeUTF(event.getId());
+			out.writeInt(event.getSeat());
+			break;
+		}
+	}
+
+	static StoreEvent readEvent(DataInput in) throws IOException {
+		StoreEvent.Type type = StoreEvent.Type.values()[in.readUnsignedByte()];
+		switch (type) {
+		case SCREEN_SAVED:
+			return StoreEvent.screenSaved(readScreen(in));
+		case SCREEN_DELETED:
+			return StoreEvent.screenDeleted(in.readUTF());
+		case SEAT_BOOKED:
+			return StoreEvent.seatBooked(in.readUTF(), in.readInt());
+		default:
+			return StoreEvent.seatReleased(in.readUTF(), in.readInt());
+		}
+	}
+
+	static void writeSnapshot(DataOutput out, StoreSnapshot snapshot) throws IOException {
+		out.writeLong(snapshot.getNextId());
+		out.writeInt(snapshot.getScreens().size());
+		for (ScreenRecord screen : snapshot.getScreens())
+			writeScreen(out, screen);
+		out.writeInt(snapshot.getSeatStates().size());
+		for (Map.Entry<String, long[]> entry : snapshot.getSeatStates().entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(entry.getValue().length);
+			for (long word : entry.getValue())
+				out.writeLong(word);
+		}
+	}
+
+	static StoreSnapshot readSnapshot(DataInput in) throws IOException {
+		long nextId = in.readLong();
+		int screenCount = in.readInt();
+		List<ScreenRecord> screens = new ArrayList<>(screenCount);
+		for (int i = 0; i < screenCount; i++)
+			screens.add(readScreen(in));
+		int showingCount = in.readInt();
+		Map<String, long[]> seatStates = new HashMap<>();
+		for (int i = 0; i < showingCount; i++) {
+			String id = in.readUTF();
+			long[] words = new long[in.readInt()];
+			for (int w = 0; w < words.length; w++)
+				words[w] = in.readLong();
+			seatStates.put(id, words);
+		}
+		return new StoreSnapshot(nextId, screens, seatStates);
+	}
+
+	private static void writeScreen(DataOutput out, ScreenRecord screen) throws IOException {
+		out.writeUTF(screen.getId());
+		writeNullable(out, screen.getScreenName());
+		out.writeBoolean(screen.isScreenBooked());
+		out.writeInt(screen.getRows().length);
+		for (int row : screen.getRows())
+			out.writeInt(row);
+		out.writeInt(screen.getTime().size());
+		for (ShowingRecord showing : screen.getTime()) {
+			out.writeUTF(showing.getId());
+			writeNullable(out, showing.getScreenTime());
+		}
+	}
+
+	private static ScreenRecord readScreen(DataInput in) throws IOException {
+		String id = in.readUTF();
+		String name = readNullable(in);
+		boolean booked = in.readBoolean();
+		int[] rows = new int[in.readInt()];
+		for (int i = 0; i < rows.length; i++)
+			rows[i] = in.readInt();
+		int showingCount = in.readInt();
+		List<ShowingRecord> showings = new ArrayList<>(showingCount);
+		for (int i = 0; i < showingCount; i++)
+			showings.add(new ShowingRecord(in.readUTF(), readNullable(in)));
+		return new ScreenRecord(id, name, booked, rows, showings);
+	}
+
+	private static void writeNullable(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null)
+			out.writeUTF(value);
+	}
+
+	private static String readNullable(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.qa.QACinema.Storage;
+
+/**
+ * One change to the in-memory store, as written to its {@link StoreLog}.
+ */
+public class StoreEvent {
+
+	public enum Type {
+		SCREEN_SAVED, SCREEN_DELETED, SEAT_BOOKED, SEAT_RELEASED
+	}
+
+	private final Type type;
+	private final String id;
+	private final int seat;
+	private final ScreenRecord screen;
+
+	private StoreEvent(Type type, String id, int seat, ScreenRecord screen) {
+		this.type = type;
+		this.id = id;
+		this.seat = seat;
+		this.screen = screen;
+	}
+
+	public static StoreEvent screenSaved(ScreenRecord screen) {
+		return new StoreEvent(Type.SCREEN_SAVED, screen.getId(), -1, screen);
+	}
+
+	public static StoreEvent screenDeleted(String screenId) {
+		return new StoreEvent(Type.SCREEN_DELETED, screenId, -1, null);
+	}
+
+	public static StoreEvent seatBooked(String showingId, int seat) {
+		return new StoreEvent(Type.SEAT_BOOKED, showingId, seat, null);
+	}
+
+	public static StoreEvent seatReleased(String showingId, int seat) {
+		return new StoreEvent(Type.SEAT_RELEASED, showingId, seat, null);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the screen id for screen events, the showing id for seat events
+	 */
+	public String getId() {
+		return id;
+	}
+
+	public int getSeat() {
+		return seat;
+	}
+
+	public ScreenRecord getScreen() {
+		return screen;
+	}
+
+}
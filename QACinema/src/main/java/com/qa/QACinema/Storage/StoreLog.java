@@ -0,0 +1,44 @@
+package com.qa.QACinema.Storage;
+
+import java.util.function.Consumer;
+
+/**
+ * Where {@link InMemoryScreenStore} records its changes so its state can be
+ * rebuilt: the latest snapshot followed by every event appended after it.
+ */
+public interface StoreLog {
+
+	/**
+	 * Appends the event without waiting for it to be durable.
+	 *
+	 * @return a ticket to pass to {@link #awaitDurable(long)}
+	 */
+	long append(StoreEvent event);
+
+	/**
+	 * Blocks until the event that returned the ticket, and every event
+	 * appended before it, will survive a restart.
+	 */
+	void awaitDurable(long ticket);
+
+	/**
+	 * Records a snapshot of the state produced by every event appended so
+	 * far. Those events are no longer needed for recovery. Must not be called
+	 * concurrently with {@link #append(StoreEvent)}.
+	 */
+	void snapshot(StoreSnapshot snapshot);
+
+	/**
+	 * @return the latest snapshot, or null if none has been taken
+	 */
+	StoreSnapshot loadSnapshot();
+
+	/**
+	 * Replays the events appended after the latest snapshot. Events for the
+	 * same showing arrive in the order they were appended, and a screen event
+	 * is only delivered once every earlier event has been; seat events for
+	 * different showings may be delivered concurrently.
+	 */
+	void replay(Consumer<StoreEvent> consumer);
+
+}
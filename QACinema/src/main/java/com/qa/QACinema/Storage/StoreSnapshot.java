@@ -0,0 +1,36 @@
+package com.qa.QACinema.Storage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full state of the in-memory store at one point of its log.
+ */
+public class StoreSnapshot {
+
+	private final long nextId;
+	private final List<ScreenRecord> screens;
+	private final Map<String, long[]> seatStates;
+
+	public StoreSnapshot(long nextId, List<ScreenRecord> screens, Map<String, long[]> seatStates) {
+		this.nextId = nextId;
+		this.screens = screens;
+		this.seatStates = seatStates;
+	}
+
+	public long getNextId() {
+		return nextId;
+	}
+
+	public List<ScreenRecord> getScreens() {
+		return screens;
+	}
+
+	/**
+	 * @return booked seats of each showing, packed 64 to a word
+	 */
+	public Map<String, long[]> getSeatStates() {
+		return seatStates;
+	}
+
+}
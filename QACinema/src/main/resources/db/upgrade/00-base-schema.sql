@@ -0,0 +1,61 @@
+-- The tables as they were before the upgrade scripts began.
+--
+-- Databases created by an older build already have them and skip every
+-- statement here. A new database starts with this script, then runs the rest
+-- in order, so that both arrive at the same schema before the first start
+-- with the prod profile (ddl-auto=validate).
+--
+-- The outbox, idempotency_key, booking_rollup, cache_invalidation and
+-- replica_heartbeat tables are not entities; their owners create them on
+-- first use and no script is needed.
+--
+-- Written for H2. On MySQL, use "bigint auto_increment" as here, datetime
+-- for time, and leave out "if not exists".
+
+create table if not exists user (
+	id bigint auto_increment primary key,
+	password varchar(255),
+	username varchar(255)
+);
+
+create table if not exists time (
+	id bigint auto_increment primary key,
+	screenid bigint,
+	screen_time varchar(255),
+	creator_id bigint,
+	constraint fk_time_creator foreign key (creator_id) references user (id)
+);
+
+create table if not exists screen (
+	id bigint auto_increment primary key,
+	screen_booked boolean not null,
+	screen_name varchar(255),
+	creator_id bigint,
+	constraint fk_screen_creator foreign key (creator_id) references user (id)
+);
+
+create table if not exists screen_time (
+	screen_id bigint not null,
+	time_id bigint not null,
+	constraint uk_screen_time_time unique (time_id),
+	constraint fk_screen_time_screen foreign key (screen_id) references screen (id),
+	constraint fk_screen_time_time foreign key (time_id) references time (id)
+);
+
+create table if not exists general_message (
+	id bigint auto_increment primary key,
+	creation_date time,
+	text varchar(255)
+);
+
+create table if not exists movie_message (
+	id bigint auto_increment primary key,
+	creation_date time,
+	text varchar(255)
+);
+
+create table if not exists introduction_message (
+	id bigint auto_increment primary key,
+	creation_date time,
+	text varchar(255)
+);
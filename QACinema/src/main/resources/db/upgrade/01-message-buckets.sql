@@ -0,0 +1,21 @@
+-- Forum posts bucketed by month of creation.
+--
+-- Run once against a database created before this change, before starting
+-- with the prod profile (ddl-auto=validate). Posts keep a null bucket here;
+-- MessageRetention puts them in the current month at startup, as their TIME
+-- column never held a date.
+--
+-- Written for H2. On MySQL, use "modify creation_date datetime" for the
+-- column type and leave out "if not exists".
+
+alter table general_message alter column creation_date timestamp;
+alter table general_message add column if not exists bucket integer;
+create index if not exists idx_general_message_bucket_created on general_message (bucket, creation_date);
+
+alter table movie_message alter column creation_date timestamp;
+alter table movie_message add column if not exists bucket integer;
+create index if not exists idx_movie_message_bucket_created on movie_message (bucket, creation_date);
+
+alter table introduction_message alter column creation_date timestamp;
+alter table introduction_message add column if not exists bucket integer;
+create index if not exists idx_introduction_message_bucket_created on introduction_message (bucket, creation_date);
@@ -0,0 +1,11 @@
+-- Background moderation of forum posts.
+--
+-- Run once against a database created before this change, before starting
+-- with the prod profile (ddl-auto=validate). Existing posts have no
+-- moderated_at and are scanned once at the next startup.
+--
+-- Written for H2. On MySQL, use datetime for timestamp and leave out
+-- "if not exists".
+
+alter table general_message add column if not exists flagged_at timestamp;
+alter table general_message add column if not exists moderated_at timestamp;
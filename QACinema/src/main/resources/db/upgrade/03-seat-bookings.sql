@@ -0,0 +1,16 @@
+-- Seat layouts and per-seat bookings for the jpa screen store.
+--
+-- Run once against a database created before this change, before starting
+-- with the prod profile (ddl-auto=validate). Existing screens have no
+-- seat_rows, and so no seats to book, until their rows are saved.
+--
+-- Written for H2. On MySQL, leave out "if not exists".
+
+alter table screen add column if not exists seat_rows varchar(255);
+
+create table if not exists seat_booking (
+	id bigint auto_increment primary key,
+	seat integer not null,
+	time_id bigint,
+	constraint uk_seat_booking_time_seat unique (time_id, seat)
+);
@@ -0,0 +1,24 @@
+-- Unique usernames and the shared role catalogue.
+--
+-- Run once against a database created before this change, before starting
+-- with the prod profile (ddl-auto=validate). The unique index fails if two
+-- accounts share a username; rename or remove one of them first, e.g. with
+--   select username from user group by username having count(*) > 1;
+-- Accounts keep a null authorities mask here; RoleCatalogue gives them the
+-- default roles at startup, as every older account had exactly those.
+-- RoleCatalogue also inserts USER, ACTUATOR and ADMIN at bits 0, 1 and 2
+-- when they are missing; a role added here by hand must use another bit. The
+-- old role and user_roles tables are no longer read and may be dropped.
+--
+-- Written for H2. On MySQL, leave out "if not exists".
+
+alter table user add column if not exists authorities bigint;
+create unique index if not exists uk_user_username on user (username);
+
+create table if not exists role_catalogue (
+	id bigint auto_increment primary key,
+	bit integer not null,
+	name varchar(255),
+	constraint uk_role_name unique (name),
+	constraint uk_role_bit unique (bit)
+);
@@ -0,0 +1,80 @@
+package com.qa.QACinema.Admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class AdmissionFilterTest {
+
+	@Test
+	public void limitsEverySpellingOfAPath() throws Exception {
+		// a burst of one per client, so the second request from each spelling is rejected
+		AdmissionFilter filter = new AdmissionFilter(new HashSet<>(Arrays.asList("/Screen")),
+				new RateLimiter(0.001, 1, 16), new RateLimiter(1000, 1000, 1), new ConcurrencyLimiter(10, 1, 10, 2.0));
+		String[] spellings = { "/Screen", "/Screen/", "/Screen.json" };
+		for (int i = 0; i < spellings.length; i++) {
+			String client = "10.0.0." + i;
+			assertEquals(200, post(filter, spellings[i], client));
+			assertEquals(spellings[i], 429, post(filter, spellings[i], client));
+		}
+		assertEquals(200, post(filter, "/Screens", "10.0.0.9"));
+		assertEquals(200, post(filter, "/Screens", "10.0.0.9"));
+	}
+
+	@Test
+	public void oneThreadCanUseTheWholeGlobalRate() throws Exception {
+		AdmissionFilter filter = new AdmissionFilter(new HashSet<>(Arrays.asList("/register")),
+				new RateLimiter(1000, 1000, 16), new RateLimiter(0.001, 40, 1), new ConcurrencyLimiter(10, 1, 10, 2.0));
+		for (int i = 0; i < 40; i++)
+			assertEquals(200, post(filter, "/register", "10.0.0." + i));
+		assertEquals(429, post(filter, "/register", "10.0.0.99"));
+	}
+
+	@Test
+	public void aRequestTurnedAwayByOneLimitSpendsNothingOfTheOthers() throws Exception {
+		// one permit per client and for the instance, never refilled during the test
+		ConcurrencyLimiter busy = new ConcurrencyLimiter(1, 1, 1, 2.0);
+		AdmissionFilter filter = new AdmissionFilter(new HashSet<>(Arrays.asList("/register")),
+				new RateLimiter(0.001, 1, 16), new RateLimiter(0.001, 1, 1), busy);
+		assertTrue(busy.tryAcquire());
+		for (int i = 0; i < 5; i++)
+			assertEquals(429, post(filter, "/register", "10.0.0.1"));
+		busy.release(0);
+
+		assertEquals(200, post(filter, "/register", "10.0.0.1"));
+		assertEquals(429, post(filter, "/register", "10.0.0.1"));
+		// the client is over its own rate; the instance still has nothing left for others
+		assertEquals(429, post(filter, "/register", "10.0.0.2"));
+	}
+
+	@Test
+	public void aRequestOverTheGlobalRateSpendsNothingOfItsClientRate() throws Exception {
+		RateLimiter global = new RateLimiter(0.001, 1, 1);
+		AdmissionFilter filter = new AdmissionFilter(new HashSet<>(Arrays.asList("/register")),
+				new RateLimiter(0.001, 1, 16), global, new ConcurrencyLimiter(10, 1, 10, 2.0));
+		assertTrue(global.tryAcquire(0));
+		assertEquals(429, post(filter, "/register", "10.0.0.1"));
+		global.refund(0);
+
+		assertEquals(200, post(filter, "/register", "10.0.0.1"));
+	}
+
+	private static int post(AdmissionFilter filter, String servletPath, String client) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", servletPath);
+		// the container strips path parameters such as ;jsessionid from the servlet path
+		request.setRequestURI(servletPath + ";jsessionid=abc");
+		request.setServletPath(servletPath);
+		request.setRemoteAddr(client);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response.getStatus();
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.qa.QACinema.Admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ConcurrencyLimiterTest {
+
+	private static final long MS = 1_000_000L;
+
+	@Test
+	public void growsWhileRequestsStayFast() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 12, 2.0);
+		long now = 0;
+		for (int i = 0; i < 100; i++)
+			limiter.release(MS, now += MS);
+		assertEquals(12, limiter.getLimit());
+	}
+
+	@Test
+	public void cutsOnceForABurstOfSlowRequestsThatShareARound() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(100, 1, 200, 2.0);
+		long now = 0;
+		limiter.release(MS, now += MS);
+
+		// fifty requests that were all running when the first of them came back slow
+		now += 10 * MS;
+		for (int i = 0; i < 50; i++)
+			limiter.release(10 * MS, now + i * 1000);
+		assertEquals(90, limiter.getLimit());
+
+		// one that started after the cut ran under the new cap, and is slow too
+		limiter.release(10 * MS, now + 20 * MS);
+		assertEquals(81, limiter.getLimit());
+	}
+
+	@Test
+	public void neverGoesBelowTheMinimum() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 3, 10, 2.0);
+		long now = 0;
+		limiter.release(MS, now += MS);
+		for (int i = 0; i < 10; i++)
+			limiter.release(10 * MS, now += 20 * MS);
+		assertEquals(3, limiter.getLimit());
+	}
+
+	@Test
+	public void admitsUpToTheLimit() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 2, 2.0);
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(2, limiter.getInFlight());
+		limiter.release(MS);
+		assertTrue(limiter.tryAcquire());
+	}
+
+}
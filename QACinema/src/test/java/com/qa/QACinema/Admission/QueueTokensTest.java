@@ -0,0 +1,58 @@
+package com.qa.QACinema.Admission;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Base64;
+
+import org.junit.Test;
+
+public class QueueTokensTest {
+
+	private static final long LATER = System.currentTimeMillis() + 60000;
+
+	private final QueueTokens tokens = new QueueTokens("secret");
+
+	@Test
+	public void acceptsItsOwnTokens() {
+		assertEquals(42, tokens.verify(tokens.issue(QueueTokens.TICKET, 42, LATER), QueueTokens.TICKET));
+		assertEquals(7, tokens.verify(tokens.issue(QueueTokens.PASS, 7, LATER), QueueTokens.PASS));
+	}
+
+	@Test
+	public void rejectsExpiredTokens() {
+		String expired = tokens.issue(QueueTokens.PASS, 7, System.currentTimeMillis() - 1);
+		assertEquals(-1, tokens.verify(expired, QueueTokens.PASS));
+	}
+
+	@Test
+	public void rejectsATicketUsedAsAPass() {
+		assertEquals(-1, tokens.verify(tokens.issue(QueueTokens.TICKET, 42, LATER), QueueTokens.PASS));
+	}
+
+	@Test
+	public void rejectsForgedTokens() {
+		String token = tokens.issue(QueueTokens.TICKET, 1000, LATER);
+		int dot = token.indexOf('.');
+		byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+		// renumber the ticket to 1, keeping the original signature
+		payload[payload.length - 10] = 0;
+		payload[payload.length - 9] = 1;
+		String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + token.substring(dot);
+		assertEquals(-1, tokens.verify(forged, QueueTokens.TICKET));
+
+		assertEquals(-1, tokens.verify(new QueueTokens("guess").issue(QueueTokens.PASS, 1, LATER), QueueTokens.PASS));
+		assertEquals(-1, tokens.verify(null, QueueTokens.PASS));
+		assertEquals(-1, tokens.verify("no-dot", QueueTokens.PASS));
+		assertEquals(-1, tokens.verify("!!!.???", QueueTokens.PASS));
+		assertEquals(-1, tokens.verify(token.substring(0, dot) + ".", QueueTokens.TICKET));
+	}
+
+	@Test
+	public void onlyTheIssuingInstanceAcceptsItsTickets() {
+		QueueTokens otherInstance = new QueueTokens("secret");
+		// a low number from one instance would otherwise skip the other's queue
+		assertEquals(-1, otherInstance.verify(tokens.issue(QueueTokens.TICKET, 1, LATER), QueueTokens.TICKET));
+		assertEquals(1, otherInstance.verify(tokens.issue(QueueTokens.PASS, 1, LATER), QueueTokens.PASS));
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.qa.QACinema.Admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.qa.QACinema.Pojos.QueueStatus;
+
+/**
+ * The waiting room with the test driving the ticker: 25 admissions a second
+ * over 100 ms ticks is two and a half per tick.
+ */
+public class WaitingRoomTest {
+
+	private final WaitingRoom room = new WaitingRoom(new QueueTokens("secret"), 25, 100, 1000, 60000, 60000, false);
+
+	@After
+	public void close() {
+		room.close();
+	}
+
+	@Test
+	public void admitsAtTheConfiguredRate() {
+		List<String> tickets = join(20);
+		room.tick();
+		assertEquals(2, admitted(tickets));
+		room.tick();
+		assertEquals(5, admitted(tickets));
+		room.tick();
+		assertEquals(7, admitted(tickets));
+		room.tick();
+		assertEquals(10, admitted(tickets));
+
+		QueueStatus waiting = room.status(tickets.get(19));
+		assertFalse(waiting.isAdmitted());
+		assertEquals(10, waiting.getPosition());
+		assertEquals(1, waiting.getEstimatedWaitSeconds());
+		assertNull(waiting.getPass());
+		QueueStatus admitted = room.status(tickets.get(9));
+		assertTrue(room.isAdmitted(admitted.getPass()));
+	}
+
+	@Test
+	public void doesNotBankCapacityWhileIdle() {
+		for (int i = 0; i < 50; i++)
+			room.tick();
+		List<String> tickets = join(10);
+		room.tick();
+		assertEquals(2, admitted(tickets));
+	}
+
+	@Test
+	public void neverAdmitsPastTheLastTicket() {
+		List<String> first = join(1);
+		room.tick();
+		room.tick();
+		assertEquals(1, admitted(first));
+		// the spare capacity of those ticks must not carry over to later arrivals
+		List<String> later = join(10);
+		room.tick();
+		assertEquals(2, admitted(later));
+	}
+
+	@Test
+	public void tellsWatchersWhenTheirTicketIsAdmitted() throws Exception {
+		List<String> tickets = join(3);
+		BlockingQueue<QueueStatus> updates = new LinkedBlockingQueue<>();
+		room.watch(tickets.get(2), status -> {
+			updates.add(status);
+			return !status.isAdmitted();
+		});
+		room.tick();
+		assertNull(updates.poll(100, TimeUnit.MILLISECONDS));
+		room.tick();
+		QueueStatus admitted = updates.poll(5, TimeUnit.SECONDS);
+		assertNotNull(admitted);
+		assertTrue(admitted.isAdmitted());
+		assertTrue(room.isAdmitted(admitted.getPass()));
+	}
+
+	@Test
+	public void aStuckWatcherDoesNotHoldUpAdmission() throws Exception {
+		List<String> tickets = join(30);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch stuck = new CountDownLatch(1);
+		room.watch(tickets.get(0), status -> {
+			stuck.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return false;
+		});
+		try {
+			room.tick();
+			assertTrue(stuck.await(5, TimeUnit.SECONDS));
+			// every progress interval (ten ticks) would reach the stuck watcher again
+			for (int i = 0; i < 11; i++)
+				room.tick();
+			assertEquals(30, admitted(tickets));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void rejectsTicketsFromAnotherInstance() {
+		WaitingRoom other = new WaitingRoom(new QueueTokens("secret"), 25, 100, 1000, 60000, 60000, false);
+		try {
+			String ticket = other.join().getTicket();
+			assertNull(room.status(ticket));
+		} finally {
+			other.close();
+		}
+	}
+
+	private List<String> join(int count) {
+		List<String> tickets = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+			tickets.add(room.join().getTicket());
+		return tickets;
+	}
+
+	private int admitted(List<String> tickets) {
+		int admitted = 0;
+		for (String ticket : tickets)
+			if (room.status(ticket).isAdmitted())
+				admitted++;
+		return admitted;
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.qa.QACinema.Analytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.qa.QACinema.Pojos.OccupancyView;
+import com.qa.QACinema.Storage.ScreenRecord;
+import com.qa.QACinema.Storage.SeatMap;
+import com.qa.QACinema.Storage.ShowingRecord;
+
+public class BookingAnalyticsTest {
+
+	private static final long NEVER = 3600000;
+
+	private JdbcTemplate jdbc;
+	private BookingAnalytics analytics;
+	private volatile String screenName = "Screen 1";
+	private final List<Thread> screenReaders = new CopyOnWriteArrayList<>();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private volatile CountDownLatch slow;
+
+	@Before
+	public void start() {
+		jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:analytics;DB_CLOSE_DELAY=-1", "sa", ""));
+		analytics = new BookingAnalytics(id -> new SeatMap(new int[] { 10 }, new BitSet()), this::screens,
+				new RollupTable(jdbc), NEVER);
+	}
+
+	@After
+	public void stop() {
+		release.countDown();
+		analytics.close();
+		jdbc.execute("drop all objects");
+	}
+
+	@Test
+	public void layoutChangesAreReadOffTheRequestThread() throws Exception {
+		analytics.booked("7");
+		awaitScreen("Screen 1");
+
+		// while the new list is slow to read, the dashboard keeps the old one
+		screenName = "Screen 1 (IMAX)";
+		CountDownLatch reading = new CountDownLatch(1);
+		slow = reading;
+		analytics.screensChanged();
+		assertTrue(reading.await(5, TimeUnit.SECONDS));
+		for (OccupancyView showing : analytics.getShowings())
+			assertEquals("Screen 1", showing.getScreenName());
+
+		release.countDown();
+		awaitScreen("Screen 1 (IMAX)");
+		assertFalse(screenReaders.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void showingsWithoutAScreenHaveNone() throws Exception {
+		analytics.booked("7");
+		analytics.booked("8");
+		awaitScreen("Screen 1");
+		for (OccupancyView showing : analytics.getShowings())
+			if (showing.getShowingId().equals("8")) {
+				assertNull(showing.getScreenId());
+				assertEquals(1, showing.getBooked());
+				return;
+			}
+		throw new AssertionError("showing 8 is missing");
+	}
+
+	private List<ScreenRecord> screens() {
+		screenReaders.add(Thread.currentThread());
+		CountDownLatch reading = slow;
+		if (reading != null) {
+			reading.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return Collections.singletonList(new ScreenRecord("1", screenName, false, new int[] { 10 },
+				Arrays.asList(new ShowingRecord("7", "18:00"))));
+	}
+
+	private void awaitScreen(String name) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < deadline) {
+			for (OccupancyView showing : analytics.getShowings())
+				if (showing.getShowingId().equals("7") && name.equals(showing.getScreenName()))
+					return;
+			Thread.sleep(10);
+		}
+		throw new AssertionError("screen never became " + name);
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.qa.QACinema.Analytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TumblingWindowsTest {
+
+	// midnight UTC, so every resolution's windows line up with it
+	private static final long T0 = 19676L * Resolution.DAY.getWidthMillis();
+	private static final long MINUTE = Resolution.MINUTE.getWidthMillis();
+	private static final long HOUR = Resolution.HOUR.getWidthMillis();
+
+	private final TumblingWindows windows = new TumblingWindows();
+
+	@Test
+	public void countsBookingsInTheMostRecentWindows() {
+		windows.record(T0, 1, 0);
+		windows.record(T0 + MINUTE, 1, 0);
+		windows.record(T0 + MINUTE + 30000, 1, 0);
+		windows.record(T0 + 5 * MINUTE, 1, 1);
+		windows.record(T0 + 10 * MINUTE, 1, 0);
+
+		long now = T0 + 5 * MINUTE + 59999;
+		assertEquals(1, windows.bookedInLast(Resolution.MINUTE, 1, now));
+		assertEquals(3, windows.bookedInLast(Resolution.MINUTE, 5, now));
+		assertEquals(4, windows.bookedInLast(Resolution.MINUTE, 6, now));
+		// the window at ten minutes is still ahead of now
+		assertEquals(4, windows.bookedInLast(Resolution.MINUTE, 60, now));
+		assertEquals(5, windows.bookedInLast(Resolution.HOUR, 1, now));
+	}
+
+	@Test
+	public void reusesASlotOnceItsWindowIsOutOfRange() {
+		windows.record(T0, 3, 1);
+		// sixty minute slots: an hour later the same slot takes the new window
+		windows.record(T0 + 60 * MINUTE, 1, 0);
+
+		long now = T0 + 60 * MINUTE;
+		assertEquals(1, windows.bookedInLast(Resolution.MINUTE, 60, now));
+		assertEquals(4, windows.bookedInLast(Resolution.HOUR, 2, now));
+		List<TumblingWindows.Window> series = windows.series(Resolution.MINUTE, now);
+		assertEquals(60, series.size());
+		assertEquals(T0 + MINUTE, series.get(0).start);
+		assertEquals(0, series.get(0).booked);
+		assertEquals(now, series.get(59).start);
+		assertEquals(1, series.get(59).booked);
+		assertEquals(0, series.get(59).released);
+	}
+
+	@Test
+	public void takesDirtyWindowsOnceUnlessRestored() {
+		windows.record(T0, 1, 0);
+		windows.record(T0 + MINUTE, 1, 1);
+
+		List<TumblingWindows.Window> taken = windows.takeDirty(Resolution.HOUR);
+		assertEquals(1, taken.size());
+		assertEquals(T0, taken.get(0).start);
+		assertEquals(2, taken.get(0).booked);
+		assertEquals(1, taken.get(0).released);
+		assertTrue(windows.takeDirty(Resolution.HOUR).isEmpty());
+
+		// a failed write puts them back, and a later event is included when they are taken again
+		windows.restoreDirty(Resolution.HOUR, taken);
+		windows.record(T0 + 2 * MINUTE, 1, 0);
+		taken = windows.takeDirty(Resolution.HOUR);
+		assertEquals(1, taken.size());
+		assertEquals(3, taken.get(0).booked);
+	}
+
+	@Test
+	public void restoringAWindowWhoseSlotWasReusedDoesNothing() {
+		windows.record(T0, 1, 0);
+		List<TumblingWindows.Window> taken = windows.takeDirty(Resolution.HOUR);
+		// forty-eight hour slots
+		windows.record(T0 + 48 * HOUR, 2, 0);
+		windows.restoreDirty(Resolution.HOUR, taken);
+
+		List<TumblingWindows.Window> again = windows.takeDirty(Resolution.HOUR);
+		assertEquals(1, again.size());
+		assertEquals(T0 + 48 * HOUR, again.get(0).start);
+		assertEquals(2, again.get(0).booked);
+	}
+
+}
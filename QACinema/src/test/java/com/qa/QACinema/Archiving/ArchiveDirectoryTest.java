@@ -0,0 +1,107 @@
+package com.qa.QACinema.Archiving;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.QACinema.Pojos.GeneralMessageView;
+import com.qa.QACinema.Pojos.MessageView;
+
+public class ArchiveDirectoryTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private ArchiveDirectory archive;
+
+	@Before
+	public void open() throws IOException {
+		archive = new ArchiveDirectory(folder.getRoot().toPath().resolve("archive"), objectMapper);
+	}
+
+	@Test
+	public void writesOneGzippedLinePerRow() throws IOException {
+		archive.write("general_message", 202403, Arrays.asList(row(11, "first"), row(15, "second")));
+
+		Path part = folder.getRoot().toPath().resolve("archive/general_message-2024-03-11-15.ndjson.gz");
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(part)), StandardCharsets.UTF_8))) {
+			JsonNode first = objectMapper.readTree(in.readLine());
+			assertEquals(11, first.get("id").asLong());
+			assertEquals("first", first.get("text").asText());
+			assertEquals("second", objectMapper.readTree(in.readLine()).get("text").asText());
+			assertEquals(null, in.readLine());
+		}
+		assertEquals(Arrays.asList(11L, 15L), archive.ids("general_message", 202403, new long[] { 11, 15 }));
+	}
+
+	@Test
+	public void listsPartsOfOneTableAndMonth() throws IOException {
+		archive.write("general_message", 202403, Arrays.asList(row(1, "a"), row(2, "b")));
+		archive.write("general_message", 202403, Arrays.asList(row(3, "c")));
+		archive.write("general_message", 202404, Arrays.asList(row(4, "d")));
+		archive.write("movie_message", 202403, Arrays.asList(row(5, "e")));
+
+		List<long[]> parts = archive.parts("general_message", 202403);
+		parts.sort((a, b) -> Long.compare(a[0], b[0]));
+		assertEquals(2, parts.size());
+		assertArrayEquals(new long[] { 1, 2 }, parts.get(0));
+		assertArrayEquals(new long[] { 3, 3 }, parts.get(1));
+	}
+
+	@Test
+	public void failedWriteLeavesNoPart() throws IOException {
+		MessageView broken = new MessageView() {
+
+			public Long getId() {
+				return 2L;
+			}
+
+			public Date getCreationDate() {
+				return new Date();
+			}
+
+			public String getText() {
+				throw new IllegalStateException("disk pulled");
+			}
+		};
+		try {
+			archive.write("general_message", 202403, Arrays.asList(row(1, "a"), broken));
+			fail();
+		} catch (IOException e) {
+			// the rows stay in the table for the next run
+		}
+		assertEquals(0, archive.parts("general_message", 202403).size());
+		assertEquals(0, folder.getRoot().toPath().resolve("archive").toFile().list().length);
+	}
+
+	@Test
+	public void ignoresUnfinishedTemporaryFiles() throws IOException {
+		Files.createFile(folder.getRoot().toPath().resolve("archive/general_message-2024-03-1-2.ndjson.gz123.tmp"));
+		assertEquals(0, archive.parts("general_message", 202403).size());
+	}
+
+	private static GeneralMessageView row(long id, String text) {
+		return new GeneralMessageView(id, text, new Date());
+	}
+
+}
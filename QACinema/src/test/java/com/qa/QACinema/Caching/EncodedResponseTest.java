@@ -0,0 +1,68 @@
+package com.qa.QACinema.Caching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+public class EncodedResponseTest {
+
+	private static final byte[] JSON = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] GZIPPED = { 1, 2, 3 };
+
+	@Test
+	public void etagFollowsTheContentNotTheVersion() {
+		String etag = etag(new EncodedResponse(3, JSON, null));
+		// a restarted instance numbers versions from zero again
+		assertEquals(etag, etag(new EncodedResponse(0, JSON, null)));
+		assertNotEquals(etag, etag(new EncodedResponse(3, "[{\"id\":2}]".getBytes(StandardCharsets.UTF_8), null)));
+
+		EncodedResponse response = new EncodedResponse(0, JSON, null);
+		assertEquals(HttpStatus.NOT_MODIFIED, response.toResponse(null, etag).getStatusCode());
+		assertEquals(HttpStatus.NOT_MODIFIED, response.toResponse(null, "\"other\", W/" + etag).getStatusCode());
+		assertEquals(HttpStatus.OK, response.toResponse(null, "\"other\"").getStatusCode());
+	}
+
+	@Test
+	public void honoursQValuesInAcceptEncoding() {
+		EncodedResponse response = new EncodedResponse(0, JSON, GZIPPED);
+		assertGzipped(response.toResponse("gzip, deflate", null));
+		assertGzipped(response.toResponse("br;q=1.0, gzip;q=0.5", null));
+		assertGzipped(response.toResponse("*", null));
+		assertIdentity(response.toResponse("gzip;q=0", null));
+		assertIdentity(response.toResponse("deflate, gzip;q=0.0, *;q=1", null));
+		assertIdentity(response.toResponse("*;q=0", null));
+		assertIdentity(response.toResponse("identity", null));
+		assertIdentity(response.toResponse(null, null));
+	}
+
+	@Test
+	public void parsesCodingNamesAndParameters() {
+		assertTrue(EncodedResponse.acceptsGzip("GZIP ; Q=0.3"));
+		assertFalse(EncodedResponse.acceptsGzip("gzip;q=bogus"));
+		assertFalse(EncodedResponse.acceptsGzip("gzipped"));
+	}
+
+	private static String etag(EncodedResponse response) {
+		return response.toResponse(null, null).getHeaders().getETag();
+	}
+
+	private static void assertGzipped(ResponseEntity<byte[]> response) {
+		assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(GZIPPED, response.getBody());
+	}
+
+	private static void assertIdentity(ResponseEntity<byte[]> response) {
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(JSON, response.getBody());
+	}
+
+}
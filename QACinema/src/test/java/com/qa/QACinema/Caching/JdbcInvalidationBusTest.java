@@ -0,0 +1,125 @@
+package com.qa.QACinema.Caching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Timestamp;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Two buses over one embedded H2 database standing in for two instances
+ * sharing the application database.
+ */
+public class JdbcInvalidationBusTest {
+
+	private static final long FAST = 20;
+	private static final long NEVER = 3600000;
+
+	private JdbcTemplate jdbc;
+	private JdbcInvalidationBus busA;
+	private JdbcInvalidationBus busB;
+	private final BlockingQueue<String> heardByA = new LinkedBlockingQueue<>();
+	private final BlockingQueue<String> heardByB = new LinkedBlockingQueue<>();
+
+	@Before
+	public void createDatabase() {
+		jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:invalidation;DB_CLOSE_DELAY=-1", "sa", ""));
+	}
+
+	@After
+	public void dropDatabase() {
+		if (busA != null)
+			busA.close();
+		if (busB != null)
+			busB.close();
+		jdbc.execute("drop all objects");
+	}
+
+	@Test
+	public void deliversOtherInstancesChangesButNotItsOwn() throws Exception {
+		busA = listen(new JdbcInvalidationBus(jdbc, FAST, FAST, NEVER), heardByA);
+		busB = listen(new JdbcInvalidationBus(jdbc, FAST, FAST, NEVER), heardByB);
+
+		busA.publish("screens");
+		assertEquals("screens", heardByB.poll(5, TimeUnit.SECONDS));
+		busB.publish("newmovies");
+		assertEquals("newmovies", heardByA.poll(5, TimeUnit.SECONDS));
+
+		assertNull(heardByA.poll(200, TimeUnit.MILLISECONDS));
+		assertNull(heardByB.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void coalescesNamesPublishedWithinABatch() {
+		busA = new JdbcInvalidationBus(jdbc, NEVER, NEVER, NEVER);
+		for (int i = 0; i < 50; i++) {
+			busA.publish("screens");
+			busA.publish("introduction");
+		}
+		// closing flushes whatever is pending in one batch
+		busA.close();
+		busA = null;
+		assertEquals(2, rows());
+	}
+
+	@Test
+	public void startsFromTheCurrentTail() throws Exception {
+		busA = new JdbcInvalidationBus(jdbc, NEVER, NEVER, NEVER);
+		insert(1, "screens");
+		busB = listen(new JdbcInvalidationBus(jdbc, FAST, FAST, NEVER), heardByB);
+		assertNull(heardByB.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void picksUpLateCommitsBehindTheTailOnce() throws Exception {
+		busB = listen(new JdbcInvalidationBus(jdbc, FAST, FAST, NEVER), heardByB);
+
+		insert(10, "screens");
+		assertEquals("screens", heardByB.poll(5, TimeUnit.SECONDS));
+		// committed after row 10 although it took an earlier sequence
+		insert(5, "introduction");
+		assertEquals("introduction", heardByB.poll(5, TimeUnit.SECONDS));
+
+		// every later poll re-reads both rows inside the lookback window
+		assertNull(heardByB.poll(300, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void purgesRowsPastRetention() throws Exception {
+		busA = new JdbcInvalidationBus(jdbc, FAST, NEVER, 100);
+		busA.publish("screens");
+		busA.publish("introduction");
+		awaitRows(2);
+		awaitRows(0);
+	}
+
+	private static JdbcInvalidationBus listen(JdbcInvalidationBus bus, BlockingQueue<String> heard) {
+		bus.subscribe(heard::add);
+		return bus;
+	}
+
+	private void insert(long seq, String resource) {
+		jdbc.update("insert into cache_invalidation (seq, origin, resource, created) values (?, 'elsewhere', ?, ?)",
+				seq, resource, new Timestamp(System.currentTimeMillis()));
+	}
+
+	private void awaitRows(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (rows() != expected && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(expected, rows());
+	}
+
+	private int rows() {
+		return jdbc.queryForObject("select count(*) from cache_invalidation", Integer.class);
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.qa.QACinema.Caching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Two application contexts joined on one local bus channel, standing in for
+ * two instances in front of a shared database.
+ */
+public class SnapshotCacheTest {
+
+	private static final String RESOURCE = "newmovies";
+
+	private static final List<String> DATABASE = new CopyOnWriteArrayList<>();
+
+	private AnnotationConfigApplicationContext nodeA;
+	private AnnotationConfigApplicationContext nodeB;
+
+	@Before
+	public void start() {
+		DATABASE.clear();
+		DATABASE.add("Alien");
+		nodeA = new AnnotationConfigApplicationContext(Node.class);
+		nodeB = new AnnotationConfigApplicationContext(Node.class);
+	}
+
+	@After
+	public void stop() {
+		nodeA.close();
+		nodeB.close();
+	}
+
+	@Test
+	public void writeOnOneNodeMakesTheOtherReload() {
+		Snapshot<String> onA = snapshot(nodeA);
+		Snapshot<String> onB = snapshot(nodeB);
+		assertEquals(Arrays.asList("Alien"), onA.get());
+		List<String> before = onB.get();
+		assertSame(before, onB.get());
+		int loadsOnB = loads(nodeB);
+
+		DATABASE.add("Aliens");
+		nodeA.getBean(SnapshotCache.class).refresh(RESOURCE);
+
+		// the writer reloads straight away, the other node only when next read
+		assertEquals(Arrays.asList("Alien", "Aliens"), onA.get());
+		assertEquals(loadsOnB, loads(nodeB));
+		List<String> after = onB.get();
+		assertNotSame(before, after);
+		assertEquals(Arrays.asList("Alien", "Aliens"), after);
+		assertEquals(loadsOnB + 1, loads(nodeB));
+		assertSame(after, onB.get());
+	}
+
+	@Test
+	public void writeOnOneNodeDropsTheOthersEncodedResponse() {
+		EncodedResponseCache responsesOnB = nodeB.getBean(EncodedResponseCache.class);
+		Snapshot<String> onB = snapshot(nodeB);
+		EncodedResponse before = responsesOnB.get(RESOURCE, onB::get);
+		assertSame(before, responsesOnB.get(RESOURCE, onB::get));
+
+		DATABASE.add("Aliens");
+		nodeA.getBean(SnapshotCache.class).refresh(RESOURCE);
+
+		EncodedResponse after = responsesOnB.get(RESOURCE, onB::get);
+		assertNotSame(before, after);
+		assertEquals(before.getVersion() + 1, after.getVersion());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Snapshot<String> snapshot(AnnotationConfigApplicationContext node) {
+		return node.getBean(Snapshot.class);
+	}
+
+	private static int loads(AnnotationConfigApplicationContext node) {
+		return node.getBean(AtomicInteger.class).get();
+	}
+
+	// not a @Configuration, or the application's component scan would pick it up in other tests
+	static class Node {
+
+		@Bean
+		public ObjectMapper objectMapper() {
+			return new ObjectMapper();
+		}
+
+		@Bean(destroyMethod = "close")
+		public InvalidationBus invalidationBus() {
+			return new LocalInvalidationBus(SnapshotCacheTest.class.getName());
+		}
+
+		@Bean
+		public EncodedResponseCache encodedResponseCache() {
+			return new EncodedResponseCache();
+		}
+
+		@Bean
+		public SnapshotCache snapshotCache() {
+			return new SnapshotCache();
+		}
+
+		@Bean
+		public AtomicInteger loads() {
+			return new AtomicInteger();
+		}
+
+		@Bean
+		public Snapshot<String> movies(SnapshotCache snapshotCache, AtomicInteger loads) {
+			return snapshotCache.register(RESOURCE, () -> {
+				loads.incrementAndGet();
+				return new ArrayList<>(DATABASE);
+			});
+		}
+
+	}
+
+}
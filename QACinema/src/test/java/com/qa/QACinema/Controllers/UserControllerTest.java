@@ -0,0 +1,133 @@
+package com.qa.QACinema.Controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Repositories.UserRepository;
+import com.qa.QACinema.Service.RoleCatalogue;
+
+/**
+ * The user listing and export through the whole application, with bearer
+ * tokens from the password grant as a client would get them.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:user-controller;DB_CLOSE_DELAY=-1",
+		"qacinema.seed.enabled=false", "qacinema.storage.journal.dir=target/user-controller-journal",
+		"spring.jpa.show-sql=false", "spring.jmx.enabled=false" })
+@AutoConfigureMockMvc
+public class UserControllerTest {
+
+	private static final int USERS = 250;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleCatalogue roles;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Before
+	public void addUsers() {
+		if (userRepository.findByUsername("admin") != null)
+			return;
+		userRepository.save(new User("admin", "secret", roles.defaultMask() | roles.mask(RoleCatalogue.ADMIN)));
+		userRepository.save(new User("member", "secret", roles.defaultMask()));
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < USERS - 2; i++)
+			users.add(new User(String.format("user%03d", i), "secret", roles.defaultMask()));
+		userRepository.save(users);
+	}
+
+	@Test
+	public void onlyAdministratorsListOrExportUsers() throws Exception {
+		mvc.perform(get("/users")).andExpect(status().isUnauthorized());
+		mvc.perform(get("/users/export")).andExpect(status().isUnauthorized());
+
+		// every account holds USER and ACTUATOR, so neither may be what lets it in
+		String member = token("member");
+		mvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION, member)).andExpect(status().isForbidden());
+		mvc.perform(get("/users/export").header(HttpHeaders.AUTHORIZATION, member))
+				.andExpect(status().isForbidden());
+
+		mvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION, token("admin"))).andExpect(status().isOk());
+	}
+
+	@Test
+	public void capsThePageSize() throws Exception {
+		String admin = token("admin");
+		mvc.perform(get("/users").param("size", "100000").header(HttpHeaders.AUTHORIZATION, admin))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.size").value(200))
+				.andExpect(jsonPath("$.content.length()").value(200))
+				.andExpect(jsonPath("$.totalElements").value(USERS));
+		mvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION, admin))
+				.andExpect(jsonPath("$.size").value(50)).andExpect(jsonPath("$.totalPages").value(5));
+	}
+
+	@Test
+	public void sortsOnlyByIdOrUsername() throws Exception {
+		String admin = token("admin");
+		mvc.perform(get("/users").param("sort", "username,desc").param("size", "1")
+				.header(HttpHeaders.AUTHORIZATION, admin)).andExpect(jsonPath("$.content[0].username").value("user247"));
+		// other properties, the password above all, fall back to the username order
+		mvc.perform(get("/users").param("sort", "password,desc").param("size", "1")
+				.header(HttpHeaders.AUTHORIZATION, admin)).andExpect(jsonPath("$.content[0].username").value("admin"));
+		mvc.perform(get("/users").param("sort", "id").param("size", "2").header(HttpHeaders.AUTHORIZATION, admin))
+				.andExpect(jsonPath("$.content[0].username").value("admin"))
+				.andExpect(jsonPath("$.content[1].username").value("member"))
+				.andExpect(jsonPath("$.content[0].password").doesNotExist());
+	}
+
+	@Test
+	public void exportsEveryUserAsOneJsonObjectPerLine() throws Exception {
+		MvcResult result = mvc.perform(get("/users/export").header(HttpHeaders.AUTHORIZATION, token("admin")))
+				.andExpect(status().isOk()).andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+				.andReturn();
+		String body = result.getResponse().getContentAsString();
+		String[] lines = body.split("\n");
+		assertEquals(USERS, lines.length);
+		assertEquals('\n', body.charAt(body.length() - 1));
+		for (String line : lines) {
+			JsonNode user = objectMapper.readTree(line);
+			assertEquals(2, user.size());
+			assertFalse(user.get("username").asText().isEmpty());
+		}
+	}
+
+	private String token(String username) throws Exception {
+		String client = Base64.getEncoder().encodeToString("my-trusted-client:secret".getBytes(StandardCharsets.UTF_8));
+		MvcResult result = mvc.perform(post("/oauth/token").param("grant_type", "password").param("username", username)
+				.param("password", "secret").header(HttpHeaders.AUTHORIZATION, "Basic " + client))
+				.andExpect(status().isOk()).andReturn();
+		return "Bearer " + objectMapper.readTree(result.getResponse().getContentAsString()).get("access_token").asText();
+	}
+
+}
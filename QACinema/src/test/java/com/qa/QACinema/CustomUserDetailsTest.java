@@ -0,0 +1,70 @@
+package com.qa.QACinema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.qa.QACinema.Entities.Role;
+import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Repositories.RoleRepository;
+import com.qa.QACinema.Repositories.UserRepository;
+import com.qa.QACinema.Service.RoleCatalogue;
+
+public class CustomUserDetailsTest {
+
+	private final RoleCatalogue roles = new RoleCatalogue();
+
+	@Before
+	public void loadCatalogue() {
+		RoleRepository roleRepository = mock(RoleRepository.class);
+		when(roleRepository.findAll()).thenReturn(Arrays.asList(new Role(RoleCatalogue.USER, 0),
+				new Role(RoleCatalogue.ACTUATOR, 1), new Role(RoleCatalogue.ADMIN, 2), new Role("MANAGER", 62)));
+		ReflectionTestUtils.setField(roles, "roleRepository", roleRepository);
+		ReflectionTestUtils.setField(roles, "userRepository", mock(UserRepository.class));
+		roles.load();
+	}
+
+	@Test
+	public void mapsEachBitOfTheMaskToItsRole() {
+		assertEquals(AuthorityUtils.commaSeparatedStringToAuthorityList("USER,ACTUATOR"),
+				details(roles.defaultMask()).getAuthorities());
+		assertEquals(AuthorityUtils.commaSeparatedStringToAuthorityList("USER,ACTUATOR,ADMIN"),
+				details(roles.defaultMask() | roles.mask(RoleCatalogue.ADMIN)).getAuthorities());
+		assertEquals(AuthorityUtils.commaSeparatedStringToAuthorityList("ADMIN,MANAGER"),
+				details(1L << 2 | 1L << 62).getAuthorities());
+	}
+
+	@Test
+	public void grantsNothingForAnEmptyMask() {
+		assertTrue(details(0).getAuthorities().isEmpty());
+	}
+
+	@Test
+	public void sharesTheAuthoritiesOfEqualMasks() {
+		CustomUserDetails anna = details(3);
+		CustomUserDetails bob = details(3);
+		assertTrue(anna.getAuthorities() == bob.getAuthorities());
+		assertTrue(anna.getAuthorities().iterator().next() == roles.authorities(1).get(0));
+	}
+
+	@Test
+	public void keepsTheCredentials() {
+		CustomUserDetails details = details(3);
+		assertEquals("anna", details.getUsername());
+		assertEquals("secret", details.getPassword());
+		assertTrue(details.isEnabled());
+	}
+
+	private CustomUserDetails details(long mask) {
+		return new CustomUserDetails(new User("anna", "secret", mask), roles);
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.qa.QACinema.Entities;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.Test;
+
+public class MonthBucketTest {
+
+	@Test
+	public void bucketsByUtcMonth() {
+		assertEquals(202403, MonthBucket.of(Date.from(Instant.parse("2024-03-31T23:59:59.999Z"))));
+		assertEquals(202404, MonthBucket.of(Date.from(Instant.parse("2024-04-01T00:00:00Z"))));
+		assertEquals(202412, MonthBucket.of(Date.from(Instant.parse("2024-12-15T12:00:00Z"))));
+	}
+
+	@Test
+	public void countsMonthsBackAcrossYears() {
+		assertEquals(202311, MonthBucket.monthsBefore(202402, 3));
+		assertEquals(202402, MonthBucket.monthsBefore(202402, 0));
+		assertEquals(202202, MonthBucket.monthsBefore(202402, 24));
+	}
+
+	@Test
+	public void labelsAsYearAndMonth() {
+		assertEquals("2024-03", MonthBucket.label(202403));
+		assertEquals("2023-12", MonthBucket.label(202312));
+	}
+
+	@Test
+	public void currentIsTodaysMonth() {
+		assertEquals(MonthBucket.of(new Date()), MonthBucket.current());
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.qa.QACinema.Entities;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * A new database built only by db/upgrade/*.sql must pass the prod profile's
+ * schema validation, so an entity change without its script fails here.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SchemaUpgradeTest.Schema.class, webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:upgraded;DB_CLOSE_DELAY=-1", "spring.datasource.initialize=true",
+		"spring.datasource.schema=classpath:db/upgrade/*.sql", "spring.jpa.hibernate.ddl-auto=validate",
+		"spring.jpa.show-sql=false" })
+public class SchemaUpgradeTest {
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	public void upgradedSchemaHoldsTheEntities() {
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.update("insert into user (username, password, authorities) values ('anna', 'x', 3)");
+		jdbc.update("insert into role_catalogue (name, bit) values ('USER', 0)");
+		jdbc.update("insert into seat_booking (time_id, seat) values (1, 4)");
+		assertEquals(Integer.valueOf(1), jdbc.queryForObject("select count(*) from seat_booking", Integer.class));
+	}
+
+	@Test
+	public void scriptsCanRunAgain() throws Exception {
+		Resource[] scripts = new PathMatchingResourcePatternResolver().getResources("classpath:db/upgrade/*.sql");
+		Arrays.sort(scripts, Comparator.comparing(Resource::getFilename));
+		// a database that already had a script applied gets it again when an operator runs them all
+		new ResourceDatabasePopulator(scripts).execute(dataSource);
+	}
+
+	// not a @Configuration, or the application's component scan would pick it up in other tests
+	@ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class })
+	@EntityScan(basePackageClasses = Screen.class)
+	public static class Schema {
+	}
+
+}
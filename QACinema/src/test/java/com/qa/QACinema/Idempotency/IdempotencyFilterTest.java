@@ -0,0 +1,165 @@
+package com.qa.QACinema.Idempotency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class IdempotencyFilterTest {
+
+	private final IdempotencyFilter filter = new IdempotencyFilter(new HashSet<>(Arrays.asList("/register")),
+			new String[] { "/showings/" }, new StripedIdempotencyStore(100, 60000, 4),
+			new StripedIdempotencyStore(100, 60000, 4), 1024);
+
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@Test
+	public void replaysTheFirstResponse() throws Exception {
+		FilterChain chain = created();
+		MockHttpServletResponse first = post("/register", "k1", "{\"name\":\"ann\"}", chain);
+		MockHttpServletResponse retry = post("/register", "k1", "{\"name\":\"ann\"}", chain);
+
+		assertEquals(1, runs.get());
+		assertEquals(201, first.getStatus());
+		assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(201, retry.getStatus());
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals("application/json", retry.getContentType());
+		assertEquals(first.getContentAsString(), retry.getContentAsString());
+	}
+
+	@Test
+	public void retryWhileTheFirstIsRunningGetsConflict() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		FilterChain slow = (request, response) -> {
+			entered.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			created().doFilter(request, response);
+		};
+		Thread first = new Thread(() -> {
+			try {
+				post("/showings/1/seats/3", "k1", "", slow);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		first.start();
+		assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+		MockHttpServletResponse retry = post("/showings/1/seats/3", "k1", "", created());
+		assertEquals(409, retry.getStatus());
+		assertEquals("1", retry.getHeader("Retry-After"));
+
+		release.countDown();
+		first.join();
+		assertEquals("true", post("/showings/1/seats/3", "k1", "", created()).getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	public void reusingAKeyForADifferentBodyIsRefused() throws Exception {
+		post("/register", "k1", "{\"name\":\"ann\"}", created());
+		assertEquals(422, post("/register", "k1", "{\"name\":\"bob\"}", created()).getStatus());
+		assertEquals(1, runs.get());
+		// the same key on another path is another key
+		assertEquals(201, post("/showings/1/seats/3", "k1", "{\"name\":\"bob\"}", created()).getStatus());
+	}
+
+	@Test
+	public void outcomesThatAreNotFinalAreNotStored() throws Exception {
+		for (int status : new int[] { 503, 403, 429, 401 })
+			assertEquals(status, post("/register", "k1", "{}", answering(status)).getStatus());
+		assertEquals(201, post("/register", "k1", "{}", created()).getStatus());
+		assertEquals(201, post("/register", "k1", "{}", answering(500)).getStatus());
+		assertEquals(5, runs.get());
+	}
+
+	@Test
+	public void handlerCanReadTheBodyWithAReadListener() throws Exception {
+		String body = "{\"name\":\"ann\"}";
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		AtomicInteger allRead = new AtomicInteger();
+		FilterChain chain = (request, response) -> {
+			ServletInputStream in = request.getInputStream();
+			in.setReadListener(new ReadListener() {
+
+				@Override
+				public void onDataAvailable() throws IOException {
+					byte[] buffer = new byte[4];
+					for (int n; in.isReady() && (n = in.read(buffer)) != -1;)
+						read.write(buffer, 0, n);
+				}
+
+				@Override
+				public void onAllDataRead() {
+					allRead.incrementAndGet();
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					throw new AssertionError(t);
+				}
+			});
+			created().doFilter(request, response);
+		};
+		assertEquals(201, post("/register", "k1", body, chain).getStatus());
+		assertEquals(body, new String(read.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals(1, allRead.get());
+	}
+
+	@Test
+	public void requestsWithoutAKeyPassStraightThrough() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/register");
+		for (int i = 0; i < 2; i++)
+			filter.doFilter(request, new MockHttpServletResponse(), created());
+		assertEquals(2, runs.get());
+	}
+
+	private FilterChain created() {
+		return (request, response) -> {
+			runs.incrementAndGet();
+			response.setContentType("application/json");
+			((HttpServletResponse) response).setStatus(201);
+			response.getOutputStream().write(("{\"run\":" + runs.get() + "}").getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	private FilterChain answering(int status) {
+		return (request, response) -> {
+			runs.incrementAndGet();
+			((HttpServletResponse) response).setStatus(status);
+		};
+	}
+
+	private MockHttpServletResponse post(String path, String key, String body, FilterChain chain) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(path.startsWith("/showings/") ? "PUT" : "POST", path);
+		request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+}
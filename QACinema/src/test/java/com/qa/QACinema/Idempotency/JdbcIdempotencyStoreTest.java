@@ -0,0 +1,97 @@
+package com.qa.QACinema.Idempotency;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Two stores over one embedded H2 database standing in for two instances
+ * sharing the application database.
+ */
+public class JdbcIdempotencyStoreTest {
+
+	private static final long DAY = 86400000;
+	private static final long LEASE = 100;
+
+	private JdbcTemplate jdbc;
+	private JdbcIdempotencyStore storeA;
+	private JdbcIdempotencyStore storeB;
+
+	@Before
+	public void createDatabase() {
+		jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1", "sa", ""));
+		storeA = new JdbcIdempotencyStore(jdbc, DAY, LEASE);
+		storeB = new JdbcIdempotencyStore(jdbc, DAY, LEASE);
+	}
+
+	@After
+	public void dropDatabase() {
+		storeA.close();
+		storeB.close();
+		jdbc.execute("drop all objects");
+	}
+
+	@Test
+	public void anotherInstanceReplaysTheResponse() {
+		assertSame(IdempotencyStore.STARTED, storeA.begin("key", "print"));
+		assertSame(IdempotencyStore.IN_FLIGHT, storeB.begin("key", "print"));
+		storeA.complete("key", new StoredResponse(201, "application/json", bytes("{}")));
+
+		StoredResponse replayed = storeB.begin("key", "print");
+		assertEquals(201, replayed.getStatus());
+		assertEquals("application/json", replayed.getContentType());
+		assertArrayEquals(bytes("{}"), replayed.getBody());
+		assertSame(IdempotencyStore.MISMATCH, storeB.begin("key", "other"));
+	}
+
+	@Test
+	public void stalledClaimIsTakenOverOnceAfterTheLease() throws Exception {
+		// A claims the key and dies before completing it
+		assertSame(IdempotencyStore.STARTED, storeA.begin("key", "print"));
+		assertSame(IdempotencyStore.IN_FLIGHT, storeB.begin("key", "print"));
+		Thread.sleep(LEASE * 2);
+
+		assertSame(IdempotencyStore.STARTED, storeB.begin("key", "print"));
+		assertSame(IdempotencyStore.IN_FLIGHT, storeA.begin("key", "print"));
+		storeB.complete("key", new StoredResponse(204, null, new byte[0]));
+		Thread.sleep(LEASE * 2);
+		assertEquals(204, storeA.begin("key", "print").getStatus());
+	}
+
+	@Test
+	public void abandonedKeyCanBeClaimedAgain() {
+		assertSame(IdempotencyStore.STARTED, storeA.begin("key", "print"));
+		storeA.abandon("key");
+		assertSame(IdempotencyStore.STARTED, storeB.begin("key", "other"));
+		// a completed response is never abandoned
+		storeB.complete("key", new StoredResponse(204, null, new byte[0]));
+		storeB.abandon("key");
+		assertEquals(204, storeA.begin("key", "other").getStatus());
+	}
+
+	@Test
+	public void expiredResponseIsForgotten() throws Exception {
+		JdbcIdempotencyStore shortLived = new JdbcIdempotencyStore(jdbc, LEASE, LEASE);
+		try {
+			assertSame(IdempotencyStore.STARTED, shortLived.begin("key", "print"));
+			shortLived.complete("key", new StoredResponse(204, null, new byte[0]));
+			Thread.sleep(LEASE * 2);
+			assertSame(IdempotencyStore.STARTED, shortLived.begin("key", "other"));
+		} finally {
+			shortLived.close();
+		}
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.qa.QACinema.Moderation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class AhoCorasickTest {
+
+	@Test
+	public void findsOverlappingTerms() {
+		AhoCorasick matcher = new AhoCorasick(Arrays.asList("he", "she", "his", "hers"));
+		assertEquals("she", matcher.find("so she said"));
+		assertEquals("hers", matcher.find("it is hers"));
+		assertEquals("he", matcher.find("he did"));
+		// "she" ends inside "ushers" and "he" and "hers" overlap it, but none is a word there
+		assertNull(matcher.find("the ushers"));
+	}
+
+	@Test
+	public void followsTheFailureChainPastNonWords() {
+		// after "the cat" the automaton is deep in the first term; "e cat" and then "cat" end there too
+		AhoCorasick matcher = new AhoCorasick(Arrays.asList("the cat sat", "e cat", "cat"));
+		assertEquals("cat", matcher.find("the cat"));
+		assertEquals("e cat", matcher.find("one e cat"));
+		// the first term to end wins
+		assertEquals("cat", matcher.find("the cat sat"));
+		assertEquals("the cat sat", new AhoCorasick(Arrays.asList("the cat sat", "e cat")).find("the cat sat"));
+	}
+
+	@Test
+	public void matchesPhrasesThatStartMidway() {
+		AhoCorasick matcher = new AhoCorasick(Arrays.asList("new york city", "york"));
+		assertEquals("york", matcher.find("in new york today"));
+		assertEquals("new york city", new AhoCorasick(Arrays.asList("new york city", "ork")).find("New York City"));
+	}
+
+	@Test
+	public void onlyMatchesWholeWords() {
+		AhoCorasick matcher = new AhoCorasick(Arrays.asList("ass"));
+		assertNull(matcher.find("a class act"));
+		assertNull(matcher.find("assess"));
+		assertNull(matcher.find("ass1"));
+		assertEquals("ass", matcher.find("ass"));
+		assertEquals("ass", matcher.find("what an ass!"));
+		assertEquals("ass", matcher.find("ass-backwards"));
+	}
+
+	@Test
+	public void ignoresCaseAndBlankTerms() {
+		AhoCorasick matcher = new AhoCorasick(Arrays.asList("  Spoiler ", "", "spoiler"));
+		assertEquals(1, matcher.size());
+		assertEquals("spoiler", matcher.find("SPOILER: he dies"));
+	}
+
+	@Test
+	public void noTermsMatchNothing() {
+		AhoCorasick matcher = new AhoCorasick(Collections.<String> emptyList());
+		assertEquals(0, matcher.size());
+		assertNull(matcher.find("anything at all"));
+	}
+
+}
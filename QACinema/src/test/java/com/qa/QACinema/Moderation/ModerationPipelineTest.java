@@ -0,0 +1,128 @@
+package com.qa.QACinema.Moderation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ModerationPipelineTest {
+
+	private final AhoCorasick matcher = new AhoCorasick(Arrays.asList("spoiler"));
+	private final List<Long> flagged = new CopyOnWriteArrayList<>();
+	private final List<Long> scanned = new CopyOnWriteArrayList<>();
+	private ModerationPipeline pipeline;
+
+	@After
+	public void close() {
+		pipeline.close();
+	}
+
+	@Test
+	public void reportsMatchesAndEveryScannedPost() throws Exception {
+		pipeline = listen(new ModerationPipeline(() -> matcher, 100, 2, 10));
+		for (long id = 1; id <= 50; id++)
+			pipeline.submit(id, id % 10 == 0 ? "big spoiler" : "nice film");
+
+		awaitScanned(50);
+		assertEquals(new TreeSet<>(Arrays.asList(10L, 20L, 30L, 40L, 50L)), new TreeSet<>(flagged));
+	}
+
+	@Test
+	public void fullQueueIsScannedByTheSubmitter() throws Exception {
+		Thread caller = Thread.currentThread();
+		CountDownLatch taken = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// the only worker is stuck on the first post, so the queue of one fills up
+		pipeline = listen(new ModerationPipeline(() -> {
+			if (Thread.currentThread() != caller) {
+				taken.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return matcher;
+		}, 1, 1, 10));
+		List<Thread> flaggedOn = new CopyOnWriteArrayList<>();
+		pipeline.addListener(ids -> flaggedOn.add(Thread.currentThread()));
+		pipeline.submit(1, "first");
+		assertTrue(taken.await(5, TimeUnit.SECONDS));
+		pipeline.submit(2, "queued");
+
+		pipeline.submit(3, "spoiler from the caller");
+		assertEquals(Collections.singletonList(3L), flagged);
+		assertEquals(Collections.singletonList(caller), flaggedOn);
+
+		release.countDown();
+		awaitScanned(3);
+	}
+
+	@Test
+	public void postsWhoseMatchCouldNotBeActedOnAreNotReportedScanned() throws Exception {
+		// one post per batch, as a failure holds back the whole batch
+		pipeline = new ModerationPipeline(() -> matcher, 100, 1, 1);
+		pipeline.addListener(ids -> {
+			throw new IllegalStateException("database down");
+		});
+		pipeline.addScannedListener(scanned::addAll);
+		pipeline.submit(1, "a spoiler");
+		pipeline.submit(2, "fine");
+		pipeline.submit(3, "also fine");
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!scanned.contains(3L) && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(Arrays.asList(2L, 3L), scanned);
+	}
+
+	@Test
+	public void closeScansWhatIsStillQueued() throws Exception {
+		Thread caller = Thread.currentThread();
+		CountDownLatch taken = new CountDownLatch(1);
+		CountDownLatch never = new CountDownLatch(1);
+		// the worker's first scan blocks until close interrupts it
+		pipeline = listen(new ModerationPipeline(() -> {
+			if (Thread.currentThread() != caller) {
+				taken.countDown();
+				try {
+					never.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return matcher;
+		}, 10, 1, 1));
+		pipeline.submit(1, "first");
+		assertTrue(taken.await(5, TimeUnit.SECONDS));
+		pipeline.submit(2, "a spoiler");
+		pipeline.submit(3, "third");
+		pipeline.close();
+
+		assertTrue(scanned.containsAll(Arrays.asList(2L, 3L)));
+		assertEquals(Collections.singletonList(2L), flagged);
+	}
+
+	private ModerationPipeline listen(ModerationPipeline pipeline) {
+		pipeline.addListener(flagged::addAll);
+		pipeline.addScannedListener(scanned::addAll);
+		return pipeline;
+	}
+
+	private void awaitScanned(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (scanned.size() < count && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(count, scanned.size());
+	}
+
+}
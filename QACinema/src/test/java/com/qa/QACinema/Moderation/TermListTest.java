@@ -0,0 +1,64 @@
+package com.qa.QACinema.Moderation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TermListTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private TermList terms;
+
+	@After
+	public void close() {
+		if (terms != null)
+			terms.close();
+	}
+
+	@Test
+	public void picksUpEditsWhileRunning() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("terms.txt");
+		terms = new TermList(file, 20);
+		assertEquals(0, terms.matcher().size());
+
+		write(file, "# spoilers", "spoiler", "the ending  # a phrase");
+		awaitSize(2);
+		AhoCorasick first = terms.matcher();
+		assertEquals("the ending", first.find("about the ending"));
+
+		write(file, "refund");
+		awaitSize(1);
+		assertNull(terms.matcher().find("a spoiler"));
+		assertEquals("refund", terms.matcher().find("refund please"));
+		// a scan already holding the old matcher finishes with it
+		assertEquals("spoiler", first.find("a spoiler"));
+
+		Files.delete(file);
+		awaitSize(0);
+	}
+
+	private void awaitSize(int size) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (terms.matcher().size() != size && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(size, terms.matcher().size());
+	}
+
+	// a different length each time, so the change is seen even within one timestamp tick
+	private static void write(Path file, String... lines) throws IOException {
+		Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+	}
+
+}
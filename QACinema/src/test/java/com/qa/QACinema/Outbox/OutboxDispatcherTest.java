@@ -0,0 +1,144 @@
+package com.qa.QACinema.Outbox;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.mail.internet.MimeMessage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+/**
+ * The outbox on an embedded H2 database, dispatched to a GreenMail SMTP
+ * server standing in for the real one.
+ */
+public class OutboxDispatcherTest {
+
+	private static final long NEVER = 3600000;
+
+	private GreenMail smtp;
+	private JdbcTemplate jdbc;
+	private TransactionTemplate transactions;
+	private Outbox outbox;
+	private OutboxDispatcher dispatcher;
+
+	@Before
+	public void start() {
+		smtp = new GreenMail(ServerSetupTest.SMTP);
+		smtp.start();
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbc = new JdbcTemplate(dataSource);
+		transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		outbox = new Outbox(jdbc);
+	}
+
+	@After
+	public void stop() {
+		if (dispatcher != null)
+			dispatcher.close();
+		smtp.stop();
+		jdbc.execute("drop all objects");
+	}
+
+	@Test
+	public void sendsWhatCommittedTransactionsWrote() throws Exception {
+		transactions.execute(status -> {
+			for (int i = 0; i < 5; i++)
+				outbox.enqueue("user" + i + "@example.com", "Welcome", "Hello " + i);
+			return null;
+		});
+		transactions.execute(status -> {
+			outbox.enqueue("ghost@example.com", "Welcome", "Never committed");
+			status.setRollbackOnly();
+			return null;
+		});
+		dispatcher = dispatcher(mailSender(), 2, 3);
+
+		assertEquals(5, dispatcher.drain());
+		MimeMessage[] received = smtp.getReceivedMessages();
+		assertEquals(5, received.length);
+		assertEquals("Welcome", received[0].getSubject());
+		assertEquals(0, dispatcher.drain());
+		assertEquals(5, count("SENT"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void refusesMessagesOutsideATransaction() {
+		outbox.enqueue("user@example.com", "Welcome", "Hello");
+	}
+
+	@Test
+	public void retriesFailuresThenGivesUp() throws Exception {
+		transactions.execute(status -> {
+			outbox.enqueue("user@example.com", "Welcome", "Hello");
+			return null;
+		});
+		dispatcher = dispatcher(OutboxDispatcherTest::failAll, 1, 3);
+
+		assertEquals(0, dispatcher.drain());
+		assertEquals(1, count("PENDING"));
+		for (int i = 0; i < 50 && count("FAILED") == 0; i++) {
+			Thread.sleep(20);
+			dispatcher.drain();
+		}
+		assertEquals(1, count("FAILED"));
+		assertEquals(Integer.valueOf(3), jdbc.queryForObject("select attempts from outbox", Integer.class));
+		assertEquals(0, smtp.getReceivedMessages().length);
+	}
+
+	@Test
+	public void deliversOnceTheServerIsBack() throws Exception {
+		transactions.execute(status -> {
+			outbox.enqueue("user@example.com", "Welcome", "Hello");
+			return null;
+		});
+		smtp.stop();
+		dispatcher = dispatcher(mailSender(), 1, 5);
+
+		assertEquals(0, dispatcher.drain());
+		smtp = new GreenMail(ServerSetupTest.SMTP);
+		smtp.start();
+		int sent = 0;
+		for (int i = 0; i < 50 && sent == 0; i++) {
+			Thread.sleep(20);
+			sent = dispatcher.drain();
+		}
+		assertEquals(1, sent);
+		assertEquals(1, smtp.getReceivedMessages().length);
+	}
+
+	private OutboxDispatcher dispatcher(MessageSender sender, int parallelism, int maxAttempts) {
+		return new OutboxDispatcher(outbox, sender, 2, parallelism, maxAttempts, 5, 20, NEVER, NEVER);
+	}
+
+	private MessageSender mailSender() {
+		JavaMailSenderImpl mail = new JavaMailSenderImpl();
+		mail.setHost("localhost");
+		mail.setPort(ServerSetupTest.SMTP.getPort());
+		return new MailMessageSender(mail, "noreply@qacinema.local");
+	}
+
+	private static Map<Long, String> failAll(List<OutboxMessage> messages) {
+		Map<Long, String> failures = new HashMap<>();
+		for (OutboxMessage message : messages)
+			failures.put(message.getId(), "refused");
+		return failures;
+	}
+
+	private int count(String status) {
+		return jdbc.queryForObject("select count(*) from outbox where status = ?", Integer.class, status);
+	}
+
+}
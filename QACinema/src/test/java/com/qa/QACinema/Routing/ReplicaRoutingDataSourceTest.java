@@ -0,0 +1,99 @@
+package com.qa.QACinema.Routing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routing between two embedded H2 databases standing in for a primary and
+ * its replica; "replication" is done by hand.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+	private DataSource primary;
+	private DataSource replica;
+	private ReplicaMonitor monitor;
+
+	@Before
+	public void createDatabases() {
+		primary = database("primary");
+		replica = database("replica");
+	}
+
+	@After
+	public void dropDatabases() {
+		if (monitor != null)
+			monitor.close();
+		new JdbcTemplate(primary).execute("drop all objects");
+		new JdbcTemplate(replica).execute("drop all objects");
+	}
+
+	@Test
+	public void readOnlyTransactionsGoToTheReplica() {
+		monitor = new ReplicaMonitor(primary, replica, 0, 60000);
+		DataSource routing = routing();
+
+		assertEquals("replica", origin(routing, true));
+		assertEquals("primary", origin(routing, false));
+	}
+
+	@Test
+	public void readsStayOnThePrimaryUntilTheReplicaCatchesUp() throws InterruptedException {
+		JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+		replicaJdbc.execute("create table replica_heartbeat (id int primary key, beat bigint not null)");
+		replicaJdbc.update("insert into replica_heartbeat (id, beat) values (1, ?)", System.currentTimeMillis());
+		monitor = new ReplicaMonitor(primary, replica, 60000, 60000);
+		DataSource routing = routing();
+		assertEquals("replica", origin(routing, true));
+
+		transactions(routing, false).execute(status -> new JdbcTemplate(routing).update("insert into origin values ('written')"));
+		assertEquals("primary", origin(routing, true));
+
+		Thread.sleep(5);
+		replicaJdbc.update("update replica_heartbeat set beat = ? where id = 1", System.currentTimeMillis());
+		monitor.check();
+		assertEquals("replica", origin(routing, true));
+	}
+
+	private DataSource routing() {
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(monitor);
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(ReplicaRoutingDataSource.Route.PRIMARY, primary);
+		targets.put(ReplicaRoutingDataSource.Route.REPLICA, replica);
+		routing.setTargetDataSources(targets);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
+	private static String origin(DataSource dataSource, boolean readOnly) {
+		return transactions(dataSource, readOnly).execute(status -> new JdbcTemplate(dataSource)
+				.queryForObject("select name from origin order by name limit 1", String.class));
+	}
+
+	private static TransactionTemplate transactions(DataSource dataSource, boolean readOnly) {
+		TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		template.setReadOnly(readOnly);
+		return template;
+	}
+
+	private static DataSource database(String name) {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("create table origin (name varchar(32))");
+		jdbc.update("insert into origin values (?)", name);
+		return dataSource;
+	}
+
+}
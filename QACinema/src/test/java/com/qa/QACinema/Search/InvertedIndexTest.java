@@ -0,0 +1,51 @@
+package com.qa.QACinema.Search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class InvertedIndexTest {
+
+	@Test
+	public void removedDocumentsDoNotDiluteTermWeights() {
+		InvertedIndex index = new InvertedIndex();
+		index.add(1, "popcorn");
+		index.add(2, "nachos");
+		float before = index.search("popcorn", 1).get(0).getScore();
+
+		// many removed popcorn posts must not make the term look common
+		for (long key = 100; key < 130; key++)
+			index.add(key, "popcorn");
+		for (long key = 100; key < 130; key++)
+			index.remove(key);
+
+		List<InvertedIndex.Hit> hits = index.search("popcorn", 5);
+		assertEquals(1, hits.size());
+		assertEquals(1, hits.get(0).getKey());
+		assertEquals(before, hits.get(0).getScore(), 1e-6f);
+	}
+
+	@Test
+	public void keepsFindingLiveDocumentsAcrossCompactions() {
+		InvertedIndex index = new InvertedIndex();
+		for (long key = 0; key < 1000; key++)
+			index.add(key, "film " + (key % 2 == 0 ? "even" : "odd") + " number" + key);
+		// removing most documents compacts the index several times on the way
+		for (long key = 0; key < 1000; key++)
+			if (key % 10 != 0)
+				index.remove(key);
+		index.add(5, "film odd number5 returns");
+
+		List<InvertedIndex.Hit> hits = index.search("even", 1000);
+		assertEquals(100, hits.size());
+		for (InvertedIndex.Hit hit : hits)
+			assertEquals(0, hit.getKey() % 10);
+		assertEquals(5, index.search("returns", 10).get(0).getKey());
+		assertEquals(990, index.search("number990", 10).get(0).getKey());
+		assertTrue(index.search("number11", 10).isEmpty());
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.qa.QACinema.Service;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+	@Test
+	public void neverMissesANameItWasGiven() {
+		BloomFilter filter = new BloomFilter(10000, 0.01);
+		for (int i = 0; i < 10000; i++)
+			filter.put("user" + i);
+		for (int i = 0; i < 10000; i++)
+			assertTrue("user" + i, filter.mightContain("user" + i));
+	}
+
+	@Test
+	public void keepsFalsePositivesNearTheConfiguredRate() {
+		BloomFilter filter = new BloomFilter(10000, 0.01);
+		for (int i = 0; i < 10000; i++)
+			filter.put("user" + i);
+		int falsePositives = 0;
+		for (int i = 0; i < 100000; i++)
+			if (filter.mightContain("guest" + i))
+				falsePositives++;
+		assertTrue(falsePositives + " false positives", falsePositives < 2000);
+	}
+
+	@Test
+	public void isSaturatedOncePastItsExpectedSize() {
+		BloomFilter filter = new BloomFilter(3, 0.01);
+		for (int i = 0; i < 3; i++)
+			filter.put("user" + i);
+		assertFalse(filter.isSaturated());
+		filter.put("user3");
+		assertTrue(filter.isSaturated());
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.qa.QACinema.Service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.qa.QACinema.Moderation.AhoCorasick;
+import com.qa.QACinema.Moderation.ModerationPipeline;
+import com.qa.QACinema.Pojos.GeneralMessageView;
+import com.qa.QACinema.Repositories.GeneralMessageRepository;
+
+public class GeneralMessageServiceTest {
+
+	private final ModerationPipeline moderation = new ModerationPipeline(
+			() -> new AhoCorasick(Collections.singletonList("spoiler")), 10, 1, 10);
+
+	@After
+	public void close() {
+		moderation.close();
+	}
+
+	@Test
+	public void rescansEveryPostModerationNeverFinished() throws Exception {
+		// 1201 unmoderated posts, served a page at a time from after the last id seen
+		GeneralMessageRepository repository = mock(GeneralMessageRepository.class);
+		when(repository.findUnmoderatedAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+			long after = call.getArgumentAt(0, Long.class);
+			int size = call.getArgumentAt(1, Pageable.class).getPageSize();
+			List<GeneralMessageView> page = new ArrayList<>();
+			for (long id = after + 1; id <= 1201 && page.size() < size; id++)
+				page.add(new GeneralMessageView(id, id == 700 ? "a spoiler" : "fine", new Date()));
+			return page;
+		});
+		List<Long> flagged = new CopyOnWriteArrayList<>();
+		List<Long> scanned = new CopyOnWriteArrayList<>();
+		moderation.addListener(flagged::addAll);
+		moderation.addScannedListener(scanned::addAll);
+
+		GeneralMessageService service = new GeneralMessageService();
+		ReflectionTestUtils.setField(service, "gmRepository", repository);
+		ReflectionTestUtils.setField(service, "moderation", moderation);
+		service.rescanUnmoderated();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (scanned.size() < 1201 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(1201, scanned.size());
+		assertEquals(Collections.singletonList(700L), flagged);
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.qa.QACinema.Service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.QACinema.Archiving.ArchiveDirectory;
+import com.qa.QACinema.Caching.SnapshotCache;
+import com.qa.QACinema.Entities.MonthBucket;
+import com.qa.QACinema.Pojos.GeneralMessageView;
+import com.qa.QACinema.Repositories.GeneralMessageRepository;
+import com.qa.QACinema.Repositories.IntroductionMessageRepository;
+import com.qa.QACinema.Repositories.MovieMessageRepository;
+
+/**
+ * Retention over a general_message table held in a map, which can be made
+ * to fail a delete the way a crash between writing a part and deleting its
+ * rows would.
+ */
+public class MessageRetentionTest {
+
+	private static final int OLD = 201501;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// id to bucket, and the rows themselves
+	private final Map<Long, Integer> buckets = new TreeMap<>();
+	private final Map<Long, GeneralMessageView> rows = new TreeMap<>();
+	private final AtomicBoolean failNextDelete = new AtomicBoolean();
+
+	private final MessageSearchService searchService = mock(MessageSearchService.class);
+	private final IntroductionMessageRepository introductions = mock(IntroductionMessageRepository.class);
+	private MessageRetention retention;
+
+	@Before
+	public void start() throws IOException {
+		for (long id = 1; id <= 5; id++)
+			insert(id, OLD);
+		insert(6, MonthBucket.current());
+
+		retention = new MessageRetention();
+		ReflectionTestUtils.setField(retention, "retentionMonths", 1);
+		ReflectionTestUtils.setField(retention, "archiveDir", folder.getRoot().getPath());
+		ReflectionTestUtils.setField(retention, "batchSize", 2);
+		ReflectionTestUtils.setField(retention, "intervalMinutes", 60L);
+		ReflectionTestUtils.setField(retention, "gmRepository", generalMessages());
+		ReflectionTestUtils.setField(retention, "movieRepository", mock(MovieMessageRepository.class));
+		ReflectionTestUtils.setField(retention, "introRepository", introductions);
+		ReflectionTestUtils.setField(retention, "snapshotCache", mock(SnapshotCache.class));
+		ReflectionTestUtils.setField(retention, "searchService", searchService);
+		ReflectionTestUtils.setField(retention, "objectMapper", new ObjectMapper());
+		retention.start();
+		// runs are driven by the test
+		retention.stop();
+	}
+
+	@After
+	public void stop() {
+		retention.stop();
+	}
+
+	@Test
+	public void archivesOldMonthsInBatches() throws IOException {
+		retention.archiveOldMessages();
+
+		assertEquals(new TreeSet<>(Arrays.asList(6L)), rows.keySet());
+		assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), archivedIds());
+		for (long id = 1; id <= 5; id++)
+			verify(searchService).removeGeneralMessage(id);
+	}
+
+	@Test
+	public void rerunAfterACrashDeletesWhatWasArchivedOnce() throws IOException {
+		// the part for rows 1 and 2 is written, then the process dies before the delete
+		failNextDelete.set(true);
+		retention.archiveOldMessages();
+		assertEquals(6, rows.size());
+		assertEquals(Arrays.asList(1L, 2L), archivedIds());
+
+		retention.archiveOldMessages();
+		assertEquals(new TreeSet<>(Arrays.asList(6L)), rows.keySet());
+		// rows 1 and 2 were not written again, and left the search index on the rerun
+		assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), archivedIds());
+		for (long id = 1; id <= 5; id++)
+			verify(searchService).removeGeneralMessage(id);
+	}
+
+	@Test
+	public void leavesIntroductionsAlone() throws IOException {
+		// old enough to archive, were they posts
+		when(introductions.findBucketsBefore(anyInt())).thenReturn(Arrays.asList(OLD));
+		retention.archiveOldMessages();
+
+		verify(introductions).assignMissingBuckets(MonthBucket.current());
+		verify(introductions, never()).findBucketsBefore(anyInt());
+		verify(introductions, never()).findViewsInBucket(anyInt(), any(Pageable.class));
+		verify(introductions, never()).deleteInBucket(anyInt(), anyLong(), anyLong());
+		assertEquals(0, new ArchiveDirectory(folder.getRoot().toPath(), new ObjectMapper())
+				.parts("introduction_message", OLD).size());
+	}
+
+	private List<Long> archivedIds() throws IOException {
+		ArchiveDirectory archive = new ArchiveDirectory(folder.getRoot().toPath(), new ObjectMapper());
+		List<long[]> parts = archive.parts("general_message", OLD);
+		parts.sort((a, b) -> Long.compare(a[0], b[0]));
+		List<Long> ids = new ArrayList<>();
+		for (long[] part : parts)
+			ids.addAll(archive.ids("general_message", OLD, part));
+		return ids;
+	}
+
+	private void insert(long id, int bucket) {
+		buckets.put(id, bucket);
+		rows.put(id, new GeneralMessageView(id, "post " + id, new Date()));
+	}
+
+	private GeneralMessageRepository generalMessages() {
+		GeneralMessageRepository repository = mock(GeneralMessageRepository.class);
+		when(repository.findBucketsBefore(anyInt())).thenAnswer(call -> {
+			int cutoff = call.getArgumentAt(0, Integer.class);
+			List<Integer> before = new ArrayList<>();
+			for (int bucket : new TreeSet<>(buckets.values()))
+				if (bucket < cutoff)
+					before.add(bucket);
+			return before;
+		});
+		when(repository.findViewsInBucket(anyInt(), any(Pageable.class))).thenAnswer(call -> {
+			int bucket = call.getArgumentAt(0, Integer.class);
+			int size = call.getArgumentAt(1, Pageable.class).getPageSize();
+			List<GeneralMessageView> page = new ArrayList<>();
+			for (Map.Entry<Long, Integer> entry : buckets.entrySet())
+				if (entry.getValue() == bucket && page.size() < size)
+					page.add(rows.get(entry.getKey()));
+			return page;
+		});
+		when(repository.deleteInBucket(anyInt(), anyLong(), anyLong())).thenAnswer(call -> {
+			if (failNextDelete.getAndSet(false))
+				throw new IllegalStateException("killed");
+			int bucket = call.getArgumentAt(0, Integer.class);
+			long first = call.getArgumentAt(1, Long.class);
+			long last = call.getArgumentAt(2, Long.class);
+			int deleted = 0;
+			for (long id = first; id <= last; id++)
+				if (Integer.valueOf(bucket).equals(buckets.get(id))) {
+					buckets.remove(id);
+					rows.remove(id);
+					deleted++;
+				}
+			return deleted;
+		});
+		return repository;
+	}
+
+}
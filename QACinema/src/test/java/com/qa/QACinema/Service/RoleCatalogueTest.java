@@ -0,0 +1,151 @@
+package com.qa.QACinema.Service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.qa.QACinema.Entities.Role;
+import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Repositories.RoleRepository;
+import com.qa.QACinema.Repositories.UserRepository;
+
+/**
+ * Loading the catalogue against the real unique constraints on an in-memory
+ * H2 database, as several nodes sharing one database would.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RoleCatalogueTest.Catalogue.class, webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:role-catalogue;DB_CLOSE_DELAY=-1", "spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false" })
+public class RoleCatalogueTest {
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Before
+	public void clear() {
+		roleRepository.deleteAllInBatch();
+		userRepository.deleteAllInBatch();
+	}
+
+	@Test
+	public void givesTheBuiltInRolesFixedBits() {
+		RoleCatalogue roles = catalogue(roleRepository);
+		assertEquals(1L, roles.mask(RoleCatalogue.USER));
+		assertEquals(2L, roles.mask(RoleCatalogue.ACTUATOR));
+		assertEquals(4L, roles.mask(RoleCatalogue.ADMIN));
+		assertEquals(3L, roles.defaultMask());
+		assertEquals(3, roleRepository.count());
+
+		// a second node finds the rows and inserts nothing
+		assertEquals(7L, catalogue(roleRepository).mask("user", "actuator", "admin"));
+		assertEquals(3, roleRepository.count());
+	}
+
+	@Test
+	public void takesTheRowsOfANodeThatInsertedFirst() {
+		catalogue(roleRepository);
+		// this node read the catalogue before the other node's inserts were visible
+		RoleRepository stale = mock(RoleRepository.class);
+		when(stale.findAll()).thenReturn(Collections.<Role>emptyList()).thenAnswer(call -> roleRepository.findAll());
+		when(stale.save(any(Role.class))).thenAnswer(call -> roleRepository.save(call.getArgumentAt(0, Role.class)));
+
+		RoleCatalogue roles = catalogue(stale);
+		assertEquals(3L, roles.defaultMask());
+		assertEquals(4L, roles.mask(RoleCatalogue.ADMIN));
+		assertEquals(3, roleRepository.count());
+	}
+
+	@Test
+	public void keepsRolesAddedByHand() {
+		roleRepository.save(new Role("manager", 5));
+		RoleCatalogue roles = catalogue(roleRepository);
+		assertEquals(32L, roles.mask("MANAGER"));
+		assertEquals("USER,MANAGER", names(roles.authorities(33L)));
+	}
+
+	@Test
+	public void refusesABuiltInBitHeldByAnotherRole() {
+		roleRepository.save(new Role("MANAGER", 2));
+		try {
+			catalogue(roleRepository);
+			fail("ADMIN's bit belongs to MANAGER");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	@Test
+	public void givesOlderAccountsTheDefaultRoles() {
+		new JdbcTemplate(dataSource).update("insert into user (username, password) values ('old', 'secret')");
+		userRepository.save(new User("admin", "secret", 4L));
+
+		catalogue(roleRepository);
+		assertEquals(3L, userRepository.findByUsername("old").getAuthorities());
+		assertEquals(4L, userRepository.findByUsername("admin").getAuthorities());
+	}
+
+	@Test
+	public void decodesMasksToTheSameListEachTime() {
+		RoleCatalogue roles = catalogue(roleRepository);
+		assertEquals("USER,ACTUATOR", names(roles.authorities(3L)));
+		assertEquals("ADMIN", names(roles.authorities(4L)));
+		assertEquals("", names(roles.authorities(0L)));
+		// bits no role owns are dropped rather than failing the login
+		assertEquals("USER", names(roles.authorities(1L | 1L << 40)));
+		assertEquals(System.identityHashCode(roles.authorities(3L)), System.identityHashCode(roles.authorities(3L)));
+	}
+
+	private RoleCatalogue catalogue(RoleRepository repository) {
+		RoleCatalogue roles = new RoleCatalogue();
+		ReflectionTestUtils.setField(roles, "roleRepository", repository);
+		ReflectionTestUtils.setField(roles, "userRepository", userRepository);
+		roles.load();
+		return roles;
+	}
+
+	static String names(List<GrantedAuthority> authorities) {
+		StringBuilder names = new StringBuilder();
+		for (GrantedAuthority authority : authorities)
+			names.append(names.length() == 0 ? "" : ",").append(authority.getAuthority());
+		return names.toString();
+	}
+
+	// not a @Configuration, or the application's component scan would pick it up in other tests
+	@ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class })
+	@EntityScan(basePackageClasses = User.class)
+	@EnableJpaRepositories(basePackageClasses = UserRepository.class, includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+			UserRepository.class, RoleRepository.class }))
+	public static class Catalogue {
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.qa.QACinema.Service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import com.qa.QACinema.Entities.User;
+import com.qa.QACinema.Repositories.UserRepository;
+
+/**
+ * Registration against the real unique index on an in-memory H2 database,
+ * with only the JPA parts of the application and this service started.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserServiceTest.Registration.class, webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:user-service;DB_CLOSE_DELAY=-1", "spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false", "qacinema.users.bloom.expected=100" })
+public class UserServiceTest {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@MockBean
+	private Notifications notifications;
+
+	@Before
+	public void clear() {
+		userRepository.deleteAllInBatch();
+		userService.rebuildUsernameFilter();
+	}
+
+	@Test
+	public void rebuildLoadsEveryExistingName() {
+		// more than one rebuild batch, written behind the service's back as another instance would
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < 12001; i++)
+			rows.add(new Object[] { String.format("user%05d", i) });
+		jdbc.batchUpdate("insert into user (username, password, authorities) values (?, 'x', 3)", rows);
+		assertFalse(filter().mightContain("user12000"));
+
+		userService.rebuildUsernameFilter();
+		for (int i = 0; i < 12001; i++)
+			assertTrue(filter().mightContain(String.format("user%05d", i)));
+		// sized for the table, not the configured 100
+		assertFalse(filter().isSaturated());
+		assertFalse(userService.register(new User("user12000", "secret", 3)));
+	}
+
+	@Test
+	public void aFalsePositiveIsSettledByTheDatabase() {
+		// the filter claims a name no account has
+		filter().put("ghost");
+		assertFalse(userService.isTaken("ghost"));
+		assertTrue(userService.register(new User("ghost", "secret", 3)));
+		assertNotNull(userRepository.findByUsername("ghost"));
+		assertTrue(userService.isTaken("ghost"));
+	}
+
+	@Test
+	public void aDuplicateTheFilterMissesIsRejectedByTheUniqueIndex() {
+		jdbc.update("insert into user (username, password, authorities) values ('anna@example.com', 'x', 3)");
+		assertFalse(filter().mightContain("anna@example.com"));
+
+		assertFalse(userService.register(new User("anna@example.com", "secret", 3)));
+		assertEquals(Integer.valueOf(1), jdbc.queryForObject(
+				"select count(*) from user where username = 'anna@example.com'", Integer.class));
+		// the insert failed before any welcome was queued
+		verify(notifications, never()).welcome("anna@example.com");
+		// and the name now takes the filter's slow path
+		assertTrue(filter().mightContain("anna@example.com"));
+	}
+
+	@Test
+	public void registersANewNameAndWelcomesIt() {
+		assertTrue(userService.register(new User("bob@example.com", "secret", 3)));
+		assertFalse(userService.register(new User("bob@example.com", "other", 3)));
+		verify(notifications).welcome("bob@example.com");
+	}
+
+	private BloomFilter filter() {
+		return (BloomFilter) ReflectionTestUtils.getField(userService, "takenUsernames");
+	}
+
+	// not a @Configuration, or the application's component scan would pick it up in other tests
+	@ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+			TransactionAutoConfiguration.class })
+	@EntityScan(basePackageClasses = User.class)
+	@EnableTransactionManagement
+	@EnableJpaRepositories(basePackageClasses = UserRepository.class, includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = UserRepository.class))
+	public static class Registration {
+
+		@Bean
+		public UserService userService() {
+			return new UserService();
+		}
+
+		@Bean
+		public JdbcTemplate jdbcTemplate(javax.sql.DataSource dataSource) {
+			return new JdbcTemplate(dataSource);
+		}
+	}
+
+}
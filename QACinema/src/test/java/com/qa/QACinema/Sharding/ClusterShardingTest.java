@@ -0,0 +1,193 @@
+package com.qa.QACinema.Sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.qa.QACinema.QACinemaApp;
+import com.qa.QACinema.Service.ScreenService;
+import com.qa.QACinema.Storage.SeatBlock;
+import com.qa.QACinema.Storage.ScreenRecord;
+import com.qa.QACinema.Storage.ShowingRecord;
+
+/**
+ * Whole applications on random ports, joined into one cluster the way
+ * separate machines would be.
+ */
+public class ClusterShardingTest {
+
+	private static final String SECRET = "test-secret";
+
+	@Rule
+	public TemporaryFolder journals = new TemporaryFolder();
+
+	private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+	@After
+	public void stop() {
+		for (ConfigurableApplicationContext node : nodes)
+			if (node.isActive())
+				node.close();
+	}
+
+	@Test
+	public void forwardsToTheOwnerAndHandsOverWhenItStops() throws Exception {
+		String[] urls = start(3, "jpa");
+		ScreenService onA = nodes.get(0).getBean(ScreenService.class);
+		ScreenService onB = nodes.get(1).getBean(ScreenService.class);
+		ScreenService onC = nodes.get(2).getBean(ScreenService.class);
+
+		List<ShowingRecord> showings = new ArrayList<>();
+		for (int i = 0; i < 24; i++)
+			showings.add(new ShowingRecord(null, "18:00"));
+		ScreenRecord screen = onA.addScreen(new ScreenRecord(null, "Screen 1", false, new int[] { 10, 10, 10 }, showings));
+		String showing = null;
+		for (ShowingRecord record : screen.getTime()) {
+			String id = record.getId();
+			if (awaitAgreedOwner(id, urls).equals(urls[1]))
+				showing = id;
+		}
+		assertNotNull("no showing owned by B", showing);
+
+		// only the owner's index sees a booking that went through it
+		SeatBlock before = onB.findLocalBestSeats(showing, 10).get();
+		int seat = before.getSeats()[4];
+		assertTrue(onA.bookSeat(showing, seat, null));
+		SeatBlock after = onB.findLocalBestSeats(showing, 10).get();
+		assertNotEquals(before.getRow(), after.getRow());
+
+		assertFalse(onC.bookSeat(showing, seat, null));
+		assertEquals(HttpURLConnection.HTTP_CONFLICT, put(urls[1], showing, seat));
+		assertEquals(HttpURLConnection.HTTP_FORBIDDEN, put(urls[1], showing, seat, "wrong-secret"));
+
+		nodes.get(1).close();
+		// the booking is served here while B is still in the ring
+		assertTrue(onA.bookSeat(showing, seat + 1, null));
+		String newOwner = awaitOwnerOtherThan(urls[1], showing, urls);
+		assertEquals(newOwner, owner(2, showing, urls));
+		assertFalse(onC.bookSeat(showing, seat, null));
+		assertFalse(onA.bookSeat(showing, seat + 1, null));
+		assertTrue(onC.bookSeat(showing, seat + 2, null));
+		assertTrue(onA.getSeats(showing).isBooked(seat + 2));
+	}
+
+	@Test
+	public void nodeLocalSeatsAnswerUnavailableWhileTheOwnerIsDown() throws Exception {
+		String[] urls = start(2, "memory");
+		ScreenService onA = nodes.get(0).getBean(ScreenService.class);
+		String showing = null;
+		for (int i = 1; showing == null; i++)
+			if (urls[1].equals(owner(0, String.valueOf(i), urls)))
+				showing = String.valueOf(i);
+
+		nodes.get(1).close();
+		for (int attempt = 0; attempt < 5; attempt++)
+			try {
+				onA.bookSeat(showing, 0, null);
+				fail("booked a seat only " + urls[1] + " holds");
+			} catch (OwnerUnavailableException e) {
+				// the seats stay with B until it comes back
+			}
+		assertEquals(urls[1], owner(0, showing, urls));
+	}
+
+	private String[] start(int count, String engine) throws IOException {
+		String[] urls = new String[count];
+		for (int i = 0; i < count; i++)
+			urls[i] = "http://localhost:" + freePort();
+		String channel = "cluster-" + System.nanoTime();
+		for (String url : urls) {
+			Map<String, String> properties = new LinkedHashMap<>();
+			properties.put("server.port", url.substring(url.lastIndexOf(':') + 1));
+			properties.put("qacinema.cluster.nodes", String.join(",", urls));
+			properties.put("qacinema.cluster.self", url);
+			properties.put("qacinema.cluster.secret", SECRET);
+			properties.put("qacinema.cluster.heartbeat-millis", "100");
+			properties.put("qacinema.cluster.read-timeout-millis", "2000");
+			properties.put("qacinema.storage.engine", engine);
+			properties.put("qacinema.storage.journal.dir", journals.newFolder().getPath());
+			properties.put("qacinema.cache.bus.channel", channel);
+			properties.put("qacinema.seed.enabled", "false");
+			properties.put("spring.datasource.url", "jdbc:h2:mem:" + channel + ";DB_CLOSE_DELAY=-1");
+			properties.put("spring.jpa.show-sql", "false");
+			properties.put("spring.jmx.enabled", "false");
+			// arguments, unlike default properties, win over application.properties
+			List<String> args = new ArrayList<>();
+			properties.forEach((key, value) -> args.add("--" + key + "=" + value));
+			nodes.add(new SpringApplicationBuilder(QACinemaApp.class).run(args.toArray(new String[0])));
+		}
+		return urls;
+	}
+
+	private String owner(int node, String showing, String[] urls) {
+		String remote = nodes.get(node).getBean(ClusterMembership.class).remoteOwner(showing);
+		return remote == null ? urls[node] : remote;
+	}
+
+	// nodes that came up before their peers see them join on a later heartbeat
+	private String awaitAgreedOwner(String showing, String[] urls) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < deadline) {
+			String owner = owner(0, showing, urls);
+			if (owner.equals(owner(1, showing, urls)) && owner.equals(owner(2, showing, urls)))
+				return owner;
+			Thread.sleep(50);
+		}
+		throw new AssertionError("nodes disagree on the owner of " + showing);
+	}
+
+	private String awaitOwnerOtherThan(String gone, String showing, String[] urls) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < deadline) {
+			String owner = owner(0, showing, urls);
+			if (!owner.equals(gone) && !owner(2, showing, urls).equals(gone))
+				return owner;
+			Thread.sleep(50);
+		}
+		throw new AssertionError(gone + " still owns " + showing);
+	}
+
+	private static int put(String node, String showing, int seat) throws IOException {
+		return put(node, showing, seat, SECRET);
+	}
+
+	private static int put(String node, String showing, int seat, String secret) throws IOException {
+		String path = "/cluster/showings/" + showing + "/seats/" + seat;
+		HttpURLConnection connection = (HttpURLConnection) new URL(node + path).openConnection();
+		connection.setRequestMethod("PUT");
+		long now = System.currentTimeMillis();
+		connection.setRequestProperty(ClusterSignature.TIMESTAMP_HEADER, Long.toString(now));
+		connection.setRequestProperty(ClusterSignature.SIGNATURE_HEADER, new ClusterSignature(secret).sign("PUT", path, now));
+		try {
+			return connection.getResponseCode();
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.qa.QACinema.Sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class HashRingTest {
+
+	private static final int KEYS = 100000;
+
+	private static final HashRing THREE = new HashRing(Arrays.asList("http://a", "http://b", "http://c"), 128);
+
+	@Test
+	public void addingAFourthNodeMovesAQuarterOfTheKeysOntoIt() {
+		HashRing four = new HashRing(Arrays.asList("http://a", "http://b", "http://c", "http://d"), 128);
+		int moved = 0;
+		for (int i = 0; i < KEYS; i++) {
+			String key = String.valueOf(i);
+			String before = THREE.owner(key);
+			String after = four.owner(key);
+			if (!before.equals(after)) {
+				assertEquals("http://d", after);
+				moved++;
+			}
+		}
+		// the ideal share is 25%; measured 26%
+		double share = (double) moved / KEYS;
+		assertTrue("moved " + share, share > 0.2 && share < 0.32);
+	}
+
+	@Test
+	public void removingANodeOnlyMovesItsOwnKeys() {
+		HashRing two = new HashRing(Arrays.asList("http://a", "http://b"), 128);
+		for (int i = 0; i < KEYS; i++) {
+			String key = String.valueOf(i);
+			String before = THREE.owner(key);
+			if (!before.equals("http://c"))
+				assertEquals(before, two.owner(key));
+		}
+	}
+
+	@Test
+	public void spreadsKeysEvenly() {
+		Map<String, Integer> owned = new HashMap<>();
+		for (int i = 0; i < KEYS; i++)
+			owned.merge(THREE.owner(String.valueOf(i)), 1, Integer::sum);
+		assertEquals(3, owned.size());
+		for (int count : owned.values())
+			assertTrue("owns " + count, count > KEYS * 0.25 && count < KEYS * 0.42);
+	}
+
+	@Test
+	public void emptyRingHasNoOwner() {
+		assertNull(new HashRing(Collections.<String> emptyList(), 128).owner("1"));
+	}
+
+}
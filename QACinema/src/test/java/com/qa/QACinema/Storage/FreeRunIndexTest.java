@@ -0,0 +1,120 @@
+package com.qa.QACinema.Storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The index against a brute-force scan of every possible block. Ties may be
+ * broken differently, so a block counts as correct when it is free and
+ * scores as well as the best one found by the scan.
+ */
+public class FreeRunIndexTest {
+
+	private static final int[] ROWS = { 8, 10, 12, 14, 16, 16, 18, 18, 20, 20, 22, 22 };
+
+	@Test
+	public void matchesBruteForceOverRandomBookingsAndReleases() {
+		Random random = new Random(42);
+		int seatCount = 0;
+		for (int row : ROWS)
+			seatCount += row;
+		BitSet booked = new BitSet(seatCount);
+		for (int seat = 0; seat < seatCount; seat++)
+			if (random.nextInt(3) == 0)
+				booked.set(seat);
+		FreeRunIndex index = new FreeRunIndex(new SeatMap(ROWS, (BitSet) booked.clone()));
+
+		for (int op = 0; op < 200000; op++) {
+			int seat = random.nextInt(seatCount + 2) - 1;
+			// bias towards booking so the hall swings between empty and nearly full
+			if (random.nextInt(100) < 55 + 40 * Math.sin(op / 5000.0)) {
+				index.book(seat);
+				if (seat >= 0 && seat < seatCount)
+					booked.set(seat);
+			} else {
+				index.release(seat);
+				if (seat >= 0 && seat < seatCount)
+					booked.clear(seat);
+			}
+			int count = 1 + random.nextInt(12);
+			check(index, booked, count);
+		}
+	}
+
+	@Test
+	public void findsNothingWhenNoRowHasRoom() {
+		BitSet booked = new BitSet();
+		int seat = 0;
+		for (int row : ROWS) {
+			// every third seat taken leaves runs of two
+			for (int c = 2; c < row; c += 3)
+				booked.set(seat + c);
+			seat += row;
+		}
+		FreeRunIndex index = new FreeRunIndex(new SeatMap(ROWS, booked));
+		assertNotNull(index.findBest(2));
+		assertNull(index.findBest(3));
+		assertNull(index.findBest(0));
+	}
+
+	private static void check(FreeRunIndex index, BitSet booked, int count) {
+		double best = bruteForceBest(booked, count);
+		SeatBlock block = index.findBest(count);
+		if (Double.isNaN(best)) {
+			assertNull(block);
+			return;
+		}
+		assertNotNull(block);
+		int[] seats = block.getSeats();
+		assertEquals(count, seats.length);
+		int rowStart = rowStart(block.getRow());
+		for (int i = 0; i < count; i++) {
+			assertEquals(seats[0] + i, seats[i]);
+			assertFalse(booked.get(seats[i]));
+		}
+		assertTrue(rowStart <= seats[0] && seats[count - 1] < rowStart + ROWS[block.getRow()]);
+		assertEquals(best, score(block.getRow(), seats[0] - rowStart, count), 1e-12);
+	}
+
+	private static double bruteForceBest(BitSet booked, int count) {
+		double best = Double.NaN;
+		int rowStart = 0;
+		for (int r = 0; r < ROWS.length; r++) {
+			for (int start = 0; start + count <= ROWS[r]; start++) {
+				int next = booked.nextSetBit(rowStart + start);
+				if (next >= 0 && next < rowStart + start + count)
+					continue;
+				double score = score(r, start, count);
+				if (Double.isNaN(best) || score < best)
+					best = score;
+			}
+			rowStart += ROWS[r];
+		}
+		return best;
+	}
+
+	private static double score(int row, int start, int count) {
+		int widest = 0;
+		for (int width : ROWS)
+			widest = Math.max(widest, width);
+		double dx = (start - (ROWS[row] - count) / 2.0) / widest;
+		double dy = (row - (ROWS.length - 1) / 2.0) / ROWS.length;
+		return dx * dx + dy * dy;
+	}
+
+	private static int rowStart(int row) {
+		int start = 0;
+		for (int r = 0; r < row; r++)
+			start += ROWS[r];
+		return start;
+	}
+
+}
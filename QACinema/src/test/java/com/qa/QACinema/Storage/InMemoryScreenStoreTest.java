@@ -0,0 +1,168 @@
+package com.qa.QACinema.Storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The memory engine journalled to a temporary directory, plus a log that can
+ * be made to reject appends, as a full disk or an oversized event would.
+ */
+public class InMemoryScreenStoreTest extends ScreenStoreContractTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final RejectingLog log = new RejectingLog();
+	private final InMemoryScreenStore rejected = new InMemoryScreenStore(log, 0);
+
+	private JournalStoreLog journal;
+	private InMemoryScreenStore journalled;
+
+	@Before
+	public void open() throws IOException {
+		journal = new JournalStoreLog(folder.getRoot().toPath(), 64 * 1024);
+		// snapshots every few changes, so a restart reads a snapshot and a tail
+		journalled = new InMemoryScreenStore(journal, 7);
+	}
+
+	@After
+	public void close() throws IOException {
+		journal.close();
+	}
+
+	@Override
+	protected ScreenStore store() {
+		return journalled;
+	}
+
+	@Override
+	protected ScreenStore reopen() throws IOException {
+		journal.close();
+		journal = new JournalStoreLog(folder.getRoot().toPath(), 64 * 1024);
+		journalled = new InMemoryScreenStore(journal, 7);
+		return journalled;
+	}
+
+	@Test
+	public void aBookingTheLogRejectsIsNotApplied() {
+		String showing = addRejectableScreen();
+		log.rejecting = true;
+		try {
+			rejected.bookSeat(showing, 3);
+			fail("booked a seat the log rejected");
+		} catch (IllegalStateException e) {
+			// the caller sees the failure
+		}
+		log.rejecting = false;
+
+		assertFalse(rejected.findSeats(showing).isBooked(3));
+		assertTrue(rejected.bookSeat(showing, 3));
+		assertEquals(state(), replayed());
+	}
+
+	@Test
+	public void aReleaseTheLogRejectsIsNotApplied() {
+		String showing = addRejectableScreen();
+		assertTrue(rejected.bookSeat(showing, 3));
+		log.rejecting = true;
+		try {
+			rejected.releaseSeat(showing, 3);
+			fail("released a seat the log rejected");
+		} catch (IllegalStateException e) {
+			// the caller sees the failure
+		}
+		log.rejecting = false;
+
+		assertTrue(rejected.findSeats(showing).isBooked(3));
+		assertEquals(state(), replayed());
+	}
+
+	@Test
+	public void aDeletionTheLogRejectsIsNotApplied() {
+		String showing = addRejectableScreen();
+		String screen = rejected.findAllScreens().get(0).getId();
+		log.rejecting = true;
+		try {
+			rejected.deleteScreen(screen);
+			fail("deleted a screen the log rejected");
+		} catch (IllegalStateException e) {
+			// the caller sees the failure
+		}
+		log.rejecting = false;
+
+		assertNotNull(rejected.findScreen(screen));
+		assertTrue(rejected.bookSeat(showing, 0));
+		assertEquals(state(), replayed());
+	}
+
+	private String addRejectableScreen() {
+		ScreenRecord screen = rejected.saveScreen(new ScreenRecord(null, "Screen 1", false, new int[] { 5, 5 },
+				Arrays.asList(new ShowingRecord(null, "18:00"))));
+		return screen.getTime().get(0).getId();
+	}
+
+	// what a restart would rebuild must match what callers were told
+	private String replayed() {
+		return describe(new InMemoryScreenStore(log, 0));
+	}
+
+	private String state() {
+		return describe(rejected);
+	}
+
+	private static String describe(ScreenStore store) {
+		StringBuilder sb = new StringBuilder();
+		for (ScreenRecord screen : store.findAllScreens())
+			for (ShowingRecord showing : screen.getTime())
+				sb.append(screen.getId()).append('/').append(showing.getId()).append('=')
+						.append(Arrays.toString(store.findSeats(showing.getId()).getBooked())).append(';');
+		return sb.toString();
+	}
+
+	private static final class RejectingLog implements StoreLog {
+
+		private final MemoryStoreLog events = new MemoryStoreLog();
+		volatile boolean rejecting;
+
+		@Override
+		public long append(StoreEvent event) {
+			if (rejecting)
+				throw new IllegalStateException("disk full");
+			return events.append(event);
+		}
+
+		@Override
+		public void awaitDurable(long ticket) {
+			events.awaitDurable(ticket);
+		}
+
+		@Override
+		public void snapshot(StoreSnapshot snapshot) {
+			events.snapshot(snapshot);
+		}
+
+		@Override
+		public StoreSnapshot loadSnapshot() {
+			return events.loadSnapshot();
+		}
+
+		@Override
+		public void replay(Consumer<StoreEvent> consumer) {
+			events.replay(consumer);
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.qa.QACinema.Storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Times concurrent bookings through the journal and the rebuild after a
+ * restart. Not a test; run it by hand against the disk being measured, in a
+ * directory of its own:
+ *
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     com.qa.QACinema.Storage.JournalStoreLogBenchmark [dir] [operations] [threads]
+ * </pre>
+ *
+ * where {@code cp.txt} comes from {@code mvn dependency:build-classpath
+ * -Dmdep.outputFile=cp.txt}.
+ */
+public class JournalStoreLogBenchmark {
+
+	private static final int SHOWINGS = 200;
+	private static final int[] ROWS = { 20, 20, 20, 20, 20, 20, 20, 20, 20, 20 };
+
+	public static void main(String[] args) throws Exception {
+		boolean temporary = args.length == 0;
+		Path directory = temporary ? Files.createTempDirectory("journal-benchmark") : Paths.get(args[0]);
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+
+		List<String> showings = new ArrayList<>();
+		long started;
+		try (JournalStoreLog journal = new JournalStoreLog(directory, 64 * 1024 * 1024)) {
+			InMemoryScreenStore store = new InMemoryScreenStore(journal, 100000);
+			List<ShowingRecord> times = new ArrayList<>();
+			for (int i = 0; i < SHOWINGS; i++)
+				times.add(new ShowingRecord(null, "18:00"));
+			for (ShowingRecord showing : store.saveScreen(new ScreenRecord(null, "Screen 1", false, ROWS, times))
+					.getTime())
+				showings.add(showing.getId());
+			int seats = store.findSeats(showings.get(0)).getSeatCount();
+
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			started = System.nanoTime();
+			List<Future<?>> done = new ArrayList<>();
+			for (int t = 0; t < threads; t++)
+				done.add(pool.submit(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					for (int op = 0; op < operations / threads; op++) {
+						String showing = showings.get(random.nextInt(showings.size()));
+						int seat = random.nextInt(seats);
+						if (!store.bookSeat(showing, seat))
+							store.releaseSeat(showing, seat);
+					}
+				}));
+			for (Future<?> future : done)
+				future.get();
+			pool.shutdown();
+			System.out.printf("%d book/release calls on %d threads: %d ms%n", operations, threads,
+					(System.nanoTime() - started) / 1000000);
+		}
+
+		started = System.nanoTime();
+		try (JournalStoreLog journal = new JournalStoreLog(directory, 64 * 1024 * 1024)) {
+			new InMemoryScreenStore(journal, 0);
+			System.out.printf("rebuilt after restart: %d ms%n", (System.nanoTime() - started) / 1000000);
+		}
+		if (temporary)
+			delete(directory);
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path path : (Iterable<Path>) files::iterator)
+				Files.delete(path);
+		}
+		Files.delete(directory);
+	}
+
+}
@@ -0,0 +1,276 @@
+package com.qa.QACinema.Storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The journal against its files: records are written, the files are torn or
+ * corrupted the way a crash would leave them, and the journal is reopened.
+ */
+public class JournalStoreLogTest {
+
+	// room for about a dozen seat events, so a few dozen appends roll several times
+	private static final int SEGMENT_SIZE = 256;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+	private JournalStoreLog journal;
+
+	@Before
+	public void open() throws IOException {
+		directory = folder.getRoot().toPath();
+		journal = new JournalStoreLog(directory, SEGMENT_SIZE);
+	}
+
+	@After
+	public void close() throws IOException {
+		journal.close();
+	}
+
+	@Test
+	public void rollsOverSegmentsAndReplaysEverythingAfterAReopen() throws IOException {
+		book(40);
+		assertTrue(segments().size() > 2);
+
+		reopen();
+		assertEquals(seats(0, 40), seatsReplayed());
+		assertNull(journal.loadSnapshot());
+	}
+
+	@Test
+	public void dropsATornTailAndAppendsWhereItEnds() throws IOException {
+		book(5);
+		Path segment = segments().get(0);
+		List<Integer> offsets = recordOffsets(segment);
+		// the last record's header made it to disk, but only half its payload did
+		int last = offsets.get(offsets.size() - 1);
+		overwrite(segment, last + 8 + 2, new byte[8]);
+
+		reopen();
+		assertEquals(seats(0, 4), seatsReplayed());
+		journal.awaitDurable(journal.append(StoreEvent.seatBooked("1", 100)));
+		reopen();
+		assertEquals(Arrays.asList(0, 1, 2, 3, 100), seatsReplayed());
+	}
+
+	@Test
+	public void stopsAtARecordWithABadChecksum() throws IOException {
+		book(8);
+		Path segment = segments().get(0);
+		flipPayloadByte(segment, recordOffsets(segment).get(3));
+
+		reopen();
+		assertEquals(seats(0, 3), seatsReplayed());
+	}
+
+	@Test
+	public void cutsTheLogBackToAHoleInAnEarlierSegment() throws IOException {
+		book(40);
+		List<Path> before = segments();
+		Path first = before.get(0);
+		List<Integer> offsets = recordOffsets(first);
+		flipPayloadByte(first, offsets.get(5));
+
+		reopen();
+		assertEquals(seats(0, 5), seatsReplayed());
+		assertEquals(Collections.singletonList(first), segments());
+
+		// a write acknowledged after the restart must not sit behind the hole
+		journal.awaitDurable(journal.append(StoreEvent.seatBooked("1", 100)));
+		reopen();
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 100), seatsReplayed());
+	}
+
+	@Test
+	public void replaysTheSnapshotPlusTheTailAndDeletesCoveredSegments() throws IOException {
+		book(30);
+		Map<String, long[]> seatStates = Collections.singletonMap("1", new long[] { (1L << 30) - 1 });
+		journal.snapshot(new StoreSnapshot(2, Collections.emptyList(), seatStates));
+		for (int seat = 30; seat < 35; seat++)
+			journal.awaitDurable(journal.append(StoreEvent.seatBooked("1", seat)));
+
+		reopen();
+		StoreSnapshot snapshot = journal.loadSnapshot();
+		assertNotNull(snapshot);
+		assertEquals(2, snapshot.getNextId());
+		assertEquals((1L << 30) - 1, snapshot.getSeatStates().get("1")[0]);
+		assertEquals(seats(30, 35), seatsReplayed());
+		assertEquals(1, files("snapshot-*.bin").size());
+		// the segments holding only seats 0 to 29 went with the snapshot
+		for (Path segment : segments())
+			assertTrue(recordOffsets(segment).size() > 0);
+		assertTrue(segments().size() <= 2);
+	}
+
+	@Test
+	public void snapshotCoversASegmentThatEndsShortOfIt() throws IOException {
+		book(5);
+		journal.snapshot(new StoreSnapshot(2, Collections.emptyList(), Collections.emptyMap()));
+		reopen();
+		// lose the last record, which the snapshot already holds
+		Path segment = segments().get(0);
+		List<Integer> offsets = recordOffsets(segment);
+		overwrite(segment, offsets.get(offsets.size() - 1), new byte[8]);
+
+		reopen();
+		journal.awaitDurable(journal.append(StoreEvent.seatBooked("1", 100)));
+		reopen();
+		assertEquals(Collections.singletonList(100), seatsReplayed());
+	}
+
+	@Test
+	public void replaysEachShowingInOrderAndScreenEventsAsBarriers() throws IOException {
+		List<StoreEvent> appended = new ArrayList<>();
+		for (int round = 0; round < 20; round++) {
+			for (int showing = 1; showing <= 5; showing++)
+				for (int seat = 0; seat < 3; seat++)
+					appended.add(StoreEvent.seatBooked(String.valueOf(showing), round * 3 + seat));
+			if (round % 5 == 4)
+				appended.add(StoreEvent.screenDeleted("screen-" + round));
+		}
+		journal.close();
+		journal = new JournalStoreLog(directory, 64 * 1024);
+		long ticket = 0;
+		for (StoreEvent event : appended)
+			ticket = journal.append(event);
+		journal.awaitDurable(ticket);
+
+		journal.close();
+		journal = new JournalStoreLog(directory, 64 * 1024);
+		Map<String, List<Integer>> byShowing = new ConcurrentHashMap<>();
+		AtomicInteger delivered = new AtomicInteger();
+		List<Integer> barriers = Collections.synchronizedList(new ArrayList<>());
+		journal.replay(event -> {
+			if (event.getType() == StoreEvent.Type.SCREEN_DELETED)
+				barriers.add(delivered.get());
+			else
+				byShowing.computeIfAbsent(event.getId(), id -> Collections.synchronizedList(new ArrayList<>()))
+						.add(event.getSeat());
+			delivered.incrementAndGet();
+		});
+
+		assertEquals(appended.size(), delivered.get());
+		for (int showing = 1; showing <= 5; showing++)
+			assertEquals(seats(0, 60), byShowing.get(String.valueOf(showing)));
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < appended.size(); i++)
+			if (appended.get(i).getType() == StoreEvent.Type.SCREEN_DELETED)
+				expected.add(i);
+		assertEquals(expected, barriers);
+	}
+
+	@Test
+	public void rejectsAnEventLargerThanASegmentWithoutWritingIt() throws IOException {
+		book(3);
+		char[] name = new char[SEGMENT_SIZE];
+		Arrays.fill(name, 'x');
+		ScreenRecord screen = new ScreenRecord("1", new String(name), false, new int[] { 10 }, new ArrayList<>());
+		try {
+			journal.append(StoreEvent.screenSaved(screen));
+			fail("appended an event that cannot fit a segment");
+		} catch (IllegalArgumentException e) {
+			// nothing written
+		}
+		journal.awaitDurable(journal.append(StoreEvent.seatBooked("1", 3)));
+
+		reopen();
+		assertEquals(seats(0, 4), seatsReplayed());
+	}
+
+	private void book(int count) {
+		long ticket = 0;
+		for (int seat = 0; seat < count; seat++)
+			ticket = journal.append(StoreEvent.seatBooked("1", seat));
+		journal.awaitDurable(ticket);
+	}
+
+	private void reopen() throws IOException {
+		journal.close();
+		journal = new JournalStoreLog(directory, SEGMENT_SIZE);
+	}
+
+	// only showing "1" is booked, so its events arrive in order
+	private List<Integer> seatsReplayed() {
+		List<Integer> seats = Collections.synchronizedList(new ArrayList<>());
+		journal.replay(event -> seats.add(event.getSeat()));
+		return seats;
+	}
+
+	private static List<Integer> seats(int from, int to) {
+		List<Integer> seats = new ArrayList<>();
+		for (int seat = from; seat < to; seat++)
+			seats.add(seat);
+		return seats;
+	}
+
+	private List<Path> segments() throws IOException {
+		return files("journal-*.log");
+	}
+
+	private List<Path> files(String glob) throws IOException {
+		List<Path> paths = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+			for (Path path : stream)
+				paths.add(path);
+		}
+		Collections.sort(paths);
+		return paths;
+	}
+
+	// where each record of the segment starts, up to the first zero length
+	private static List<Integer> recordOffsets(Path segment) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+		List<Integer> offsets = new ArrayList<>();
+		while (buffer.remaining() >= 8) {
+			int start = buffer.position();
+			int length = buffer.getInt();
+			if (length <= 0 || length + 4 > buffer.remaining())
+				break;
+			offsets.add(start);
+			buffer.position(buffer.position() + 4 + length);
+		}
+		return offsets;
+	}
+
+	private static void flipPayloadByte(Path segment, int record) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(record + 8);
+			int value = file.read();
+			file.seek(record + 8);
+			file.write(value ^ 0xff);
+		}
+	}
+
+	private static void overwrite(Path segment, int offset, byte[] bytes) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(offset);
+			file.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.qa.QACinema.Storage;
+
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import com.qa.QACinema.Entities.Screen;
+import com.qa.QACinema.Repositories.ScreenRepository;
+import com.qa.QACinema.Repositories.SeatBookingRepository;
+
+/**
+ * The jpa engine on an in-memory H2 database, with only the JPA parts of
+ * the application started.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaScreenStoreTest.Engine.class, webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:screen-store;DB_CLOSE_DELAY=-1", "spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false" })
+public class JpaScreenStoreTest extends ScreenStoreContractTest {
+
+	@Autowired
+	private ScreenStore store;
+
+	@Override
+	protected ScreenStore store() {
+		return store;
+	}
+
+	// not a @Configuration, or the application's component scan would pick it up in other tests
+	@ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class })
+	@EntityScan(basePackageClasses = Screen.class)
+	@EnableTransactionManagement
+	@EnableJpaRepositories(basePackageClasses = ScreenRepository.class, includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+			ScreenRepository.class, SeatBookingRepository.class }))
+	public static class Engine {
+
+		@Bean
+		public ScreenStore screenStore(ScreenRepository screenRepo, SeatBookingRepository bookingRepo) {
+			return new JpaScreenStore(screenRepo, bookingRepo);
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.qa.QACinema.Storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoClientURI;
+
+/**
+ * The mongo engine against a real server, {@code qacinema.test.mongodb.uri}
+ * or a local one on the default port. Skipped when there is none.
+ */
+public class MongoScreenStoreTest extends ScreenStoreContractTest {
+
+	private static MongoClient client;
+	private static MongoTemplate mongoTemplate;
+	private MongoScreenStore store;
+
+	@BeforeClass
+	public static void connect() {
+		String uri = System.getProperty("qacinema.test.mongodb.uri", "mongodb://localhost:27017/qacinema-test");
+		MongoClientURI parsed = new MongoClientURI(uri,
+				MongoClientOptions.builder().serverSelectionTimeout(1000).connectTimeout(1000));
+		MongoClient connected = new MongoClient(parsed);
+		try {
+			connected.getDatabase("admin").runCommand(new org.bson.Document("ping", 1));
+		} catch (RuntimeException e) {
+			connected.close();
+			return;
+		}
+		client = connected;
+		mongoTemplate = new MongoTemplate(client, parsed.getDatabase());
+	}
+
+	@AfterClass
+	public static void disconnect() {
+		if (client != null)
+			client.close();
+	}
+
+	@Before
+	public void clear() {
+		if (client != null) {
+			mongoTemplate.dropCollection(MongoScreenStore.COLLECTION);
+			store = new MongoScreenStore(mongoTemplate);
+		}
+	}
+
+	@Override
+	protected ScreenStore store() {
+		Assume.assumeTrue("no MongoDB to test against", client != null);
+		return store;
+	}
+
+	@Test
+	public void readsAndBooksShowingsTheBackendWrote() {
+		ScreenStore store = store();
+		// a document as com.team.backend.Screen stores it: one showing, rows 2 x 10 then 1 x 12
+		ObjectId id = new ObjectId();
+		mongoTemplate.insert(new BasicDBObject("_id", id).append("screenName", "Screen 7")
+				.append("showing", new Date(0)).append("seatBooked", false)
+				.append("layout", MongoScreenStore.encodeRows(new int[] { 10, 10, 12 }))
+				.append("seatStates", Arrays.asList(1L << 3)).append("seatCount", 32), MongoScreenStore.COLLECTION);
+
+		ScreenRecord screen = store.findScreen(id.toHexString());
+		assertEquals("Screen 7", screen.getScreenName());
+		assertArrayEquals(new int[] { 10, 10, 12 }, screen.getRows());
+		assertEquals(id.toHexString(), screen.getTime().get(0).getId());
+		assertEquals("1970-01-01T00:00:00Z", screen.getTime().get(0).getScreenTime());
+		assertArrayEquals(new int[] { 3 }, store.findSeats(id.toHexString()).getBooked());
+
+		assertFalse(store.bookSeat(id.toHexString(), 3));
+		assertTrue(store.bookSeat(id.toHexString(), 4));
+		DBObject stored = mongoTemplate.findById(id, BasicDBObject.class, MongoScreenStore.COLLECTION);
+		assertEquals(Arrays.asList((1L << 3) | (1L << 4)), stored.get("seatStates"));
+	}
+
+	@Test
+	public void writesShowingsInTheBackendShape() {
+		ScreenRecord screen = addScreen("Screen 1", "18:00", "20:30");
+		List<BasicDBObject> stored = mongoTemplate.findAll(BasicDBObject.class, MongoScreenStore.COLLECTION);
+		assertEquals(2, stored.size());
+		for (BasicDBObject showing : stored) {
+			assertEquals(screen.getId(), showing.getString("screenId"));
+			assertEquals("Screen 1", showing.getString("screenName"));
+			assertEquals(32, showing.getInt("seatCount"));
+			assertArrayEquals(new int[] { 10, 10, 12 },
+					MongoScreenStore.decodeRows((org.bson.types.Binary) showing.get("layout")));
+			assertEquals(Arrays.asList(0L), showing.get("seatStates"));
+		}
+	}
+
+	@Test
+	public void rowEncodingRoundTrips() {
+		for (int[] rows : new int[][] { {}, { 10 }, { 10, 10, 10 }, { 8, 10, 10, 300, 300, 1 } })
+			assertArrayEquals(rows, MongoScreenStore.decodeRows(MongoScreenStore.encodeRows(rows)));
+		// twenty equal rows are one (repeat, length) pair
+		int[] rows = new int[20];
+		Arrays.fill(rows, 18);
+		assertEquals(2, MongoScreenStore.encodeRows(rows).getData().length);
+	}
+
+}
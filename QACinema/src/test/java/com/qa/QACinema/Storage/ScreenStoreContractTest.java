@@ -0,0 +1,228 @@
+package com.qa.QACinema.Storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * What every {@link ScreenStore} engine must do, run against each of them by
+ * a subclass. Other tests may share the engine's data, so every check is
+ * about the screens a test added itself.
+ */
+public abstract class ScreenStoreContractTest {
+
+	private static final int[] ROWS = { 10, 10, 12 };
+
+	/**
+	 * @return the engine under test, fresh or holding data other tests left
+	 */
+	protected abstract ScreenStore store();
+
+	/**
+	 * Stops and starts the engine the way a restart would, for engines whose
+	 * state lives in the process; shared engines return the same store.
+	 */
+	protected ScreenStore reopen() throws Exception {
+		return store();
+	}
+
+	@Test
+	public void assignsIdsAndFindsWhatWasSaved() {
+		ScreenRecord saved = addScreen("Screen 1", "18:00", "20:30");
+		assertNotNull(saved.getId());
+		assertNotNull(saved.getTime().get(0).getId());
+		assertFalse(saved.getTime().get(0).getId().equals(saved.getTime().get(1).getId()));
+
+		ScreenRecord found = store().findScreen(saved.getId());
+		assertEquals("Screen 1", found.getScreenName());
+		assertArrayEquals(ROWS, found.getRows());
+		assertEquals(ids(saved), ids(found));
+		assertEquals("20:30", found.getTime().get(1).getScreenTime());
+
+		boolean listed = false;
+		for (ScreenRecord screen : store().findAllScreens())
+			listed |= screen.getId().equals(saved.getId()) && ids(screen).equals(ids(saved));
+		assertTrue(listed);
+	}
+
+	@Test
+	public void booksAndReleasesEachSeatOnce() {
+		String showing = addScreen("Screen 1", "18:00").getTime().get(0).getId();
+		assertTrue(store().bookSeat(showing, 5));
+		assertFalse(store().bookSeat(showing, 5));
+		assertTrue(store().findSeats(showing).isBooked(5));
+		assertArrayEquals(new int[] { 5 }, store().findSeats(showing).getBooked());
+
+		assertTrue(store().releaseSeat(showing, 5));
+		assertFalse(store().releaseSeat(showing, 5));
+		assertFalse(store().releaseSeat(showing, 6));
+		assertFalse(store().findSeats(showing).isBooked(5));
+	}
+
+	@Test
+	public void rejectsSeatsAndShowingsThatDoNotExist() {
+		String showing = addScreen("Screen 1", "18:00").getTime().get(0).getId();
+		assertFalse(store().bookSeat(showing, -1));
+		assertFalse(store().bookSeat(showing, 32));
+		assertTrue(store().bookSeat(showing, 31));
+		assertFalse(store().bookSeat("unknown", 0));
+		assertFalse(store().bookSeat(null, 0));
+		assertNull(store().findSeats("unknown"));
+		assertNull(store().findScreen("unknown"));
+		assertFalse(store().deleteScreen("unknown"));
+	}
+
+	@Test
+	public void editingAScreenKeepsTheBookingsOfKeptShowings() {
+		ScreenRecord screen = addScreen("Screen 1", "18:00", "20:30");
+		String kept = screen.getTime().get(0).getId();
+		String dropped = screen.getTime().get(1).getId();
+		assertTrue(store().bookSeat(kept, 3));
+		assertTrue(store().bookSeat(dropped, 3));
+
+		screen.setScreenName("Screen 1 (IMAX)");
+		screen.setTime(new ArrayList<>(Arrays.asList(screen.getTime().get(0), new ShowingRecord(null, "22:00"))));
+		ScreenRecord saved = store().saveScreen(screen);
+		assertEquals(screen.getId(), saved.getId());
+		assertEquals(kept, saved.getTime().get(0).getId());
+		String added = saved.getTime().get(1).getId();
+		assertNotNull(added);
+
+		assertEquals("Screen 1 (IMAX)", store().findScreen(screen.getId()).getScreenName());
+		assertTrue(store().findSeats(kept).isBooked(3));
+		assertNull(store().findSeats(dropped));
+		assertEquals(0, store().findSeats(added).getBooked().length);
+	}
+
+	@Test
+	public void keepsAScreenWithoutShowings() {
+		ScreenRecord screen = addScreen("Screen 1");
+		assertEquals(0, store().findScreen(screen.getId()).getTime().size());
+
+		screen.getTime().add(new ShowingRecord(null, "18:00"));
+		ScreenRecord saved = store().saveScreen(screen);
+		assertEquals(1, store().findScreen(screen.getId()).getTime().size());
+		saved.getTime().clear();
+		store().saveScreen(saved);
+		ScreenRecord found = store().findScreen(screen.getId());
+		assertEquals("Screen 1", found.getScreenName());
+		assertEquals(0, found.getTime().size());
+	}
+
+	@Test
+	public void shrinkingAScreenDropsBookingsPastItsLastSeat() {
+		ScreenRecord screen = addScreen("Screen 1", "18:00");
+		String showing = screen.getTime().get(0).getId();
+		assertTrue(store().bookSeat(showing, 2));
+		assertTrue(store().bookSeat(showing, 25));
+
+		screen.setRows(new int[] { 10, 10 });
+		store().saveScreen(screen);
+		assertArrayEquals(new int[] { 2 }, store().findSeats(showing).getBooked());
+		assertFalse(store().bookSeat(showing, 25));
+
+		screen.setRows(ROWS);
+		store().saveScreen(screen);
+		assertArrayEquals(new int[] { 2 }, store().findSeats(showing).getBooked());
+		assertTrue(store().bookSeat(showing, 25));
+	}
+
+	@Test
+	public void deletesAScreenWithItsShowings() {
+		ScreenRecord screen = addScreen("Screen 1", "18:00");
+		String showing = screen.getTime().get(0).getId();
+		assertTrue(store().bookSeat(showing, 0));
+
+		assertTrue(store().deleteScreen(screen.getId()));
+		assertFalse(store().deleteScreen(screen.getId()));
+		assertNull(store().findScreen(screen.getId()));
+		assertNull(store().findSeats(showing));
+		assertFalse(store().bookSeat(showing, 1));
+	}
+
+	@Test
+	public void onlyOneOfManyConcurrentBookingsOfASeatWins() throws Exception {
+		String showing = addScreen("Screen 1", "18:00").getTime().get(0).getId();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<Boolean>> attempts = new ArrayList<>();
+			for (int i = 0; i < 8; i++)
+				attempts.add(() -> store().bookSeat(showing, 7));
+			int won = 0;
+			for (Future<Boolean> attempt : pool.invokeAll(attempts))
+				if (attempt.get())
+					won++;
+			assertEquals(1, won);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void editsRacingBookingsLoseNoSeat() throws Exception {
+		ScreenRecord screen = addScreen("Screen 1", "18:00");
+		String showing = screen.getTime().get(0).getId();
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> editing = pool.submit(() -> {
+				for (int i = 0; i < 20; i++) {
+					screen.setScreenName("Screen 1 take " + i);
+					// alternate the size so resizing edits race the bookings too
+					screen.setRows(i % 2 == 0 ? new int[] { 10, 10, 12, 1 } : ROWS);
+					store().saveScreen(screen);
+				}
+			});
+			List<Integer> booked = new ArrayList<>();
+			for (int seat = 0; seat < 32; seat++)
+				if (store().bookSeat(showing, seat))
+					booked.add(seat);
+			editing.get(30, TimeUnit.SECONDS);
+			for (int seat : booked)
+				assertTrue("lost seat " + seat, store().findSeats(showing).isBooked(seat));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void keepsScreensAndBookingsAcrossARestart() throws Exception {
+		ScreenRecord screen = addScreen("Screen 1", "18:00");
+		String showing = screen.getTime().get(0).getId();
+		assertTrue(store().bookSeat(showing, 4));
+		assertTrue(store().bookSeat(showing, 9));
+		assertTrue(store().releaseSeat(showing, 4));
+
+		ScreenStore reopened = reopen();
+		assertEquals(ids(screen), ids(reopened.findScreen(screen.getId())));
+		assertArrayEquals(new int[] { 9 }, reopened.findSeats(showing).getBooked());
+	}
+
+	protected ScreenRecord addScreen(String name, String... times) {
+		List<ShowingRecord> showings = new ArrayList<>();
+		for (String time : times)
+			showings.add(new ShowingRecord(null, time));
+		return store().saveScreen(new ScreenRecord(null, name, false, ROWS, showings));
+	}
+
+	private static List<String> ids(ScreenRecord screen) {
+		List<String> ids = new ArrayList<>();
+		for (ShowingRecord showing : screen.getTime())
+			ids.add(showing.getId());
+		return ids;
+	}
+
+}
@@ -3,7 +3,11 @@ package com.team.backend;
 
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -12,28 +16,63 @@ import java.util.List;
 @RequestMapping("/screen")
 public class Controller {
 
+    // how many screens are pulled from the Mongo cursor per demand signal
+    private static final int STREAM_PREFETCH = 64;
+
     @Autowired
     private Repository repository;
 
+    @Autowired
+    private ReactiveRepository reactiveRepository;
+
     @RequestMapping(value = "/", method = RequestMethod.GET)
     public List<Screen> getAllScreens() {
 
         return repository.findAll();
     }
 
+    @RequestMapping(value = "/stream", method = RequestMethod.GET, produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<Screen> streamAllScreens() {
+        return reactiveRepository.findAll().limitRate(STREAM_PREFETCH);
+    }
+
 
     @RequestMapping(value = "/", method = RequestMethod.POST)
     public Screen createScreen(@Valid @RequestBody Screen screens) {
         screens.set_id(ObjectId.get());
+        screens.packLegacySeats();
         repository.save(screens);
         return screens;
     }
 
     @RequestMapping(value = "/seats/", method = RequestMethod.POST)
-    public Screen createScreenSeats(@Valid @RequestBody Screen screens) {
-        screens.set_id(ObjectId.get());
-        repository.save(screens);
-        return screens;
+    public ResponseEntity<Screen> createScreenSeats(@Valid @RequestBody Screen screens) {
+        screens.packLegacySeats();
+        if (screens._id == null) {
+            screens.set_id(ObjectId.get());
+            repository.save(screens);
+        } else if (screens.getSeatLayout() != null && !repository.replaceSeatLayout(screens._id, screens.getSeatLayout())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(screens);
+    }
+
+    @RequestMapping(value = "/{id}/seats/{seat}", method = RequestMethod.PUT)
+    public ResponseEntity<Void> bookSeat(@PathVariable String id, @PathVariable int seat) {
+        if (!ObjectId.isValid(id))
+            return ResponseEntity.notFound().build();
+        if (!repository.bookSeat(new ObjectId(id), seat))
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        return ResponseEntity.noContent().build();
+    }
+
+    @RequestMapping(value = "/{id}/seats/{seat}", method = RequestMethod.DELETE)
+    public ResponseEntity<Void> releaseSeat(@PathVariable String id, @PathVariable int seat) {
+        if (!ObjectId.isValid(id))
+            return ResponseEntity.notFound().build();
+        if (!repository.releaseSeat(new ObjectId(id), seat))
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        return ResponseEntity.noContent().build();
     }
 
 
@@ -0,0 +1,6 @@
+package com.team.backend;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveRepository extends ReactiveMongoRepository<Screen, String> {
+}
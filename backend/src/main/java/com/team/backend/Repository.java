@@ -3,6 +3,15 @@ package com.team.backend;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface Repository extends MongoRepository<Screen, String> {
+import java.util.Date;
+import java.util.List;
+
+public interface Repository extends MongoRepository<Screen, String>, SeatOperations {
     Screen findBy_id(ObjectId _id);
+
+    List<Screen> findByScreenName(String screenName);
+
+    List<Screen> findByScreenNameAndShowingBetween(String screenName, Date from, Date to);
+
+    List<Screen> findByShowingBetweenAndSeatBookedFalse(Date from, Date to);
 }
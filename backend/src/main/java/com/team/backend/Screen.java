@@ -1,18 +1,39 @@
 package com.team.backend;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.bson.types.Binary;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
+import java.util.Date;
 
+@Document(collection = "screen")
+@CompoundIndexes({
+        @CompoundIndex(name = "screenName_showing", def = "{'screenName': 1, 'showing': 1}"),
+        @CompoundIndex(name = "showing_seatBooked", def = "{'showing': 1, 'seatBooked': 1}")
+})
 public class Screen {
 
     @Id
     public ObjectId _id;
+    @Indexed
     private String screenName;
-    private ArrayList seats = new ArrayList();
+    private Date showing;
+    private ArrayList seats;
     private boolean seatBooked;
 
+    @JsonIgnore
+    private Binary layout;
+    @JsonIgnore
+    private long[] seatStates;
+    private int seatCount;
+
 
     public String get_id() {
         return _id.toHexString();
@@ -30,6 +51,14 @@ public class Screen {
         this.screenName = screenName;
     }
 
+    public Date getShowing() {
+        return showing;
+    }
+
+    public void setShowing(Date showing) {
+        this.showing = showing;
+    }
+
     public ArrayList getSeats() {
         return seats;
     }
@@ -45,4 +74,40 @@ public class Screen {
     public void setSeatBooked(boolean seatBooked) {
         this.seatBooked = seatBooked;
     }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    @Transient
+    public SeatLayout getSeatLayout() {
+        if (layout == null)
+            return null;
+        return new SeatLayout(SeatLayoutCodec.decodeRows(layout), SeatLayoutCodec.decodeStates(seatStates));
+    }
+
+    public void setSeatLayout(SeatLayout seatLayout) {
+        if (seatLayout == null) {
+            layout = null;
+            seatStates = null;
+            seatCount = 0;
+            return;
+        }
+        layout = SeatLayoutCodec.encodeRows(seatLayout.getRows());
+        seatCount = seatLayout.getSeatCount();
+        seatStates = SeatLayoutCodec.encodeStates(seatLayout.bookedBits(), seatCount);
+    }
+
+    /**
+     * Moves a free-form {@code seats} array, as sent by older clients or
+     * stored by older versions, into the packed seat layout.
+     */
+    public boolean packLegacySeats() {
+        if (seats == null)
+            return false;
+        if (layout == null)
+            setSeatLayout(SeatLayout.fromLegacySeats(seats));
+        seats = null;
+        return true;
+    }
 }
@@ -0,0 +1,95 @@
+package com.team.backend;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed seat map of a screen: the number of seats in each row plus one
+ * booked/free bit per seat. Seats are numbered row by row from 0.
+ */
+public class SeatLayout {
+
+    private final int[] rows;
+    private final BitSet booked;
+
+    public SeatLayout(int[] rows) {
+        this(rows, new BitSet());
+    }
+
+    public SeatLayout(int[] rows, BitSet booked) {
+        this.rows = rows.clone();
+        this.booked = booked;
+    }
+
+    @JsonCreator
+    public static SeatLayout of(@JsonProperty("rows") int[] rows, @JsonProperty("booked") int[] bookedSeats) {
+        SeatLayout layout = new SeatLayout(rows == null ? new int[0] : rows);
+        if (bookedSeats != null)
+            for (int seat : bookedSeats)
+                layout.setBooked(seat, true);
+        return layout;
+    }
+
+    /**
+     * Builds a layout from the old free-form {@code seats} array. Elements
+     * that are documents with a {@code row} field start a new row whenever
+     * the row changes; anything else is treated as a single row. A seat is
+     * booked if its element has {@code booked: true}.
+     */
+    public static SeatLayout fromLegacySeats(List<?> seats) {
+        int[] rows = new int[seats.size()];
+        int rowCount = 0;
+        Object currentRow = null;
+        BitSet booked = new BitSet(seats.size());
+        for (int i = 0; i < seats.size(); i++) {
+            Object seat = seats.get(i);
+            Object row = null;
+            if (seat instanceof Map) {
+                Map<?, ?> fields = (Map<?, ?>) seat;
+                row = fields.get("row");
+                if (Boolean.TRUE.equals(fields.get("booked")))
+                    booked.set(i);
+            }
+            if (rowCount == 0 || (row != null && !row.equals(currentRow)))
+                rowCount++;
+            currentRow = row;
+            rows[rowCount - 1]++;
+        }
+        int[] trimmed = new int[rowCount];
+        System.arraycopy(rows, 0, trimmed, 0, rowCount);
+        return new SeatLayout(trimmed, booked);
+    }
+
+    public int[] getRows() {
+        return rows.clone();
+    }
+
+    public int[] getBooked() {
+        return booked.stream().toArray();
+    }
+
+    public int getSeatCount() {
+        int count = 0;
+        for (int row : rows)
+            count += row;
+        return count;
+    }
+
+    public boolean isBooked(int seat) {
+        return booked.get(seat);
+    }
+
+    public void setBooked(int seat, boolean isBooked) {
+        if (seat < 0 || seat >= getSeatCount())
+            throw new IndexOutOfBoundsException("seat " + seat);
+        booked.set(seat, isBooked);
+    }
+
+    BitSet bookedBits() {
+        return booked;
+    }
+}
@@ -0,0 +1,84 @@
+package com.team.backend;
+
+import org.bson.types.Binary;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact storage form of a {@link SeatLayout}.
+ *
+ * Row geometry is run-length encoded as (repeat, seatsPerRow) varint pairs
+ * in a BSON binary, so an auditorium of 20 identical rows is two bytes.
+ * Seat states are packed 64 to a word into an int64 array; they are kept
+ * as an array rather than inside the binary so a single seat can still be
+ * flipped on the server with {@code $bit} (see {@link SeatOperationsImpl}).
+ */
+final class SeatLayoutCodec {
+
+    private SeatLayoutCodec() {
+    }
+
+    static Binary encodeRows(int[] rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < rows.length) {
+            int run = 1;
+            while (i + run < rows.length && rows[i + run] == rows[i])
+                run++;
+            writeVarint(out, run);
+            writeVarint(out, rows[i]);
+            i += run;
+        }
+        return new Binary(out.toByteArray());
+    }
+
+    static int[] decodeRows(Binary encoded) {
+        byte[] data = encoded.getData();
+        int[] pos = {0};
+        int[] rows = new int[16];
+        int count = 0;
+        while (pos[0] < data.length) {
+            int run = readVarint(data, pos);
+            int length = readVarint(data, pos);
+            if (count + run > rows.length)
+                rows = Arrays.copyOf(rows, Math.max(rows.length * 2, count + run));
+            Arrays.fill(rows, count, count + run, length);
+            count += run;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    static long[] encodeStates(BitSet booked, int seatCount) {
+        return Arrays.copyOf(booked.toLongArray(), words(seatCount));
+    }
+
+    static BitSet decodeStates(long[] words) {
+        return words == null ? new BitSet() : BitSet.valueOf(words);
+    }
+
+    static int words(int seatCount) {
+        return (seatCount + 63) >>> 6;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
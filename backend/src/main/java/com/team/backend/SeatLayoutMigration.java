@@ -0,0 +1,45 @@
+package com.team.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts screens still holding the old free-form {@code seats} array to
+ * the packed seat layout. Runs once per startup and only touches documents
+ * that have not been converted yet.
+ */
+@Component
+public class SeatLayoutMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatLayoutMigration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private Repository repository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query legacy = new Query(Criteria.where("seats").exists(true).and("layout").exists(false));
+        int converted = 0;
+        try (CloseableIterator<Screen> screens = mongoTemplate.stream(legacy, Screen.class)) {
+            while (screens.hasNext()) {
+                Screen screen = screens.next();
+                screen.packLegacySeats();
+                if (repository.replaceSeatLayout(screen._id, screen.getSeatLayout()))
+                    converted++;
+            }
+        }
+        if (converted > 0)
+            log.info("Packed seat layouts of {} screens", converted);
+    }
+}
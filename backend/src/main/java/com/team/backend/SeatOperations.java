@@ -0,0 +1,12 @@
+package com.team.backend;
+
+import org.bson.types.ObjectId;
+
+public interface SeatOperations {
+
+    boolean bookSeat(ObjectId screenId, int seat);
+
+    boolean releaseSeat(ObjectId screenId, int seat);
+
+    boolean replaceSeatLayout(ObjectId screenId, SeatLayout seatLayout);
+}
@@ -0,0 +1,58 @@
+package com.team.backend;
+
+import com.mongodb.BasicDBObject;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Seat updates that touch a single word of the packed seat states on the
+ * server instead of rewriting the whole screen document. The booked/free
+ * check is part of the query, so two concurrent bookings of the same seat
+ * cannot both succeed.
+ */
+public class SeatOperationsImpl implements SeatOperations {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean bookSeat(ObjectId screenId, int seat) {
+        if (seat < 0)
+            return false;
+        String word = "seatStates." + (seat >>> 6);
+        long mask = 1L << (seat & 63);
+        Query query = new Query(Criteria.where("_id").is(screenId)
+                .and("seatCount").gt(seat)
+                .and(word).is(new BasicDBObject("$bitsAllClear", mask)));
+        return mongoTemplate.updateFirst(query, new Update().bitwise(word).or(mask), Screen.class)
+                .getModifiedCount() == 1;
+    }
+
+    @Override
+    public boolean releaseSeat(ObjectId screenId, int seat) {
+        if (seat < 0)
+            return false;
+        String word = "seatStates." + (seat >>> 6);
+        long mask = 1L << (seat & 63);
+        Query query = new Query(Criteria.where("_id").is(screenId)
+                .and("seatCount").gt(seat)
+                .and(word).is(new BasicDBObject("$bitsAllSet", mask)));
+        return mongoTemplate.updateFirst(query, new Update().bitwise(word).and(~mask), Screen.class)
+                .getModifiedCount() == 1;
+    }
+
+    @Override
+    public boolean replaceSeatLayout(ObjectId screenId, SeatLayout seatLayout) {
+        Update update = new Update()
+                .set("layout", SeatLayoutCodec.encodeRows(seatLayout.getRows()))
+                .set("seatStates", SeatLayoutCodec.encodeStates(seatLayout.bookedBits(), seatLayout.getSeatCount()))
+                .set("seatCount", seatLayout.getSeatCount())
+                .unset("seats");
+        return mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(screenId)), update, Screen.class)
+                .getMatchedCount() == 1;
+    }
+}
@@ -0,0 +1,144 @@
+package com.team.backend;
+
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.reactivestreams.Subscription;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The HTTP answers of the screen endpoints, over a mocked repository.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ControllerTests {
+
+    @Mock
+    private Repository repository;
+
+    @Mock
+    private ReactiveRepository reactiveRepository;
+
+    @InjectMocks
+    private Controller controller;
+
+    private MockMvc mvc;
+
+    @Before
+    public void setUp() {
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    public void streamsEveryScreenAsOneJsonDocumentPerLine() throws Exception {
+        when(reactiveRepository.findAll()).thenReturn(Flux.range(0, 3).map(ControllerTests::screen));
+        MvcResult started = mvc.perform(get("/screen/stream").accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted()).andReturn();
+        String body = mvc.perform(asyncDispatch(started)).andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_STREAM_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.trim().split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++)
+            assertTrue(lines[i], lines[i].contains("\"screenName\":\"Screen " + i + "\""));
+    }
+
+    @Test
+    public void pullsScreensFromTheCursorInBoundedBatches() {
+        List<Long> requested = new CopyOnWriteArrayList<>();
+        when(reactiveRepository.findAll()).thenReturn(Flux.range(0, 1000).map(ControllerTests::screen)
+                .doOnRequest(requested::add));
+
+        // a client that reads one screen at a time
+        List<Screen> received = new ArrayList<>();
+        controller.streamAllScreens().subscribe(new BaseSubscriber<Screen>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(Screen screen) {
+                received.add(screen);
+                if (received.size() < 100)
+                    request(1);
+            }
+        });
+
+        assertEquals(100, received.size());
+        assertEquals(Long.valueOf(64), requested.get(0));
+        long pulled = 0;
+        for (long n : requested) {
+            assertTrue("requested " + n, n <= 64);
+            pulled += n;
+        }
+        // the cursor runs at most one batch ahead of the client, not to the end of the collection
+        assertTrue("pulled " + pulled, pulled < 100 + 64);
+    }
+
+    @Test
+    public void answersBookingConflicts() throws Exception {
+        ObjectId id = ObjectId.get();
+        when(repository.bookSeat(id, 3)).thenReturn(true, false);
+        mvc.perform(put("/screen/{id}/seats/{seat}", id.toHexString(), 3)).andExpect(status().isNoContent());
+        mvc.perform(put("/screen/{id}/seats/{seat}", id.toHexString(), 3)).andExpect(status().isConflict());
+        mvc.perform(delete("/screen/{id}/seats/{seat}", id.toHexString(), 4)).andExpect(status().isConflict());
+        mvc.perform(put("/screen/{id}/seats/{seat}", "not-an-id", 3)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void replacingTheLayoutOfAMissingScreenIsNotFound() throws Exception {
+        ObjectId id = ObjectId.get();
+        when(repository.replaceSeatLayout(eq(id), any(SeatLayout.class))).thenReturn(false);
+        mvc.perform(post("/screen/seats/").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"_id\":\"" + id.toHexString() + "\",\"seatLayout\":{\"rows\":[10]}}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void replacesTheLayoutOfAnExistingScreen() throws Exception {
+        ObjectId id = ObjectId.get();
+        when(repository.replaceSeatLayout(eq(id), any(SeatLayout.class))).thenReturn(true);
+        mvc.perform(post("/screen/seats/").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"_id\":\"" + id.toHexString() + "\",\"seatLayout\":{\"rows\":[10, 12]}}"))
+                .andExpect(status().isOk()).andExpect(jsonPath("$.seatCount").value(22));
+        verify(repository, never()).save(any(Screen.class));
+    }
+
+    private static Screen screen(int i) {
+        Screen screen = new Screen();
+        screen.set_id(ObjectId.get());
+        screen.setScreenName("Screen " + i);
+        return screen;
+    }
+}
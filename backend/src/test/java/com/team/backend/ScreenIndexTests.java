@@ -0,0 +1,64 @@
+package com.team.backend;
+
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ScreenIndexTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void screenNameQueryUsesIndex() {
+        assertIndexScan(new Document("screenName", "Screen 1"));
+    }
+
+    @Test
+    public void screenNameAndShowingQueryUsesIndex() {
+        assertIndexScan(new Document("screenName", "Screen 1")
+                .append("showing", new Document("$gte", new Date(0)).append("$lt", new Date())));
+    }
+
+    @Test
+    public void availableShowingsQueryUsesIndex() {
+        assertIndexScan(new Document("showing", new Document("$gte", new Date(0)).append("$lt", new Date()))
+                .append("seatBooked", false));
+    }
+
+    private void assertIndexScan(Document filter) {
+        Document explain = mongoTemplate.getDb().runCommand(new Document("explain",
+                new Document("find", "screen").append("filter", filter))
+                .append("verbosity", "queryPlanner"));
+        Document plan = (Document) ((Document) explain.get("queryPlanner")).get("winningPlan");
+        assertTrue("expected an index scan in " + plan.toJson(), hasStage(plan, "IXSCAN"));
+        assertFalse("unexpected collection scan in " + plan.toJson(), hasStage(plan, "COLLSCAN"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean hasStage(Document plan, String stage) {
+        if (stage.equals(plan.getString("stage")))
+            return true;
+        Object input = plan.get("inputStage");
+        if (input instanceof Document && hasStage((Document) input, stage))
+            return true;
+        Object inputs = plan.get("inputStages");
+        if (inputs instanceof List)
+            for (Document child : (List<Document>) inputs)
+                if (hasStage(child, stage))
+                    return true;
+        return false;
+    }
+}
@@ -0,0 +1,71 @@
+package com.team.backend;
+
+import org.bson.types.Binary;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SeatLayoutCodecTests {
+
+    @Test
+    public void roundTripsRowGeometry() {
+        int[][] layouts = {
+                {},
+                {10},
+                {10, 12},
+                {8, 10, 10, 10, 12, 12, 1},
+                // lengths and runs past one varint byte
+                {300, 300, 1, 70000},
+        };
+        for (int[] rows : layouts)
+            assertArrayEquals(Arrays.toString(rows), rows, SeatLayoutCodec.decodeRows(SeatLayoutCodec.encodeRows(rows)));
+    }
+
+    @Test
+    public void storesARunOfEqualRowsAsOnePair() {
+        assertEquals(0, SeatLayoutCodec.encodeRows(new int[0]).getData().length);
+        assertArrayEquals(new byte[]{1, 18}, SeatLayoutCodec.encodeRows(new int[]{18}).getData());
+
+        int[] rows = new int[20];
+        Arrays.fill(rows, 18);
+        assertArrayEquals(new byte[]{20, 18}, SeatLayoutCodec.encodeRows(rows).getData());
+
+        // 1000 rows: the repeat takes two varint bytes and the decoder grows past its first guess
+        int[] hall = new int[1000];
+        Arrays.fill(hall, 24);
+        Binary encoded = SeatLayoutCodec.encodeRows(hall);
+        assertEquals(3, encoded.getData().length);
+        assertArrayEquals(hall, SeatLayoutCodec.decodeRows(encoded));
+    }
+
+    @Test
+    public void packsSeatStatesIntoWholeWords() {
+        BitSet booked = new BitSet();
+        assertArrayEquals(new long[0], SeatLayoutCodec.encodeStates(booked, 0));
+        assertArrayEquals(new long[]{0}, SeatLayoutCodec.encodeStates(booked, 1));
+        assertArrayEquals(new long[]{0, 0}, SeatLayoutCodec.encodeStates(booked, 65));
+
+        booked.set(0);
+        booked.set(63);
+        booked.set(64);
+        long[] words = SeatLayoutCodec.encodeStates(booked, 130);
+        assertArrayEquals(new long[]{1L | 1L << 63, 1L, 0}, words);
+        assertEquals(booked, SeatLayoutCodec.decodeStates(words));
+        assertEquals(new BitSet(), SeatLayoutCodec.decodeStates(null));
+    }
+
+    @Test
+    public void roundTripsAScreenLayout() {
+        SeatLayout layout = SeatLayout.of(new int[]{10, 10, 12}, new int[]{0, 9, 31});
+        Screen screen = new Screen();
+        screen.setSeatLayout(layout);
+        assertEquals(32, screen.getSeatCount());
+        SeatLayout read = screen.getSeatLayout();
+        assertArrayEquals(new int[]{10, 10, 12}, read.getRows());
+        assertArrayEquals(new int[]{0, 9, 31}, read.getBooked());
+    }
+}
@@ -0,0 +1,79 @@
+package com.team.backend;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SeatLayoutMigrationTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SeatLayoutMigration migration;
+
+    @Autowired
+    private Repository repository;
+
+    @Before
+    public void clear() {
+        mongoTemplate.dropCollection(Screen.class);
+    }
+
+    @Test
+    public void packsLegacySeatArrays() {
+        ObjectId legacy = ObjectId.get();
+        // as older versions stored a screen: a free-form seats array and no layout
+        mongoTemplate.insert(new Document("_id", legacy).append("screenName", "Screen 1").append("seats", Arrays.asList(
+                new Document("row", "A").append("booked", false), new Document("row", "A").append("booked", true),
+                new Document("row", "B").append("booked", true))), "screen");
+
+        migration.run(new DefaultApplicationArguments(new String[0]));
+
+        Document stored = mongoTemplate.findById(legacy, Document.class, "screen");
+        assertFalse(stored.containsKey("seats"));
+        assertEquals(3, stored.getInteger("seatCount").intValue());
+        assertEquals(Collections.singletonList(0b110L), stored.get("seatStates"));
+        assertArrayEquals(new int[]{2, 1}, SeatLayoutCodec.decodeRows((Binary) stored.get("layout")));
+
+        // a converted screen books through $bit like any other
+        assertFalse(repository.bookSeat(legacy, 1));
+        assertTrue(repository.bookSeat(legacy, 0));
+    }
+
+    @Test
+    public void leavesConvertedScreensAlone() {
+        Screen screen = new Screen();
+        screen.set_id(ObjectId.get());
+        screen.setSeatLayout(SeatLayout.of(new int[]{10}, new int[]{4}));
+        repository.save(screen);
+        // a stale array next to a layout, as a partly upgraded writer might leave
+        mongoTemplate.getCollection("screen").updateOne(new Document("_id", screen._id),
+                new Document("$set", new Document("seats", Collections.singletonList(new Document("row", "A")))));
+
+        migration.run(new DefaultApplicationArguments(new String[0]));
+        migration.run(new DefaultApplicationArguments(new String[0]));
+
+        Screen stored = repository.findBy_id(screen._id);
+        assertArrayEquals(new int[]{10}, stored.getSeatLayout().getRows());
+        assertArrayEquals(new int[]{4}, stored.getSeatLayout().getBooked());
+    }
+}
@@ -0,0 +1,64 @@
+package com.team.backend;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SeatLayoutTests {
+
+    @Test
+    public void readsRowsAndBookingsFromLegacySeats() {
+        SeatLayout layout = SeatLayout.fromLegacySeats(Arrays.asList(
+                seat("A", false), seat("A", true), seat("A", false),
+                seat("B", false), seat("B", true),
+                seat("C", false)));
+        assertArrayEquals(new int[]{3, 2, 1}, layout.getRows());
+        assertArrayEquals(new int[]{1, 4}, layout.getBooked());
+    }
+
+    @Test
+    public void treatsSeatsWithoutRowsAsOneRow() {
+        SeatLayout layout = SeatLayout.fromLegacySeats(Arrays.asList("1", "2", "3", 4));
+        assertArrayEquals(new int[]{4}, layout.getRows());
+        assertArrayEquals(new int[0], layout.getBooked());
+
+        assertArrayEquals(new int[0], SeatLayout.fromLegacySeats(new ArrayList<>()).getRows());
+    }
+
+    @Test
+    public void packsLegacySeatsOnceAndKeepsAnExistingLayout() {
+        Screen screen = new Screen();
+        assertFalse(screen.packLegacySeats());
+
+        screen.setSeats(new ArrayList<>(Arrays.asList(seat("A", true), seat("A", false))));
+        assertTrue(screen.packLegacySeats());
+        assertNull(screen.getSeats());
+        assertArrayEquals(new int[]{2}, screen.getSeatLayout().getRows());
+        assertArrayEquals(new int[]{0}, screen.getSeatLayout().getBooked());
+
+        // a screen that already has a layout only drops the stale array
+        screen.setSeats(new ArrayList<>(Arrays.asList(seat("A", false))));
+        assertTrue(screen.packLegacySeats());
+        assertArrayEquals(new int[]{2}, screen.getSeatLayout().getRows());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsSeatsPastTheLastRow() {
+        new SeatLayout(new int[]{10}).setBooked(10, true);
+    }
+
+    private static Map<String, Object> seat(String row, boolean booked) {
+        Map<String, Object> seat = new HashMap<>();
+        seat.put("row", row);
+        seat.put("booked", booked);
+        return seat;
+    }
+}
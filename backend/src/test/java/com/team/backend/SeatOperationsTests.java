@@ -0,0 +1,99 @@
+package com.team.backend;
+
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SeatOperationsTests {
+
+    @Autowired
+    private Repository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private ObjectId screenId;
+
+    @Before
+    public void addScreen() {
+        mongoTemplate.dropCollection(Screen.class);
+        Screen screen = new Screen();
+        screen.set_id(ObjectId.get());
+        screen.setScreenName("Screen 1");
+        // 80 seats, so seat 70 lives in the second word of seatStates
+        screen.setSeatLayout(new SeatLayout(new int[]{40, 40}));
+        repository.save(screen);
+        screenId = screen._id;
+    }
+
+    @Test
+    public void booksAFreeSeatOnce() {
+        assertTrue(repository.bookSeat(screenId, 5));
+        assertFalse(repository.bookSeat(screenId, 5));
+        assertTrue(repository.bookSeat(screenId, 70));
+        assertArrayEquals(new int[]{5, 70}, repository.findBy_id(screenId).getSeatLayout().getBooked());
+    }
+
+    @Test
+    public void releasesOnlyABookedSeat() {
+        assertFalse(repository.releaseSeat(screenId, 5));
+        assertTrue(repository.bookSeat(screenId, 5));
+        assertTrue(repository.bookSeat(screenId, 6));
+        assertTrue(repository.releaseSeat(screenId, 5));
+        assertFalse(repository.releaseSeat(screenId, 5));
+        assertArrayEquals(new int[]{6}, repository.findBy_id(screenId).getSeatLayout().getBooked());
+    }
+
+    @Test
+    public void rejectsSeatsOutsideTheLayout() {
+        assertFalse(repository.bookSeat(screenId, -1));
+        assertFalse(repository.bookSeat(screenId, 80));
+        assertFalse(repository.releaseSeat(screenId, 80));
+        assertFalse(repository.bookSeat(ObjectId.get(), 0));
+        assertEquals(0, repository.findBy_id(screenId).getSeatLayout().getBooked().length);
+    }
+
+    @Test
+    public void onlyOneOfManyConcurrentBookingsOfASeatWins() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+                attempts.add(() -> repository.bookSeat(screenId, 7));
+            int won = 0;
+            for (Future<Boolean> attempt : pool.invokeAll(attempts))
+                if (attempt.get())
+                    won++;
+            assertEquals(1, won);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void replacesTheLayoutOfAnExistingScreenOnly() {
+        assertFalse(repository.replaceSeatLayout(ObjectId.get(), new SeatLayout(new int[]{10})));
+        assertTrue(repository.replaceSeatLayout(screenId, new SeatLayout(new int[]{10})));
+        assertEquals(10, repository.findBy_id(screenId).getSeatCount());
+        assertFalse(repository.bookSeat(screenId, 10));
+    }
+}